@@ -0,0 +1,117 @@
+package com.samuel.sniffers.compression;
+
+import com.samuel.sniffers.metrics.CompressionMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses into the target stream. flush() ends the current deflate block with a sync flush, so a
+ * client can decode everything written so far and the stream flush policy keeps working.
+ *
+ * <p>Compressed output is staged in memory and copied to the target after each compressor call, which
+ * keeps the time spent writing to a slow client out of the compression time metric. close() finishes
+ * the compressed stream but leaves the target open.
+ */
+public class CompressingOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream target;
+    private final ContentCoding coding;
+    private final String response;
+    private final CompressionMetrics metrics;
+    private final Deflater deflater;
+    private final ByteArrayOutputStream staged = new ByteArrayOutputStream(BUFFER_SIZE);
+    private final DeflaterOutputStream compressor;
+
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private long compressionNanos;
+    private boolean finished;
+
+    public CompressingOutputStream(OutputStream target, ContentCoding coding, int level, String response, CompressionMetrics metrics) throws IOException {
+        this.target = target;
+        this.coding = coding;
+        this.response = response;
+        this.metrics = metrics;
+
+        if (coding == ContentCoding.GZIP) {
+            LeveledGzipOutputStream gzip = new LeveledGzipOutputStream(staged, level);
+            this.deflater = gzip.deflater();
+            this.compressor = gzip;
+        } else {
+            this.deflater = new Deflater(level);
+            this.compressor = new DeflaterOutputStream(staged, deflater, BUFFER_SIZE, true);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        compressor.write(b, off, len);
+        compressionNanos += System.nanoTime() - start;
+
+        uncompressedBytes += len;
+        drain();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        compressor.flush();
+        compressionNanos += System.nanoTime() - start;
+
+        drain();
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        try {
+            long start = System.nanoTime();
+            compressor.finish();
+            compressionNanos += System.nanoTime() - start;
+
+            drain();
+            target.flush();
+            metrics.record(coding.value(), response, uncompressedBytes, compressedBytes, compressionNanos);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (staged.size() > 0) {
+            compressedBytes += staged.size();
+            staged.writeTo(target);
+            staged.reset();
+        }
+    }
+
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        private LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE, true);
+            def.setLevel(level);
+        }
+
+        private Deflater deflater() {
+            return def;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.samuel.sniffers.compression;
+
+import com.samuel.sniffers.metrics.CompressionMetrics;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Holds a JSON body back until it crosses the size threshold, then switches to compressing it. Bodies
+ * that stay below the threshold are written as they are, with their real Content-Length. Responses
+ * that are not JSON, Smile or CBOR or already carry a Content-Encoding are passed through on the first
+ * write.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum Mode { UNDECIDED, BUFFERING, COMPRESSING, PASS_THROUGH }
+
+    private final ContentCoding coding;
+    private final long threshold;
+    private final int level;
+    private final CompressionMetrics metrics;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private Mode mode = Mode.UNDECIDED;
+    private long declaredContentLength = -1;
+    private CompressingOutputStream compressor;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CompressingResponseWrapper(HttpServletResponse response, ContentCoding coding, long threshold, int level, CompressionMetrics metrics) {
+        super(response);
+        this.coding = coding;
+        this.threshold = threshold;
+        this.level = level;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ThresholdOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (mode == Mode.PASS_THROUGH) {
+            super.setContentLengthLong(len);
+        } else {
+            declaredContentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (mode == Mode.PASS_THROUGH) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (mode == Mode.BUFFERING) {
+            buffer.reset();
+        }
+        super.resetBuffer();
+    }
+
+    /**
+     * Writes whatever is still held back. Called by the filter once the handler has returned.
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+
+        switch (mode) {
+            case BUFFERING -> {
+                super.setContentLengthLong(buffer.size());
+                buffer.writeTo(getResponse().getOutputStream());
+            }
+            case COMPRESSING -> compressor.close();
+            case UNDECIDED -> {
+                if (declaredContentLength >= 0) {
+                    super.setContentLengthLong(declaredContentLength);
+                }
+            }
+            default -> {
+                // already written
+            }
+        }
+    }
+
+    private void decide() {
+        String contentType = getContentType();
+        boolean compressible = contentType != null && !contentType.contains("ndjson")
+                && (contentType.contains("json") || contentType.contains("smile") || contentType.contains("cbor"));
+
+        if (compressible) {
+            addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (!compressible || containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            mode = Mode.PASS_THROUGH;
+            if (declaredContentLength >= 0) {
+                super.setContentLengthLong(declaredContentLength);
+            }
+        } else {
+            mode = Mode.BUFFERING;
+        }
+    }
+
+    private void startCompressing() throws IOException {
+        super.setHeader(HttpHeaders.CONTENT_ENCODING, coding.value());
+        compressor = new CompressingOutputStream(getResponse().getOutputStream(), coding, level, "json", metrics);
+        buffer.writeTo(compressor);
+        buffer.reset();
+        mode = Mode.COMPRESSING;
+    }
+
+    private OutputStream target() throws IOException {
+        return mode == Mode.COMPRESSING ? compressor : getResponse().getOutputStream();
+    }
+
+    private class ThresholdOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (mode == Mode.UNDECIDED) {
+                decide();
+            }
+            if (mode == Mode.BUFFERING) {
+                if (buffer.size() + len <= threshold) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+                startCompressing();
+            }
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Held back and compressed bodies are written out by finish(), a sync flush here would only
+            // cost compression ratio
+            if (mode == Mode.PASS_THROUGH) {
+                target().flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Async writes are not supported on compressed responses");
+        }
+    }
+}
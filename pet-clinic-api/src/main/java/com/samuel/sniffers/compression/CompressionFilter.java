@@ -0,0 +1,53 @@
+package com.samuel.sniffers.compression;
+
+import com.samuel.sniffers.config.CompressionConfig;
+import com.samuel.sniffers.metrics.CompressionMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Compresses JSON, Smile and CBOR responses larger than petshop.compression.min-response-size when the client accepts
+ * gzip or deflate. Streams are compressed by {@link StreamCompression} and pass through untouched.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private final CompressionConfig config;
+    private final CompressionMetrics metrics;
+
+    public CompressionFilter(CompressionConfig config, CompressionMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled() || request.getRequestURI().endsWith("/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        ContentCoding coding = ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, coding,
+                config.getMinResponseSize().toBytes(), config.getLevel(), metrics);
+        filterChain.doFilter(request, wrapper);
+        wrapper.finish();
+    }
+}
@@ -0,0 +1,74 @@
+package com.samuel.sniffers.compression;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * The content codings the API can produce, in order of preference.
+ */
+public enum ContentCoding {
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String value;
+
+    ContentCoding(String value) {
+        this.value = value;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    /**
+     * Picks the coding with the highest q-value in an Accept-Encoding header, gzip on a tie.
+     * Returns null when the client accepts none of them.
+     */
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return null;
+        }
+
+        ContentCoding best = null;
+        double bestQuality = 0;
+        double wildcardQuality = -1;
+        double[] qualities = {-1, -1};
+
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            double quality = quality(tokens);
+
+            if ("*".equals(coding)) {
+                wildcardQuality = quality;
+            }
+            for (ContentCoding candidate : values()) {
+                if (candidate.value.equalsIgnoreCase(coding)) {
+                    qualities[candidate.ordinal()] = quality;
+                }
+            }
+        }
+
+        for (ContentCoding candidate : values()) {
+            double quality = qualities[candidate.ordinal()] >= 0 ? qualities[candidate.ordinal()] : wildcardQuality;
+            if (quality > bestQuality) {
+                best = candidate;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String parameter = tokens[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,59 @@
+package com.samuel.sniffers.compression;
+
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.streaming.StreamMediaTypes;
+import com.samuel.sniffers.config.CompressionConfig;
+import com.samuel.sniffers.metrics.CompressionMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Builds stream responses, compressed when the client accepts gzip or deflate. Every flush of
+ * the stream writer becomes a sync flush of the compressor, so records reach the client at the same
+ * cadence as an uncompressed stream.
+ */
+@Component
+public class StreamCompression {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(StreamMediaTypes.NDJSON_VALUE);
+
+    private final CompressionConfig config;
+    private final CompressionMetrics metrics;
+
+    public StreamCompression(CompressionConfig config, CompressionMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    public ResponseEntity<StreamingResponseBody> ndjson(String acceptEncoding, StreamingResponseBody body) {
+        return stream(StreamFormat.NDJSON, acceptEncoding, body);
+    }
+
+    public ResponseEntity<StreamingResponseBody> stream(StreamFormat format, String acceptEncoding, StreamingResponseBody body) {
+        return stream(MediaType.parseMediaType(format.mediaType()), acceptEncoding, body);
+    }
+
+    public ResponseEntity<StreamingResponseBody> stream(MediaType contentType, String acceptEncoding, StreamingResponseBody body) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(contentType);
+        if (!config.isEnabled()) {
+            return builder.body(body);
+        }
+
+        builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        ContentCoding coding = ContentCoding.negotiate(acceptEncoding);
+        if (coding == null) {
+            return builder.body(body);
+        }
+
+        return builder
+                .header(HttpHeaders.CONTENT_ENCODING, coding.value())
+                .body(outputStream -> {
+                    try (CompressingOutputStream compressed = new CompressingOutputStream(outputStream, coding, config.getLevel(), "stream", metrics)) {
+                        body.writeTo(compressed);
+                    }
+                });
+    }
+}
@@ -0,0 +1,29 @@
+package com.samuel.sniffers.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/*
+  Settings of the basket status Server-Sent Events feed. The last replay-buffer events are kept for
+  clients reconnecting with Last-Event-ID, plus the rest of a transaction that started among them, a
+  subscriber that falls further behind than that is closed and has to reconnect. A subscriber whose send
+  blocks for longer than send-timeout is dropped. At most max-subscribers connections are open at once,
+  further subscriptions are rejected with 503 and Retry-After. An idle connection is closed after timeout.
+*/
+@Configuration
+@ConfigurationProperties(prefix = "petshop.basket-feed")
+@Getter
+@Setter
+public class BasketFeedConfig {
+    private int replayBuffer = 1000;
+    private int maxSubscribers = 100;
+    private int dispatchThreads = 2;
+    private Duration timeout = Duration.ofMinutes(30);
+    private Duration sendTimeout = Duration.ofSeconds(10);
+    private Duration reconnectTime = Duration.ofSeconds(3);
+    private Duration retryAfter = Duration.ofSeconds(5);
+}
@@ -0,0 +1,25 @@
+package com.samuel.sniffers.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.util.zip.Deflater;
+
+/*
+  Response compression negotiated from Accept-Encoding. Streams are always compressed when the client
+  accepts it, ordinary JSON responses only once they grow beyond min-response-size.
+*/
+@Configuration
+@ConfigurationProperties(prefix = "petshop.compression")
+@Getter
+@Setter
+public class CompressionConfig {
+    private boolean enabled = true;
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    // 1 (fastest) to 9 (smallest), -1 for the zlib default of 6
+    private int level = Deflater.DEFAULT_COMPRESSION;
+}
@@ -0,0 +1,22 @@
+package com.samuel.sniffers.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/*
+  Counters behind the total=estimate strategy of the list endpoints. At most max-entries counters are
+  kept, the least recently read one is dropped first. A counter is seeded again with a COUNT once it is
+  older than reseed-interval, which also corrects whatever it drifted by in between.
+*/
+@Configuration
+@ConfigurationProperties(prefix = "petshop.count-estimate")
+@Getter
+@Setter
+public class CountEstimateConfig {
+    private int maxEntries = 10000;
+    private Duration reseedInterval = Duration.ofMinutes(10);
+}
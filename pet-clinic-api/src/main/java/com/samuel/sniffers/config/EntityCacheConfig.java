@@ -0,0 +1,24 @@
+package com.samuel.sniffers.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/*
+  Cache of the JSON written for single customer and basket reads, kept in direct memory outside the heap.
+  capacity is reserved once at startup and split into blocks of block-size, an entry takes as many blocks
+  as its JSON needs. Entries larger than max-entry-size are not cached. The least recently read entries
+  are evicted when the capacity is used up.
+*/
+@Configuration
+@ConfigurationProperties(prefix = "petshop.entity-cache")
+@Getter
+@Setter
+public class EntityCacheConfig {
+    private boolean enabled = true;
+    private DataSize capacity = DataSize.ofMegabytes(64);
+    private DataSize blockSize = DataSize.ofKilobytes(1);
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+}
@@ -0,0 +1,21 @@
+package com.samuel.sniffers.config;
+
+import com.samuel.sniffers.api.factory.ObjectMapperFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+  The ObjectMapper Spring Boot builds from the spring.jackson properties, tuned like the entity factory's.
+  That one bean backs the JSON, Smile and CBOR message converters, and JacksonModelFactory builds its NON_NULL
+  conversion mapper from it, so requests, responses and DTO conversions share settings. Responses keep the
+  inclusion Spring Boot configures.
+*/
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sharedObjectMapperCustomizer() {
+        return builder -> builder.postConfigurer(ObjectMapperFactory::tune);
+    }
+}
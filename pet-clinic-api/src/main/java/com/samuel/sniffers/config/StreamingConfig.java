@@ -0,0 +1,60 @@
+package com.samuel.sniffers.config;
+
+import com.samuel.sniffers.api.streaming.FlushPolicy;
+import com.samuel.sniffers.dto.ExportColumns;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Settings of the NDJSON streaming endpoints. A stream is flushed when any of the flush limits is
+  reached, set a limit to 0 to disable it. flush.records = 1 with the others disabled flushes per record.
+  At most executor.max-concurrent streams run at once and executor.max-queued wait for a thread, further
+  requests are rejected with 503 and Retry-After. export.columns are the CSV export columns written when a
+  request does not choose its own.
+*/
+@Configuration
+@ConfigurationProperties(prefix = "petshop.streaming")
+@Getter
+@Setter
+public class StreamingConfig {
+    private final Flush flush = new Flush();
+    private final Executor executor = new Executor();
+    private final Export export = new Export();
+
+    // Streamed entities are detached after this many rows, so the persistence context stays small
+    private int clearEvery = 1000;
+
+    public FlushPolicy getFlushPolicy() {
+        return new FlushPolicy(flush.getRecords(), flush.getBytes().toBytes(), flush.getInterval());
+    }
+
+    @Getter
+    @Setter
+    public static class Flush {
+        private int records = 1000;
+        private DataSize bytes = DataSize.ofKilobytes(64);
+        private Duration interval = Duration.ofMillis(500);
+    }
+
+    @Getter
+    @Setter
+    public static class Executor {
+        // Each running stream holds a database connection for its whole duration
+        private int maxConcurrent = 2;
+        private int maxQueued = 8;
+        private Duration retryAfter = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+        private List<String> columns = new ArrayList<>(ExportColumns.HIERARCHY);
+    }
+}
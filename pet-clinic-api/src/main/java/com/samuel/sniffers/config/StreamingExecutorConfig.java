@@ -0,0 +1,44 @@
+package com.samuel.sniffers.config;
+
+import com.samuel.sniffers.service.streaming.StreamAdmission;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+  StreamingResponseBody runs on this bounded pool instead of Spring MVC's default thread-per-task
+  executor. StreamAdmission caps the admitted streams, the queue has room for all of them so admitted
+  streams are never rejected by the pool. StreamAdmission also watches the async lifecycle, so a stream
+  cancelled while it waits in the queue gives its permit back.
+*/
+@Configuration
+public class StreamingExecutorConfig implements WebMvcConfigurer {
+
+    private final StreamingConfig streamingConfig;
+    private final StreamAdmission streamAdmission;
+
+    public StreamingExecutorConfig(StreamingConfig streamingConfig, StreamAdmission streamAdmission) {
+        this.streamingConfig = streamingConfig;
+        this.streamAdmission = streamAdmission;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor streamingTaskExecutor() {
+        StreamingConfig.Executor settings = streamingConfig.getExecutor();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(settings.getMaxConcurrent());
+        executor.setMaxPoolSize(settings.getMaxConcurrent());
+        executor.setQueueCapacity(settings.getMaxConcurrent() + settings.getMaxQueued());
+        executor.setThreadNamePrefix("stream-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingTaskExecutor());
+        configurer.registerCallableInterceptors(streamAdmission);
+    }
+}
@@ -0,0 +1,19 @@
+package com.samuel.sniffers.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/*
+  Limits of the customer/basket/item view endpoints. The plain list endpoints answer with at most
+  max-list-rows rows and refuse larger results, which have to be read through the paged or stream
+  endpoints. A page can not be larger than max-list-rows either.
+*/
+@Configuration
+@ConfigurationProperties(prefix = "petshop.view")
+@Getter
+@Setter
+public class ViewConfig {
+    private int maxListRows = 1000;
+}
@@ -0,0 +1,6 @@
+package com.samuel.sniffers.config.datasource;
+
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,28 @@
+package com.samuel.sniffers.config.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers that the current request used the primary for a read-write transaction, so later
+ * read-only transactions of the same request do not read stale rows from the replica.
+ */
+public final class ReadYourWrites {
+
+    private static final String PRIMARY_USED = ReadYourWrites.class.getName() + ".PRIMARY_USED";
+
+    private ReadYourWrites() {
+    }
+
+    public static void markPrimaryUsed() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(PRIMARY_USED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public static boolean isPrimaryUsed() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(PRIMARY_USED, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
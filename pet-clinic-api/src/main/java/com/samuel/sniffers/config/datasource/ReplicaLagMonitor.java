@@ -0,0 +1,87 @@
+package com.samuel.sniffers.config.datasource;
+
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Checks the replica lag at most once per interval. Requests arriving while a check runs use the
+ * previous result instead of waiting for it.
+ */
+public class ReplicaLagMonitor {
+
+    private static final String LAG_COLUMN = "Seconds_Behind_Master";
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final ReentrantLock checkLock = new ReentrantLock();
+    private final Logger logger;
+
+    private volatile boolean replicaUsable;
+    private volatile long nextCheckAt;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.nextCheckAt = System.nanoTime();
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    public boolean isReplicaUsable() {
+        if (System.nanoTime() - nextCheckAt >= 0 && checkLock.tryLock()) {
+            try {
+                replicaUsable = checkLag();
+                nextCheckAt = System.nanoTime() + checkInterval.toNanos();
+            } finally {
+                checkLock.unlock();
+            }
+        }
+        return replicaUsable;
+    }
+
+    private boolean checkLag() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+
+            if (!resultSet.next()) {
+                logger.warn("Replica lag check returned no rows, reading from the primary.");
+                return false;
+            }
+
+            String lag = resultSet.getString(lagColumn(resultSet));
+            if (lag == null) {
+                logger.warn("Replica is not replicating, reading from the primary.");
+                return false;
+            }
+
+            if (Long.parseLong(lag.trim()) > maxLag.toSeconds()) {
+                logger.warn("Replica is {} seconds behind, reading from the primary.", lag);
+                return false;
+            }
+            return true;
+        } catch (SQLException | NumberFormatException ex) {
+            logger.error("Replica lag check failed, reading from the primary.", ex);
+            return false;
+        }
+    }
+
+    private static int lagColumn(ResultSet resultSet) {
+        try {
+            return resultSet.findColumn(LAG_COLUMN);
+        } catch (SQLException ex) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.samuel.sniffers.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+  Connection settings of the read replica. Routing is only enabled when a url is configured,
+  pool settings are bound from petshop.datasource.replica.hikari.
+*/
+@ConfigurationProperties(prefix = "petshop.datasource.replica")
+@Getter
+@Setter
+public class ReplicaProperties {
+    private String url;
+    private String username;
+    private String password;
+
+    // Must return the lag in seconds, either in a Seconds_Behind_Master column or as the first column
+    private String lagQuery = "SHOW SLAVE STATUS";
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration lagCheckInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,29 @@
+package com.samuel.sniffers.config.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Primary data source for read-write connections, marks the request for {@link ReadYourWrites}.
+ */
+public class WriteTrackingDataSource extends DelegatingDataSource {
+
+    public WriteTrackingDataSource(DataSource primary) {
+        super(primary);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReadYourWrites.markPrimaryUsed();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ReadYourWrites.markPrimaryUsed();
+        return super.getConnection(username, password);
+    }
+}
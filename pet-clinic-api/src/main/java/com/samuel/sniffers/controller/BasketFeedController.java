@@ -0,0 +1,70 @@
+package com.samuel.sniffers.controller;
+
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+import com.samuel.sniffers.enums.BasketStatus;
+import com.samuel.sniffers.service.ShoppingBasketService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/v1/basket-status")
+@Tag(name = "Basket feed controller", description = "APIs for following basket status changes")
+public class BasketFeedController {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final ShoppingBasketService basketService;
+    private final Logger logger;
+
+    public BasketFeedController(ShoppingBasketService basketService) {
+        this.basketService = basketService;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Operation(summary = "Follow basket status changes", description = "Server-Sent Events of basket status changes, sent once " +
+            "the change is committed. An admin token receives every tenant's changes, any other token only those of its own " +
+            "customers. customerId=<id> and status=PAID,PROCESSED narrow the feed. Each event has an id, a client reconnecting " +
+            "with Last-Event-ID first receives the buffered changes it missed. When some of them are no longer buffered, or the " +
+            "id is from before a restart, a reset event comes first and the client should reload the baskets it follows.")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatusChanges(@RequestParam(required = false) String customerId,
+                                          @RequestParam(required = false) List<String> status,
+                                          @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+
+        logger.debug("Processing request to follow basket status changes");
+        return basketService.subscribeToStatusChanges(customerId, toStatuses(status), blankToNull(lastEventId));
+    }
+
+    private static Set<BasketStatus> toStatuses(List<String> statuses) {
+        Set<BasketStatus> result = EnumSet.noneOf(BasketStatus.class);
+        if (statuses == null) {
+            return result;
+        }
+
+        for (String status : statuses) {
+            try {
+                result.add(BasketStatus.valueOf(status.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Invalid basket status: " + status);
+            }
+        }
+        return result;
+    }
+
+    private static String blankToNull(String lastEventId) {
+        return lastEventId == null || lastEventId.isBlank() ? null : lastEventId.trim();
+    }
+}
@@ -4,22 +4,38 @@ import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.logging.Logger;
 import com.samuel.sniffers.api.response.ApiResponse;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.streaming.StreamMediaTypes;
+import com.samuel.sniffers.compression.StreamCompression;
 import com.samuel.sniffers.dto.CustomerBatchUpdateDTO;
 import com.samuel.sniffers.dto.CustomerDTO;
 import com.samuel.sniffers.dto.CustomerPatchDTO;
+import com.samuel.sniffers.dto.ResponseExpansion;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.response.CustomerBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.CustomerResponseDTO;
+import com.samuel.sniffers.repository.projection.EntityVersion;
 import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.cache.CachedJson;
+import com.samuel.sniffers.service.cache.CachedResponseWriter;
+import com.samuel.sniffers.service.streaming.StreamAdmission;
+import com.samuel.sniffers.service.version.Versioned;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(value = "/v1/customer", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -27,10 +43,16 @@ import java.net.URI;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final StreamCompression streamCompression;
+    private final StreamAdmission streamAdmission;
+    private final CachedResponseWriter cachedResponseWriter;
     private final Logger logger;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, StreamCompression streamCompression, StreamAdmission streamAdmission, CachedResponseWriter cachedResponseWriter) {
         this.customerService = customerService;
+        this.streamCompression = streamCompression;
+        this.streamAdmission = streamAdmission;
+        this.cachedResponseWriter = cachedResponseWriter;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -45,72 +67,115 @@ public class CustomerController {
                 .body(ApiResponse.created("Customer created successfully", created));
     }
 
-    @Operation(summary = "Get customer by ID", description = "Retrieves customer details by ID")
+    @Operation(summary = "Get customer by ID", description = "Retrieves customer details by ID. " +
+            "The response has a strong ETag and Last-Modified, a matching If-None-Match or If-Modified-Since gets 304.")
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<CustomerResponseDTO>> getCustomer(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<CustomerResponseDTO>> getCustomer(@PathVariable String id, WebRequest webRequest,
+                                                                        HttpServletResponse response) throws IOException {
         logger.debug("Processing request to retrieve customer by id...");
-        CustomerResponseDTO customer = customerService.findById(id);
+        Optional<EntityVersion> version = customerService.findVersion(id);
+        if (EntityTags.checkNotModified(webRequest, version)) {
+            // 304 without reading the customer
+            return null;
+        }
+        if (version.isPresent()) {
+            try (CachedJson cached = customerService.findCachedById(id, version.get().version())) {
+                if (cached != null) {
+                    // Already written, returning null tells MVC the response is handled
+                    cachedResponseWriter.writeSuccess(response, "Success", cached);
+                    return null;
+                }
+            }
+        }
+        // The version read above may be older than the row findById renders
+        Versioned<CustomerResponseDTO> customer = customerService.findVersionedById(id);
+        EntityTags.setValidators(response, customer.version());
         logger.debug("Successfully retrieved customer record.");
-        return ResponseEntity.ok(ApiResponse.success(customer));
+        return ResponseEntity.ok(ApiResponse.success(customer.value()));
     }
 
-    @Operation(summary = "Get all customers", description = "Retrieves a paginated list of customers")
-    @GetMapping
+    @Operation(summary = "Get all customers", description = "Retrieves a paginated list of customers. " +
+            "Passing a cursor (empty for the first window) switches from page numbers to keyset pagination. " +
+            "The total parameter (exact, estimate or none) chooses how totalElements is computed for page numbers. " +
+            "Customers are returned as summaries, expand=baskets or expand=baskets.items includes their children.")
+    @GetMapping(produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            StreamMediaTypes.SMILE_VALUE,
+            StreamMediaTypes.CBOR_VALUE
+    })
     public ResponseEntity<PagedResponse<CustomerResponseDTO>> getAllCustomers(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String total,
+            @RequestParam(required = false) String expand,
             HttpServletRequest request) {
 
         logger.debug("Processing request to get customer get all customers.");
-        PagedResponse<CustomerResponseDTO> response = customerService.findAll(
-                page, size, sortBy, direction, request.getRequestURL().toString());
+        ResponseExpansion expansion = ResponseExpansion.forCustomers(expand);
+        PagedResponse<CustomerResponseDTO> response = cursor != null
+                ? customerService.findAllByCursor(cursor, size, sortBy, direction, expansion, request.getRequestURL().toString())
+                : customerService.findAll(page, size, sortBy, direction, TotalCountStrategy.fromValue(total), expansion, request.getRequestURL().toString());
 
         logger.debug("Completed request to get customer get all customers.");
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Stream all customers", description = "Streams a list of customers as newline-delimited JSON")
+    @Operation(summary = "Stream all customers", description = "Streams a list of customers as newline-delimited JSON. " +
+            "Customers are written as summaries, expand=baskets or expand=baskets.items includes their children. " +
+            "Rows are in id order, after=<id> resumes after that row and checkpoint=N adds a {\"checkpoint\":\"<id>\"} line every N rows.")
     @GetMapping(
             value = "/stream",
             produces = {
-            "application/x-ndjson",
+            StreamMediaTypes.NDJSON_VALUE,
+            StreamMediaTypes.SMILE_VALUE,
+            StreamMediaTypes.CBOR_VALUE,
             MediaType.APPLICATION_JSON_VALUE,
             MediaType.TEXT_PLAIN_VALUE
     })
-    public ResponseEntity<StreamingResponseBody> streamAllCustomers() {
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers(@RequestParam(required = false) String expand,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam(required = false) Integer checkpoint,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
         logger.debug("Processing request to retrieve customers using stream API");
 
-        StreamingResponseBody responseBody = customerService::streamAllToResponse;
+        ResponseExpansion expansion = ResponseExpansion.forCustomers(expand);
+        StreamResume resume = StreamResume.of(after, checkpoint);
+        StreamFormat format = StreamFormat.fromAccept(accept);
+        StreamingResponseBody responseBody = outputStream -> customerService.streamAllToResponse(outputStream, expansion, resume, format);
 
         logger.debug("Completed request to retrieve customers using stream API. Status: successful");
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/x-ndjson"))
-                .body(responseBody);
+        return streamCompression.stream(format, acceptEncoding, streamAdmission.admit(responseBody));
     }
 
-    @Operation(summary = "Update customer", description = "Updates customer information")
+    @Operation(summary = "Update customer", description = "Updates customer information. " +
+            "With If-Match the update only applies while the customer still has that ETag, otherwise 412.")
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<CustomerResponseDTO>> updateCustomer(
             @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody CustomerDTO customerDTO) {
 
         logger.debug("Processing request to update customer with id {}.", id);
-        CustomerResponseDTO updated = customerService.update(id, customerDTO);
+        CustomerResponseDTO updated = customerService.update(id, customerDTO, EntityTags.expectedVersion(ifMatch));
 
         logger.debug("Completed request to update customer with id {}.", id);
         return ResponseEntity.ok(ApiResponse.success("Customer updated successfully", updated));
     }
 
-    @Operation(summary = "Partially update customer", description = "Allows partial updates to customer data")
+    @Operation(summary = "Partially update customer", description = "Allows partial updates to customer data. " +
+            "With If-Match the update only applies while the customer still has that ETag, otherwise 412.")
     @PatchMapping("/{id}")
     public ResponseEntity<ApiResponse<CustomerResponseDTO>> updateCustomerPartially(
             @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody CustomerPatchDTO patchDTO) {
-        CustomerResponseDTO updated = customerService.update(id, patchDTO);
+        CustomerResponseDTO updated = customerService.update(id, patchDTO, EntityTags.expectedVersion(ifMatch));
         return ResponseEntity.ok(ApiResponse.success("Customer updated successfully", updated));
     }
 
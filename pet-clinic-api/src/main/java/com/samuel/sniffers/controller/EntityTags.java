@@ -0,0 +1,64 @@
+package com.samuel.sniffers.controller;
+
+import com.samuel.sniffers.api.exception.PreconditionFailedException;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strong ETags and Last-Modified of single customer, basket and item reads. The ETag is the quoted version
+ * column of the row, which the write paths also increment for changes to its children.
+ */
+final class EntityTags {
+
+    private static final Pattern STRONG_TAG = Pattern.compile("\"(\\d{1,18})\"");
+
+    private EntityTags() {
+    }
+
+    /**
+     * Sets ETag and Last-Modified of the version, true when the request's validators still match and the
+     * response is already a complete 304. False as well when the row is not visible, the read reports that.
+     */
+    static boolean checkNotModified(WebRequest request, Optional<EntityVersion> version) {
+        return version.isPresent() && request.checkNotModified(etag(version.get()), lastModified(version.get()));
+    }
+
+    /**
+     * Replaces ETag and Last-Modified with those of the version the body was rendered from, which can be newer
+     * than the one checkNotModified saw when a write committed in between.
+     */
+    static void setValidators(HttpServletResponse response, EntityVersion version) {
+        response.setHeader(HttpHeaders.ETAG, etag(version));
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified(version));
+    }
+
+    /**
+     * The version an If-Match header asks for, null without one and for *. Anything other than a single
+     * strong ETag never matches one of ours and fails with 412.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        Matcher matcher = STRONG_TAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new PreconditionFailedException("If-Match must be a single ETag returned by a GET");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static String etag(EntityVersion version) {
+        return "\"" + version.version() + "\"";
+    }
+
+    private static long lastModified(EntityVersion version) {
+        return version.modified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
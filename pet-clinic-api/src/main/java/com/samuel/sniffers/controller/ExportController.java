@@ -0,0 +1,60 @@
+package com.samuel.sniffers.controller;
+
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+import com.samuel.sniffers.compression.StreamCompression;
+import com.samuel.sniffers.config.StreamingConfig;
+import com.samuel.sniffers.dto.ExportColumns;
+import com.samuel.sniffers.service.ExportService;
+import com.samuel.sniffers.service.streaming.StreamAdmission;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/v1/export")
+@Tag(name = "Export controller", description = "APIs for bulk exports")
+public class ExportController {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final ExportService exportService;
+    private final StreamingConfig streamingConfig;
+    private final StreamCompression streamCompression;
+    private final StreamAdmission streamAdmission;
+    private final Logger logger;
+
+    public ExportController(ExportService exportService, StreamingConfig streamingConfig, StreamCompression streamCompression, StreamAdmission streamAdmission) {
+        this.exportService = exportService;
+        this.streamingConfig = streamingConfig;
+        this.streamCompression = streamCompression;
+        this.streamAdmission = streamAdmission;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Operation(summary = "Export customers, baskets and items", description = "Streams the customer -> basket -> item hierarchy " +
+            "as CSV in a single ordered query, one line per item ordered by customer, basket and item id. Customers without baskets " +
+            "and baskets without items get a line with the missing columns empty. An admin token exports every tenant, any other " +
+            "token only its own customers. columns=customerId,basketId,... selects the columns and their order.")
+    @GetMapping(value = "/hierarchy", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportHierarchy(@RequestParam(required = false) String columns,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        logger.debug("Processing request to export the customer hierarchy");
+
+        ExportColumns exportColumns = ExportColumns.of(columns, streamingConfig.getExport().getColumns());
+        StreamingResponseBody responseBody = outputStream -> exportService.streamHierarchyToResponse(outputStream, exportColumns);
+
+        logger.debug("Completed request to export the customer hierarchy. Status: successful");
+
+        return streamCompression.stream(TEXT_CSV, acceptEncoding, streamAdmission.admit(responseBody));
+    }
+}
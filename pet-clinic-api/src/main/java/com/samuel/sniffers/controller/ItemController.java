@@ -4,22 +4,36 @@ import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.logging.Logger;
 import com.samuel.sniffers.api.response.ApiResponse;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.streaming.StreamMediaTypes;
+import com.samuel.sniffers.compression.StreamCompression;
+import com.samuel.sniffers.dto.BatchItemCreateDTO;
 import com.samuel.sniffers.dto.BatchItemUpdateDTO;
 import com.samuel.sniffers.dto.ItemDTO;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.UpdateItemDTO;
 import com.samuel.sniffers.dto.response.ItemBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.ItemResponseDTO;
+import com.samuel.sniffers.repository.projection.EntityVersion;
 import com.samuel.sniffers.service.ItemService;
+import com.samuel.sniffers.service.streaming.StreamAdmission;
+import com.samuel.sniffers.service.version.Versioned;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(value = "/v1/customer/{customerId}/basket/{basketId}/item", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -27,10 +41,14 @@ import java.net.URI;
 public class ItemController {
 
     private final ItemService itemService;
+    private final StreamCompression streamCompression;
+    private final StreamAdmission streamAdmission;
     private final Logger logger;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, StreamCompression streamCompression, StreamAdmission streamAdmission) {
         this.itemService = itemService;
+        this.streamCompression = streamCompression;
+        this.streamAdmission = streamAdmission;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -49,21 +67,56 @@ public class ItemController {
                 .body(ApiResponse.created("Item created successfully.", createdItem));
     }
 
-    @Operation(summary = "Retrieve an item", description = "Fetches the details of an item using id.")
+    @Operation(summary = "Create basket items in batch", description = "Creates several items in a basket with one ownership check " +
+            "and batched inserts. Rows that fail validation are returned in failedUpdates, identified by their index in the request. " +
+            "The response is 201 when at least one item was created and 400 with the failures when none was.")
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<ItemBatchUpdateResponseDTO>> createItems(
+            @PathVariable String customerId,
+            @PathVariable String basketId,
+            @Valid @RequestBody BatchItemCreateDTO dto) {
+
+        logger.debug("Processing request to create {} items for customer {} with basket {}", dto.getItems().size(), customerId, basketId);
+        ItemBatchUpdateResponseDTO createdItems = itemService.createItems(customerId, basketId, dto);
+        logger.debug("Completed processing request to create items");
+        if (createdItems.getSuccessfulUpdatesCount() == null) {
+            // Every row failed validation, nothing was inserted
+            return ResponseEntity
+                    .badRequest()
+                    .body(ApiResponse.error(HttpStatus.BAD_REQUEST.value(), "No items were created.", createdItems));
+        }
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(ApiResponse.created("Items created successfully.", createdItems));
+    }
+
+    @Operation(summary = "Retrieve an item", description = "Fetches the details of an item using id. " +
+            "The response has a strong ETag and Last-Modified, a matching If-None-Match or If-Modified-Since gets 304.")
     @GetMapping("/{itemId}")
     public ResponseEntity<ApiResponse<ItemResponseDTO>> getItem(
             @PathVariable String customerId,
             @PathVariable String basketId,
-            @PathVariable String itemId) {
-        return ResponseEntity.ok(
-                ApiResponse.success("Item retrieved successfully.",
-                        itemService.getItem(customerId, basketId, itemId)
-                )
-        );
+            @PathVariable String itemId,
+            WebRequest webRequest,
+            HttpServletResponse response) {
+        if (EntityTags.checkNotModified(webRequest, itemService.findItemVersion(customerId, basketId, itemId))) {
+            // 304 without reading the item
+            return null;
+        }
+        // The version read above may be older than the row getItem renders
+        Versioned<ItemResponseDTO> item = itemService.getVersionedItem(customerId, basketId, itemId);
+        EntityTags.setValidators(response, item.version());
+        return ResponseEntity.ok(ApiResponse.success("Item retrieved successfully.", item.value()));
     }
 
-    @Operation(summary = "Get all items", description = "Retrieves a paginated list of all items in a given basket for a given customer")
-    @GetMapping
+    @Operation(summary = "Get all items", description = "Retrieves a paginated list of all items in a given basket for a given customer. " +
+            "Passing a cursor (empty for the first window) switches from page numbers to keyset pagination. " +
+            "The total parameter (exact, estimate or none) chooses how totalElements is computed for page numbers.")
+    @GetMapping(produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            StreamMediaTypes.SMILE_VALUE,
+            StreamMediaTypes.CBOR_VALUE
+    })
     public ResponseEntity<PagedResponse<ItemResponseDTO>> getAllItems(
             @PathVariable String customerId,
             @PathVariable String basketId,
@@ -71,51 +124,65 @@ public class ItemController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String total,
             HttpServletRequest request) {
 
-        PagedResponse<ItemResponseDTO> response = itemService.findAll(
-                customerId, basketId, page, size, sortBy, direction, request.getRequestURL().toString());
+        PagedResponse<ItemResponseDTO> response = cursor != null
+                ? itemService.findAllByCursor(customerId, basketId, cursor, size, sortBy, direction, request.getRequestURL().toString())
+                : itemService.findAll(customerId, basketId, page, size, sortBy, direction, TotalCountStrategy.fromValue(total), request.getRequestURL().toString());
 
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Stream all Items", description = "Streams a list of items as newline-delimited JSON")
+    @Operation(summary = "Stream all Items", description = "Streams a list of items as newline-delimited JSON. " +
+            "Rows are in id order, after=<id> resumes after that row and checkpoint=N adds a {\"checkpoint\":\"<id>\"} line every N rows.")
     @GetMapping(
             value = "/stream",
             produces = {
-                    "application/x-ndjson",
+                    StreamMediaTypes.NDJSON_VALUE,
+                    StreamMediaTypes.SMILE_VALUE,
+                    StreamMediaTypes.CBOR_VALUE,
                     MediaType.APPLICATION_JSON_VALUE,
                     MediaType.TEXT_PLAIN_VALUE
             })
     public ResponseEntity<StreamingResponseBody> streamAllCustomers(@PathVariable String customerId,
-                                                                    @PathVariable String basketId) {
+                                                                    @PathVariable String basketId,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam(required = false) Integer checkpoint,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
-        StreamingResponseBody responseBody = outputStream -> itemService.streamAllToResponse(outputStream, customerId, basketId);
+        StreamResume resume = StreamResume.of(after, checkpoint);
+        StreamFormat format = StreamFormat.fromAccept(accept);
+        StreamingResponseBody responseBody = outputStream -> itemService.streamAllToResponse(outputStream, customerId, basketId, resume, format);
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/x-ndjson"))
-                .body(responseBody);
+        return streamCompression.stream(format, acceptEncoding, streamAdmission.admit(responseBody));
     }
 
-    @Operation(summary = "Update an item", description = "Updates the given item")
+    @Operation(summary = "Update an item", description = "Updates the given item. " +
+            "With If-Match the update only applies while the item still has that ETag, otherwise 412.")
     @PatchMapping("/{itemId}")
     public ResponseEntity<ApiResponse<ItemResponseDTO>> updateItem(
             @PathVariable String customerId,
             @PathVariable String basketId,
             @PathVariable String itemId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateItemDTO dto) {
-        ItemResponseDTO updatedItem = itemService.updateItem(customerId, basketId, itemId, dto);
+        ItemResponseDTO updatedItem = itemService.updateItem(customerId, basketId, itemId, dto, EntityTags.expectedVersion(ifMatch));
         return ResponseEntity.ok(ApiResponse.success("Item updated successfully.", updatedItem));
     }
 
-    @Operation(summary = "Update item", description = "Update item in a basket")
+    @Operation(summary = "Update item", description = "Update item in a basket. " +
+            "With If-Match the update only applies while the item still has that ETag, otherwise 412.")
     @PutMapping("/{itemId}")
     public ResponseEntity<ApiResponse<ItemResponseDTO>> updateItem(
             @PathVariable String customerId,
             @PathVariable String basketId,
             @PathVariable String itemId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ItemDTO dto) {
-        ItemResponseDTO updatedItem = itemService.updateItem(customerId, basketId, itemId, dto);
+        ItemResponseDTO updatedItem = itemService.updateItem(customerId, basketId, itemId, dto, EntityTags.expectedVersion(ifMatch));
         return ResponseEntity.ok(ApiResponse.success("Item updated successfully.", updatedItem));
     }
 
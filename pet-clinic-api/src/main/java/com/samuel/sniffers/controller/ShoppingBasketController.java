@@ -4,21 +4,37 @@ import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.logging.Logger;
 import com.samuel.sniffers.api.response.ApiResponse;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.streaming.StreamMediaTypes;
+import com.samuel.sniffers.compression.StreamCompression;
 import com.samuel.sniffers.dto.BatchBasketUpdateDTO;
+import com.samuel.sniffers.dto.ResponseExpansion;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.UpdateBasketDTO;
 import com.samuel.sniffers.dto.response.BasketBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.BasketResponseDTO;
+import com.samuel.sniffers.repository.projection.EntityVersion;
 import com.samuel.sniffers.service.ShoppingBasketService;
+import com.samuel.sniffers.service.cache.CachedJson;
+import com.samuel.sniffers.service.cache.CachedResponseWriter;
+import com.samuel.sniffers.service.streaming.StreamAdmission;
+import com.samuel.sniffers.service.version.Versioned;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(value = "/v1/customer/{customerId}/basket", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -26,10 +42,16 @@ import java.net.URI;
 public class ShoppingBasketController {
 
     private final ShoppingBasketService basketService;
+    private final StreamCompression streamCompression;
+    private final StreamAdmission streamAdmission;
+    private final CachedResponseWriter cachedResponseWriter;
     private final Logger logger;
 
-    public ShoppingBasketController(ShoppingBasketService basketService) {
+    public ShoppingBasketController(ShoppingBasketService basketService, StreamCompression streamCompression, StreamAdmission streamAdmission, CachedResponseWriter cachedResponseWriter) {
         this.basketService = basketService;
+        this.streamCompression = streamCompression;
+        this.streamAdmission = streamAdmission;
+        this.cachedResponseWriter = cachedResponseWriter;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -44,55 +66,95 @@ public class ShoppingBasketController {
                 .body(ApiResponse.created("Shopping basket created successfully.", basket));
     }
 
-    @Operation(summary = "Retrieve a basket", description = "Fetches the details of a shopping basket by its ID")
+    @Operation(summary = "Retrieve a basket", description = "Fetches the details of a shopping basket by its ID. " +
+            "The response has a strong ETag and Last-Modified, a matching If-None-Match or If-Modified-Since gets 304.")
     @GetMapping("/{basketId}")
-    public ResponseEntity<ApiResponse<BasketResponseDTO>> getBasket(@PathVariable String customerId, @PathVariable String basketId) {
-        return ResponseEntity.ok(
-                ApiResponse.success("Basket retrieved successfully.",
-                        basketService.getBasket(customerId, basketId)
-                )
-        );
+    public ResponseEntity<ApiResponse<BasketResponseDTO>> getBasket(@PathVariable String customerId, @PathVariable String basketId,
+                                                                    WebRequest webRequest, HttpServletResponse response) throws IOException {
+        Optional<EntityVersion> version = basketService.findBasketVersion(customerId, basketId);
+        if (EntityTags.checkNotModified(webRequest, version)) {
+            // 304 without reading the basket
+            return null;
+        }
+        if (version.isPresent()) {
+            try (CachedJson cached = basketService.findCachedBasket(customerId, basketId, version.get().version())) {
+                if (cached != null) {
+                    // Already written, returning null tells MVC the response is handled
+                    cachedResponseWriter.writeSuccess(response, "Basket retrieved successfully.", cached);
+                    return null;
+                }
+            }
+        }
+        // The version read above may be older than the row getBasket renders
+        Versioned<BasketResponseDTO> basket = basketService.getVersionedBasket(customerId, basketId);
+        EntityTags.setValidators(response, basket.version());
+        return ResponseEntity.ok(ApiResponse.success("Basket retrieved successfully.", basket.value()));
     }
 
-    @Operation(summary = "Get all baskets for a customer", description = "Retrieves a paginated list of all shopping baskets belonging to a customer")
-    @GetMapping
+    @Operation(summary = "Get all baskets for a customer", description = "Retrieves a paginated list of all shopping baskets belonging to a customer. " +
+            "Passing a cursor (empty for the first window) switches from page numbers to keyset pagination. " +
+            "The total parameter (exact, estimate or none) chooses how totalElements is computed for page numbers. " +
+            "Baskets are returned as summaries, expand=items includes their items.")
+    @GetMapping(produces = {
+            MediaType.APPLICATION_JSON_VALUE,
+            StreamMediaTypes.SMILE_VALUE,
+            StreamMediaTypes.CBOR_VALUE
+    })
     public ResponseEntity<PagedResponse<BasketResponseDTO>> getAllBaskets(
             @PathVariable String customerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String total,
+            @RequestParam(required = false) String expand,
             HttpServletRequest request) {
 
-        PagedResponse<BasketResponseDTO> response = basketService.findAll(
-                customerId, page, size, sortBy, direction, request.getRequestURL().toString());
+        ResponseExpansion expansion = ResponseExpansion.forBaskets(expand);
+        PagedResponse<BasketResponseDTO> response = cursor != null
+                ? basketService.findAllByCursor(customerId, cursor, size, sortBy, direction, expansion, request.getRequestURL().toString())
+                : basketService.findAll(customerId, page, size, sortBy, direction, TotalCountStrategy.fromValue(total), expansion, request.getRequestURL().toString());
 
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Stream all shopping baskets", description = "Streams a list of shopping baskets as newline-delimited JSON")
+    @Operation(summary = "Stream all shopping baskets", description = "Streams a list of shopping baskets as newline-delimited JSON. " +
+            "Baskets are written as summaries, expand=items includes their items. " +
+            "Rows are in id order, after=<id> resumes after that row and checkpoint=N adds a {\"checkpoint\":\"<id>\"} line every N rows.")
     @GetMapping(
             value = "/stream",
             produces = {
-                    "application/x-ndjson",
+                    StreamMediaTypes.NDJSON_VALUE,
+                    StreamMediaTypes.SMILE_VALUE,
+                    StreamMediaTypes.CBOR_VALUE,
                     MediaType.APPLICATION_JSON_VALUE,
                     MediaType.TEXT_PLAIN_VALUE
             })
-    public ResponseEntity<StreamingResponseBody> streamAllCustomers(@PathVariable String customerId) {
-        StreamingResponseBody responseBody = outputStream -> basketService.streamAllToResponse(outputStream, customerId);
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/x-ndjson"))
-                .body(responseBody);
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers(
+            @PathVariable String customerId,
+            @RequestParam(required = false) String expand,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer checkpoint,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ResponseExpansion expansion = ResponseExpansion.forBaskets(expand);
+        StreamResume resume = StreamResume.of(after, checkpoint);
+        StreamFormat format = StreamFormat.fromAccept(accept);
+        StreamingResponseBody responseBody = outputStream -> basketService.streamAllToResponse(outputStream, customerId, expansion, resume, format);
+
+        return streamCompression.stream(format, acceptEncoding, streamAdmission.admit(responseBody));
     }
 
-    @Operation(summary = "Update shopping basket", description = "Updates the shopping basket")
+    @Operation(summary = "Update shopping basket", description = "Updates the shopping basket. " +
+            "With If-Match the update only applies while the basket still has that ETag, otherwise 412.")
     @PatchMapping("/{basketId}")
     public ResponseEntity<ApiResponse<BasketResponseDTO>> updateBasket(
             @PathVariable String customerId,
             @PathVariable String basketId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateBasketDTO dto) {
-        BasketResponseDTO updatedBasket = basketService.updateBasket(customerId, basketId, dto);
+        BasketResponseDTO updatedBasket = basketService.updateBasket(customerId, basketId, dto, EntityTags.expectedVersion(ifMatch));
         return ResponseEntity.ok(ApiResponse.success("Basket updated successfully.", updatedBasket));
     }
 
@@ -1,13 +1,25 @@
 package com.samuel.sniffers.controller.view;
 
 import com.samuel.sniffers.api.response.ApiResponse;
+import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.streaming.StreamMediaTypes;
+import com.samuel.sniffers.compression.StreamCompression;
 import com.samuel.sniffers.dto.response.view.CustomerBasketItemViewDTO;
+import com.samuel.sniffers.service.streaming.StreamAdmission;
 import com.samuel.sniffers.service.view.CustomerBasketItemViewService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,11 +28,17 @@ import java.util.List;
 public class CustomerBasketItemViewController {
 
     private final CustomerBasketItemViewService service;
+    private final StreamCompression streamCompression;
+    private final StreamAdmission streamAdmission;
 
-    public CustomerBasketItemViewController(CustomerBasketItemViewService service) {
+    public CustomerBasketItemViewController(CustomerBasketItemViewService service, StreamCompression streamCompression, StreamAdmission streamAdmission) {
         this.service = service;
+        this.streamCompression = streamCompression;
+        this.streamAdmission = streamAdmission;
     }
 
+    @Operation(summary = "Get all view entries", description = "Returns every view entry in one list. " +
+            "Refused with 400 when there are more than petshop.view.max-list-rows entries, use /page or /stream for those.")
     @GetMapping
     public ResponseEntity<ApiResponse<List<CustomerBasketItemViewDTO>>> getAllViewEntries() {
         return ResponseEntity.ok(ApiResponse.success(service.findAllWithAccess()));
@@ -34,4 +52,66 @@ public class CustomerBasketItemViewController {
 
         return ResponseEntity.ok(ApiResponse.success(views));
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Page through all view entries", description = "Keyset pages in customer, basket and item id order. " +
+            "Pass the nextCursor of a page as cursor to read the next one.")
+    @GetMapping("/page")
+    public ResponseEntity<PagedResponse<CustomerBasketItemViewDTO>> getViewEntriesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            HttpServletRequest request) {
+        return ResponseEntity.ok(service.findAllByCursor(cursor, size, request.getRequestURL().toString()));
+    }
+
+    @Operation(summary = "Page through the view entries of a customer name", description = "Keyset pages in customer, basket and item id order. " +
+            "Pass the nextCursor of a page as cursor to read the next one.")
+    @GetMapping("/by-customer-name/{customerName}/page")
+    public ResponseEntity<PagedResponse<CustomerBasketItemViewDTO>> getByCustomerNamePage(
+            @PathVariable String customerName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            HttpServletRequest request) {
+        return ResponseEntity.ok(service.findByCustomerNameByCursor(customerName, cursor, size, request.getRequestURL().toString()));
+    }
+
+    @Operation(summary = "Stream all view entries", description = "Streams every view entry as newline-delimited JSON " +
+            "in customer, basket and item id order.")
+    @GetMapping(
+            value = "/stream",
+            produces = {
+            StreamMediaTypes.NDJSON_VALUE,
+            StreamMediaTypes.SMILE_VALUE,
+            StreamMediaTypes.CBOR_VALUE,
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.TEXT_PLAIN_VALUE
+    })
+    public ResponseEntity<StreamingResponseBody> streamAllViewEntries(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        StreamFormat format = StreamFormat.fromAccept(accept);
+        StreamingResponseBody responseBody = outputStream -> service.streamAllToResponse(outputStream, format);
+        return streamCompression.stream(format, acceptEncoding, streamAdmission.admit(responseBody));
+    }
+
+    @Operation(summary = "Stream the view entries of a customer name", description = "Streams the view entries as " +
+            "newline-delimited JSON in customer, basket and item id order.")
+    @GetMapping(
+            value = "/by-customer-name/{customerName}/stream",
+            produces = {
+            StreamMediaTypes.NDJSON_VALUE,
+            StreamMediaTypes.SMILE_VALUE,
+            StreamMediaTypes.CBOR_VALUE,
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.TEXT_PLAIN_VALUE
+    })
+    public ResponseEntity<StreamingResponseBody> streamByCustomerName(
+            @PathVariable String customerName,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        StreamFormat format = StreamFormat.fromAccept(accept);
+        StreamingResponseBody responseBody = outputStream -> service.streamByCustomerNameToResponse(outputStream, customerName, format);
+        return streamCompression.stream(format, acceptEncoding, streamAdmission.admit(responseBody));
+    }
+}
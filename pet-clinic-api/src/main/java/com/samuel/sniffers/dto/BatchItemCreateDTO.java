@@ -0,0 +1,22 @@
+package com.samuel.sniffers.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/*
+  Request object for adding several items to a basket at once.
+  The rows are validated one by one by the service, so an invalid row is reported as a failure
+  instead of rejecting the whole batch.
+*/
+@Getter
+@Setter
+public class BatchItemCreateDTO {
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 500, message = "At most 500 items can be created in one batch")
+    private List<ItemDTO> items;
+}
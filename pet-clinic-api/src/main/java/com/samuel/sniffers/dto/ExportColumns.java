@@ -0,0 +1,43 @@
+package com.samuel.sniffers.dto;
+
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Columns of the hierarchy export and their order, parsed from the {@code columns} request parameter.
+ * Without it the configured default columns are written.
+ */
+public record ExportColumns(List<String> names) {
+
+    public static final List<String> HIERARCHY = List.of(
+            "customerId", "customerName", "customerTimezone", "customerCreated",
+            "basketId", "basketStatus", "basketStatusDate", "basketCreated",
+            "itemId", "itemDescription", "itemAmount", "itemCreated");
+
+    public static ExportColumns of(String columns, List<String> defaults) {
+        if (columns == null || columns.isBlank()) {
+            return new ExportColumns(validate(defaults));
+        }
+        return new ExportColumns(validate(Arrays.stream(columns.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList()));
+    }
+
+    private static List<String> validate(List<String> names) {
+        Set<String> unique = new LinkedHashSet<>(names);
+        for (String name : unique) {
+            if (!HIERARCHY.contains(name)) {
+                throw new InvalidRequestException("Invalid export column: " + name + ". Allowed values are " + String.join(", ", HIERARCHY) + ".");
+            }
+        }
+        if (unique.isEmpty()) {
+            throw new InvalidRequestException("At least one export column is required.");
+        }
+        return List.copyOf(unique);
+    }
+}
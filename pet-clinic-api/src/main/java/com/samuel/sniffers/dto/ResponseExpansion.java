@@ -0,0 +1,59 @@
+package com.samuel.sniffers.dto;
+
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Children to include in list and stream responses, parsed from the {@code expand} request parameter.
+ * Without it the summary shape is returned and no child collection is read.
+ */
+public record ResponseExpansion(boolean baskets, boolean items) {
+
+    public static final ResponseExpansion NONE = new ResponseExpansion(false, false);
+
+    private static final String EXPAND_BASKETS = "baskets";
+    private static final String EXPAND_BASKET_ITEMS = "baskets.items";
+    private static final String EXPAND_ITEMS = "items";
+
+    public boolean isNone() {
+        return !baskets && !items;
+    }
+
+    /**
+     * Allowed values are {@code baskets} and {@code baskets.items}, the latter implies the former.
+     */
+    public static ResponseExpansion forCustomers(String expand) {
+        Set<String> values = parse(expand, Set.of(EXPAND_BASKETS, EXPAND_BASKET_ITEMS));
+        boolean items = values.contains(EXPAND_BASKET_ITEMS);
+        return new ResponseExpansion(items || values.contains(EXPAND_BASKETS), items);
+    }
+
+    /**
+     * Allowed value is {@code items}.
+     */
+    public static ResponseExpansion forBaskets(String expand) {
+        Set<String> values = parse(expand, Set.of(EXPAND_ITEMS));
+        return new ResponseExpansion(false, values.contains(EXPAND_ITEMS));
+    }
+
+    private static Set<String> parse(String expand, Set<String> allowed) {
+        if (expand == null || expand.isBlank()) {
+            return Set.of();
+        }
+
+        Set<String> values = Arrays.stream(expand.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toSet());
+
+        for (String value : values) {
+            if (!allowed.contains(value)) {
+                throw new InvalidRequestException("Invalid expand value: " + value + ". Allowed values are " + String.join(", ", allowed) + ".");
+            }
+        }
+        return values;
+    }
+}
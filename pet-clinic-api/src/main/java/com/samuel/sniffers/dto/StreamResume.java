@@ -0,0 +1,32 @@
+package com.samuel.sniffers.dto;
+
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+
+import java.util.UUID;
+
+/**
+ * Where a stream starts and how often it writes checkpoint lines, parsed from the {@code after} and
+ * {@code checkpoint} request parameters. Streams are written in id order, after is the id of the last
+ * record (or checkpoint) the client received.
+ */
+public record StreamResume(String after, int checkpointEvery) {
+
+    public static final StreamResume NONE = new StreamResume(null, 0);
+
+    public static StreamResume of(String after, Integer checkpointEvery) {
+        if (after != null && !after.isBlank()) {
+            try {
+                UUID.fromString(after);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Invalid stream cursor: " + after + ".");
+            }
+        }
+        if (checkpointEvery != null && checkpointEvery < 0) {
+            throw new InvalidRequestException("checkpoint must be zero or greater.");
+        }
+
+        return new StreamResume(
+                after == null || after.isBlank() ? null : after,
+                checkpointEvery == null ? 0 : checkpointEvery);
+    }
+}
@@ -2,6 +2,7 @@ package com.samuel.sniffers.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.samuel.sniffers.entity.Customer;
 import com.samuel.sniffers.enums.BasketStatus;
@@ -26,6 +27,7 @@ public class BasketResponseDTO {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime statusDate;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Only present when the children are expanded
     private Set<ItemResponseDTO> items;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
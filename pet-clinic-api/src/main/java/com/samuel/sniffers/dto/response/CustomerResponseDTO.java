@@ -2,6 +2,7 @@ package com.samuel.sniffers.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -21,6 +22,7 @@ public class CustomerResponseDTO {
 
     private String timezone;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Only present when the children are expanded
     private List<BasketResponseDTO> baskets;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
@@ -6,6 +6,7 @@ import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.logging.Logger;
 import com.samuel.sniffers.api.response.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -53,6 +54,13 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiResponse<String>> handlePreconditionFailed(PreconditionFailedException ex) {
+        log.error("Precondition failed: {}", ex.getMessage());
+        ApiResponse<String> response = ApiResponse.error(HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+    }
+
     @ExceptionHandler(IllegalStateTransitionException.class)
     public ResponseEntity<ApiResponse<String>> handleIllegalStateTransition(IllegalStateTransitionException ex) {
         log.error("Illegal basket status transition: {}", ex.getMessage());
@@ -95,6 +103,15 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    @ExceptionHandler(StreamRejectedException.class)
+    public ResponseEntity<ApiResponse<String>> handleStreamRejected(StreamRejectedException ex) {
+        log.warn("Stream request rejected: {}", ex.getMessage());
+        ApiResponse<String> response = ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), null);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(response);
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ApiResponse<List<String>>> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
         Throwable cause = ex.getCause();
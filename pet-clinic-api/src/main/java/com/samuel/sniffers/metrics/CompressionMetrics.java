@@ -0,0 +1,42 @@
+package com.samuel.sniffers.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ratio (uncompressed / compressed bytes), bytes and time spent compressing per response, tagged with
+ * the coding and whether the response was a stream or an ordinary JSON body.
+ */
+@Component
+public class CompressionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public CompressionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String coding, String response, long uncompressedBytes, long compressedBytes, long compressionNanos) {
+        String[] tags = {"coding", coding, "response", response};
+
+        Counter.builder("petshop.compression.bytes.in").tags(tags).register(meterRegistry).increment(uncompressedBytes);
+        Counter.builder("petshop.compression.bytes.out").tags(tags).register(meterRegistry).increment(compressedBytes);
+        Timer.builder("petshop.compression.time")
+                .description("Time spent in the compressor, without writing to the client")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(compressionNanos, TimeUnit.NANOSECONDS);
+
+        if (compressedBytes > 0) {
+            DistributionSummary.builder("petshop.compression.ratio")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record((double) uncompressedBytes / compressedBytes);
+        }
+    }
+}
@@ -92,8 +92,12 @@ public class PetShopMetrics {
     }
 
     public void incrementItemAdded(String customerToken) {
+        incrementItemAdded(customerToken, 1);
+    }
+
+    public void incrementItemAdded(String customerToken, int count) {
         logger.info("Updating metrics for item created");
-        incrementCounter("petshop.items.created", customerToken, 1);
+        incrementCounter("petshop.items.created", customerToken, count);
     }
 
     public void incrementItemDeleted(String customerToken) {
@@ -0,0 +1,82 @@
+package com.samuel.sniffers.security;
+
+import com.samuel.sniffers.api.exception.ResourceNotFoundException;
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+import com.samuel.sniffers.entity.Item;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import com.samuel.sniffers.repository.ItemRepository;
+import com.samuel.sniffers.repository.ShoppingBasketRepository;
+import com.samuel.sniffers.repository.projection.BasketAccessPath;
+import com.samuel.sniffers.repository.projection.ItemAccessPath;
+import org.springframework.stereotype.Component;
+
+/**
+ * Proves customer -> basket (-> item) ownership for nested routes and loads the target row with a
+ * single query, instead of one existence check per level followed by the actual lookup.
+ */
+@Component
+public class AccessResolver {
+
+    private static final String CUSTOMER_NOT_FOUND = "Customer not found";
+    private static final String BASKET_NOT_FOUND = "Basket not found or access denied";
+    private static final String ITEM_NOT_FOUND = "Item not found or access denied";
+
+    private final ShoppingBasketRepository basketRepository;
+    private final ItemRepository itemRepository;
+    private final SecurityService securityService;
+    private final Logger logger;
+
+    public AccessResolver(ShoppingBasketRepository basketRepository, ItemRepository itemRepository, SecurityService securityService) {
+        this.basketRepository = basketRepository;
+        this.itemRepository = itemRepository;
+        this.securityService = securityService;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    public ShoppingBasket resolveBasket(String customerId, String basketId) {
+        return resolveBasketPath(customerId, basketId).basket();
+    }
+
+    /**
+     * The resolved basket together with the owner token of its customer, for callers that need the token
+     * without loading the customer.
+     */
+    public BasketAccessPath resolveBasketPath(String customerId, String basketId) {
+        String token = securityService.getCurrentCustomerToken();
+
+        BasketAccessPath path = basketRepository.findAccessPath(customerId, basketId, token, securityService.isAdmin(token))
+                .orElseThrow(() -> customerNotFound(customerId));
+
+        if (path.basket() == null) {
+            throw basketNotFound(basketId);
+        }
+        return path;
+    }
+
+    public Item resolveItem(String customerId, String basketId, String itemId) {
+        String token = securityService.getCurrentCustomerToken();
+
+        ItemAccessPath path = itemRepository.findAccessPath(customerId, basketId, itemId, token, securityService.isAdmin(token))
+                .orElseThrow(() -> customerNotFound(customerId));
+
+        if (path.basketId() == null) {
+            throw basketNotFound(basketId);
+        }
+        if (path.item() == null) {
+            logger.error("Item with id: {} not found", itemId);
+            throw new ResourceNotFoundException(ITEM_NOT_FOUND);
+        }
+        return path.item();
+    }
+
+    private ResourceNotFoundException customerNotFound(String customerId) {
+        logger.error("Customer with id: {} not found", customerId);
+        return new ResourceNotFoundException(CUSTOMER_NOT_FOUND);
+    }
+
+    private ResourceNotFoundException basketNotFound(String basketId) {
+        logger.error("Basket with id: {} not found", basketId);
+        return new ResourceNotFoundException(BASKET_NOT_FOUND);
+    }
+}
@@ -1,14 +1,22 @@
 package com.samuel.sniffers.service;
 
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.api.streaming.StreamFormat;
 import com.samuel.sniffers.dto.CustomerBatchUpdateDTO;
 import com.samuel.sniffers.dto.CustomerDTO;
 import com.samuel.sniffers.dto.CustomerPatchDTO;
+import com.samuel.sniffers.dto.ResponseExpansion;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.response.CustomerBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.CustomerResponseDTO;
 import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.service.cache.CachedJson;
+import com.samuel.sniffers.service.version.Versioned;
 
 import java.io.OutputStream;
+import java.util.Optional;
 
 public interface CustomerService {
 
@@ -16,13 +24,67 @@ public interface CustomerService {
 
     CustomerResponseDTO findById(String id);
 
-    PagedResponse<CustomerResponseDTO> findAll(int page, int size, String sortBy, String direction, String baseUrl);
+    /**
+     * findById together with the version of the customer it rendered.
+     */
+    Versioned<CustomerResponseDTO> findVersionedById(String id);
 
-    void streamAllToResponse(OutputStream outputStream);
+    /**
+     * The JSON findById rendered last time for the customer at this version, null when it is not cached or not
+     * visible to the caller. The caller has to close it.
+     */
+    CachedJson findCachedById(String id, long version);
 
-    CustomerResponseDTO update(String id, CustomerDTO dto);
+    /**
+     * Version and modification time of the customer as findById renders it, empty when it is not visible to
+     * the caller. Nothing but the version columns is read.
+     */
+    Optional<EntityVersion> findVersion(String id);
 
-    CustomerResponseDTO update(String id, CustomerPatchDTO dto);
+    default PagedResponse<CustomerResponseDTO> findAll(int page, int size, String sortBy, String direction, String baseUrl) {
+        return findAll(page, size, sortBy, direction, TotalCountStrategy.EXACT, baseUrl);
+    }
+
+    default PagedResponse<CustomerResponseDTO> findAll(int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy, String baseUrl) {
+        return findAll(page, size, sortBy, direction, totalStrategy, ResponseExpansion.NONE, baseUrl);
+    }
+
+    PagedResponse<CustomerResponseDTO> findAll(int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy, ResponseExpansion expansion, String baseUrl);
+
+    default PagedResponse<CustomerResponseDTO> findAllByCursor(String cursor, int size, String sortBy, String direction, String baseUrl) {
+        return findAllByCursor(cursor, size, sortBy, direction, ResponseExpansion.NONE, baseUrl);
+    }
+
+    PagedResponse<CustomerResponseDTO> findAllByCursor(String cursor, int size, String sortBy, String direction, ResponseExpansion expansion, String baseUrl);
+
+    default void streamAllToResponse(OutputStream outputStream) {
+        streamAllToResponse(outputStream, ResponseExpansion.NONE);
+    }
+
+    default void streamAllToResponse(OutputStream outputStream, ResponseExpansion expansion) {
+        streamAllToResponse(outputStream, expansion, StreamResume.NONE);
+    }
+
+    default void streamAllToResponse(OutputStream outputStream, ResponseExpansion expansion, StreamResume resume) {
+        streamAllToResponse(outputStream, expansion, resume, StreamFormat.NDJSON);
+    }
+
+    void streamAllToResponse(OutputStream outputStream, ResponseExpansion expansion, StreamResume resume, StreamFormat format);
+
+    default CustomerResponseDTO update(String id, CustomerDTO dto) {
+        return update(id, dto, null);
+    }
+
+    /**
+     * Replaces the customer, if expectedVersion is set only while it is still the current version.
+     */
+    CustomerResponseDTO update(String id, CustomerDTO dto, Long expectedVersion);
+
+    default CustomerResponseDTO update(String id, CustomerPatchDTO dto) {
+        return update(id, dto, null);
+    }
+
+    CustomerResponseDTO update(String id, CustomerPatchDTO dto, Long expectedVersion);
 
     CustomerBatchUpdateResponseDTO batchUpdate(CustomerBatchUpdateDTO dto);
 
@@ -30,5 +92,15 @@ public interface CustomerService {
 
     Customer getCustomer(String customerId);
 
+    /**
+     * Owner token of a customer visible to the caller, only that column is read.
+     */
+    String getOwnerToken(String customerId);
+
+    /**
+     * Access checked reference to a customer for setting a foreign key, the row itself is not loaded.
+     */
+    Customer getCustomerReference(String customerId);
+
     boolean customerExist(String customerId);
 }
@@ -0,0 +1,14 @@
+package com.samuel.sniffers.service;
+
+import com.samuel.sniffers.dto.ExportColumns;
+
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    /**
+     * Writes every customer -> basket -> item row visible to the caller as CSV, one line per item and
+     * one line for each customer without baskets or basket without items.
+     */
+    void streamHierarchyToResponse(OutputStream outputStream, ExportColumns columns);
+}
@@ -1,27 +1,72 @@
 package com.samuel.sniffers.service;
 
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.dto.BatchItemCreateDTO;
 import com.samuel.sniffers.dto.BatchItemUpdateDTO;
 import com.samuel.sniffers.dto.ItemDTO;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.UpdateItemDTO;
 import com.samuel.sniffers.dto.response.ItemBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.ItemResponseDTO;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.service.version.Versioned;
 
 import java.io.OutputStream;
+import java.util.Optional;
 
 public interface ItemService {
 
     ItemResponseDTO createItem(String customerId, String basketId, ItemDTO itemDTO);
 
+    ItemBatchUpdateResponseDTO createItems(String customerId, String basketId, BatchItemCreateDTO dto);
+
     ItemResponseDTO getItem(String customerId, String basketId, String itemId);
 
-    PagedResponse<ItemResponseDTO> findAll(String customerId, String basketId, int page, int size, String sortBy, String direction, String baseUrl);
+    /**
+     * getItem together with the version of the item it rendered.
+     */
+    Versioned<ItemResponseDTO> getVersionedItem(String customerId, String basketId, String itemId);
+
+    /**
+     * Version and modification time of the item, empty when it is not visible to the caller under this
+     * customer and basket.
+     */
+    Optional<EntityVersion> findItemVersion(String customerId, String basketId, String itemId);
+
+    default PagedResponse<ItemResponseDTO> findAll(String customerId, String basketId, int page, int size, String sortBy, String direction, String baseUrl) {
+        return findAll(customerId, basketId, page, size, sortBy, direction, TotalCountStrategy.EXACT, baseUrl);
+    }
+
+    PagedResponse<ItemResponseDTO> findAll(String customerId, String basketId, int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy, String baseUrl);
+
+    PagedResponse<ItemResponseDTO> findAllByCursor(String customerId, String basketId, String cursor, int size, String sortBy, String direction, String baseUrl);
+
+    default void streamAllToResponse(OutputStream outputStream, String customerId, String basketId) {
+        streamAllToResponse(outputStream, customerId, basketId, StreamResume.NONE);
+    }
+
+    default void streamAllToResponse(OutputStream outputStream, String customerId, String basketId, StreamResume resume) {
+        streamAllToResponse(outputStream, customerId, basketId, resume, StreamFormat.NDJSON);
+    }
+
+    void streamAllToResponse(OutputStream outputStream, String customerId, String basketId, StreamResume resume, StreamFormat format);
+
+    default ItemResponseDTO updateItem(String customerId, String basketId, String itemId, ItemDTO dto) {
+        return updateItem(customerId, basketId, itemId, dto, null);
+    }
 
-    void streamAllToResponse(OutputStream outputStream, String customerId, String basketId);
+    /**
+     * Replaces the item, if expectedVersion is set only while it is still the current version.
+     */
+    ItemResponseDTO updateItem(String customerId, String basketId, String itemId, ItemDTO dto, Long expectedVersion);
 
-    ItemResponseDTO updateItem(String customerId, String basketId, String itemId, ItemDTO dto);
+    default ItemResponseDTO updateItem(String customerId, String basketId, String itemId, UpdateItemDTO dto) {
+        return updateItem(customerId, basketId, itemId, dto, null);
+    }
 
-    ItemResponseDTO updateItem(String customerId, String basketId, String itemId, UpdateItemDTO dto);
+    ItemResponseDTO updateItem(String customerId, String basketId, String itemId, UpdateItemDTO dto, Long expectedVersion);
 
     ItemBatchUpdateResponseDTO batchUpdateItems(String customerId, String basketId, BatchItemUpdateDTO dto);
 
@@ -1,13 +1,24 @@
 package com.samuel.sniffers.service;
 
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.api.streaming.StreamFormat;
 import com.samuel.sniffers.dto.BatchBasketUpdateDTO;
+import com.samuel.sniffers.dto.ResponseExpansion;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.UpdateBasketDTO;
 import com.samuel.sniffers.dto.response.BasketBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.BasketResponseDTO;
 import com.samuel.sniffers.entity.ShoppingBasket;
+import com.samuel.sniffers.enums.BasketStatus;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.service.cache.CachedJson;
+import com.samuel.sniffers.service.version.Versioned;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.OutputStream;
+import java.util.Optional;
+import java.util.Set;
 
 public interface ShoppingBasketService {
 
@@ -15,16 +26,72 @@ public interface ShoppingBasketService {
 
     BasketResponseDTO getBasket(String customerId, String basketId);
 
-    PagedResponse<BasketResponseDTO> findAll(String customerId, int page, int size, String sortBy, String direction, String baseUrl);
+    /**
+     * getBasket together with the version of the basket it rendered.
+     */
+    Versioned<BasketResponseDTO> getVersionedBasket(String customerId, String basketId);
 
-    void streamAllToResponse(OutputStream outputStream, String customerId);
+    /**
+     * The JSON getBasket rendered last time for the basket at this version, null when it is not cached or not
+     * visible to the caller under this customer. The caller has to close it.
+     */
+    CachedJson findCachedBasket(String customerId, String basketId, long version);
 
-    BasketResponseDTO updateBasket(String customerId, String basketId, UpdateBasketDTO dto);
+    /**
+     * Version and modification time of the basket as getBasket renders it, empty when it is not visible to
+     * the caller under this customer.
+     */
+    Optional<EntityVersion> findBasketVersion(String customerId, String basketId);
+
+    default PagedResponse<BasketResponseDTO> findAll(String customerId, int page, int size, String sortBy, String direction, String baseUrl) {
+        return findAll(customerId, page, size, sortBy, direction, TotalCountStrategy.EXACT, baseUrl);
+    }
+
+    default PagedResponse<BasketResponseDTO> findAll(String customerId, int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy, String baseUrl) {
+        return findAll(customerId, page, size, sortBy, direction, totalStrategy, ResponseExpansion.NONE, baseUrl);
+    }
+
+    PagedResponse<BasketResponseDTO> findAll(String customerId, int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy, ResponseExpansion expansion, String baseUrl);
+
+    default PagedResponse<BasketResponseDTO> findAllByCursor(String customerId, String cursor, int size, String sortBy, String direction, String baseUrl) {
+        return findAllByCursor(customerId, cursor, size, sortBy, direction, ResponseExpansion.NONE, baseUrl);
+    }
+
+    PagedResponse<BasketResponseDTO> findAllByCursor(String customerId, String cursor, int size, String sortBy, String direction, ResponseExpansion expansion, String baseUrl);
+
+    default void streamAllToResponse(OutputStream outputStream, String customerId) {
+        streamAllToResponse(outputStream, customerId, ResponseExpansion.NONE);
+    }
+
+    default void streamAllToResponse(OutputStream outputStream, String customerId, ResponseExpansion expansion) {
+        streamAllToResponse(outputStream, customerId, expansion, StreamResume.NONE);
+    }
+
+    default void streamAllToResponse(OutputStream outputStream, String customerId, ResponseExpansion expansion, StreamResume resume) {
+        streamAllToResponse(outputStream, customerId, expansion, resume, StreamFormat.NDJSON);
+    }
+
+    void streamAllToResponse(OutputStream outputStream, String customerId, ResponseExpansion expansion, StreamResume resume, StreamFormat format);
+
+    default BasketResponseDTO updateBasket(String customerId, String basketId, UpdateBasketDTO dto) {
+        return updateBasket(customerId, basketId, dto, null);
+    }
+
+    /**
+     * Changes the basket status, if expectedVersion is set only while it is still the current version.
+     */
+    BasketResponseDTO updateBasket(String customerId, String basketId, UpdateBasketDTO dto, Long expectedVersion);
 
     BasketBatchUpdateResponseDTO batchUpdateBasket(String customerId, BatchBasketUpdateDTO dto);
 
     void deleteBasket(String customerId, String basketId);
 
+    /**
+     * Server-Sent Events of committed basket status changes of the caller's customers, all customers for an admin.
+     * customerId and statuses narrow the feed when set, lastEventId replays the buffered changes after it.
+     */
+    SseEmitter subscribeToStatusChanges(String customerId, Set<BasketStatus> statuses, String lastEventId);
+
     ShoppingBasket getDbBasket(String customerId, String basketId);
 
     boolean basketExist(String customerId, String basketId);
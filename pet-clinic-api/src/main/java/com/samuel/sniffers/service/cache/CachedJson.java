@@ -0,0 +1,53 @@
+package com.samuel.sniffers.service.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A cached JSON representation pinned for reading. Its memory is not reused before it is closed.
+ */
+public final class CachedJson implements AutoCloseable {
+
+    private final OffHeapJsonStore store;
+    private final OffHeapJsonStore.Entry entry;
+    private boolean closed;
+
+    CachedJson(OffHeapJsonStore store, OffHeapJsonStore.Entry entry) {
+        this.store = store;
+        this.entry = entry;
+    }
+
+    public int length() {
+        return entry.length();
+    }
+
+    long entityVersion() {
+        return entry.entityVersion();
+    }
+
+    String ownerToken() {
+        return entry.ownerToken();
+    }
+
+    String parentId() {
+        return entry.parentId();
+    }
+
+    /**
+     * Copies the JSON bytes to the stream as they were cached.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Cached JSON was already released");
+        }
+        store.writeTo(entry, outputStream);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            store.release(entry);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.samuel.sniffers.service.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samuel.sniffers.api.DateTimeUtils;
+import com.samuel.sniffers.api.response.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a cache hit as the data of an {@link ApiResponse}. The envelope is generated, the data is copied from
+ * the cache as it is.
+ */
+@Component
+public class CachedResponseWriter {
+
+    private final JsonFactory jsonFactory;
+
+    public CachedResponseWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public void writeSuccess(HttpServletResponse response, String message, CachedJson data) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        OutputStream outputStream = response.getOutputStream();
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            generator.writeStartObject();
+            generator.writeNumberField("status", HttpStatus.OK.value());
+            generator.writeStringField("message", message);
+            generator.writeStringField("dateTime", DateTimeUtils.getCurrentDateTimeReadable());
+            generator.writeFieldName("data");
+            // An empty raw value completes the field, the cached bytes follow it directly on the stream
+            generator.writeRawValue("");
+            generator.flush();
+            data.writeTo(outputStream);
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.samuel.sniffers.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+import com.samuel.sniffers.api.streaming.ObjectWriterCache;
+import com.samuel.sniffers.config.EntityCacheConfig;
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * The JSON of single customer and basket reads, so a repeated GET is answered from the bytes written the
+ * first time without a query, entities, a DTO or serialization. The bytes live off heap in an
+ * {@link OffHeapJsonStore}.
+ * <p>
+ * A customer is rendered with its baskets and items and a basket with its items, so the write paths
+ * invalidate every customer and basket they change, right away and again once the transaction completed.
+ * The second time covers a read that saw the old rows while the write was not committed yet. An entry keeps
+ * the owner token, and the customer of a basket, so a hit is only served where the database lookup would
+ * have found the row. It also keeps the version column of the row it rendered, a hit has to match the version
+ * the ETag of the response was built from.
+ */
+@Component
+public class EntityJsonCache {
+
+    private final OffHeapJsonStore store;
+    private final ObjectWriterCache writers;
+    private final Counter hits;
+    private final Counter misses;
+    private final Logger logger;
+
+    public EntityJsonCache(EntityCacheConfig cacheConfig, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.store = cacheConfig.isEnabled()
+                ? new OffHeapJsonStore((int) cacheConfig.getCapacity().toBytes(), (int) cacheConfig.getBlockSize().toBytes(),
+                        (int) cacheConfig.getMaxEntrySize().toBytes())
+                : null;
+        this.writers = new ObjectWriterCache(objectMapper);
+        this.logger = LoggerFactory.getLogger(this.getClass());
+
+        this.hits = Counter.builder("petshop.entity-cache.hits")
+                .description("Single customer and basket reads answered from the entity cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("petshop.entity-cache.misses")
+                .description("Single customer and basket reads that went to the database")
+                .register(meterRegistry);
+        if (store != null) {
+            Gauge.builder("petshop.entity-cache.entries", store, OffHeapJsonStore::entryCount)
+                    .description("Cached customer and basket representations")
+                    .register(meterRegistry);
+            Gauge.builder("petshop.entity-cache.used", store, OffHeapJsonStore::usedBytes)
+                    .description("Direct memory taken by cached entries")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            FunctionCounter.builder("petshop.entity-cache.evictions", store, OffHeapJsonStore::evictions)
+                    .description("Entries evicted to make room for new ones")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * The cached JSON of the entity at entityVersion if the token may read it, null otherwise. A basket is only
+     * found under the customer it belongs to. The caller has to close what it gets.
+     */
+    public CachedJson get(Class<?> type, String id, long entityVersion, String token, boolean isAdmin, String parentId) {
+        CachedJson cached = store != null ? store.get(new OffHeapJsonStore.Key(type, id)) : null;
+        if (cached != null && cached.entityVersion() == entityVersion && (isAdmin || cached.ownerToken().equals(token))
+                && (parentId == null || parentId.equals(cached.parentId()))) {
+            hits.increment();
+            return cached;
+        }
+        if (cached != null) {
+            cached.close();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * The version to pass to {@link #put}, read before the entity is loaded.
+     */
+    public long version(Class<?> type, String id) {
+        return store != null ? store.version(new OffHeapJsonStore.Key(type, id)) : 0;
+    }
+
+    /**
+     * Caches the JSON of value, rendered from the row at entityVersion, unless it was invalidated since version
+     * was read.
+     */
+    public void put(Class<?> type, String id, long version, long entityVersion, String ownerToken, String parentId, Object value) {
+        if (store == null) {
+            return;
+        }
+        try {
+            byte[] json = writers.writerFor(value.getClass()).writeValueAsBytes(value);
+            store.put(new OffHeapJsonStore.Key(type, id), version, entityVersion, ownerToken, parentId, json);
+        } catch (JsonProcessingException e) {
+            // Not cached, the response is written from the DTO as usual
+            logger.warn("Could not cache {} {}: {}", type.getSimpleName(), id, e.getMessage());
+        }
+    }
+
+    public void customerChanged(String customerId) {
+        invalidate(Customer.class, customerId);
+    }
+
+    /**
+     * A basket or one of its items changed, the basket and its customer are rendered differently now.
+     */
+    public void basketChanged(String customerId, String basketId) {
+        invalidate(ShoppingBasket.class, basketId);
+        invalidate(Customer.class, customerId);
+    }
+
+    public void customerDeleted(String customerId, Collection<String> basketIds) {
+        basketIds.forEach(basketId -> invalidate(ShoppingBasket.class, basketId));
+        invalidate(Customer.class, customerId);
+    }
+
+    private void invalidate(Class<?> type, String id) {
+        if (store == null) {
+            return;
+        }
+        OffHeapJsonStore.Key key = new OffHeapJsonStore.Key(type, id);
+        store.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    store.invalidate(key);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.samuel.sniffers.service.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Serialized JSON in one direct buffer outside the heap, split into fixed size blocks. An entry holds the
+ * indexes of its blocks, the entries are kept in read order so the least recently read one is evicted first
+ * when a put needs blocks that are not free.
+ * <p>
+ * Every key has a version, shared with the other keys of its stripe. Invalidating a key bumps it, and a put
+ * only succeeds with the version that was current before its data was read, so a read racing with a write
+ * can not store what the write replaced. An entry being written to a response is pinned, its blocks are only
+ * reused once the last reader released it.
+ */
+final class OffHeapJsonStore {
+
+    private static final int VERSION_STRIPES = 4096;
+
+    private final ByteBuffer arena;
+    private final int blockSize;
+    private final int maxEntrySize;
+    private final int[] freeBlocks;
+    private int freeCount;
+    private long evictions;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    // Blocks are copied out through a heap chunk per thread, a hit allocates nothing
+    private final ThreadLocal<byte[]> chunks;
+
+    OffHeapJsonStore(int capacity, int blockSize, int maxEntrySize) {
+        int blocks = capacity / blockSize;
+        this.arena = ByteBuffer.allocateDirect(blocks * blockSize);
+        this.blockSize = blockSize;
+        this.maxEntrySize = Math.min(maxEntrySize, blocks * blockSize);
+        this.freeBlocks = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            freeBlocks[i] = blocks - 1 - i;
+        }
+        this.freeCount = blocks;
+        this.chunks = ThreadLocal.withInitial(() -> new byte[blockSize]);
+    }
+
+    long version(Key key) {
+        return versions.get(stripe(key));
+    }
+
+    void invalidate(Key key) {
+        versions.incrementAndGet(stripe(key));
+        synchronized (this) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Stores the JSON unless the key was invalidated since version was read or it does not fit. entityVersion
+     * is the version column of the rendered row, kept to be compared with on reads.
+     */
+    boolean put(Key key, long version, long entityVersion, String ownerToken, String parentId, byte[] json) {
+        if (json.length > maxEntrySize) {
+            return false;
+        }
+        int needed = Math.max(1, (json.length + blockSize - 1) / blockSize);
+
+        synchronized (this) {
+            if (version(key) != version) {
+                return false;
+            }
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                remove(previous);
+            }
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (freeCount < needed && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                remove(evicted);
+                evictions++;
+            }
+            if (freeCount < needed) {
+                // What is left is pinned by readers
+                return false;
+            }
+
+            int[] blocks = new int[needed];
+            for (int i = 0; i < needed; i++) {
+                blocks[i] = freeBlocks[--freeCount];
+                int offset = i * blockSize;
+                arena.put(blocks[i] * blockSize, json, offset, Math.min(blockSize, json.length - offset));
+            }
+            entries.put(key, new Entry(blocks, json.length, version, entityVersion, ownerToken, parentId));
+            return true;
+        }
+    }
+
+    /**
+     * The entry of the key pinned for reading, null when there is none. The caller has to close it.
+     */
+    CachedJson get(Key key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            entry.pins++;
+            return new CachedJson(this, entry);
+        }
+    }
+
+    synchronized int entryCount() {
+        return entries.size();
+    }
+
+    synchronized long usedBytes() {
+        return (long) (freeBlocks.length - freeCount) * blockSize;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    void writeTo(Entry entry, OutputStream outputStream) throws IOException {
+        byte[] chunk = chunks.get();
+        // Absolute reads do not touch the buffer position, readers can copy out concurrently
+        for (int i = 0; i < entry.blocks.length; i++) {
+            int length = Math.min(blockSize, entry.length - i * blockSize);
+            arena.get(entry.blocks[i] * blockSize, chunk, 0, length);
+            outputStream.write(chunk, 0, length);
+        }
+    }
+
+    synchronized void release(Entry entry) {
+        entry.pins--;
+        if (entry.removed && entry.pins == 0) {
+            free(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entry.removed = true;
+        if (entry.pins == 0) {
+            free(entry);
+        }
+    }
+
+    private void free(Entry entry) {
+        for (int block : entry.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    private static int stripe(Key key) {
+        return (key.hashCode() & 0x7fffffff) % VERSION_STRIPES;
+    }
+
+    record Key(Class<?> type, String id) {
+    }
+
+    static final class Entry {
+        private final int[] blocks;
+        private final int length;
+        private final long version;
+        private final long entityVersion;
+        private final String ownerToken;
+        private final String parentId;
+
+        // Guarded by the store
+        private int pins;
+        private boolean removed;
+
+        private Entry(int[] blocks, int length, long version, long entityVersion, String ownerToken, String parentId) {
+            this.blocks = blocks;
+            this.length = length;
+            this.version = version;
+            this.entityVersion = entityVersion;
+            this.ownerToken = ownerToken;
+            this.parentId = parentId;
+        }
+
+        int length() {
+            return length;
+        }
+
+        long version() {
+            return version;
+        }
+
+        long entityVersion() {
+            return entityVersion;
+        }
+
+        String ownerToken() {
+            return ownerToken;
+        }
+
+        String parentId() {
+            return parentId;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.samuel.sniffers.service.count;
+
+import com.samuel.sniffers.config.CountEstimateConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-tenant row counters backing the {@code total=estimate} strategy.
+ * <p>
+ * A counter is seeded from the database on first read and is then kept up to date by the services on
+ * create/delete, so reading an estimate does not run a COUNT again until the counter is older than the
+ * reseed interval. The changes are applied once the transaction committed, a rolled back write leaves the
+ * counters alone. Only the least recently read counters are kept. Counters are local to the instance and
+ * a write committing while a counter is being seeded may be missed until the next reseed, hence only an
+ * estimate.
+ */
+@Component
+public class TotalCountEstimator {
+
+    private static final String ALL_CUSTOMERS = "customers:*";
+
+    private final int maxEntries;
+    private final long reseedIntervalMillis;
+    private final Clock clock;
+
+    // Guarded by itself. The seed queries run outside of it, only map updates hold the lock
+    private final Map<String, Counter> counters;
+
+    @Autowired
+    public TotalCountEstimator(CountEstimateConfig config) {
+        this(config.getMaxEntries(), config.getReseedInterval(), Clock.systemUTC());
+    }
+
+    TotalCountEstimator(int maxEntries, Duration reseedInterval, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.reseedIntervalMillis = reseedInterval.toMillis();
+        this.clock = clock;
+        this.counters = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Counter> eldest) {
+                return size() > TotalCountEstimator.this.maxEntries;
+            }
+        };
+    }
+
+    public long customers(String token, boolean isAdmin, LongSupplier seed) {
+        return estimate(isAdmin ? ALL_CUSTOMERS : customersKey(token), seed);
+    }
+
+    public long baskets(String customerId, LongSupplier seed) {
+        return estimate(basketsKey(customerId), seed);
+    }
+
+    public long items(String basketId, LongSupplier seed) {
+        return estimate(itemsKey(basketId), seed);
+    }
+
+    public void customerCreated(String token) {
+        afterCommit(() -> {
+            add(customersKey(token), 1);
+            add(ALL_CUSTOMERS, 1);
+        });
+    }
+
+    /**
+     * The baskets of the customer are deleted with it, their item counters go as well.
+     */
+    public void customerDeleted(String ownerToken, String customerId, Collection<String> basketIds) {
+        afterCommit(() -> {
+            add(customersKey(ownerToken), -1);
+            add(ALL_CUSTOMERS, -1);
+            remove(basketsKey(customerId));
+            basketIds.forEach(basketId -> remove(itemsKey(basketId)));
+        });
+    }
+
+    public void basketCreated(String customerId) {
+        afterCommit(() -> add(basketsKey(customerId), 1));
+    }
+
+    public void basketDeleted(String customerId, String basketId) {
+        afterCommit(() -> {
+            add(basketsKey(customerId), -1);
+            remove(itemsKey(basketId));
+        });
+    }
+
+    public void itemsAdded(String basketId, int count) {
+        afterCommit(() -> add(itemsKey(basketId), count));
+    }
+
+    public void itemDeleted(String basketId) {
+        afterCommit(() -> add(itemsKey(basketId), -1));
+    }
+
+    int size() {
+        synchronized (counters) {
+            return counters.size();
+        }
+    }
+
+    private long estimate(String key, LongSupplier seed) {
+        long now = clock.millis();
+        synchronized (counters) {
+            Counter counter = counters.get(key);
+            if (counter != null && now - counter.seeded < reseedIntervalMillis) {
+                return counter.value;
+            }
+        }
+
+        long value = seed.getAsLong();
+        synchronized (counters) {
+            counters.put(key, new Counter(value, now));
+        }
+        return value;
+    }
+
+    // Only counters that were already seeded are adjusted, the others will be seeded with the right value on read
+    private void add(String key, long delta) {
+        synchronized (counters) {
+            Counter counter = counters.get(key);
+            if (counter != null) {
+                counter.value = Math.max(0, counter.value + delta);
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (counters) {
+            counters.remove(key);
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private String customersKey(String token) {
+        return "customers:" + token;
+    }
+
+    private String basketsKey(String customerId) {
+        return "baskets:" + customerId;
+    }
+
+    private String itemsKey(String basketId) {
+        return "items:" + basketId;
+    }
+
+    private static final class Counter {
+        private long value;
+        private final long seeded;
+
+        private Counter(long value, long seeded) {
+            this.value = value;
+            this.seeded = seeded;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.samuel.sniffers.service.events;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.samuel.sniffers.enums.BasketStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the basket service for every basket that changed status, delivered to the feed after commit.
+ * The owner token decides which subscribers see the change and is never sent to them.
+ */
+public record BasketStatusChange(
+        String customerId,
+        String basketId,
+        BasketStatus previousStatus,
+        BasketStatus status,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime statusDate,
+        @JsonIgnore String ownerToken) {
+}
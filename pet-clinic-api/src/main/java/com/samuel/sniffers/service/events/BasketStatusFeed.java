@@ -0,0 +1,417 @@
+package com.samuel.sniffers.service.events;
+
+import com.samuel.sniffers.api.exception.StreamRejectedException;
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+import com.samuel.sniffers.config.BasketFeedConfig;
+import com.samuel.sniffers.enums.BasketStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed basket status changes out to Server-Sent Events subscribers.
+ * <p>
+ * The changes of one transaction are added to a ring together once it commits, each one with the next
+ * sequence number. The ring drops whole transactions, oldest first, as long as the rest still holds
+ * replay-buffer changes, so a batch larger than the buffer is kept whole and a subscriber that was caught
+ * up before it does not lag. Subscribers do not queue events, each one only remembers the last sequence it
+ * was given and reads the ring from there on a dispatch thread, so a slow subscriber costs no memory. One
+ * that falls behind the oldest change in the ring is closed, and one whose send is stuck for longer than
+ * send-timeout is dropped.
+ * <p>
+ * Event ids are the start time of the application and the sequence, so an id of an earlier run is told
+ * apart from a current one. A client reconnecting with an id that cannot be resumed exactly, because the
+ * changes after it left the ring or it is from an earlier run, first gets a reset event and then every
+ * buffered change.
+ */
+@Component
+public class BasketStatusFeed {
+
+    public static final String EVENT_NAME = "basket-status";
+    public static final String RESET_EVENT_NAME = "reset";
+
+    // Events read from the ring per lock acquisition
+    private static final int DISPATCH_BATCH = 100;
+
+    // Committed transactions by the sequence of their first change
+    private final NavigableMap<Long, List<BasketStatusChange>> ring = new TreeMap<>();
+    private long buffered;
+    private long lastId;
+
+    private final String epoch;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final Executor dispatcher;
+    private ScheduledExecutorService watchdog;
+    private final Clock clock;
+    private final Counter rejected;
+    private final Counter lagged;
+    private final Counter slow;
+    private final BasketFeedConfig feedConfig;
+    private final Logger logger;
+
+    @Autowired
+    public BasketStatusFeed(BasketFeedConfig feedConfig, MeterRegistry meterRegistry) {
+        this(feedConfig, meterRegistry,
+                Executors.newFixedThreadPool(feedConfig.getDispatchThreads(), new CustomizableThreadFactory("basket-feed-")),
+                Clock.systemUTC());
+
+        long period = Math.max(1, feedConfig.getSendTimeout().toMillis() / 2);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("basket-feed-watchdog-"));
+        this.watchdog.scheduleWithFixedDelay(this::dropStalledSubscribers, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    BasketStatusFeed(BasketFeedConfig feedConfig, MeterRegistry meterRegistry, Executor dispatcher, Clock clock) {
+        this.epoch = String.valueOf(clock.millis());
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+        this.feedConfig = feedConfig;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+
+        Gauge.builder("petshop.basket-feed.subscribers", open::get)
+                .description("Open basket status feed connections")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("petshop.basket-feed.rejected")
+                .description("Feed subscriptions rejected with 503 because max-subscribers were open")
+                .register(meterRegistry);
+        this.lagged = Counter.builder("petshop.basket-feed.lagged")
+                .description("Feed subscribers closed because they fell behind the replay buffer")
+                .register(meterRegistry);
+        this.slow = Counter.builder("petshop.basket-feed.slow")
+                .description("Feed subscribers dropped because a send took longer than send-timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a feed of the changes visible to the token, optionally only one customer and some statuses.
+     * With a lastEventId the changes after it that are still buffered are sent first.
+     */
+    public SseEmitter subscribe(String token, boolean isAdmin, String customerId, Set<BasketStatus> statuses, String lastEventId) {
+        return subscribe(new SseEmitter(feedConfig.getTimeout().toMillis()), token, isAdmin, customerId, statuses, lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String token, boolean isAdmin, String customerId, Set<BasketStatus> statuses, String lastEventId) {
+        if (open.incrementAndGet() > feedConfig.getMaxSubscribers()) {
+            open.decrementAndGet();
+            rejected.increment();
+            logger.warn("Rejected basket feed subscription, {} subscribers open", feedConfig.getMaxSubscribers());
+            throw new StreamRejectedException("Too many open feeds, please retry later.", feedConfig.getRetryAfter());
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, token, isAdmin, customerId, statuses == null ? Set.of() : Set.copyOf(statuses));
+        boolean reset = start(subscriber, lastEventId);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        try {
+            // Commits the response headers right away and tells the client how soon to reconnect
+            emitter.send(SseEmitter.event().reconnectTime(feedConfig.getReconnectTime().toMillis()).comment("subscribed"));
+            if (reset) {
+                emitter.send(SseEmitter.event()
+                        .id(eventId(subscriber.lastSent))
+                        .name(RESET_EVENT_NAME)
+                        .data("Some changes after Last-Event-ID are no longer available"));
+            }
+        } catch (IOException e) {
+            open.decrementAndGet();
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Collects the changes of the current transaction and adds them to the ring together once it commits.
+     * A change published outside a transaction is added right away.
+     */
+    @EventListener
+    public void onStatusChange(BasketStatusChange change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(change));
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(change);
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Drops the subscribers whose current send started more than send-timeout ago. Their connection is
+     * completed by the dispatch thread once the blocked write returns or fails.
+     */
+    void dropStalledSubscribers() {
+        long now = clock.millis();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > feedConfig.getSendTimeout().toMillis()) {
+                slow.increment();
+                logger.warn("Dropping basket feed subscriber, a send has been blocked for {} ms", now - sendingSince);
+                remove(subscriber);
+            }
+        }
+    }
+
+    private void append(List<BasketStatusChange> changes) {
+        synchronized (this) {
+            ring.put(lastId + 1, changes);
+            lastId += changes.size();
+            buffered += changes.size();
+
+            // Only whole transactions leave the ring, and only while the rest still fills the buffer
+            while (buffered - ring.firstEntry().getValue().size() >= feedConfig.getReplayBuffer()) {
+                buffered -= ring.pollFirstEntry().getValue().size();
+            }
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    /**
+     * Positions a new subscriber after its Last-Event-ID, and returns whether it has to be told that it
+     * missed changes.
+     */
+    private synchronized boolean start(Subscriber subscriber, String lastEventId) {
+        if (lastEventId == null) {
+            // A new client only gets what happens from now on
+            subscriber.lastSent = lastId;
+            return false;
+        }
+
+        Long sequence = sequenceOf(lastEventId);
+        if (sequence == null || sequence > lastId || sequence < oldestId() - 1) {
+            subscriber.lastSent = oldestId() - 1;
+            return true;
+        }
+        subscriber.lastSent = sequence;
+        return false;
+    }
+
+    // The sequence of an id of this run, null for an id of an earlier run or one the feed did not write
+    private Long sequenceOf(String eventId) {
+        int separator = eventId.indexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.closed && subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> dispatch(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    private void dispatch(Subscriber subscriber) {
+        try {
+            List<FeedEvent> batch;
+            while (!subscriber.closed && !(batch = eventsAfter(subscriber.lastSent)).isEmpty()) {
+                for (FeedEvent event : batch) {
+                    if (subscriber.closed) {
+                        break;
+                    }
+                    if (subscriber.accepts(event.change())) {
+                        send(subscriber, event);
+                    }
+                    subscriber.lastSent = event.id();
+                }
+            }
+
+            if (subscriber.closed) {
+                // Dropped as slow while sending
+                subscriber.emitter.complete();
+            }
+        } catch (LaggedException e) {
+            lagged.increment();
+            logger.warn("Closing basket feed subscriber at event {}, the oldest buffered event is {}", subscriber.lastSent, e.oldestId);
+            subscriber.emitter.complete();
+            remove(subscriber);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Basket feed subscriber disconnected: {}", e.getMessage());
+            remove(subscriber);
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+
+        // A change published after the last read but before the flag was cleared was not scheduled
+        if (hasEventsAfter(subscriber.lastSent)) {
+            schedule(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, FeedEvent event) throws IOException {
+        subscriber.sendingSince = clock.millis();
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(eventId(event.id()))
+                    .name(EVENT_NAME)
+                    .data(event.change(), MediaType.APPLICATION_JSON));
+        } finally {
+            subscriber.sendingSince = 0;
+        }
+    }
+
+    private synchronized List<FeedEvent> eventsAfter(long after) {
+        long oldestId = oldestId();
+        if (after < oldestId - 1) {
+            throw new LaggedException(oldestId);
+        }
+        if (after >= lastId) {
+            return List.of();
+        }
+
+        List<FeedEvent> events = new ArrayList<>();
+        Map.Entry<Long, List<BasketStatusChange>> transaction = ring.floorEntry(after + 1);
+        for (long id = after + 1; id <= lastId && events.size() < DISPATCH_BATCH; id++) {
+            if (id >= transaction.getKey() + transaction.getValue().size()) {
+                transaction = ring.higherEntry(transaction.getKey());
+            }
+            events.add(new FeedEvent(id, transaction.getValue().get((int) (id - transaction.getKey()))));
+        }
+        return events;
+    }
+
+    private synchronized boolean hasEventsAfter(long after) {
+        return after < lastId;
+    }
+
+    private long oldestId() {
+        return ring.isEmpty() ? lastId + 1 : ring.firstKey();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscribers.remove(subscriber)) {
+            open.decrementAndGet();
+        }
+    }
+
+    private record FeedEvent(long id, BasketStatusChange change) {
+    }
+
+    /**
+     * The changes of one transaction, bound to it like a resource so a suspended transaction keeps its own.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+        private final List<BasketStatusChange> changes = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(BasketStatusFeed.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(BasketStatusFeed.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            append(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BasketStatusFeed.this);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String token;
+        private final boolean isAdmin;
+        private final String customerId;
+        private final Set<BasketStatus> statuses;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        // Only advanced by the dispatch run holding the scheduled flag
+        private volatile long lastSent;
+
+        // When the send in progress started, 0 while not sending
+        private volatile long sendingSince;
+
+        private Subscriber(SseEmitter emitter, String token, boolean isAdmin, String customerId, Set<BasketStatus> statuses) {
+            this.emitter = emitter;
+            this.token = token;
+            this.isAdmin = isAdmin;
+            this.customerId = customerId;
+            this.statuses = statuses;
+        }
+
+        private boolean accepts(BasketStatusChange change) {
+            return (isAdmin || token.equals(change.ownerToken()))
+                    && (customerId == null || customerId.equals(change.customerId()))
+                    && (statuses.isEmpty() || statuses.contains(change.status()));
+        }
+    }
+
+    private static final class LaggedException extends RuntimeException {
+        private final long oldestId;
+
+        private LaggedException(long oldestId) {
+            super(null, null, false, false);
+            this.oldestId = oldestId;
+        }
+    }
+}
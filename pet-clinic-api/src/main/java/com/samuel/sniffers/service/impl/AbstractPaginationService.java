@@ -1,10 +1,24 @@
 package com.samuel.sniffers.service.impl;
 
-import org.springframework.data.domain.Page;
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.enums.BasketStatus;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.LongSupplier;
 
 public abstract class AbstractPaginationService {
 
@@ -17,12 +31,28 @@ public abstract class AbstractPaginationService {
     private static final String SORT_BY_CUSTOMER = "customer";
     private static final String SORT_BY_DESCRIPTION = "description";
     private static final String SORT_BY_AMOUNT = "amount";
+    private static final String STATUS_DATE_PROPERTY = "statusDate";
+
+    private static final String CURSOR_SEPARATOR = ".";
+    private static final String INVALID_CURSOR = "Invalid pagination cursor.";
 
     protected String buildPageUrl(String baseUrl, int page, int size, String sortBy, String direction) {
         return String.format("%s?page=%d&size=%d&sortBy=%s&direction=%s",
                 baseUrl, page, size, sortBy, direction);
     }
 
+    private String buildPageUrl(String baseUrl, int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy) {
+        String pageUrl = buildPageUrl(baseUrl, page, size, sortBy, direction);
+
+        // exact is the default, keep the links short for it
+        return totalStrategy == TotalCountStrategy.EXACT ? pageUrl : pageUrl + "&total=" + totalStrategy.getValue();
+    }
+
+    protected String buildCursorUrl(String baseUrl, String cursor, int size, String sortBy, String direction) {
+        return String.format("%s?cursor=%s&size=%d&sortBy=%s&direction=%s",
+                baseUrl, cursor, size, sortBy, direction);
+    }
+
     protected String getSanitizedCustomerSortBy(String sortBy) {
         return switch (sortBy.toLowerCase()) {
             case SORT_BY_ID -> SORT_BY_ID;
@@ -73,31 +103,223 @@ public abstract class AbstractPaginationService {
         return Sort.Direction.fromString(sortDirection);
     }
 
+    /**
+     * Builds an offset page response. The totalElements is resolved with the requested strategy,
+     * and no count is issued at all when the slice already shows where the data ends.
+     */
+    protected <T> PagedResponse<T> buildPagedResponse(
+            List<T> data, Slice<?> entitySlice, TotalCountStrategy totalStrategy,
+            LongSupplier exactCount, LongSupplier estimatedCount,
+            String baseUrl, int page, int size, String sortBy, String direction) {
+
+        Long totalElements = resolveTotalElements(entitySlice, totalStrategy, exactCount, estimatedCount);
+
+        PagedResponse<T> response;
+        if (totalElements == null) {
+            response = new PagedResponse<>(
+                    data,
+                    entitySlice.getNumber() + 1,
+                    entitySlice.getSize(),
+                    entitySlice.isLast()
+            );
+        } else {
+            response = new PagedResponse<>(
+                    data,
+                    entitySlice.getNumber() + 1,
+                    entitySlice.getSize(),
+                    totalElements,
+                    getTotalPages(totalElements, entitySlice.getSize()),
+                    entitySlice.isLast()
+            );
+            response.setTotalStrategy(totalStrategy);
+        }
+
+        // Add pagination links
+        response.setLinks(buildPaginationLinks(
+                baseUrl, size, sortBy, direction, page, totalStrategy, entitySlice.isLast(), response.getTotalPages()));
+        return response;
+    }
+
     protected Map<String, String> buildPaginationLinks (
-            String baseUrl, int size, String sortBy, String direction, int page, Page<?> entityPage){
+            String baseUrl, int size, String sortBy, String direction, int page,
+            TotalCountStrategy totalStrategy, boolean isLast, Integer totalPages) {
 
         Map<String, String> links = new HashMap<>();
 
         // First page
-        links.put("first", buildPageUrl(baseUrl, 1, size, sortBy, direction));
+        links.put("first", buildPageUrl(baseUrl, 1, size, sortBy, direction, totalStrategy));
 
         // Previous page
         if (page > 1) {
-            links.put("prev", buildPageUrl(baseUrl, page - 1, size, sortBy, direction));
+            links.put("prev", buildPageUrl(baseUrl, page - 1, size, sortBy, direction, totalStrategy));
         }
 
         // Next page
-        if (!entityPage.isLast()) {
-            links.put("next", buildPageUrl(baseUrl, page + 1, size, sortBy, direction));
+        if (!isLast) {
+            links.put("next", buildPageUrl(baseUrl, page + 1, size, sortBy, direction, totalStrategy));
         }
 
-        // Last page
-        int lastPage = entityPage.getTotalPages();
-        if (lastPage > 0) {
-            links.put("last", buildPageUrl(baseUrl, lastPage, size, sortBy, direction));
+        // Last page, only known when a total was computed
+        if (totalPages != null && totalPages > 0) {
+            links.put("last", buildPageUrl(baseUrl, totalPages, size, sortBy, direction, totalStrategy));
+        }
+
+        return links;
+    }
+
+    protected Map<String, String> buildPaginationLinks(
+            String baseUrl, int size, String sortBy, String direction, String nextCursor) {
+
+        Map<String, String> links = new HashMap<>();
+
+        // First window, an empty cursor starts from the beginning of the keyset
+        links.put("first", buildCursorUrl(baseUrl, "", size, sortBy, direction));
+
+        // Next window
+        if (nextCursor != null) {
+            links.put("next", buildCursorUrl(baseUrl, nextCursor, size, sortBy, direction));
         }
 
         return links;
     }
 
+    /**
+     * Maps a sanitized sortBy value to the entity property used as keyset.
+     */
+    protected String getKeysetProperty(String sanitizedSortBy) {
+        return switch (sanitizedSortBy) {
+            case SORT_BY_STATUS_DATE -> STATUS_DATE_PROPERTY;
+            case SORT_BY_CUSTOMER -> SORT_BY_ID; // baskets are always listed for a single customer
+            default -> sanitizedSortBy;
+        };
+    }
+
+    /**
+     * Keyset sort. The id is always appended as tie-breaker so the position is unique.
+     */
+    protected Sort getKeysetSort(Sort.Direction direction, String keysetProperty) {
+        if (SORT_BY_ID.equals(keysetProperty)) {
+            return Sort.by(direction, SORT_BY_ID);
+        }
+        return Sort.by(direction, keysetProperty).and(Sort.by(direction, SORT_BY_ID));
+    }
+
+    /**
+     * Encodes the position after the last element of the window as an opaque cursor
+     * made of the sort property, the direction, the last sort key and the last id.
+     */
+    protected String encodeCursor(Window<?> window, String keysetProperty, Sort.Direction direction) {
+        if (window.isEmpty() || !window.hasNext()) {
+            return null;
+        }
+
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        Map<String, Object> keys = position.getKeys();
+
+        return String.join(CURSOR_SEPARATOR,
+                encodeCursorPart(keysetProperty),
+                encodeCursorPart(direction.name()),
+                encodeCursorPart(String.valueOf(keys.get(keysetProperty))),
+                encodeCursorPart(String.valueOf(keys.get(SORT_BY_ID))));
+    }
+
+    protected KeysetScrollPosition decodeCursor(String cursor, String keysetProperty, Sort.Direction direction) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts = cursor.split("\\" + CURSOR_SEPARATOR, -1);
+        if (parts.length != 4) {
+            throw new InvalidRequestException(INVALID_CURSOR);
+        }
+
+        try {
+            if (!keysetProperty.equals(decodeCursorPart(parts[0])) || !direction.name().equals(decodeCursorPart(parts[1]))) {
+                throw new InvalidRequestException("Pagination cursor does not match the requested sortBy and direction.");
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            if (!SORT_BY_ID.equals(keysetProperty)) {
+                keys.put(keysetProperty, parseKeysetValue(keysetProperty, decodeCursorPart(parts[2])));
+            }
+            keys.put(SORT_BY_ID, decodeCursorPart(parts[3]));
+
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidRequestException(INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * Opaque cursor over a fixed keyset, the values are encoded one by one so a null key survives as empty.
+     */
+    protected String encodeKeysetCursor(String... keys) {
+        String[] parts = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            parts[i] = encodeCursorPart(keys[i] == null ? "" : keys[i]);
+        }
+        return String.join(CURSOR_SEPARATOR, parts);
+    }
+
+    protected String[] decodeKeysetCursor(String cursor, int keyCount) {
+        String[] parts = cursor.split("\\" + CURSOR_SEPARATOR, -1);
+        if (parts.length != keyCount) {
+            throw new InvalidRequestException(INVALID_CURSOR);
+        }
+
+        try {
+            String[] keys = new String[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                String key = decodeCursorPart(parts[i]);
+                keys[i] = key.isEmpty() ? null : key;
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(INVALID_CURSOR);
+        }
+    }
+
+    private Long resolveTotalElements(
+            Slice<?> entitySlice, TotalCountStrategy totalStrategy, LongSupplier exactCount, LongSupplier estimatedCount) {
+
+        if (totalStrategy == TotalCountStrategy.NONE) {
+            return null;
+        }
+
+        long rowsUpToThisPage = entitySlice.getPageable().getOffset() + entitySlice.getNumberOfElements();
+
+        // Last page reached, the total is known without counting
+        if (!entitySlice.hasNext() && (entitySlice.hasContent() || entitySlice.isFirst())) {
+            return rowsUpToThisPage;
+        }
+
+        if (totalStrategy == TotalCountStrategy.EXACT) {
+            return exactCount.getAsLong();
+        }
+
+        // A lagging estimate must still account for the rows that were actually read
+        long minimumTotal = entitySlice.hasNext() ? rowsUpToThisPage + 1 : rowsUpToThisPage;
+        return Math.max(estimatedCount.getAsLong(), minimumTotal);
+    }
+
+    private int getTotalPages(long totalElements, int size) {
+        return size == 0 ? 1 : (int) Math.ceil((double) totalElements / (double) size);
+    }
+
+    private Object parseKeysetValue(String keysetProperty, String value) {
+        return switch (keysetProperty) {
+            case SORT_BY_CREATED, STATUS_DATE_PROPERTY -> LocalDateTime.parse(value);
+            case SORT_BY_STATUS -> BasketStatus.valueOf(value);
+            case SORT_BY_AMOUNT -> Integer.valueOf(value);
+            default -> value;
+        };
+    }
+
+    private String encodeCursorPart(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeCursorPart(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
 }
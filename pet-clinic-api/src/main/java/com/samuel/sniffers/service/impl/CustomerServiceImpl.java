@@ -1,7 +1,5 @@
 package com.samuel.sniffers.service.impl;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samuel.sniffers.api.exception.CustomerAlreadyExistsException;
 import com.samuel.sniffers.api.exception.InvalidRequestException;
 import com.samuel.sniffers.api.exception.ResourceNotFoundException;
@@ -10,20 +8,41 @@ import com.samuel.sniffers.api.factory.EntityFactory;
 import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.logging.Logger;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.Checkpoints;
+import com.samuel.sniffers.api.streaming.RecordWriter;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
 import com.samuel.sniffers.dto.CustomerBatchUpdateDTO;
 import com.samuel.sniffers.dto.CustomerDTO;
 import com.samuel.sniffers.dto.CustomerPatchDTO;
+import com.samuel.sniffers.dto.ResponseExpansion;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.response.BatchUpdateFailure;
 import com.samuel.sniffers.dto.response.CustomerBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.CustomerResponseDTO;
 import com.samuel.sniffers.entity.Customer;
 import com.samuel.sniffers.metrics.PetShopMetrics;
 import com.samuel.sniffers.repository.CustomerRepository;
+import com.samuel.sniffers.repository.projection.CustomerBasketId;
+import com.samuel.sniffers.repository.projection.CustomerView;
+import com.samuel.sniffers.repository.projection.EntityVersion;
 import com.samuel.sniffers.security.SecurityService;
 import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.cache.CachedJson;
+import com.samuel.sniffers.service.cache.EntityJsonCache;
+import com.samuel.sniffers.service.count.TotalCountEstimator;
+import com.samuel.sniffers.service.mapper.ResponseMapper;
+import com.samuel.sniffers.service.streaming.ClearingStreams;
+import com.samuel.sniffers.service.streaming.RecordWriterFactory;
+import com.samuel.sniffers.service.streaming.StreamRows;
+import com.samuel.sniffers.service.version.EntityVersions;
+import com.samuel.sniffers.service.version.Versioned;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +52,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -45,13 +65,25 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
     private final SecurityService securityService;
     private final EntityFactory entityFactory;
     private final PetShopMetrics metrics;
+    private final TotalCountEstimator countEstimator;
+    private final ResponseMapper responseMapper;
+    private final RecordWriterFactory recordWriterFactory;
+    private final ClearingStreams clearingStreams;
+    private final EntityJsonCache entityCache;
+    private final EntityVersions entityVersions;
 
     @Autowired
-    public CustomerServiceImpl(CustomerRepository customerRepository, SecurityService securityService, EntityFactory entityFactory, PetShopMetrics metrics) {
+    public CustomerServiceImpl(CustomerRepository customerRepository, SecurityService securityService, EntityFactory entityFactory, PetShopMetrics metrics, TotalCountEstimator countEstimator, ResponseMapper responseMapper, RecordWriterFactory recordWriterFactory, ClearingStreams clearingStreams, EntityJsonCache entityCache, EntityVersions entityVersions) {
         this.customerRepository = customerRepository;
         this.securityService = securityService;
         this.entityFactory = entityFactory;
         this.metrics = metrics;
+        this.countEstimator = countEstimator;
+        this.responseMapper = responseMapper;
+        this.recordWriterFactory = recordWriterFactory;
+        this.clearingStreams = clearingStreams;
+        this.entityCache = entityCache;
+        this.entityVersions = entityVersions;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -75,20 +107,52 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
 
         // Increment metrics
         metrics.incrementCustomerCreated(securityService.getCurrentCustomerToken());
+        countEstimator.customerCreated(currentCustomerToken);
 
         return entityFactory.convertToDTO(entity, CustomerResponseDTO.class);
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
     public CustomerResponseDTO findById(String customerId) {
-        return entityFactory.convertToDTO(getCustomer(customerId), CustomerResponseDTO.class);
+        return findVersionedById(customerId).value();
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public Versioned<CustomerResponseDTO> findVersionedById(String customerId) {
+        String token = securityService.getCurrentCustomerToken();
+        long cacheVersion = entityCache.version(Customer.class, customerId);
+
+        CustomerView customer = customerRepository.findViewByIdWithAccess(customerId, token, securityService.isAdmin(token))
+                .orElseThrow(() -> {
+                    logger.error("Customer with id: {} not found", customerId);
+                    return new ResourceNotFoundException("Customer not found");
+                });
+
+        CustomerResponseDTO response = responseMapper.toCustomerResponse(customer);
+        entityCache.put(Customer.class, customerId, cacheVersion, customer.version(), customer.ownerToken(), null, response);
+        return new Versioned<>(response, new EntityVersion(customer.version(), customer.modified()));
+    }
+
+    @Override
+    public CachedJson findCachedById(String customerId, long version) {
+        String token = securityService.getCurrentCustomerToken();
+        return entityCache.get(Customer.class, customerId, version, token, securityService.isAdmin(token), null);
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public Optional<EntityVersion> findVersion(String customerId) {
+        String token = securityService.getCurrentCustomerToken();
+        return customerRepository.findVersionWithAccess(customerId, token, securityService.isAdmin(token));
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
     public PagedResponse<CustomerResponseDTO> findAll(
-            int page, int size, String sortBy, String direction, String baseUrl) {
+            int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy,
+            ResponseExpansion expansion, String baseUrl) {
 
         // Create page request
         PageRequest pageRequest = PageRequest.of(
@@ -101,52 +165,83 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
 
-        Page<Customer> customersPage = customerRepository.findAllWithAccess(token, isAdmin, pageRequest);
+        Slice<Customer> customersSlice = customerRepository.findSliceWithAccess(token, isAdmin, pageRequest);
 
-        // Map entities to DTOs
-        List<CustomerResponseDTO> customerDTOs = customersPage.getContent().stream()
-                .map(customer -> entityFactory.convertToDTO(customer, CustomerResponseDTO.class))
-                .toList();
+        // Map entities to DTOs, children are only read when expanded
+        List<CustomerResponseDTO> customerDTOs = responseMapper.toCustomerResponses(customersSlice.getContent(), expansion);
 
-        // Create paged response
-        PagedResponse<CustomerResponseDTO> response = new PagedResponse<>(
+        // Create paged response, total resolved with the requested strategy
+        return buildPagedResponse(
                 customerDTOs,
-                customersPage.getNumber() + 1,
-                customersPage.getSize(),
-                customersPage.getTotalElements(),
-                customersPage.getTotalPages(),
-                customersPage.isLast()
+                customersSlice,
+                totalStrategy,
+                () -> customerRepository.countWithAccess(token, isAdmin),
+                () -> countEstimator.customers(token, isAdmin, () -> customerRepository.countWithAccess(token, isAdmin)),
+                baseUrl, page, size, sortBy, direction
         );
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public PagedResponse<CustomerResponseDTO> findAllByCursor(
+            String cursor, int size, String sortBy, String direction, ResponseExpansion expansion, String baseUrl) {
+
+        // Sanitize and resolve the keyset -> Avoid attacks on db via query params
+        Sort.Direction sortDirection = getSanitizedSortDirection(direction);
+        String keysetProperty = getKeysetProperty(getSanitizedCustomerSortBy(sortBy));
+        KeysetScrollPosition position = decodeCursor(cursor, keysetProperty, sortDirection);
+
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+
+        Window<Customer> customersWindow = customerRepository.scrollAllWithAccess(
+                token, isAdmin, getKeysetSort(sortDirection, keysetProperty), size, position);
+
+        // Map entities to DTOs, children are only read when expanded
+        List<CustomerResponseDTO> customerDTOs = responseMapper.toCustomerResponses(customersWindow.getContent(), expansion);
+
+        // Create cursor response
+        String nextCursor = encodeCursor(customersWindow, keysetProperty, sortDirection);
+        PagedResponse<CustomerResponseDTO> response = new PagedResponse<>(
+                customerDTOs, size, !customersWindow.hasNext(), nextCursor);
 
         // Add pagination links
-        response.setLinks(buildPaginationLinks(baseUrl, size, sortBy, direction, page, customersPage));
+        response.setLinks(buildPaginationLinks(baseUrl, size, sortBy, direction, nextCursor));
         return response;
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
-    public void streamAllToResponse(OutputStream outputStream) {
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public void streamAllToResponse(OutputStream outputStream, ResponseExpansion expansion, StreamResume resume, StreamFormat format) {
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
 
-        try {
-            ObjectMapper objectMapper = entityFactory.getObjectMapperForStreaming();
+        try (
+                Stream<Customer> customerStream = clearingStreams.clearing(customerRepository.streamAllWithAccess(token, isAdmin, resume.after()));
+                RecordWriter writer = recordWriterFactory.open(outputStream, format)
+        ) {
+            Checkpoints checkpoints = new Checkpoints(writer, resume.checkpointEvery());
 
-            try (
-                    Stream<Customer> customerStream = customerRepository.streamAllWithAccess(token, isAdmin);
-                    JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(outputStream)
-            ) {
+            if (!expansion.baskets()) {
                 customerStream.forEach(customer -> {
                     try {
-                        CustomerResponseDTO dto = entityFactory.convertToDTO(customer, CustomerResponseDTO.class);
-                        objectMapper.writeValue(jsonGenerator, dto);
-                        jsonGenerator.writeRaw('\n');
-                        jsonGenerator.flush();
+                        writer.writeRow(customer, StreamRows.CUSTOMER);
+                        checkpoints.written(customer.getId());
                     } catch (IOException e) {
                         throw new StreamingException("Error streaming customer data", e);
                     }
                 });
+                return;
             }
+
+            responseMapper.mapInChunks(customerStream, chunk -> responseMapper.toCustomerResponses(chunk, expansion), dto -> {
+                try {
+                    writer.write(dto);
+                    checkpoints.written(dto.getId());
+                } catch (IOException e) {
+                    throw new StreamingException("Error streaming customer data", e);
+                }
+            });
         } catch (IOException e) {
             throw new StreamingException("Error initializing JSON generator", e);
         }
@@ -154,24 +249,32 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public CustomerResponseDTO update(String customerId, CustomerDTO dto) {
+    public CustomerResponseDTO update(String customerId, CustomerDTO dto, Long expectedVersion) {
         Customer customer = getCustomer(customerId);
+        entityVersions.customerChanged(customerId, expectedVersion);
         customer.setName(dto.getName());
         customer.setTimezone(dto.getTimezone());
+        entityCache.customerChanged(customerId);
 
         return entityFactory.convertToDTO(customerRepository.save(customer), CustomerResponseDTO.class);
     }
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public CustomerResponseDTO update(String customerId, CustomerPatchDTO dto) {
+    public CustomerResponseDTO update(String customerId, CustomerPatchDTO dto, Long expectedVersion) {
 
         if (dto.getName() == null && dto.getTimezone() == null) {
             throw new InvalidRequestException("You must provide either 'name' or 'timezone' in the PATCH request. Both fields cannot be empty.");
         }
 
         Customer customer = getCustomer(customerId);
-        customer = entityFactory.patchEntity(dto, customer);
+        if (entityFactory.patchEntityFields(dto, customer).isEmpty()) {
+            // Nothing to write, the stored customer already has these values and keeps its version
+            entityVersions.customerUnchanged(customerId, expectedVersion);
+            return entityFactory.convertToDTO(customer, CustomerResponseDTO.class);
+        }
+        entityVersions.customerChanged(customerId, expectedVersion);
+        entityCache.customerChanged(customerId);
         return entityFactory.convertToDTO(customerRepository.save(customer), CustomerResponseDTO.class);
     }
 
@@ -195,6 +298,7 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
                 .collect(Collectors.toMap(Customer::getId, c -> c));
 
         List<Customer> updatedCustomers = new ArrayList<>();
+        List<Customer> changedCustomers = new ArrayList<>();
         List<BatchUpdateFailure> failedUpdates = new ArrayList<>();
 
         for (CustomerBatchUpdateDTO.CustomerBatchPatchDTO updateRequest : dto.getUpdates()) {
@@ -213,7 +317,10 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
                     );
                 } else {
                     // PATCH customer fields
-                    customer = entityFactory.patchEntity(updateRequest, customer);
+                    if (!entityFactory.patchEntityFields(updateRequest, customer).isEmpty()) {
+                        changedCustomers.add(customer);
+                        entityCache.customerChanged(customer.getId());
+                    }
                     updatedCustomers.add(customer);
                 }
             } catch (Exception ex) {
@@ -227,8 +334,9 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
             }
         }
 
-        // Save all updates in a single batch operation
-        customerRepository.saveAll(updatedCustomers);
+        // Save all changed customers in a single batch operation
+        customerRepository.saveAll(changedCustomers);
+        entityVersions.customersChanged(changedCustomers.stream().map(Customer::getId).toList());
 
         return new CustomerBatchUpdateResponseDTO(
                 !updatedCustomers.isEmpty() ? updatedCustomers.size() : null,
@@ -242,13 +350,18 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public void delete(String customerId) {
 
-        if (!customerExist(customerId)) {
+        String token = securityService.getCurrentCustomerToken();
+        List<CustomerBasketId> rows = customerRepository.findBasketIdsWithAccess(customerId, token, securityService.isAdmin(token));
+        if (rows.isEmpty()) {
             logger.error("Customer with id: {} not found", customerId);
             throw new ResourceNotFoundException("Customer not found");
         }
 
-        customerRepository.delete(getCustomer(customerId));
+        List<String> basketIds = rows.stream().map(CustomerBasketId::basketId).filter(Objects::nonNull).toList();
+        entityCache.customerDeleted(customerId, basketIds);
+        customerRepository.deleteCustomerById(customerId);
         logger.error("Customer with id: {} deleted successfully", customerId);
+        countEstimator.customerDeleted(rows.get(0).ownerToken(), customerId, basketIds);
 
 
         // Increment metrics
@@ -270,6 +383,25 @@ public class CustomerServiceImpl extends AbstractPaginationService implements Cu
         return optionalCustomer.get();
     }
 
+    @Override
+    public String getOwnerToken(String customerId) {
+        String token = securityService.getCurrentCustomerToken();
+        return customerRepository.findOwnerTokenWithAccess(customerId, token, securityService.isAdmin(token))
+                .orElseThrow(() -> {
+                    logger.error("Customer with id: {} not found", customerId);
+                    return new ResourceNotFoundException("Customer not found");
+                });
+    }
+
+    @Override
+    public Customer getCustomerReference(String customerId) {
+        if (!customerExist(customerId)) {
+            logger.error("Customer with id: {} not found", customerId);
+            throw new ResourceNotFoundException("Customer not found");
+        }
+        return customerRepository.getReferenceById(customerId);
+    }
+
     @Override
     public boolean customerExist(String customerId) {
         return customerRepository.existByIdAndOwnerToken(
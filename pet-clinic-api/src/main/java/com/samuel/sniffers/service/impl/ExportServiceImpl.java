@@ -0,0 +1,59 @@
+package com.samuel.sniffers.service.impl;
+
+import com.samuel.sniffers.api.exception.StreamingException;
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+import com.samuel.sniffers.api.streaming.RecordWriter;
+import com.samuel.sniffers.dto.ExportColumns;
+import com.samuel.sniffers.repository.CustomerRepository;
+import com.samuel.sniffers.repository.projection.HierarchyRow;
+import com.samuel.sniffers.security.SecurityService;
+import com.samuel.sniffers.service.ExportService;
+import com.samuel.sniffers.service.streaming.RecordWriterFactory;
+import com.samuel.sniffers.service.streaming.StreamRows;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private final CustomerRepository customerRepository;
+    private final SecurityService securityService;
+    private final RecordWriterFactory recordWriterFactory;
+    private final Logger logger;
+
+    public ExportServiceImpl(CustomerRepository customerRepository, SecurityService securityService, RecordWriterFactory recordWriterFactory) {
+        this.customerRepository = customerRepository;
+        this.securityService = securityService;
+        this.recordWriterFactory = recordWriterFactory;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public void streamHierarchyToResponse(OutputStream outputStream, ExportColumns columns) {
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+        logger.debug("Exporting customer hierarchy with columns {}", columns.names());
+
+        try (
+                Stream<HierarchyRow> rows = customerRepository.streamHierarchyWithAccess(token, isAdmin);
+                RecordWriter writer = recordWriterFactory.openCsv(outputStream, columns.names())
+        ) {
+            rows.forEach(row -> {
+                try {
+                    writer.writeRow(row, StreamRows.HIERARCHY);
+                } catch (IOException e) {
+                    throw new StreamingException("Error exporting customer hierarchy", e);
+                }
+            });
+        } catch (IOException e) {
+            throw new StreamingException("Error initializing CSV generator", e);
+        }
+    }
+}
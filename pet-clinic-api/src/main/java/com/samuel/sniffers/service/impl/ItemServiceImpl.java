@@ -1,16 +1,19 @@
 package com.samuel.sniffers.service.impl;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samuel.sniffers.api.exception.InvalidRequestException;
-import com.samuel.sniffers.api.exception.ResourceNotFoundException;
 import com.samuel.sniffers.api.exception.StreamingException;
 import com.samuel.sniffers.api.factory.EntityFactory;
 import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.logging.Logger;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.Checkpoints;
+import com.samuel.sniffers.api.streaming.RecordWriter;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.samuel.sniffers.dto.BatchItemCreateDTO;
 import com.samuel.sniffers.dto.BatchItemUpdateDTO;
 import com.samuel.sniffers.dto.ItemDTO;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.UpdateItemDTO;
 import com.samuel.sniffers.dto.response.BatchUpdateFailure;
 import com.samuel.sniffers.dto.response.ItemBatchUpdateResponseDTO;
@@ -19,12 +22,24 @@ import com.samuel.sniffers.entity.Item;
 import com.samuel.sniffers.entity.ShoppingBasket;
 import com.samuel.sniffers.metrics.PetShopMetrics;
 import com.samuel.sniffers.repository.ItemRepository;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.security.AccessResolver;
 import com.samuel.sniffers.security.SecurityService;
-import com.samuel.sniffers.service.CustomerService;
 import com.samuel.sniffers.service.ItemService;
-import com.samuel.sniffers.service.ShoppingBasketService;
-import org.springframework.data.domain.Page;
+import com.samuel.sniffers.service.cache.EntityJsonCache;
+import com.samuel.sniffers.service.count.TotalCountEstimator;
+import com.samuel.sniffers.service.streaming.ClearingStreams;
+import com.samuel.sniffers.service.streaming.RecordWriterFactory;
+import com.samuel.sniffers.service.streaming.StreamRows;
+import com.samuel.sniffers.service.version.EntityVersions;
+import com.samuel.sniffers.service.version.Versioned;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +49,8 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -44,56 +61,126 @@ public class ItemServiceImpl extends AbstractPaginationService implements ItemSe
 
     private final Logger logger;
     private final ItemRepository itemRepository;
-    private final CustomerService customerService;
-    private final ShoppingBasketService basketService;
+    private final AccessResolver accessResolver;
     private final SecurityService securityService;
     private final EntityFactory entityFactory;
     private final PetShopMetrics metrics;
-
-    public ItemServiceImpl(ItemRepository itemRepository, CustomerService customerService, ShoppingBasketService basketService, SecurityService securityService, EntityFactory entityFactory, PetShopMetrics metrics) {
+    private final TotalCountEstimator countEstimator;
+    private final Validator validator;
+    private final RecordWriterFactory recordWriterFactory;
+    private final ClearingStreams clearingStreams;
+    private final EntityJsonCache entityCache;
+    private final EntityVersions entityVersions;
+
+    public ItemServiceImpl(ItemRepository itemRepository, AccessResolver accessResolver, SecurityService securityService, EntityFactory entityFactory, PetShopMetrics metrics, TotalCountEstimator countEstimator, Validator validator, RecordWriterFactory recordWriterFactory, ClearingStreams clearingStreams, EntityJsonCache entityCache, EntityVersions entityVersions) {
         this.itemRepository = itemRepository;
-        this.customerService = customerService;
-        this.basketService = basketService;
+        this.accessResolver = accessResolver;
         this.securityService = securityService;
         this.entityFactory = entityFactory;
         this.metrics = metrics;
+        this.countEstimator = countEstimator;
+        this.validator = validator;
+        this.recordWriterFactory = recordWriterFactory;
+        this.clearingStreams = clearingStreams;
+        this.entityCache = entityCache;
+        this.entityVersions = entityVersions;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public ItemResponseDTO createItem(String customerId, String basketId, ItemDTO dto) {
-        validateCustomerExists(customerId);
-
-        ShoppingBasket userBasket = basketService.getDbBasket(customerId, basketId);
+        ShoppingBasket userBasket = accessResolver.resolveBasket(customerId, basketId);
 
         Item item = entityFactory.convertToEntity(dto, Item.class);
         item.setBasket(userBasket);
 
         Item entity = itemRepository.save(item);
+        entityVersions.basketChanged(customerId, basketId);
+        entityCache.basketChanged(customerId, basketId);
 
         // Increment metrics
         metrics.incrementItemAdded(securityService.getCurrentCustomerToken());
+        countEstimator.itemsAdded(basketId, 1);
 
         return entityFactory.convertToDTO(entity, ItemResponseDTO.class);
     }
 
+    /**
+     * Ownership is checked once for the whole batch and the valid rows are persisted together, so the
+     * inserts go out as JDBC batches of hibernate.jdbc.batch_size. Invalid rows are reported by their
+     * index in the request.
+     */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
+    public ItemBatchUpdateResponseDTO createItems(String customerId, String basketId, BatchItemCreateDTO dto) {
+        ShoppingBasket userBasket = accessResolver.resolveBasket(customerId, basketId);
+
+        List<Item> createdItems = new ArrayList<>();
+        List<BatchUpdateFailure> failedCreates = new ArrayList<>();
+
+        for (int index = 0; index < dto.getItems().size(); index++) {
+            ItemDTO itemDTO = dto.getItems().get(index);
+
+            Set<ConstraintViolation<ItemDTO>> violations = itemDTO == null ? Set.of() : validator.validate(itemDTO);
+            if (itemDTO == null || !violations.isEmpty()) {
+                failedCreates.add(new BatchUpdateFailure(String.valueOf(index), itemDTO == null
+                        ? "Item is required"
+                        : violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "))));
+                continue;
+            }
+
+            Item item = new Item();
+            item.setDescription(itemDTO.getDescription());
+            item.setAmount(itemDTO.getAmount());
+            item.setBasket(userBasket);
+            createdItems.add(item);
+        }
+
+        // Flush here so the batched inserts run (and fail) inside this call
+        itemRepository.saveAllAndFlush(createdItems);
+
+        if (!createdItems.isEmpty()) {
+            metrics.incrementItemAdded(securityService.getCurrentCustomerToken(), createdItems.size());
+            countEstimator.itemsAdded(basketId, createdItems.size());
+            entityVersions.basketChanged(customerId, basketId);
+            entityCache.basketChanged(customerId, basketId);
+        }
+
+        return new ItemBatchUpdateResponseDTO(
+                !createdItems.isEmpty() ? createdItems.size() : null,
+                !failedCreates.isEmpty() ? failedCreates.size() : null,
+                entityFactory.convertToEntityList(createdItems, ItemResponseDTO.class),
+                failedCreates
+        );
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
     public ItemResponseDTO getItem(String customerId, String basketId, String itemId) {
-        validateCustomerExists(customerId);
-        validateBasketExists(customerId, basketId);
+        return getVersionedItem(customerId, basketId, itemId).value();
+    }
 
-        return entityFactory.convertToDTO(getDatabaseItem( customerId, basketId, itemId), ItemResponseDTO.class);
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public Versioned<ItemResponseDTO> getVersionedItem(String customerId, String basketId, String itemId) {
+        Item item = accessResolver.resolveItem(customerId, basketId, itemId);
+        return new Versioned<>(entityFactory.convertToDTO(item, ItemResponseDTO.class), new EntityVersion(item.getVersion(), item.getModified()));
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public Optional<EntityVersion> findItemVersion(String customerId, String basketId, String itemId) {
+        final String token = securityService.getCurrentCustomerToken();
+        return itemRepository.findVersionWithAccess(customerId, basketId, itemId, token, securityService.isAdmin(token));
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
     public PagedResponse<ItemResponseDTO> findAll(String customerId, String basketId,
-            int page, int size, String sortBy, String direction, String baseUrl) {
+            int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy, String baseUrl) {
 
-        validateCustomerExists(customerId);
-        validateBasketExists(customerId, basketId);
+        accessResolver.resolveBasket(customerId, basketId);
 
         // Sanitize and Create page request -> Avoid attacks on db via query params
         PageRequest pageRequest = PageRequest.of(
@@ -106,54 +193,80 @@ public class ItemServiceImpl extends AbstractPaginationService implements ItemSe
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
 
-        Page<Item> itemsPage = itemRepository.findByCustomerWithAccess(basketId, customerId, token, isAdmin, pageRequest);
+        Slice<Item> itemsSlice = itemRepository.findSliceByCustomerWithAccess(basketId, customerId, token, isAdmin, pageRequest);
 
         // Map entities to DTOs
-        List<ItemResponseDTO> itemDTOs = itemsPage.getContent().stream()
+        List<ItemResponseDTO> itemDTOs = itemsSlice.getContent().stream()
                 .map(item -> entityFactory.convertToDTO(item, ItemResponseDTO.class))
                 .toList();
 
-        // Create paged response
-        PagedResponse<ItemResponseDTO> response = new PagedResponse<>(
+        // Create paged response, access to the basket is validated above so the count skips the joins
+        return buildPagedResponse(
                 itemDTOs,
-                itemsPage.getNumber() + 1,
-                itemsPage.getSize(),
-                itemsPage.getTotalElements(),
-                itemsPage.getTotalPages(),
-                itemsPage.isLast()
+                itemsSlice,
+                totalStrategy,
+                () -> itemRepository.countByBasketId(basketId),
+                () -> countEstimator.items(basketId, () -> itemRepository.countByBasketId(basketId)),
+                baseUrl, page, size, sortBy, direction
         );
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public PagedResponse<ItemResponseDTO> findAllByCursor(String customerId, String basketId,
+            String cursor, int size, String sortBy, String direction, String baseUrl) {
+
+        accessResolver.resolveBasket(customerId, basketId);
+
+        // Sanitize and resolve the keyset -> Avoid attacks on db via query params
+        Sort.Direction sortDirection = getSanitizedSortDirection(direction);
+        String keysetProperty = getKeysetProperty(getSanitizedItemSortBy(sortBy));
+        KeysetScrollPosition position = decodeCursor(cursor, keysetProperty, sortDirection);
+
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+
+        Window<Item> itemsWindow = itemRepository.scrollByCustomerWithAccess(
+                basketId, customerId, token, isAdmin, getKeysetSort(sortDirection, keysetProperty), size, position);
+
+        // Map entities to DTOs
+        List<ItemResponseDTO> itemDTOs = itemsWindow.getContent().stream()
+                .map(item -> entityFactory.convertToDTO(item, ItemResponseDTO.class))
+                .toList();
+
+        // Create cursor response
+        String nextCursor = encodeCursor(itemsWindow, keysetProperty, sortDirection);
+        PagedResponse<ItemResponseDTO> response = new PagedResponse<>(
+                itemDTOs, size, !itemsWindow.hasNext(), nextCursor);
 
         // Add pagination links
-        response.setLinks(buildPaginationLinks(baseUrl, size, sortBy, direction, page, itemsPage));
+        response.setLinks(buildPaginationLinks(baseUrl, size, sortBy, direction, nextCursor));
 
         return response;
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
-    public void streamAllToResponse(OutputStream outputStream, String customerId, String basketId) {
-        validateCustomerExists(customerId);
-        validateBasketExists(customerId, basketId);
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public void streamAllToResponse(OutputStream outputStream, String customerId, String basketId, StreamResume resume, StreamFormat format) {
+        accessResolver.resolveBasket(customerId, basketId);
 
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
 
-        try {
-            ObjectMapper objectMapper = entityFactory.getObjectMapperForStreaming();
-            JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(outputStream);
-
-            try (Stream<Item> customerStream = itemRepository.streamAllWithAccess(basketId, customerId, token, isAdmin)) {
-                customerStream.forEach(item -> {
-                    try {
-                        ItemResponseDTO dto = entityFactory.convertToDTO(item, ItemResponseDTO.class);
-                        objectMapper.writeValue(jsonGenerator, dto);
-                        jsonGenerator.writeRaw('\n');
-                        jsonGenerator.flush();
-                    } catch (IOException e) {
-                        throw new StreamingException("Error streaming item data", e);
-                    }
-                });
-            }
+        try (
+                Stream<Item> itemStream = clearingStreams.clearing(itemRepository.streamAllWithAccess(basketId, customerId, token, isAdmin, resume.after()));
+                RecordWriter writer = recordWriterFactory.open(outputStream, format)
+        ) {
+            Checkpoints checkpoints = new Checkpoints(writer, resume.checkpointEvery());
+
+            itemStream.forEach(item -> {
+                try {
+                    writer.writeRow(item, StreamRows.ITEM);
+                    checkpoints.written(item.getId());
+                } catch (IOException e) {
+                    throw new StreamingException("Error streaming item data", e);
+                }
+            });
         } catch (IOException e) {
             throw new StreamingException("Error initializing JSON generator", e);
         }
@@ -161,39 +274,40 @@ public class ItemServiceImpl extends AbstractPaginationService implements ItemSe
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public ItemResponseDTO updateItem(String customerId, String basketId, String itemId, ItemDTO dto) {
-        validateCustomerExists(customerId);
-        validateBasketExists(customerId, basketId);
-
-        Item item = getDatabaseItem(customerId, basketId, itemId);
+    public ItemResponseDTO updateItem(String customerId, String basketId, String itemId, ItemDTO dto, Long expectedVersion) {
+        Item item = accessResolver.resolveItem(customerId, basketId, itemId);
+        entityVersions.itemChanged(customerId, basketId, itemId, expectedVersion);
 
         item.setAmount(dto.getAmount());
         item.setDescription(dto.getDescription());
+        entityCache.basketChanged(customerId, basketId);
 
         return entityFactory.convertToDTO(itemRepository.save(item), ItemResponseDTO.class);
     }
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public ItemResponseDTO updateItem(String customerId, String basketId, String itemId, UpdateItemDTO dto) {
+    public ItemResponseDTO updateItem(String customerId, String basketId, String itemId, UpdateItemDTO dto, Long expectedVersion) {
 
         if (dto.getDescription() == null && dto.getAmount() == null) {
             throw new InvalidRequestException("You must provide either 'description' or 'amount' in the PATCH request. Both fields cannot be empty.");
         }
 
-        validateCustomerExists(customerId);
-        validateBasketExists(customerId, basketId);
-
-        Item item = getDatabaseItem(customerId, basketId, itemId);
-        item = entityFactory.patchEntity(dto, item);
+        Item item = accessResolver.resolveItem(customerId, basketId, itemId);
+        if (entityFactory.patchEntityFields(dto, item).isEmpty()) {
+            // Nothing to write, the stored item already has these values and keeps its version
+            entityVersions.itemUnchanged(customerId, basketId, itemId, expectedVersion);
+            return entityFactory.convertToDTO(item, ItemResponseDTO.class);
+        }
+        entityVersions.itemChanged(customerId, basketId, itemId, expectedVersion);
+        entityCache.basketChanged(customerId, basketId);
         return entityFactory.convertToDTO(itemRepository.save(item), ItemResponseDTO.class);
     }
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public ItemBatchUpdateResponseDTO batchUpdateItems(String customerId, String basketId, BatchItemUpdateDTO dto) {
-        validateCustomerExists(customerId);
-        validateBasketExists(customerId, basketId);
+        accessResolver.resolveBasket(customerId, basketId);
 
         final List<String> itemIds = dto.getUpdates().stream()
                 .map(BatchItemUpdateDTO.ItemPatchDTO::getItemId)
@@ -211,6 +325,7 @@ public class ItemServiceImpl extends AbstractPaginationService implements ItemSe
                 .collect(Collectors.toMap(Item::getId, b -> b));
 
         List<Item> updatedItems = new ArrayList<>();
+        List<Item> changedItems = new ArrayList<>();
         List<BatchUpdateFailure> failedUpdates = new ArrayList<>();
 
         for (BatchItemUpdateDTO.ItemPatchDTO updateRequest : dto.getUpdates()) {
@@ -222,14 +337,20 @@ public class ItemServiceImpl extends AbstractPaginationService implements ItemSe
                     continue;
                 }
 
-                entityFactory.patchEntity(updateRequest, item);
+                if (!entityFactory.patchEntityFields(updateRequest, item).isEmpty()) {
+                    changedItems.add(item);
+                }
                 updatedItems.add(item);
             } catch (Exception ex) {
                 failedUpdates.add(new BatchUpdateFailure(updateRequest.getItemId(), "Failed to update item: " + ex.getMessage()));
             }
         }
 
-        itemRepository.saveAll(updatedItems);
+        itemRepository.saveAll(changedItems);
+        if (!changedItems.isEmpty()) {
+            entityVersions.itemsChanged(customerId, basketId, changedItems.stream().map(Item::getId).toList());
+            entityCache.basketChanged(customerId, basketId);
+        }
         return new ItemBatchUpdateResponseDTO(
                 !updatedItems.isEmpty() ? updatedItems.size() : null,
                 !failedUpdates.isEmpty() ? failedUpdates.size() : null,
@@ -241,40 +362,15 @@ public class ItemServiceImpl extends AbstractPaginationService implements ItemSe
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public void deleteItem(String customerId, String basketId, String itemId) {
-        validateCustomerExists(customerId);
-        validateBasketExists(customerId, basketId);
-
-        Item item = getDatabaseItem(customerId, basketId, itemId);
+        Item item = accessResolver.resolveItem(customerId, basketId, itemId);
 
         itemRepository.delete(item);
+        entityVersions.basketChanged(customerId, basketId);
+        entityCache.basketChanged(customerId, basketId);
         logger.info("deleted item with id {}", itemId);
+        countEstimator.itemDeleted(basketId);
 
         // Increment metrics
         metrics.incrementItemDeleted(securityService.getCurrentCustomerToken());
     }
-
-    private void validateCustomerExists(String customerId) {
-        if (!customerService.customerExist(customerId)) {
-            logger.error("Customer with id: {} not found", customerId);
-            throw new ResourceNotFoundException("Customer not found");
-        }
-    }
-
-    private void validateBasketExists(String customerId, String basketId) {
-        if (!basketService.basketExist(customerId, basketId)) {
-            logger.error("Basket with id: {} not found", basketId);
-            throw new ResourceNotFoundException("Basket not found");
-        }
-    }
-
-    private Item getDatabaseItem(String customerId, String basketId, String itemId) {
-        return itemRepository.findByIdWithAccess(
-                        itemId,
-                        basketId,
-                        customerId,
-                        securityService.getCurrentCustomerToken(),
-                        securityService.isAdmin(securityService.getCurrentCustomerToken())
-                )
-                .orElseThrow(() -> new ResourceNotFoundException(ITEM_NOT_FOUND));
-    }
 }
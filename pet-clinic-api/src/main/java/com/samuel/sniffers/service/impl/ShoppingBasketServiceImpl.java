@@ -1,7 +1,5 @@
 package com.samuel.sniffers.service.impl;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samuel.sniffers.api.exception.IllegalStateTransitionException;
 import com.samuel.sniffers.api.exception.ResourceNotFoundException;
 import com.samuel.sniffers.api.exception.StreamingException;
@@ -9,7 +7,13 @@ import com.samuel.sniffers.api.factory.EntityFactory;
 import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.logging.Logger;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.Checkpoints;
+import com.samuel.sniffers.api.streaming.RecordWriter;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
 import com.samuel.sniffers.dto.BatchBasketUpdateDTO;
+import com.samuel.sniffers.dto.ResponseExpansion;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.UpdateBasketDTO;
 import com.samuel.sniffers.dto.response.BasketBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.BasketResponseDTO;
@@ -19,21 +23,46 @@ import com.samuel.sniffers.entity.ShoppingBasket;
 import com.samuel.sniffers.enums.BasketStatus;
 import com.samuel.sniffers.metrics.PetShopMetrics;
 import com.samuel.sniffers.repository.ShoppingBasketRepository;
+import com.samuel.sniffers.repository.projection.BasketAccessPath;
+import com.samuel.sniffers.repository.projection.BasketView;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.security.AccessResolver;
 import com.samuel.sniffers.security.SecurityService;
 import com.samuel.sniffers.service.CustomerService;
 import com.samuel.sniffers.service.ShoppingBasketService;
-import org.springframework.data.domain.Page;
+import com.samuel.sniffers.service.cache.CachedJson;
+import com.samuel.sniffers.service.cache.EntityJsonCache;
+import com.samuel.sniffers.service.count.TotalCountEstimator;
+import com.samuel.sniffers.service.events.BasketStatusChange;
+import com.samuel.sniffers.service.events.BasketStatusFeed;
+import com.samuel.sniffers.service.mapper.ResponseMapper;
+import com.samuel.sniffers.service.streaming.ClearingStreams;
+import com.samuel.sniffers.service.streaming.RecordWriterFactory;
+import com.samuel.sniffers.service.streaming.StreamRows;
+import com.samuel.sniffers.service.version.EntityVersions;
+import com.samuel.sniffers.service.version.Versioned;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -43,26 +72,54 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
 
     private static final String BASKET_NOT_FOUND = "Basket not found or access denied";
 
+    // Bounds the IN list of the bulk status queries
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    private static final Map<BasketStatus, Set<BasketStatus>> ALLOWED_STATUS_TRANSITIONS = Map.of(
+            BasketStatus.NEW, Set.of(BasketStatus.PAID),
+            BasketStatus.PAID, Set.of(BasketStatus.PROCESSED),
+            BasketStatus.PROCESSED, Set.of(BasketStatus.UNKNOWN),
+            BasketStatus.UNKNOWN, Set.of() // No allowed transitions from UNKNOWN
+    );
+
     private final Logger logger;
     private final ShoppingBasketRepository basketRepository;
     private final CustomerService customerService;
+    private final AccessResolver accessResolver;
     private final SecurityService securityService;
     private final EntityFactory entityFactory;
     private final PetShopMetrics metrics;
-
-    public ShoppingBasketServiceImpl(ShoppingBasketRepository basketRepository, CustomerService customerService, SecurityService securityService, EntityFactory entityFactory, PetShopMetrics metrics) {
+    private final TotalCountEstimator countEstimator;
+    private final ResponseMapper responseMapper;
+    private final RecordWriterFactory recordWriterFactory;
+    private final ClearingStreams clearingStreams;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BasketStatusFeed statusFeed;
+    private final EntityJsonCache entityCache;
+    private final EntityVersions entityVersions;
+
+    public ShoppingBasketServiceImpl(ShoppingBasketRepository basketRepository, CustomerService customerService, AccessResolver accessResolver, SecurityService securityService, EntityFactory entityFactory, PetShopMetrics metrics, TotalCountEstimator countEstimator, ResponseMapper responseMapper, RecordWriterFactory recordWriterFactory, ClearingStreams clearingStreams, ApplicationEventPublisher eventPublisher, BasketStatusFeed statusFeed, EntityJsonCache entityCache, EntityVersions entityVersions) {
         this.basketRepository = basketRepository;
         this.customerService = customerService;
+        this.accessResolver = accessResolver;
         this.securityService = securityService;
         this.entityFactory = entityFactory;
         this.metrics = metrics;
+        this.countEstimator = countEstimator;
+        this.responseMapper = responseMapper;
+        this.recordWriterFactory = recordWriterFactory;
+        this.clearingStreams = clearingStreams;
+        this.eventPublisher = eventPublisher;
+        this.statusFeed = statusFeed;
+        this.entityCache = entityCache;
+        this.entityVersions = entityVersions;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public BasketResponseDTO createBasket(String customerId) {
-        Customer customer = customerService.getCustomer(customerId);
+        Customer customer = customerService.getCustomerReference(customerId);
 
         ShoppingBasket basket = new ShoppingBasket();
         basket.setCustomer(customer);
@@ -72,20 +129,47 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
 
         // Increment metrics
         metrics.incrementBasketStatus(securityService.getCurrentCustomerToken(), BasketStatus.NEW, 1);
+        countEstimator.basketCreated(customerId);
+        entityVersions.customerChanged(customerId);
+        entityCache.customerChanged(customerId);
 
         return entityFactory.convertToDTO(entity, BasketResponseDTO.class);
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
     public BasketResponseDTO getBasket(String customerId, String basketId) {
-        validateCustomerExists(customerId);
-        return entityFactory.convertToDTO(getCustomerBasket(customerId, basketId), BasketResponseDTO.class);
+        return getVersionedBasket(customerId, basketId).value();
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
-    public PagedResponse<BasketResponseDTO> findAll(String customerId, int page, int size, String sortBy, String direction, String baseUrl) {
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public Versioned<BasketResponseDTO> getVersionedBasket(String customerId, String basketId) {
+        long cacheVersion = entityCache.version(ShoppingBasket.class, basketId);
+        BasketAccessPath path = accessResolver.resolveBasketPath(customerId, basketId);
+        ShoppingBasket basket = path.basket();
+
+        BasketResponseDTO response = entityFactory.convertToDTO(basket, BasketResponseDTO.class);
+        entityCache.put(ShoppingBasket.class, basketId, cacheVersion, basket.getVersion(), path.ownerToken(), customerId, response);
+        return new Versioned<>(response, new EntityVersion(basket.getVersion(), basket.getModified()));
+    }
+
+    @Override
+    public CachedJson findCachedBasket(String customerId, String basketId, long version) {
+        final String token = securityService.getCurrentCustomerToken();
+        return entityCache.get(ShoppingBasket.class, basketId, version, token, securityService.isAdmin(token), customerId);
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public Optional<EntityVersion> findBasketVersion(String customerId, String basketId) {
+        final String token = securityService.getCurrentCustomerToken();
+        return basketRepository.findVersionWithAccess(customerId, basketId, token, securityService.isAdmin(token));
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public PagedResponse<BasketResponseDTO> findAll(String customerId, int page, int size, String sortBy, String direction, TotalCountStrategy totalStrategy, ResponseExpansion expansion, String baseUrl) {
         validateCustomerExists(customerId);
 
         // Sanitize and Create page request -> Avoid attacks on db via query params
@@ -99,52 +183,85 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
 
-        Page<ShoppingBasket> basketsPage = basketRepository.findByCustomerWithAccess(customerId, token, isAdmin, pageRequest);
+        Slice<ShoppingBasket> basketsSlice = basketRepository.findSliceByCustomerWithAccess(customerId, token, isAdmin, pageRequest);
 
-        // Map entities to DTOs
-        List<BasketResponseDTO> basketDTOs = basketsPage.getContent().stream()
-                .map(basket -> entityFactory.convertToDTO(basket, BasketResponseDTO.class))
-                .toList();
+        // Map entities to DTOs, items are only read when expanded
+        List<BasketResponseDTO> basketDTOs = responseMapper.toBasketResponseList(basketsSlice.getContent(), expansion);
 
-        // Create paged response
-        PagedResponse<BasketResponseDTO> response = new PagedResponse<>(
+        // Create paged response, access to the customer is validated above so the count skips the join
+        return buildPagedResponse(
                 basketDTOs,
-                basketsPage.getNumber() + 1,
-                basketsPage.getSize(),
-                basketsPage.getTotalElements(),
-                basketsPage.getTotalPages(),
-                basketsPage.isLast()
+                basketsSlice,
+                totalStrategy,
+                () -> basketRepository.countByCustomerId(customerId),
+                () -> countEstimator.baskets(customerId, () -> basketRepository.countByCustomerId(customerId)),
+                baseUrl, page, size, sortBy, direction
         );
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public PagedResponse<BasketResponseDTO> findAllByCursor(String customerId, String cursor, int size, String sortBy, String direction, ResponseExpansion expansion, String baseUrl) {
+        validateCustomerExists(customerId);
+
+        // Sanitize and resolve the keyset -> Avoid attacks on db via query params
+        Sort.Direction sortDirection = getSanitizedSortDirection(direction);
+        String keysetProperty = getKeysetProperty(getSanitizedBasketSortBy(sortBy));
+        KeysetScrollPosition position = decodeCursor(cursor, keysetProperty, sortDirection);
+
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+
+        Window<ShoppingBasket> basketsWindow = basketRepository.scrollByCustomerWithAccess(
+                customerId, token, isAdmin, getKeysetSort(sortDirection, keysetProperty), size, position);
+
+        // Map entities to DTOs, items are only read when expanded
+        List<BasketResponseDTO> basketDTOs = responseMapper.toBasketResponseList(basketsWindow.getContent(), expansion);
+
+        // Create cursor response
+        String nextCursor = encodeCursor(basketsWindow, keysetProperty, sortDirection);
+        PagedResponse<BasketResponseDTO> response = new PagedResponse<>(
+                basketDTOs, size, !basketsWindow.hasNext(), nextCursor);
 
         // Add pagination links
-        response.setLinks(buildPaginationLinks(baseUrl, size, sortBy, direction, page, basketsPage));
+        response.setLinks(buildPaginationLinks(baseUrl, size, sortBy, direction, nextCursor));
         return response;
     }
 
     @Override
-    @Transactional(isolation = Isolation.READ_COMMITTED)
-    public void streamAllToResponse(OutputStream outputStream, String customerId) {
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public void streamAllToResponse(OutputStream outputStream, String customerId, ResponseExpansion expansion, StreamResume resume, StreamFormat format) {
         validateCustomerExists(customerId);
 
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
 
-        try {
-            ObjectMapper objectMapper = entityFactory.getObjectMapperForStreaming();
-            JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(outputStream);
+        try (
+                Stream<ShoppingBasket> basketStream = clearingStreams.clearing(basketRepository.streamAllWithAccess(customerId, token, isAdmin, resume.after()));
+                RecordWriter writer = recordWriterFactory.open(outputStream, format)
+        ) {
+            Checkpoints checkpoints = new Checkpoints(writer, resume.checkpointEvery());
 
-            try (Stream<ShoppingBasket> customerStream = basketRepository.streamAllWithAccess(customerId, token, isAdmin)) {
-                customerStream.forEach(basket -> {
+            if (!expansion.items()) {
+                basketStream.forEach(basket -> {
                     try {
-                        BasketResponseDTO dto = entityFactory.convertToDTO(basket, BasketResponseDTO.class);
-                        objectMapper.writeValue(jsonGenerator, dto);
-                        jsonGenerator.writeRaw('\n');
-                        jsonGenerator.flush();
+                        writer.writeRow(basket, StreamRows.BASKET);
+                        checkpoints.written(basket.getId());
                     } catch (IOException e) {
                         throw new StreamingException("Error streaming basket data", e);
                     }
                 });
+                return;
             }
+
+            responseMapper.mapInChunks(basketStream, chunk -> responseMapper.toBasketResponseList(chunk, expansion), dto -> {
+                try {
+                    writer.write(dto);
+                    checkpoints.written(dto.getId());
+                } catch (IOException e) {
+                    throw new StreamingException("Error streaming basket data", e);
+                }
+            });
         } catch (IOException e) {
             throw new StreamingException("Error initializing JSON generator", e);
         }
@@ -152,14 +269,19 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
 
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public BasketResponseDTO updateBasket(String customerId, String basketId, UpdateBasketDTO dto) {
-        validateCustomerExists(customerId);
-
-        ShoppingBasket shoppingBasket = getCustomerBasket(customerId, basketId);
+    public BasketResponseDTO updateBasket(String customerId, String basketId, UpdateBasketDTO dto, Long expectedVersion) {
+        ShoppingBasket shoppingBasket = accessResolver.resolveBasket(customerId, basketId);
+        entityVersions.basketChanged(customerId, basketId, expectedVersion);
+        final BasketStatus previousStatus = shoppingBasket.getStatus();
 
         updateBasketStatus(shoppingBasket, dto.getStatus());
+        entityCache.basketChanged(customerId, basketId);
         basketRepository.save(shoppingBasket);
 
+        // Delivered to the status feed once the transaction commits
+        eventPublisher.publishEvent(new BasketStatusChange(customerId, basketId, previousStatus, shoppingBasket.getStatus(),
+                shoppingBasket.getStatusDate(), ownerToken(shoppingBasket.getCustomer())));
+
         // Increment metrics
         metrics.incrementBasketStatus(securityService.getCurrentCustomerToken(), dto.getStatus(), 1);
 
@@ -171,50 +293,115 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
     public BasketBatchUpdateResponseDTO batchUpdateBasket(String customerId, BatchBasketUpdateDTO dto) {
         validateCustomerExists(customerId);
 
+        final String token = securityService.getCurrentCustomerToken();
+        final boolean isAdmin = securityService.isAdmin(token);
+
         final List<String> basketIds = dto.getUpdates().stream()
                 .map(BatchBasketUpdateDTO.BasketPatchDTO::getBasketId)
+                .filter(Objects::nonNull)
+                .distinct()
                 .toList();
 
-        List<ShoppingBasket> baskets = basketRepository.findByCustomerIdAndBasketIds(
-                customerId,
-                basketIds,
-                securityService.getCurrentCustomerToken(),
-                securityService.isAdmin(securityService.getCurrentCustomerToken())
-        );
-
-        Map<String, ShoppingBasket> basketMap = baskets.stream()
-                .collect(Collectors.toMap(ShoppingBasket::getId, b -> b));
+        // Current status of every requested basket, no entities are loaded
+        Map<String, BasketView> currentBaskets = new HashMap<>();
+        for (List<String> chunk : chunked(basketIds)) {
+            basketRepository.findViewsByCustomerIdAndBasketIds(customerId, chunk, token, isAdmin)
+                    .forEach(basket -> currentBaskets.put(basket.id(), basket));
+        }
 
-        List<ShoppingBasket> updatedBaskets = new ArrayList<>();
+        // Validate the transitions in request order, a basket listed twice can move twice. Every basket keeps
+        // the statuses it passes through, starting with the current one, and is written once with the last
         List<BatchUpdateFailure> failedUpdates = new ArrayList<>();
+        Map<String, List<BasketStatus>> statusSteps = new LinkedHashMap<>();
 
         for (BatchBasketUpdateDTO.BasketPatchDTO updateRequest : dto.getUpdates()) {
-            try {
-                ShoppingBasket basket = basketMap.get(updateRequest.getBasketId());
+            BasketView basket = currentBaskets.get(updateRequest.getBasketId());
+
+            if (basket == null) {
+                failedUpdates.add(new BatchUpdateFailure(updateRequest.getBasketId(), BASKET_NOT_FOUND));
+                continue;
+            }
+
+            List<BasketStatus> steps = statusSteps.get(basket.id());
+            BasketStatus basketStatus = steps != null ? steps.get(steps.size() - 1) : basket.status();
+            if (!isTransitionAllowed(basketStatus, updateRequest.getStatus())) {
+                logger.error("Basket status transition not allowed. From {} to {}.", basketStatus, updateRequest.getStatus());
+                IllegalStateTransitionException ex = new IllegalStateTransitionException(basketStatus.name(), String.valueOf(updateRequest.getStatus()));
+                failedUpdates.add(new BatchUpdateFailure(basket.id(), "Failed to update basket: " + ex.getMessage()));
+                continue;
+            }
+
+            statusSteps.computeIfAbsent(basket.id(), id -> new ArrayList<>(List.of(basket.status()))).add(updateRequest.getStatus());
+        }
+
+        // One conditional UPDATE per (from -> to) group, rows that changed since the read above do not match
+        final LocalDateTime statusDate = LocalDateTime.now();
+        Map<StatusTransition, List<String>> transitions = statusSteps.entrySet().stream()
+                .collect(Collectors.groupingBy(
+                        entry -> new StatusTransition(entry.getValue().get(0), lastStatus(entry.getValue())),
+                        LinkedHashMap::new,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+
+        Set<String> concurrentlyChanged = new HashSet<>();
+        transitions.forEach((transition, ids) -> {
+            int updatedRows = 0;
+            for (List<String> chunk : chunked(ids)) {
+                updatedRows += basketRepository.updateStatusWithAccess(
+                        customerId, chunk, transition.from(), transition.to(), statusDate, token, isAdmin);
+            }
 
-                if (basket == null) {
-                    failedUpdates.add(new BatchUpdateFailure(updateRequest.getBasketId(), BASKET_NOT_FOUND));
-                    continue;
+            if (updatedRows != ids.size()) {
+                // Only on a lost race: find the rows that did not move
+                logger.error("Updated {} of {} baskets from {} to {}.", updatedRows, ids.size(), transition.from(), transition.to());
+                Set<String> moved = new HashSet<>();
+                for (List<String> chunk : chunked(ids)) {
+                    basketRepository.findViewsByCustomerIdAndBasketIds(customerId, chunk, token, isAdmin).stream()
+                            .filter(basket -> basket.status() == transition.to())
+                            .forEach(basket -> moved.add(basket.id()));
                 }
+                ids.stream().filter(id -> !moved.contains(id)).forEach(concurrentlyChanged::add);
+            }
+        });
+
+        List<BasketResponseDTO> updatedBaskets = new ArrayList<>();
+        String ownerToken = null;
+        for (Map.Entry<String, List<BasketStatus>> accepted : statusSteps.entrySet()) {
+            String basketId = accepted.getKey();
+            List<BasketStatus> steps = accepted.getValue();
+            if (concurrentlyChanged.contains(basketId)) {
+                failedUpdates.add(new BatchUpdateFailure(basketId, "Failed to update basket: status was changed by another request"));
+                continue;
+            }
 
-                updateBasketStatus(basket, updateRequest.getStatus());
-                updatedBaskets.add(basket);
-            } catch (Exception ex) {
-                failedUpdates.add(new BatchUpdateFailure(updateRequest.getBasketId(), "Failed to update basket: " + ex.getMessage()));
+            BasketView basket = currentBaskets.get(basketId);
+            entityCache.basketChanged(customerId, basketId);
+            updatedBaskets.add(responseMapper.toBasketSummary(
+                    new BasketView(basketId, basket.customerId(), lastStatus(steps), statusDate, basket.created())));
+
+            if (ownerToken == null) {
+                ownerToken = isAdmin ? customerService.getOwnerToken(customerId) : token;
+            }
+            // One change per step, a basket moved twice is reported as NEW -> PAID and PAID -> PROCESSED
+            for (int step = 1; step < steps.size(); step++) {
+                eventPublisher.publishEvent(new BasketStatusChange(customerId, basketId, steps.get(step - 1), steps.get(step),
+                        statusDate, ownerToken));
             }
         }
 
-        basketRepository.saveAll(updatedBaskets);
+        if (!updatedBaskets.isEmpty()) {
+            // The status update already incremented the baskets
+            entityVersions.customerChanged(customerId);
+        }
 
         // Update metrics for successfully update records
-        baskets.stream()
-                .collect(Collectors.groupingBy(ShoppingBasket::getStatus, Collectors.counting()))
+        updatedBaskets.stream()
+                .collect(Collectors.groupingBy(BasketResponseDTO::getStatus, Collectors.counting()))
                 .forEach(this::updateMetrics);
 
         return new BasketBatchUpdateResponseDTO(
                 !updatedBaskets.isEmpty() ? updatedBaskets.size() : null,
                 !failedUpdates.isEmpty() ? failedUpdates.size() : null,
-                entityFactory.convertToEntityList(updatedBaskets, BasketResponseDTO.class),
+                updatedBaskets,
                 failedUpdates
         );
     }
@@ -222,19 +409,33 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public void deleteBasket(String customerId, String basketId) {
-        validateCustomerExists(customerId);
+        ShoppingBasket shoppingBasket = accessResolver.resolveBasket(customerId, basketId);
 
+        entityVersions.customerChanged(customerId);
+        entityCache.basketChanged(customerId, basketId);
         logger.info("deleting basket with id {}...", basketId);
-        basketRepository.delete(getCustomerBasket(customerId, basketId));
+        basketRepository.delete(shoppingBasket);
         logger.info("deleted basket with id {}.", basketId);
+        countEstimator.basketDeleted(customerId, basketId);
 
         // Increment metrics
         metrics.incrementBasketDeleted(securityService.getCurrentCustomerToken());
     }
 
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, readOnly = true)
+    public SseEmitter subscribeToStatusChanges(String customerId, Set<BasketStatus> statuses, String lastEventId) {
+        if (customerId != null) {
+            validateCustomerExists(customerId);
+        }
+
+        final String token = securityService.getCurrentCustomerToken();
+        return statusFeed.subscribe(token, securityService.isAdmin(token), customerId, statuses, lastEventId);
+    }
+
     @Override
     public ShoppingBasket getDbBasket(String customerId, String basketId) {
-        return getCustomerBasket(customerId, basketId);
+        return accessResolver.resolveBasket(customerId, basketId);
     }
 
     @Override
@@ -248,15 +449,8 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
 
     private void updateBasketStatus(ShoppingBasket shoppingBasket, BasketStatus newBasketStatus) {
 
-        final Map<BasketStatus, Set<BasketStatus>> allowedStatusTransitionMap = Map.of(
-                BasketStatus.NEW, Set.of(BasketStatus.PAID),
-                BasketStatus.PAID, Set.of(BasketStatus.PROCESSED),
-                BasketStatus.PROCESSED, Set.of(BasketStatus.UNKNOWN),
-                BasketStatus.UNKNOWN, Set.of() // No allowed transitions from UNKNOWN
-        );
-
         final BasketStatus basketStatus = shoppingBasket.getStatus();
-        if (!allowedStatusTransitionMap.getOrDefault(basketStatus, Set.of()).contains(newBasketStatus)) {
+        if (!isTransitionAllowed(basketStatus, newBasketStatus)) {
             logger.error("Basket status transition not allowed. From {} to {}.", basketStatus, newBasketStatus);
             throw new IllegalStateTransitionException(basketStatus.name(), newBasketStatus.name());
         }
@@ -265,6 +459,28 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
         shoppingBasket.setStatusDate(LocalDateTime.now());
     }
 
+    private String ownerToken(Customer customer) {
+        final String token = securityService.getCurrentCustomerToken();
+        // A tenant only reaches its own baskets, only an admin's change needs the owner looked up
+        return securityService.isAdmin(token) ? customer.getOwnerToken() : token;
+    }
+
+    private boolean isTransitionAllowed(BasketStatus from, BasketStatus to) {
+        return to != null && ALLOWED_STATUS_TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    private static BasketStatus lastStatus(List<BasketStatus> steps) {
+        return steps.get(steps.size() - 1);
+    }
+
+    private static List<List<String>> chunked(List<String> ids) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
     private void validateCustomerExists(String customerId) {
         if (!customerService.customerExist(customerId)) {
             logger.error("Customer with id: {} not found", customerId);
@@ -272,17 +488,10 @@ public class ShoppingBasketServiceImpl extends AbstractPaginationService impleme
         }
     }
 
-    private ShoppingBasket getCustomerBasket(String customerId, String basketId) {
-        return basketRepository.findByIdWithAccess(
-                        basketId,
-                        customerId,
-                        securityService.getCurrentCustomerToken(),
-                        securityService.isAdmin(securityService.getCurrentCustomerToken())
-                )
-                .orElseThrow(() -> new ResourceNotFoundException(BASKET_NOT_FOUND));
+    private void updateMetrics(BasketStatus status, Long count) {
+        metrics.incrementBasketStatus(securityService.getCurrentCustomerToken(), status, count.intValue());
     }
 
-    private void updateMetrics(BasketStatus status, Long count) {
-        metrics.incrementBasketStatus(securityService.getCurrentCustomerToken(), status, 1);
+    private record StatusTransition(BasketStatus from, BasketStatus to) {
     }
 }
@@ -0,0 +1,174 @@
+package com.samuel.sniffers.service.mapper;
+
+import com.samuel.sniffers.dto.ResponseExpansion;
+import com.samuel.sniffers.dto.response.BasketResponseDTO;
+import com.samuel.sniffers.dto.response.CustomerResponseDTO;
+import com.samuel.sniffers.dto.response.ItemResponseDTO;
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import com.samuel.sniffers.repository.ItemRepository;
+import com.samuel.sniffers.repository.ShoppingBasketRepository;
+import com.samuel.sniffers.repository.projection.BasketView;
+import com.samuel.sniffers.repository.projection.CustomerView;
+import com.samuel.sniffers.repository.projection.ItemView;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds read responses field by field, so the lazy baskets and items collections are never walked.
+ * Children are batch loaded as projections with one IN query per level for the whole chunk,
+ * which bounds a response to 1 + 1 + 1 queries whatever the number of rows.
+ */
+@Component
+public class ResponseMapper {
+
+    private static final int STREAM_CHUNK_SIZE = 100;
+
+    private final ShoppingBasketRepository basketRepository;
+    private final ItemRepository itemRepository;
+
+    public ResponseMapper(ShoppingBasketRepository basketRepository, ItemRepository itemRepository) {
+        this.basketRepository = basketRepository;
+        this.itemRepository = itemRepository;
+    }
+
+    public List<CustomerResponseDTO> toCustomerResponses(List<Customer> customers, ResponseExpansion expansion) {
+        if (!expansion.baskets() || customers.isEmpty()) {
+            return customers.stream().map(this::toCustomerSummary).toList();
+        }
+
+        Map<String, List<BasketResponseDTO>> basketsByCustomer =
+                loadBaskets(customers.stream().map(Customer::getId).toList(), expansion.items());
+
+        return customers.stream()
+                .map(customer -> {
+                    CustomerResponseDTO dto = toCustomerSummary(customer);
+                    dto.setBaskets(basketsByCustomer.getOrDefault(customer.getId(), new ArrayList<>()));
+                    return dto;
+                })
+                .toList();
+    }
+
+    /**
+     * Full customer tree for the single resource read, one query per level instead of a fetch joined product.
+     */
+    public CustomerResponseDTO toCustomerResponse(CustomerView customer) {
+        CustomerResponseDTO dto = new CustomerResponseDTO();
+        dto.setId(customer.id());
+        dto.setName(customer.name());
+        dto.setTimezone(customer.timezone());
+        dto.setCreated(toSeconds(customer.created()));
+        dto.setBaskets(loadBaskets(List.of(customer.id()), true).getOrDefault(customer.id(), new ArrayList<>()));
+        return dto;
+    }
+
+    public List<BasketResponseDTO> toBasketResponseList(List<ShoppingBasket> baskets, ResponseExpansion expansion) {
+        Map<String, Set<ItemResponseDTO>> itemsByBasket = expansion.items() && !baskets.isEmpty()
+                ? loadItems(baskets.stream().map(ShoppingBasket::getId).toList())
+                : Map.of();
+
+        return baskets.stream()
+                .map(basket -> {
+                    BasketResponseDTO dto = toBasketSummary(basket);
+                    if (expansion.items()) {
+                        dto.setItems(itemsByBasket.getOrDefault(basket.getId(), new HashSet<>()));
+                    }
+                    return dto;
+                })
+                .toList();
+    }
+
+    /**
+     * Maps a stream in chunks so expanded children are batch loaded per chunk instead of per row.
+     */
+    public <E, D> void mapInChunks(Stream<E> entities, Function<List<E>, List<D>> chunkMapper, Consumer<D> consumer) {
+        List<E> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        Iterator<E> iterator = entities.iterator();
+
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                chunkMapper.apply(chunk).forEach(consumer);
+                chunk.clear();
+            }
+        }
+    }
+
+    public CustomerResponseDTO toCustomerSummary(Customer customer) {
+        CustomerResponseDTO dto = new CustomerResponseDTO();
+        dto.setId(customer.getId());
+        dto.setName(customer.getName());
+        dto.setTimezone(customer.getTimezone());
+        dto.setCreated(toSeconds(customer.getCreated()));
+        return dto;
+    }
+
+    public BasketResponseDTO toBasketSummary(ShoppingBasket basket) {
+        BasketResponseDTO dto = new BasketResponseDTO();
+        dto.setId(basket.getId());
+        dto.setStatus(basket.getStatus());
+        dto.setStatusDate(toSeconds(basket.getStatusDate()));
+        dto.setCreated(toSeconds(basket.getCreated()));
+        return dto;
+    }
+
+    public BasketResponseDTO toBasketSummary(BasketView basket) {
+        return toBasketResponse(basket);
+    }
+
+    private Map<String, List<BasketResponseDTO>> loadBaskets(Collection<String> customerIds, boolean withItems) {
+        List<BasketView> baskets = basketRepository.findViewsByCustomerIdIn(customerIds);
+        Map<String, Set<ItemResponseDTO>> itemsByBasket = withItems && !baskets.isEmpty()
+                ? loadItems(baskets.stream().map(BasketView::id).toList())
+                : Map.of();
+
+        return baskets.stream()
+                .collect(Collectors.groupingBy(BasketView::customerId, Collectors.mapping(basket -> {
+                    BasketResponseDTO dto = toBasketResponse(basket);
+                    if (withItems) {
+                        dto.setItems(itemsByBasket.getOrDefault(basket.id(), new HashSet<>()));
+                    }
+                    return dto;
+                }, Collectors.toList())));
+    }
+
+    private Map<String, Set<ItemResponseDTO>> loadItems(Collection<String> basketIds) {
+        return itemRepository.findViewsByBasketIdIn(basketIds).stream()
+                .collect(Collectors.groupingBy(ItemView::basketId, Collectors.mapping(this::toItemResponse, Collectors.toSet())));
+    }
+
+    private BasketResponseDTO toBasketResponse(BasketView basket) {
+        BasketResponseDTO dto = new BasketResponseDTO();
+        dto.setId(basket.id());
+        dto.setStatus(basket.status());
+        dto.setStatusDate(toSeconds(basket.statusDate()));
+        dto.setCreated(toSeconds(basket.created()));
+        return dto;
+    }
+
+    private ItemResponseDTO toItemResponse(ItemView item) {
+        ItemResponseDTO dto = new ItemResponseDTO();
+        dto.setId(item.id());
+        dto.setDescription(item.description());
+        dto.setAmount(item.amount());
+        return dto;
+    }
+
+    // Same precision as the yyyy-MM-dd HH:mm:ss format the entity to DTO conversion goes through
+    private static LocalDateTime toSeconds(LocalDateTime value) {
+        return value != null ? value.truncatedTo(ChronoUnit.SECONDS) : null;
+    }
+}
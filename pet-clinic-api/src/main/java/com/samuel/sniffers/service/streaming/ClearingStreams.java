@@ -0,0 +1,38 @@
+package com.samuel.sniffers.service.streaming;
+
+import com.samuel.sniffers.config.StreamingConfig;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Keeps the persistence context of a streamed read from growing with the export. Every clear-every rows
+ * the context is cleared, which detaches the rows already written. Only for read-only streams, pending
+ * changes would be discarded.
+ */
+@Component
+public class ClearingStreams {
+
+    private final EntityManager entityManager;
+    private final StreamingConfig streamingConfig;
+
+    public ClearingStreams(EntityManager entityManager, StreamingConfig streamingConfig) {
+        this.entityManager = entityManager;
+        this.streamingConfig = streamingConfig;
+    }
+
+    public <T> Stream<T> clearing(Stream<T> rows) {
+        final int clearEvery = streamingConfig.getClearEvery();
+        if (clearEvery <= 0) {
+            return rows;
+        }
+
+        final long[] rowCount = {0};
+        return rows.peek(row -> {
+            if (++rowCount[0] % clearEvery == 0) {
+                entityManager.clear();
+            }
+        });
+    }
+}
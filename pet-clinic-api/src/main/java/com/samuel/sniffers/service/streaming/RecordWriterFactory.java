@@ -0,0 +1,54 @@
+package com.samuel.sniffers.service.streaming;
+
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.samuel.sniffers.api.factory.EntityFactory;
+import com.samuel.sniffers.api.streaming.CsvWriter;
+import com.samuel.sniffers.api.streaming.ObjectWriterCache;
+import com.samuel.sniffers.api.streaming.RecordWriter;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.config.StreamingConfig;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens the record writers of the streaming and export endpoints with the configured flush policy. The object
+ * writers per format and response type are shared by all streams.
+ */
+@Component
+public class RecordWriterFactory {
+
+    private final Map<StreamFormat, ObjectWriterCache> objectWriters = new EnumMap<>(StreamFormat.class);
+    private final ObjectWriterCache csvWriters;
+    private final StreamingConfig streamingConfig;
+
+    public RecordWriterFactory(EntityFactory entityFactory, StreamingConfig streamingConfig) {
+        for (StreamFormat format : StreamFormat.values()) {
+            objectWriters.put(format, new ObjectWriterCache(format.mapper(entityFactory.getObjectMapperForStreaming())));
+        }
+        this.csvWriters = new ObjectWriterCache(entityFactory.getObjectMapperForStreaming().copyWith(new CsvFactory()));
+        this.streamingConfig = streamingConfig;
+    }
+
+    public RecordWriter open(OutputStream outputStream) throws IOException {
+        return open(outputStream, StreamFormat.NDJSON);
+    }
+
+    public RecordWriter open(OutputStream outputStream, StreamFormat format) throws IOException {
+        return format.open(objectWriters.get(format), outputStream, streamingConfig.getFlushPolicy());
+    }
+
+    /**
+     * A CSV writer with a header line for the given columns.
+     */
+    public RecordWriter openCsv(OutputStream outputStream, List<String> columns) throws IOException {
+        CsvSchema.Builder schema = CsvSchema.builder();
+        columns.forEach(schema::addColumn);
+        return new CsvWriter(csvWriters, schema.build().withHeader(), outputStream, streamingConfig.getFlushPolicy());
+    }
+}
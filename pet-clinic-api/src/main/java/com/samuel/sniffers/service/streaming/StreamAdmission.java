@@ -0,0 +1,137 @@
+package com.samuel.sniffers.service.streaming;
+
+import com.samuel.sniffers.api.exception.StreamRejectedException;
+import com.samuel.sniffers.api.factory.LoggerFactory;
+import com.samuel.sniffers.api.logging.Logger;
+import com.samuel.sniffers.config.StreamingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits a stream while fewer than max-concurrent + max-queued are running or waiting for the streaming
+ * executor, and rejects it before the response is committed otherwise. The permit is held until the
+ * stream body returns.
+ * <p>
+ * A queued stream whose request times out or whose client goes away is cancelled by Spring before its body
+ * runs. It is registered as an async interceptor, so the permit of such a stream is released when the async
+ * processing completes, and the body does not run anymore if a thread picks it up later.
+ */
+@Component
+public class StreamAdmission implements CallableProcessingInterceptor {
+
+    private static final String TICKET = StreamAdmission.class.getName() + ".TICKET";
+
+    private static final int ADMITTED = 0;
+    private static final int RUNNING = 1;
+    private static final int RELEASED = 2;
+
+    private final Semaphore permits;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter rejected;
+    private final StreamingConfig streamingConfig;
+    private final Logger logger;
+
+    public StreamAdmission(StreamingConfig streamingConfig, MeterRegistry meterRegistry) {
+        StreamingConfig.Executor executor = streamingConfig.getExecutor();
+        this.permits = new Semaphore(executor.getMaxConcurrent() + executor.getMaxQueued());
+        this.streamingConfig = streamingConfig;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+
+        Gauge.builder("petshop.streams.active", active::get)
+                .description("Streams being written")
+                .register(meterRegistry);
+        Gauge.builder("petshop.streams.queued", () -> admitted.get() - active.get())
+                .description("Admitted streams waiting for a streaming thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("petshop.streams.rejected")
+                .description("Streams rejected with 503 because the streaming executor was saturated")
+                .register(meterRegistry);
+    }
+
+    public StreamingResponseBody admit(StreamingResponseBody body) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            logger.warn("Rejected stream request, {} streams admitted", admitted.get());
+            throw new StreamRejectedException("Too many concurrent streams, please retry later.",
+                    streamingConfig.getExecutor().getRetryAfter());
+        }
+        admitted.incrementAndGet();
+
+        Ticket ticket = new Ticket();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(TICKET, ticket, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return outputStream -> {
+            if (!ticket.start()) {
+                // Cancelled while queued, the permit is already released
+                return;
+            }
+            try {
+                body.writeTo(outputStream);
+            } finally {
+                ticket.finish();
+            }
+        };
+    }
+
+    /**
+     * Called once the async processing of a request is over, whether the stream ended, failed, timed out or
+     * was never started.
+     */
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        if (request.getAttribute(TICKET, RequestAttributes.SCOPE_REQUEST) instanceof Ticket ticket) {
+            ticket.cancel();
+        }
+    }
+
+    private void release() {
+        admitted.decrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * The permit of one admitted stream, released exactly once by whichever of the body and the async
+     * completion comes last to it.
+     */
+    private final class Ticket {
+
+        private final AtomicInteger state = new AtomicInteger(ADMITTED);
+
+        private boolean start() {
+            if (!state.compareAndSet(ADMITTED, RUNNING)) {
+                return false;
+            }
+            active.incrementAndGet();
+            return true;
+        }
+
+        private void finish() {
+            state.set(RELEASED);
+            active.decrementAndGet();
+            release();
+        }
+
+        // Only a stream that did not start yet, a running stream releases its permit when its body returns
+        private void cancel() {
+            if (state.compareAndSet(ADMITTED, RELEASED)) {
+                logger.warn("Released the permit of a stream that was cancelled before it started");
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.samuel.sniffers.service.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.samuel.sniffers.api.streaming.RowWriter;
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.Item;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import com.samuel.sniffers.repository.projection.HierarchyRow;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Row writers for the streamed summaries. They write the entity fields straight to the generator with
+ * the same names, order, date format and null handling as the response DTOs, without building a DTO
+ * per row.
+ */
+public final class StreamRows {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static final RowWriter<Customer> CUSTOMER = (customer, generator) -> {
+        generator.writeStartObject();
+        writeString(generator, "id", customer.getId());
+        writeString(generator, "name", customer.getName());
+        writeString(generator, "timezone", customer.getTimezone());
+        writeDate(generator, "created", customer.getCreated());
+        generator.writeEndObject();
+    };
+
+    public static final RowWriter<ShoppingBasket> BASKET = (basket, generator) -> {
+        generator.writeStartObject();
+        writeString(generator, "id", basket.getId());
+        writeString(generator, "status", basket.getStatus() != null ? basket.getStatus().name() : null);
+        writeDate(generator, "statusDate", basket.getStatusDate());
+        writeDate(generator, "created", basket.getCreated());
+        generator.writeEndObject();
+    };
+
+    public static final RowWriter<Item> ITEM = (item, generator) -> {
+        generator.writeStartObject();
+        writeString(generator, "id", item.getId());
+        writeString(generator, "description", item.getDescription());
+        if (item.getAmount() != null) {
+            generator.writeNumberField("amount", item.getAmount());
+        }
+        generator.writeEndObject();
+    };
+
+    // Field names are those of CustomerBasketItemViewDTO and the columns of ExportColumns.HIERARCHY,
+    // the CSV schema of the export picks the selected ones
+    public static final RowWriter<HierarchyRow> HIERARCHY = (row, generator) -> {
+        generator.writeStartObject();
+        writeString(generator, "customerId", row.customerId());
+        writeString(generator, "customerName", row.customerName());
+        writeString(generator, "customerTimezone", row.customerTimezone());
+        writeDate(generator, "customerCreated", row.customerCreated());
+        writeString(generator, "basketId", row.basketId());
+        writeString(generator, "basketStatus", row.basketStatus() != null ? row.basketStatus().name() : null);
+        writeDate(generator, "basketCreated", row.basketCreated());
+        writeDate(generator, "basketStatusDate", row.basketStatusDate());
+        writeString(generator, "itemId", row.itemId());
+        writeString(generator, "itemDescription", row.itemDescription());
+        if (row.itemAmount() != null) {
+            generator.writeNumberField("itemAmount", row.itemAmount());
+        }
+        writeDate(generator, "itemCreated", row.itemCreated());
+        generator.writeEndObject();
+    };
+
+    private StreamRows() {
+    }
+
+    private static void writeString(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static void writeDate(JsonGenerator generator, String name, LocalDateTime value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, DATE_FORMAT.format(value));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.samuel.sniffers.service.version;
+
+import com.samuel.sniffers.api.exception.PreconditionFailedException;
+import com.samuel.sniffers.repository.CustomerRepository;
+import com.samuel.sniffers.repository.ItemRepository;
+import com.samuel.sniffers.repository.ShoppingBasketRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the version columns behind the ETags in step with the write paths.
+ * <p>
+ * A customer is rendered with its baskets and items and a basket with its items, so a change increments the
+ * version of the changed row and of every parent above it. The increments are single UPDATE statements, two
+ * writers in the same customer wait for each other's row lock instead of failing. An expected version (from
+ * If-Match) turns the first increment into a compare-and-set: if the row moved on, nothing is written and the
+ * request fails with 412. The row stays locked from there, so nobody else can change it until the caller
+ * commits.
+ */
+@Component
+public class EntityVersions {
+
+    private final CustomerRepository customerRepository;
+    private final ShoppingBasketRepository basketRepository;
+    private final ItemRepository itemRepository;
+
+    public EntityVersions(CustomerRepository customerRepository, ShoppingBasketRepository basketRepository, ItemRepository itemRepository) {
+        this.customerRepository = customerRepository;
+        this.basketRepository = basketRepository;
+        this.itemRepository = itemRepository;
+    }
+
+    public void customerChanged(String customerId) {
+        customersChanged(List.of(customerId));
+    }
+
+    public void customersChanged(Collection<String> customerIds) {
+        if (!customerIds.isEmpty()) {
+            customerRepository.incrementVersion(customerIds, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Increments the customer's version, failing with 412 when expectedVersion is set and no longer current.
+     */
+    public void customerChanged(String customerId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            customerChanged(customerId);
+        } else if (customerRepository.incrementVersionIfMatches(customerId, expectedVersion, LocalDateTime.now()) == 0) {
+            throw preconditionFailed("Customer");
+        }
+    }
+
+    /**
+     * Checks an expected version for a write that changes nothing, failing with 412 when the customer moved on.
+     * Reads the version only, the customer keeps its version and its row is not locked.
+     */
+    public void customerUnchanged(String customerId, Long expectedVersion) {
+        if (expectedVersion != null && customerRepository.findVersionForAdmin(customerId)
+                .filter(current -> current.version() == expectedVersion).isEmpty()) {
+            throw preconditionFailed("Customer");
+        }
+    }
+
+    public void basketChanged(String customerId, String basketId) {
+        basketChanged(customerId, basketId, null);
+    }
+
+    public void basketChanged(String customerId, String basketId, Long expectedVersion) {
+        LocalDateTime modified = LocalDateTime.now();
+        if (expectedVersion == null) {
+            basketRepository.incrementVersion(basketId, modified);
+        } else if (basketRepository.incrementVersionIfMatches(basketId, expectedVersion, modified) == 0) {
+            throw preconditionFailed("Basket");
+        }
+        customerRepository.incrementVersion(List.of(customerId), modified);
+    }
+
+    public void itemChanged(String customerId, String basketId, String itemId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            itemsChanged(customerId, basketId, List.of(itemId));
+            return;
+        }
+        LocalDateTime modified = LocalDateTime.now();
+        if (itemRepository.incrementVersionIfMatches(itemId, expectedVersion, modified) == 0) {
+            throw preconditionFailed("Item");
+        }
+        basketRepository.incrementVersion(basketId, modified);
+        customerRepository.incrementVersion(List.of(customerId), modified);
+    }
+
+    /**
+     * Checks an expected version for a write that changes nothing, failing with 412 when the item moved on.
+     */
+    public void itemUnchanged(String customerId, String basketId, String itemId, Long expectedVersion) {
+        if (expectedVersion != null && itemRepository.findVersionForAdmin(customerId, basketId, itemId)
+                .filter(current -> current.version() == expectedVersion).isEmpty()) {
+            throw preconditionFailed("Item");
+        }
+    }
+
+    public void itemsChanged(String customerId, String basketId, Collection<String> itemIds) {
+        LocalDateTime modified = LocalDateTime.now();
+        if (!itemIds.isEmpty()) {
+            itemRepository.incrementVersion(itemIds, modified);
+        }
+        basketRepository.incrementVersion(basketId, modified);
+        customerRepository.incrementVersion(List.of(customerId), modified);
+    }
+
+    private static PreconditionFailedException preconditionFailed(String entity) {
+        return new PreconditionFailedException(entity + " was changed since the version in If-Match");
+    }
+}
@@ -0,0 +1,10 @@
+package com.samuel.sniffers.service.version;
+
+import com.samuel.sniffers.repository.projection.EntityVersion;
+
+/**
+ * A rendered representation together with the version of the row it was rendered from, read in the same
+ * transaction so the ETag of the response describes exactly this body.
+ */
+public record Versioned<T>(T value, EntityVersion version) {
+}
@@ -1,7 +1,10 @@
 package com.samuel.sniffers.service.view;
 
+import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.StreamFormat;
 import com.samuel.sniffers.dto.response.view.CustomerBasketItemViewDTO;
 
+import java.io.OutputStream;
 import java.util.List;
 
 public interface CustomerBasketItemViewService {
@@ -9,4 +12,12 @@ public interface CustomerBasketItemViewService {
     List<CustomerBasketItemViewDTO> findAllWithAccess();
 
     List<CustomerBasketItemViewDTO> findByCustomerNameWithAccess(String customerName);
+
+    PagedResponse<CustomerBasketItemViewDTO> findAllByCursor(String cursor, int size, String baseUrl);
+
+    PagedResponse<CustomerBasketItemViewDTO> findByCustomerNameByCursor(String customerName, String cursor, int size, String baseUrl);
+
+    void streamAllToResponse(OutputStream outputStream, StreamFormat format);
+
+    void streamByCustomerNameToResponse(OutputStream outputStream, String customerName, StreamFormat format);
 }
@@ -1,30 +1,49 @@
 package com.samuel.sniffers.service.view.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.samuel.sniffers.api.factory.EntityFactory;
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+import com.samuel.sniffers.api.exception.StreamingException;
+import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.RecordWriter;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.config.ViewConfig;
 import com.samuel.sniffers.dto.response.view.CustomerBasketItemViewDTO;
-import com.samuel.sniffers.entity.view.CustomerBasketItemView;
+import com.samuel.sniffers.repository.projection.HierarchyPosition;
+import com.samuel.sniffers.repository.projection.HierarchyRow;
 import com.samuel.sniffers.repository.view.CustomerBasketItemViewRepository;
 import com.samuel.sniffers.security.SecurityService;
 import com.samuel.sniffers.service.impl.AbstractPaginationService;
+import com.samuel.sniffers.service.streaming.RecordWriterFactory;
+import com.samuel.sniffers.service.streaming.StreamRows;
 import com.samuel.sniffers.service.view.CustomerBasketItemViewService;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Rows are read as projections in (customer, basket, item) id order and mapped to DTOs directly. The list
+ * endpoints read at most max-list-rows + 1 rows, so a result over the cap is refused without loading it.
+ */
 @Service
 public class CustomerBasketItemViewServiceImpl extends AbstractPaginationService implements CustomerBasketItemViewService {
 
     private final CustomerBasketItemViewRepository repository;
     private final SecurityService securityService;
-    private final EntityFactory entityFactory;
+    private final RecordWriterFactory recordWriterFactory;
+    private final ViewConfig viewConfig;
 
-    public CustomerBasketItemViewServiceImpl(CustomerBasketItemViewRepository repository, SecurityService securityService, EntityFactory entityFactory) {
+    public CustomerBasketItemViewServiceImpl(CustomerBasketItemViewRepository repository, SecurityService securityService, RecordWriterFactory recordWriterFactory, ViewConfig viewConfig) {
         this.repository = repository;
         this.securityService = securityService;
-        this.entityFactory = entityFactory;
+        this.recordWriterFactory = recordWriterFactory;
+        this.viewConfig = viewConfig;
     }
 
     @Override
@@ -32,10 +51,8 @@ public class CustomerBasketItemViewServiceImpl extends AbstractPaginationService
     public List<CustomerBasketItemViewDTO> findAllWithAccess() {
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
-        List<CustomerBasketItemView> views = repository.findAllWithAccess(token, isAdmin);
-        return views.stream()
-                .map(i -> entityFactory.convertToDTO(i, CustomerBasketItemViewDTO.class))
-                .toList();
+        List<HierarchyRow> rows = repository.findWindowWithAccess(token, isAdmin, HierarchyPosition.START, Limit.of(viewConfig.getMaxListRows() + 1));
+        return toCappedList(rows);
     }
 
     @Override
@@ -43,9 +60,137 @@ public class CustomerBasketItemViewServiceImpl extends AbstractPaginationService
     public List<CustomerBasketItemViewDTO> findByCustomerNameWithAccess(String customerName) {
         String token = securityService.getCurrentCustomerToken();
         boolean isAdmin = securityService.isAdmin(token);
-        List<CustomerBasketItemView> views = repository.findByCustomerNameWithAccess(customerName, token, isAdmin);
-        return views.stream()
-                .map(i -> entityFactory.convertToDTO(i, CustomerBasketItemViewDTO.class))
-                .collect(Collectors.toList());
+        List<HierarchyRow> rows = repository.findWindowByCustomerNameWithAccess(
+                customerName, token, isAdmin, HierarchyPosition.START, Limit.of(viewConfig.getMaxListRows() + 1));
+        return toCappedList(rows);
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public PagedResponse<CustomerBasketItemViewDTO> findAllByCursor(String cursor, int size, String baseUrl) {
+        validateWindowSize(size);
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+        List<HierarchyRow> rows = repository.findWindowWithAccess(token, isAdmin, decodePosition(cursor), Limit.of(size + 1));
+        return toWindow(rows, size, baseUrl);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PagedResponse<CustomerBasketItemViewDTO> findByCustomerNameByCursor(String customerName, String cursor, int size, String baseUrl) {
+        validateWindowSize(size);
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+        List<HierarchyRow> rows = repository.findWindowByCustomerNameWithAccess(
+                customerName, token, isAdmin, decodePosition(cursor), Limit.of(size + 1));
+        return toWindow(rows, size, baseUrl);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllToResponse(OutputStream outputStream, StreamFormat format) {
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+        try (Stream<HierarchyRow> rows = repository.streamAllWithAccess(token, isAdmin)) {
+            writeRows(rows, outputStream, format);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamByCustomerNameToResponse(OutputStream outputStream, String customerName, StreamFormat format) {
+        String token = securityService.getCurrentCustomerToken();
+        boolean isAdmin = securityService.isAdmin(token);
+        try (Stream<HierarchyRow> rows = repository.streamByCustomerNameWithAccess(customerName, token, isAdmin)) {
+            writeRows(rows, outputStream, format);
+        }
+    }
+
+    private void writeRows(Stream<HierarchyRow> rows, OutputStream outputStream, StreamFormat format) {
+        try (RecordWriter writer = recordWriterFactory.open(outputStream, format)) {
+            rows.forEach(row -> {
+                try {
+                    writer.writeRow(row, StreamRows.HIERARCHY);
+                } catch (IOException e) {
+                    throw new StreamingException("Error streaming view data", e);
+                }
+            });
+        } catch (IOException e) {
+            throw new StreamingException("Error initializing JSON generator", e);
+        }
+    }
+
+    private List<CustomerBasketItemViewDTO> toCappedList(List<HierarchyRow> rows) {
+        if (rows.size() > viewConfig.getMaxListRows()) {
+            throw new InvalidRequestException("The result has more than " + viewConfig.getMaxListRows()
+                    + " rows, read it through the /page or /stream endpoint.");
+        }
+        return rows.stream().map(this::toDTO).toList();
+    }
+
+    private PagedResponse<CustomerBasketItemViewDTO> toWindow(List<HierarchyRow> rows, int size, String baseUrl) {
+        boolean last = rows.size() <= size;
+        List<HierarchyRow> window = last ? rows : rows.subList(0, size);
+
+        String nextCursor = null;
+        if (!last) {
+            HierarchyRow lastRow = window.get(window.size() - 1);
+            nextCursor = encodeKeysetCursor(lastRow.customerId(), lastRow.basketId(), lastRow.itemId());
+        }
+
+        PagedResponse<CustomerBasketItemViewDTO> response = new PagedResponse<>(
+                window.stream().map(this::toDTO).toList(), size, last, nextCursor);
+
+        Map<String, String> links = new HashMap<>();
+        links.put("first", baseUrl + "?size=" + size);
+        if (nextCursor != null) {
+            links.put("next", baseUrl + "?cursor=" + nextCursor + "&size=" + size);
+        }
+        response.setLinks(links);
+        return response;
+    }
+
+    private HierarchyPosition decodePosition(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return HierarchyPosition.START;
+        }
+
+        String[] keys = decodeKeysetCursor(cursor, 3);
+        try {
+            for (String key : keys) {
+                if (key != null) {
+                    UUID.fromString(key);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid pagination cursor.");
+        }
+        if (keys[0] == null) {
+            throw new InvalidRequestException("Invalid pagination cursor.");
+        }
+        return new HierarchyPosition(keys[0], keys[1], keys[2]);
+    }
+
+    private void validateWindowSize(int size) {
+        if (size < 1 || size > viewConfig.getMaxListRows()) {
+            throw new InvalidRequestException("size must be between 1 and " + viewConfig.getMaxListRows() + ".");
+        }
+    }
+
+    private CustomerBasketItemViewDTO toDTO(HierarchyRow row) {
+        return new CustomerBasketItemViewDTO(
+                row.customerId(),
+                row.customerName(),
+                row.customerTimezone(),
+                null,
+                row.customerCreated(),
+                row.basketId(),
+                row.basketStatus() != null ? row.basketStatus().name() : null,
+                row.basketCreated(),
+                row.basketStatusDate(),
+                row.itemId(),
+                row.itemDescription(),
+                row.itemAmount(),
+                row.itemCreated());
+    }
+}
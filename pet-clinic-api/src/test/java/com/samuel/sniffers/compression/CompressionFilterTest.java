@@ -0,0 +1,165 @@
+package com.samuel.sniffers.compression;
+
+import com.samuel.sniffers.config.CompressionConfig;
+import com.samuel.sniffers.metrics.CompressionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFilterTest {
+
+    private static final String SMALL_BODY = "{\"id\":\"1\",\"name\":\"Rex\"}";
+    private static final String LARGE_BODY = "{\"content\":[" + "{\"id\":\"1\",\"name\":\"Rex\"},".repeat(500) + "{}]}";
+
+    private SimpleMeterRegistry meterRegistry;
+    private CompressionConfig config;
+    private CompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new CompressionConfig();
+        config.setMinResponseSize(DataSize.ofKilobytes(2));
+        filter = new CompressionFilter(config, new CompressionMetrics(meterRegistry));
+    }
+
+    @Test
+    void testNegotiate_ShouldPickHighestQuality() {
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip, deflate, br"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("*"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0, *;q=0.8"));
+        assertNull(ContentCoding.negotiate("gzip;q=0"));
+        assertNull(ContentCoding.negotiate("br, identity"));
+        assertNull(ContentCoding.negotiate(null));
+    }
+
+    @Test
+    void testFilter_ShouldLeaveSmallResponsesUncompressed() throws Exception {
+        MockHttpServletResponse response = filter(request("gzip"), MediaType.APPLICATION_JSON_VALUE, SMALL_BODY);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(SMALL_BODY.length(), response.getContentLength());
+        assertEquals(SMALL_BODY, response.getContentAsString());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    }
+
+    @Test
+    void testFilter_ShouldCompressLargeResponses() throws Exception {
+        MockHttpServletResponse response = filter(request("gzip, deflate"), MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertTrue(response.getContentAsByteArray().length < LARGE_BODY.length());
+        assertEquals(LARGE_BODY, gunzip(response.getContentAsByteArray()));
+
+        assertEquals(1, meterRegistry.get("petshop.compression.ratio").tag("response", "json").summary().count());
+        assertEquals(LARGE_BODY.length(), meterRegistry.get("petshop.compression.bytes.in").counter().count());
+    }
+
+    @Test
+    void testFilter_ShouldUseDeflateWhenPreferred() throws Exception {
+        MockHttpServletResponse response = filter(request("deflate"), MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+
+        assertEquals("deflate", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(LARGE_BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testFilter_ShouldPassThroughWithoutAcceptEncodingOrForOtherContent() throws Exception {
+        MockHttpServletResponse plain = filter(request(null), MediaType.APPLICATION_JSON_VALUE, LARGE_BODY);
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(LARGE_BODY, plain.getContentAsString());
+
+        MockHttpServletResponse text = filter(request("gzip"), MediaType.TEXT_PLAIN_VALUE, LARGE_BODY);
+        assertNull(text.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(LARGE_BODY, text.getContentAsString());
+    }
+
+    @Test
+    void testStreamCompression_ShouldSyncFlushEveryWriterFlush() throws Exception {
+        StreamCompression streamCompression = new StreamCompression(config, new CompressionMetrics(meterRegistry));
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        byte[] firstRecord = (SMALL_BODY + "\n").getBytes(StandardCharsets.UTF_8);
+        int[] flushedBytes = new int[1];
+
+        ResponseEntity<StreamingResponseBody> entity = streamCompression.ndjson("gzip", outputStream -> {
+            outputStream.write(firstRecord);
+            outputStream.flush();
+            flushedBytes[0] = client.size();
+            outputStream.write(firstRecord);
+        });
+
+        assertEquals("gzip", entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(StreamCompression.APPLICATION_NDJSON, entity.getHeaders().getContentType());
+        entity.getBody().writeTo(client);
+
+        // Everything before the flush decodes on its own, the client does not wait for the stream to end
+        byte[] flushed = Arrays.copyOf(client.toByteArray(), flushedBytes[0]);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(flushed))) {
+            assertArrayEquals(firstRecord, in.readNBytes(firstRecord.length));
+        }
+        assertEquals(SMALL_BODY + "\n" + SMALL_BODY + "\n", gunzip(client.toByteArray()));
+        assertEquals(1, meterRegistry.get("petshop.compression.time").tag("response", "stream").timer().count());
+    }
+
+    @Test
+    void testStreamCompression_ShouldNotWrapWithoutAcceptEncoding() throws Exception {
+        StreamCompression streamCompression = new StreamCompression(config, new CompressionMetrics(meterRegistry));
+        StreamingResponseBody body = outputStream -> outputStream.write(SMALL_BODY.getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<StreamingResponseBody> entity = streamCompression.ndjson(null, body);
+
+        assertNull(entity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertSame(body, entity.getBody());
+    }
+
+    private MockHttpServletRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customer");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, String contentType, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        FilterChain chain = (req, res) -> {
+            res.setContentType(contentType);
+            res.setContentLength(bytes.length);
+            res.getOutputStream().write(bytes);
+            res.getOutputStream().flush();
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private String gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.samuel.sniffers.config.datasource;
+
+import com.samuel.sniffers.repository.CustomerRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+  The replica pool points at the same in-memory database under its own pool, the tests assert which
+  pool holds the connection while the transaction runs.
+*/
+@SpringBootTest(properties = {
+        "petshop.datasource.replica.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "petshop.datasource.replica.username=sa",
+        "petshop.datasource.replica.password=",
+        "petshop.datasource.replica.lag-query=SELECT 0"
+})
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("routing - Should run read-only transactions on the replica")
+    void readOnlyTransaction_ShouldUseReplica() {
+        assertThat(runInTransaction(true)).isEqualTo(DataSourceRole.REPLICA);
+    }
+
+    @Test
+    @DisplayName("routing - Should run read-write transactions on the primary")
+    void readWriteTransaction_ShouldUsePrimary() {
+        assertThat(runInTransaction(false)).isEqualTo(DataSourceRole.PRIMARY);
+    }
+
+    @Test
+    @DisplayName("routing - Should keep reads on the primary after a write in the same request")
+    void readAfterWriteInRequest_ShouldUsePrimary() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertThat(runInTransaction(true)).isEqualTo(DataSourceRole.REPLICA);
+        assertThat(runInTransaction(false)).isEqualTo(DataSourceRole.PRIMARY);
+        assertThat(runInTransaction(true)).isEqualTo(DataSourceRole.PRIMARY);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(runInTransaction(true)).isEqualTo(DataSourceRole.REPLICA);
+    }
+
+    @Test
+    @DisplayName("lag check - Should only accept the replica within the configured lag")
+    void lagMonitor_ShouldRejectLaggingOrFailingReplica() {
+        assertThat(new ReplicaLagMonitor(replicaDataSource, "SELECT 3", Duration.ofSeconds(5), Duration.ofSeconds(5)).isReplicaUsable()).isTrue();
+        assertThat(new ReplicaLagMonitor(replicaDataSource, "SELECT 30", Duration.ofSeconds(5), Duration.ofSeconds(5)).isReplicaUsable()).isFalse();
+        assertThat(new ReplicaLagMonitor(replicaDataSource, "SELECT NULL", Duration.ofSeconds(5), Duration.ofSeconds(5)).isReplicaUsable()).isFalse();
+        assertThat(new ReplicaLagMonitor(replicaDataSource, "SELECT * FROM missing_table", Duration.ofSeconds(5), Duration.ofSeconds(5)).isReplicaUsable()).isFalse();
+    }
+
+    private DataSourceRole runInTransaction(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+
+        return transactionTemplate.execute(status -> {
+            customerRepository.count();
+            if (replicaDataSource.getHikariPoolMXBean().getActiveConnections() > 0) {
+                return DataSourceRole.REPLICA;
+            }
+            assertThat(primaryDataSource.getHikariPoolMXBean().getActiveConnections()).isPositive();
+            return DataSourceRole.PRIMARY;
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.samuel.sniffers.controller;
+
+import com.samuel.sniffers.api.response.ApiResponse;
+import com.samuel.sniffers.dto.response.CustomerResponseDTO;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.version.Versioned;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerControllerTest {
+
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    private CustomerService customerService;
+    private CustomerController controller;
+
+    @BeforeEach
+    void setUp() {
+        customerService = mock(CustomerService.class);
+        controller = new CustomerController(customerService, null, null, null);
+    }
+
+    @Test
+    void getCustomer_ShouldTagTheResponseWithTheVersionItRendered() throws IOException {
+        CustomerResponseDTO customer = new CustomerResponseDTO();
+        customer.setId("customer-1");
+
+        // A write commits between the version lookup and the read
+        when(customerService.findVersion("customer-1")).thenReturn(Optional.of(new EntityVersion(3, MODIFIED)));
+        when(customerService.findVersionedById("customer-1"))
+                .thenReturn(new Versioned<>(customer, new EntityVersion(4, MODIFIED.plusSeconds(5))));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/customer/customer-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<ApiResponse<CustomerResponseDTO>> result =
+                controller.getCustomer("customer-1", new ServletWebRequest(request, response), response);
+
+        assertThat(result.getBody().getData()).isSameAs(customer);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"4\"");
+        assertThat(response.getDateHeader(HttpHeaders.LAST_MODIFIED))
+                .isEqualTo(MODIFIED.plusSeconds(5).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
@@ -0,0 +1,67 @@
+package com.samuel.sniffers.controller;
+
+import com.samuel.sniffers.api.response.ApiResponse;
+import com.samuel.sniffers.dto.BatchItemCreateDTO;
+import com.samuel.sniffers.dto.ItemDTO;
+import com.samuel.sniffers.dto.response.BatchUpdateFailure;
+import com.samuel.sniffers.dto.response.ItemBatchUpdateResponseDTO;
+import com.samuel.sniffers.dto.response.ItemResponseDTO;
+import com.samuel.sniffers.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemControllerTest {
+
+    private ItemService itemService;
+    private ItemController controller;
+
+    @BeforeEach
+    void setUp() {
+        itemService = mock(ItemService.class);
+        controller = new ItemController(itemService, null, null);
+    }
+
+    @Test
+    void createItems_ShouldAnswer400WhenNoRowWasCreated() {
+        List<BatchUpdateFailure> failures = List.of(new BatchUpdateFailure("0", "Item is required"));
+        when(itemService.createItems(eq("customer-1"), eq("basket-1"), any()))
+                .thenReturn(new ItemBatchUpdateResponseDTO(null, 1, List.of(), failures));
+
+        ResponseEntity<ApiResponse<ItemBatchUpdateResponseDTO>> response =
+                controller.createItems("customer-1", "basket-1", batch());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().getStatus()).isEqualTo(400);
+        assertThat(response.getBody().getData()).isNull();
+        assertThat(((ItemBatchUpdateResponseDTO) response.getBody().getError()).getFailedUpdates()).isEqualTo(failures);
+    }
+
+    @Test
+    void createItems_ShouldAnswer201WhenSomeRowsWereCreated() {
+        when(itemService.createItems(eq("customer-1"), eq("basket-1"), any()))
+                .thenReturn(new ItemBatchUpdateResponseDTO(1, 1, List.of(new ItemResponseDTO()),
+                        List.of(new BatchUpdateFailure("1", "Item is required"))));
+
+        ResponseEntity<ApiResponse<ItemBatchUpdateResponseDTO>> response =
+                controller.createItems("customer-1", "basket-1", batch());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody().getData().getSuccessfulUpdatesCount()).isEqualTo(1);
+    }
+
+    private static BatchItemCreateDTO batch() {
+        BatchItemCreateDTO dto = new BatchItemCreateDTO();
+        dto.setItems(List.of(new ItemDTO(), new ItemDTO()));
+        return dto;
+    }
+}
@@ -0,0 +1,100 @@
+package com.samuel.sniffers.service.cache;
+
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapJsonStoreTest {
+
+    private static final OffHeapJsonStore.Key CUSTOMER_1 = new OffHeapJsonStore.Key(Customer.class, "customer-1");
+    private static final OffHeapJsonStore.Key CUSTOMER_2 = new OffHeapJsonStore.Key(Customer.class, "customer-2");
+    private static final OffHeapJsonStore.Key BASKET_1 = new OffHeapJsonStore.Key(ShoppingBasket.class, "basket-1");
+
+    private OffHeapJsonStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Four blocks of 16 bytes, an entry may take all of them
+        store = new OffHeapJsonStore(64, 16, 64);
+    }
+
+    @Test
+    void get_ShouldReturnTheBytesSpreadOverSeveralBlocks() throws IOException {
+        String json = "{\"id\":\"customer-1\",\"name\":\"Customer 1\"}";
+
+        assertThat(store.put(CUSTOMER_1, store.version(CUSTOMER_1), 7, "owner-1", null, bytes(json))).isTrue();
+
+        try (CachedJson cached = store.get(CUSTOMER_1)) {
+            assertThat(cached.length()).isEqualTo(json.length());
+            assertThat(cached.ownerToken()).isEqualTo("owner-1");
+            assertThat(cached.entityVersion()).isEqualTo(7);
+            assertThat(read(cached)).isEqualTo(json);
+        }
+        assertThat(store.usedBytes()).isEqualTo(48);
+        assertThat(store.get(CUSTOMER_2)).isNull();
+    }
+
+    @Test
+    void put_ShouldEvictTheLeastRecentlyReadEntry() {
+        store.put(CUSTOMER_1, 0, 0, "owner-1", null, new byte[32]);
+        store.put(CUSTOMER_2, 0, 0, "owner-2", null, new byte[32]);
+        store.get(CUSTOMER_1).close();
+
+        assertThat(store.put(BASKET_1, 0, 0, "owner-1", "customer-1", new byte[20])).isTrue();
+
+        assertThat(store.get(CUSTOMER_2)).isNull();
+        assertThat(store.get(CUSTOMER_1)).isNotNull();
+        assertThat(store.evictions()).isEqualTo(1);
+        assertThat(store.entryCount()).isEqualTo(2);
+    }
+
+    @Test
+    void put_ShouldBeRejectedAfterTheKeyWasInvalidated() {
+        long version = store.version(CUSTOMER_1);
+        store.put(CUSTOMER_1, version, 0, "owner-1", null, new byte[8]);
+
+        // A write landed between the read and the put
+        store.invalidate(CUSTOMER_1);
+
+        assertThat(store.get(CUSTOMER_1)).isNull();
+        assertThat(store.put(CUSTOMER_1, version, 0, "owner-1", null, new byte[8])).isFalse();
+        assertThat(store.put(CUSTOMER_1, store.version(CUSTOMER_1), 0, "owner-1", null, new byte[8])).isTrue();
+        assertThat(store.put(CUSTOMER_2, 0, 0, "owner-2", null, new byte[65])).isFalse();
+    }
+
+    @Test
+    void release_ShouldFreeTheBlocksOfARemovedEntryOnlyAfterTheLastReader() throws IOException {
+        String json = "{\"status\":\"NEW\",\"items\":[]}";
+        store.put(BASKET_1, 0, 0, "owner-1", "customer-1", bytes(json));
+
+        CachedJson cached = store.get(BASKET_1);
+        store.invalidate(BASKET_1);
+
+        // The pinned blocks are not handed out, so the reader still sees its bytes
+        assertThat(store.put(CUSTOMER_1, store.version(CUSTOMER_1), 0, "owner-1", null, new byte[64])).isFalse();
+        assertThat(read(cached)).isEqualTo(json);
+
+        cached.close();
+        assertThat(store.usedBytes()).isZero();
+        assertThat(store.put(CUSTOMER_1, store.version(CUSTOMER_1), 0, "owner-1", null, new byte[64])).isTrue();
+        assertThatThrownBy(() -> cached.writeTo(new ByteArrayOutputStream())).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(CachedJson cached) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        cached.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+package com.samuel.sniffers.service.count;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TotalCountEstimatorTest {
+
+    private MutableClock clock;
+    private TotalCountEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        estimator = new TotalCountEstimator(2, Duration.ofMinutes(10), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void customerCreated_ShouldOnlyCountOnceTheTransactionCommitted() {
+        assertThat(estimator.customers("token", false, () -> 5)).isEqualTo(5);
+
+        TransactionSynchronizationManager.initSynchronization();
+        estimator.customerCreated("token");
+        assertThat(estimator.customers("token", false, () -> 0)).isEqualTo(5);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        TransactionSynchronizationManager.initSynchronization();
+        estimator.customerCreated("token");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(estimator.customers("token", false, () -> 0)).isEqualTo(6);
+    }
+
+    @Test
+    void estimate_ShouldSeedAgainOnceTheCounterIsOlderThanTheInterval() {
+        AtomicInteger seeds = new AtomicInteger();
+
+        estimator.baskets("customer-1", () -> 10 + seeds.incrementAndGet());
+        clock.advance(Duration.ofMinutes(9));
+        assertThat(estimator.baskets("customer-1", () -> 10 + seeds.incrementAndGet())).isEqualTo(11);
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(estimator.baskets("customer-1", () -> 10 + seeds.incrementAndGet())).isEqualTo(12);
+        assertThat(seeds).hasValue(2);
+    }
+
+    @Test
+    void estimate_ShouldKeepOnlyTheLeastRecentlyReadCounters() {
+        estimator.items("basket-1", () -> 1);
+        estimator.items("basket-2", () -> 2);
+        estimator.items("basket-1", () -> 0);
+
+        estimator.items("basket-3", () -> 3);
+
+        assertThat(estimator.size()).isEqualTo(2);
+        assertThat(estimator.items("basket-1", () -> 0)).isEqualTo(1);
+        assertThat(estimator.items("basket-2", () -> 20)).isEqualTo(20);
+    }
+
+    @Test
+    void customerDeleted_ShouldDropTheCountersOfItsBaskets() {
+        estimator.items("basket-1", () -> 4);
+
+        estimator.customerDeleted("token", "customer-1", List.of("basket-1"));
+
+        assertThat(estimator.size()).isZero();
+        assertThat(estimator.items("basket-1", () -> 0)).isZero();
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
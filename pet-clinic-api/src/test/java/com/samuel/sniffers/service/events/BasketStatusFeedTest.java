@@ -0,0 +1,301 @@
+package com.samuel.sniffers.service.events;
+
+import com.samuel.sniffers.api.exception.StreamRejectedException;
+import com.samuel.sniffers.config.BasketFeedConfig;
+import com.samuel.sniffers.enums.BasketStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BasketStatusFeedTest {
+
+    private static final String OWNER_1 = "owner-1";
+    private static final String OWNER_2 = "owner-2";
+
+    // The feed starts at this time, so its event ids are 1000-<sequence>
+    private static final long STARTED = 1000;
+
+    private final Queue<Runnable> dispatches = new ArrayDeque<>();
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private BasketStatusFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        BasketFeedConfig config = new BasketFeedConfig();
+        config.setReplayBuffer(3);
+        config.setMaxSubscribers(2);
+        config.setRetryAfter(Duration.ofSeconds(7));
+        config.setSendTimeout(Duration.ofSeconds(10));
+
+        clock = new MutableClock();
+        meterRegistry = new SimpleMeterRegistry();
+        feed = new BasketStatusFeed(config, meterRegistry, dispatches::add, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onStatusChange_ShouldOnlyDeliverChangesVisibleToTheSubscriber() {
+        CapturingEmitter tenant = subscribe(OWNER_1, false, null, Set.of(BasketStatus.PAID), null);
+        CapturingEmitter admin = subscribe("admin", true, "customer-2", Set.of(), null);
+
+        publish("customer-1", "basket-1", BasketStatus.PAID, OWNER_1);
+        publish("customer-1", "basket-2", BasketStatus.PROCESSED, OWNER_1);
+        publish("customer-2", "basket-3", BasketStatus.PAID, OWNER_2);
+        dispatch();
+
+        assertThat(tenant.basketIds).containsExactly("basket-1");
+        assertThat(tenant.eventIds).containsExactly(1L);
+        assertThat(admin.basketIds).containsExactly("basket-3");
+        assertThat(admin.eventIds).containsExactly(3L);
+    }
+
+    @Test
+    void subscribe_ShouldReplayTheBufferedChangesAfterTheLastEventId() {
+        for (int i = 1; i <= 4; i++) {
+            publish("customer-1", "basket-" + i, BasketStatus.PAID, OWNER_1);
+        }
+
+        CapturingEmitter resumed = subscribe(OWNER_1, false, null, Set.of(), "1000-2");
+        CapturingEmitter tooOld = subscribe(OWNER_1, false, null, Set.of(), "1000-0");
+        dispatch();
+
+        // Event 1 already left the ring of three
+        assertThat(resumed.eventIds).containsExactly(3L, 4L);
+        assertThat(resumed.resets).isZero();
+        assertThat(tooOld.eventIds).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(tooOld.resets).isEqualTo(1);
+    }
+
+    @Test
+    void subscribe_ShouldSendAResetWhenTheLastEventIdIsFromAnEarlierRun() {
+        publish("customer-1", "basket-1", BasketStatus.PAID, OWNER_1);
+
+        CapturingEmitter earlierRun = subscribe(OWNER_1, false, null, Set.of(), "999-5");
+        CapturingEmitter unknown = subscribe(OWNER_2, true, null, Set.of(), "5");
+        dispatch();
+
+        assertThat(earlierRun.resets).isEqualTo(1);
+        assertThat(earlierRun.basketIds).containsExactly("basket-1");
+        assertThat(unknown.resets).isEqualTo(1);
+        assertThat(unknown.eventIds).containsExactly(0L, 1L);
+    }
+
+    @Test
+    void onStatusChange_ShouldKeepATransactionLargerThanTheReplayBufferWhole() {
+        CapturingEmitter subscriber = subscribe(OWNER_1, false, null, Set.of(), null);
+        publish("customer-1", "basket-0", BasketStatus.PAID, OWNER_1);
+        dispatch();
+
+        TransactionSynchronizationManager.initSynchronization();
+        for (int i = 1; i <= 5; i++) {
+            publish("customer-1", "basket-" + i, BasketStatus.PAID, OWNER_1);
+        }
+        assertThat(dispatches).isEmpty();
+        commit();
+        dispatch();
+
+        assertThat(subscriber.eventIds).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(meterRegistry.get("petshop.basket-feed.lagged").counter().count()).isZero();
+
+        // The first transaction left the ring, the batch is still replayed whole
+        CapturingEmitter resumed = subscribe(OWNER_1, false, null, Set.of(), "1000-1");
+        dispatch();
+        assertThat(resumed.resets).isZero();
+        assertThat(resumed.eventIds).containsExactly(2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void onStatusChange_ShouldDropTheChangesOfARolledBackTransaction() {
+        CapturingEmitter subscriber = subscribe(OWNER_1, false, null, Set.of(), null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        publish("customer-1", "basket-1", BasketStatus.PAID, OWNER_1);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        dispatch();
+
+        assertThat(subscriber.basketIds).isEmpty();
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+
+    @Test
+    void dropStalledSubscribers_ShouldDropASubscriberWhoseSendIsBlocked() {
+        CapturingEmitter stalled = subscribe(OWNER_1, false, null, Set.of(), null);
+        // The watchdog runs while the first send is still blocked
+        stalled.duringSend = () -> {
+            clock.advance(Duration.ofSeconds(11));
+            feed.dropStalledSubscribers();
+        };
+
+        publish("customer-1", "basket-1", BasketStatus.PAID, OWNER_1);
+        publish("customer-1", "basket-2", BasketStatus.PAID, OWNER_1);
+        dispatch();
+
+        assertThat(stalled.basketIds).containsExactly("basket-1");
+        assertThat(stalled.completed).isTrue();
+        assertThat(meterRegistry.get("petshop.basket-feed.slow").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("petshop.basket-feed.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void subscribe_ShouldOnlySendNewChangesWithoutALastEventId() {
+        publish("customer-1", "basket-1", BasketStatus.PAID, OWNER_1);
+        CapturingEmitter subscriber = subscribe(OWNER_1, false, null, Set.of(), null);
+        publish("customer-1", "basket-2", BasketStatus.PAID, OWNER_1);
+        dispatch();
+
+        assertThat(subscriber.basketIds).containsExactly("basket-2");
+    }
+
+    @Test
+    void onStatusChange_ShouldCloseASubscriberThatFellBehindTheReplayBuffer() {
+        CapturingEmitter slow = subscribe(OWNER_1, false, null, Set.of(), null);
+        dispatch();
+
+        for (int i = 1; i <= 4; i++) {
+            publish("customer-1", "basket-" + i, BasketStatus.PAID, OWNER_1);
+        }
+        dispatch();
+
+        assertThat(slow.basketIds).isEmpty();
+        assertThat(meterRegistry.get("petshop.basket-feed.lagged").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("petshop.basket-feed.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void subscribe_ShouldRejectOnceMaxSubscribersAreOpen() {
+        subscribe(OWNER_1, false, null, Set.of(), null);
+        subscribe(OWNER_2, false, null, Set.of(), null);
+
+        assertThatThrownBy(() -> subscribe(OWNER_1, false, null, Set.of(), null))
+                .isInstanceOf(StreamRejectedException.class)
+                .satisfies(ex -> assertThat(((StreamRejectedException) ex).getRetryAfter()).hasSeconds(7));
+
+        assertThat(meterRegistry.get("petshop.basket-feed.subscribers").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("petshop.basket-feed.rejected").counter().count()).isEqualTo(1);
+    }
+
+    private CapturingEmitter subscribe(String token, boolean isAdmin, String customerId, Set<BasketStatus> statuses, String lastEventId) {
+        CapturingEmitter emitter = new CapturingEmitter();
+        feed.subscribe(emitter, token, isAdmin, customerId, statuses, lastEventId);
+        return emitter;
+    }
+
+    private void publish(String customerId, String basketId, BasketStatus status, String ownerToken) {
+        feed.onStatusChange(new BasketStatusChange(customerId, basketId, BasketStatus.NEW, status, LocalDateTime.now(), ownerToken));
+    }
+
+    private void dispatch() {
+        Runnable task;
+        while ((task = dispatches.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static void commit() {
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static class CapturingEmitter extends SseEmitter {
+        private static final Pattern EVENT_ID = Pattern.compile("^id:" + STARTED + "-(\\d+)$", Pattern.MULTILINE);
+        private static final Pattern RESET = Pattern.compile("^event:" + BasketStatusFeed.RESET_EVENT_NAME + "$", Pattern.MULTILINE);
+
+        private final List<Long> eventIds = new ArrayList<>();
+        private final List<String> basketIds = new ArrayList<>();
+        private int resets;
+        private boolean completed;
+        private Runnable duringSend;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            for (var part : builder.build()) {
+                if (part.getData() instanceof BasketStatusChange change) {
+                    assertThat(new MappingJackson2HttpMessageConverter().getObjectMapper().writeValueAsString(change))
+                            .doesNotContain("ownerToken");
+                    basketIds.add(change.basketId());
+                    if (duringSend != null) {
+                        duringSend.run();
+                    }
+                } else if (part.getData() instanceof String text) {
+                    Matcher matcher = EVENT_ID.matcher(text);
+                    if (matcher.find()) {
+                        eventIds.add(Long.parseLong(matcher.group(1)));
+                    }
+                    if (RESET.matcher(text).find()) {
+                        resets++;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.ofEpochMilli(STARTED);
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -2,19 +2,31 @@ package com.samuel.sniffers.service.impl;
 
 import com.samuel.sniffers.api.exception.CustomerAlreadyExistsException;
 import com.samuel.sniffers.api.exception.InvalidRequestException;
+import com.samuel.sniffers.api.exception.PreconditionFailedException;
 import com.samuel.sniffers.api.exception.ResourceNotFoundException;
 import com.samuel.sniffers.api.factory.EntityFactory;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.response.TotalCountStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samuel.sniffers.dto.CustomerBatchUpdateDTO;
 import com.samuel.sniffers.dto.CustomerDTO;
 import com.samuel.sniffers.dto.CustomerPatchDTO;
+import com.samuel.sniffers.dto.ResponseExpansion;
 import com.samuel.sniffers.dto.response.*;
 import com.samuel.sniffers.repository.CustomerRepository;
 import com.samuel.sniffers.security.SecurityFilter;
 import com.samuel.sniffers.security.SecurityService;
 import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.ItemService;
+import com.samuel.sniffers.service.ShoppingBasketService;
+import com.samuel.sniffers.service.cache.CachedJson;
+import com.samuel.sniffers.service.version.Versioned;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,7 +41,9 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -60,6 +74,18 @@ class CustomerServiceImplTest extends BaseServiceTest {
     @Autowired
     private EntityFactory entityFactory;
 
+    @Autowired
+    private ShoppingBasketService basketService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private FilterChain mockFilterChain;
 
     @BeforeEach
@@ -126,6 +152,145 @@ class CustomerServiceImplTest extends BaseServiceTest {
         validateCustomerMatch(responseDTO, result);
     }
 
+    @Test
+    @DisplayName("findById - Should read the customer tree as projections with one query per level")
+    void findByIdCustomerTree_ShouldUseProjections() throws ServletException, IOException {
+
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Test Admin", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN)).getId();
+        for (int i = 1; i <= 3; i++) {
+            String basketId = basketService.createBasket(customerId).getId();
+            itemService.createItem(customerId, basketId, getItemDTO("Item " + i + "-1", 1));
+            itemService.createItem(customerId, basketId, getItemDTO("Item " + i + "-2", 2));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        CustomerResponseDTO result = customerService.findById(customerId);
+
+        // Assert - customer, baskets and items are one query each and nothing is managed
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(result.getName()).isEqualTo("Test Admin");
+        assertThat(result.getBaskets()).hasSize(3);
+        assertThat(result.getBaskets()).allSatisfy(basket -> assertThat(basket.getItems()).hasSize(2));
+    }
+
+    @Test
+    @DisplayName("findCachedById - Should serve the JSON of the last read until the customer tree changes")
+    void findCachedById_ShouldServeTheLastReadUntilItChanges() throws ServletException, IOException {
+
+        // Setup context with customer token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Test Customer1", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN)).getId();
+        String basketId = basketService.createBasket(customerId).getId();
+        long version = customerService.findVersion(customerId).orElseThrow().version();
+        assertThat(customerService.findCachedById(customerId, version)).isNull();
+
+        // Act
+        CustomerResponseDTO result = customerService.findById(customerId);
+
+        // Assert - the cached bytes are the JSON of the DTO, only for the version it was rendered from
+        assertThat(customerService.findCachedById(customerId, version + 1)).isNull();
+        try (CachedJson cached = customerService.findCachedById(customerId, version)) {
+            assertThat(cached).isNotNull();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            cached.writeTo(outputStream);
+            assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(objectMapper.writeValueAsString(result));
+        }
+
+        // Another tenant does not get it
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER2_TOKEN);
+        assertThat(customerService.findCachedById(customerId, version)).isNull();
+
+        // An item added to one of its baskets drops it
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+        itemService.createItem(customerId, basketId, getItemDTO("Item 1", 1));
+        assertThat(customerService.findCachedById(customerId, version)).isNull();
+    }
+
+    @Test
+    @DisplayName("findVersionedById - Should return the version of the customer it rendered")
+    void findVersionedById_ShouldReturnTheRenderedVersion() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Test Customer1", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN)).getId();
+        basketService.createBasket(customerId);
+        entityManager.flush();
+        entityManager.clear();
+
+        Versioned<CustomerResponseDTO> result = customerService.findVersionedById(customerId);
+
+        assertThat(result.value().getId()).isEqualTo(customerId);
+        assertThat(result.version()).isEqualTo(customerService.findVersion(customerId).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("update - Should only apply an expected version while the customer tree is still at it")
+    void update_WithExpectedVersion_ShouldFailOnceTheTreeChanged() throws ServletException, IOException {
+
+        // Setup context with customer token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Test Customer1", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN)).getId();
+        long created = customerService.findVersion(customerId).orElseThrow().version();
+
+        // A basket and an item change what findById renders, each increments the version
+        String basketId = basketService.createBasket(customerId).getId();
+        itemService.createItem(customerId, basketId, getItemDTO("Item 1", 1));
+        long current = customerService.findVersion(customerId).orElseThrow().version();
+        assertThat(current).isEqualTo(created + 2);
+
+        CustomerPatchDTO patch = new CustomerPatchDTO();
+        patch.setName("Renamed Customer1");
+
+        // Act & Assert
+        assertThatThrownBy(() -> customerService.update(customerId, patch, created))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Customer was changed since the version in If-Match");
+
+        // The failed request only rolls back with the transaction, so the next one asks for another name
+        patch.setName("Renamed Customer1 again");
+        assertThat(customerService.update(customerId, patch, current).getName()).isEqualTo("Renamed Customer1 again");
+        assertThat(customerService.findVersion(customerId).orElseThrow().version()).isEqualTo(current + 1);
+
+        // Not visible to another tenant
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER2_TOKEN);
+        assertThat(customerService.findVersion(customerId)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("update - Should check an expected version without incrementing it when nothing changes")
+    void update_WithExpectedVersionAndNoChange_ShouldKeepTheVersion() throws ServletException, IOException {
+
+        // Setup context with customer token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Test Customer1", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN)).getId();
+        long created = customerService.findVersion(customerId).orElseThrow().version();
+        basketService.createBasket(customerId);
+        long current = customerService.findVersion(customerId).orElseThrow().version();
+
+        CustomerPatchDTO patch = new CustomerPatchDTO();
+        patch.setName("Test Customer1");
+
+        // Act & Assert - a stale version still fails, the current one is answered without a write
+        assertThatThrownBy(() -> customerService.update(customerId, patch, created))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Customer was changed since the version in If-Match");
+
+        assertThat(customerService.update(customerId, patch, current).getName()).isEqualTo("Test Customer1");
+        assertThat(customerService.update(customerId, patch, current).getName()).isEqualTo("Test Customer1");
+        assertThat(customerService.findVersion(customerId).orElseThrow().version()).isEqualTo(current);
+    }
+
     @Test
     @DisplayName("findById - Should throw exception when customer not found")
     void findByIdCustomerNotFound() throws ServletException, IOException {
@@ -245,6 +410,54 @@ class CustomerServiceImplTest extends BaseServiceTest {
                 .containsExactly("Unique Admin 3", "Unique Admin 4");
     }
 
+    @Test
+    @DisplayName("findAll - Should skip the total when the none strategy is requested")
+    void findAll_WithNoneTotalStrategy_ShouldNotReturnTotals() throws ServletException, IOException {
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        for (int i = 1; i <= 5; i++) {
+            customerService.create(getCustomerDTO("Unique Admin " + i, TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        }
+
+        // Act
+        PagedResponse<CustomerResponseDTO> result = customerService.findAll(1, 2, "name", "asc", TotalCountStrategy.NONE, "/api/customers");
+
+        // Assert
+        assertThat(result.getData())
+                .extracting(CustomerResponseDTO::getName)
+                .containsExactly("Unique Admin 1", "Unique Admin 2");
+        assertThat(result.getTotalElements()).isNull();
+        assertThat(result.getTotalPages()).isNull();
+        assertThat(result.getTotalStrategy()).isEqualTo(TotalCountStrategy.NONE);
+        assertThat(result.isLast()).isFalse();
+        assertThat(result.getLinks()).doesNotContainKey("last");
+        assertThat(result.getLinks().get("next")).endsWith("&total=none");
+    }
+
+    @Test
+    @DisplayName("findAll - Should not count creates of a transaction that did not commit yet")
+    void findAll_WithEstimateTotalStrategy_ShouldWaitForTheCommit() throws ServletException, IOException {
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        for (int i = 1; i <= 5; i++) {
+            customerService.create(getCustomerDTO("Unique Admin " + i, TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        }
+
+        // Act - First read seeds the counter
+        PagedResponse<CustomerResponseDTO> before = customerService.findAll(1, 2, "name", "asc", TotalCountStrategy.ESTIMATE, "/api/customers");
+        customerService.create(getCustomerDTO("Unique Admin 6", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        PagedResponse<CustomerResponseDTO> after = customerService.findAll(1, 2, "name", "asc", TotalCountStrategy.ESTIMATE, "/api/customers");
+
+        // Assert
+        assertThat(before.getTotalElements()).isEqualTo(5);
+        assertThat(before.getTotalStrategy()).isEqualTo(TotalCountStrategy.ESTIMATE);
+        // The test transaction is rolled back, TotalCountEstimatorTest covers the committed case
+        assertThat(after.getTotalElements()).isEqualTo(5);
+        assertThat(after.getTotalPages()).isEqualTo(3);
+    }
+
     @Test
     @DisplayName("findAll - Should return empty page when no customers exist")
     void findAll_ShouldReturnEmptyPageWhenNoCustomers() throws ServletException, IOException {
@@ -295,6 +508,116 @@ class CustomerServiceImplTest extends BaseServiceTest {
                 .containsExactly("Z Unique Customer", "M Unique Customer", "A Unique Customer");
     }
 
+    @Test
+    @DisplayName("findAllByCursor - Should walk all customers through next cursors")
+    void findAllByCursor_ShouldWalkAllWindows() throws ServletException, IOException {
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        for (int i = 1; i <= 5; i++) {
+            customerService.create(getCustomerDTO("Unique Admin " + i, TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        }
+
+        // Act - First window starts with an empty cursor
+        PagedResponse<CustomerResponseDTO> window1 = customerService.findAllByCursor("", 2, "name", "asc", "/api/customers");
+
+        // Assert first window
+        assertThat(window1.getData())
+                .extracting(CustomerResponseDTO::getName)
+                .containsExactly("Unique Admin 1", "Unique Admin 2");
+        assertThat(window1.isLast()).isFalse();
+        assertThat(window1.getNextCursor()).isNotBlank();
+        assertThat(window1.getTotalElements()).isNull();
+        assertThat(window1.getLinks().get("next")).contains("cursor=" + window1.getNextCursor());
+
+        // Act - Follow the cursors
+        PagedResponse<CustomerResponseDTO> window2 = customerService.findAllByCursor(window1.getNextCursor(), 2, "name", "asc", "/api/customers");
+        PagedResponse<CustomerResponseDTO> window3 = customerService.findAllByCursor(window2.getNextCursor(), 2, "name", "asc", "/api/customers");
+
+        // Assert remaining windows
+        assertThat(window2.getData())
+                .extracting(CustomerResponseDTO::getName)
+                .containsExactly("Unique Admin 3", "Unique Admin 4");
+        assertThat(window3.getData())
+                .extracting(CustomerResponseDTO::getName)
+                .containsExactly("Unique Admin 5");
+        assertThat(window3.isLast()).isTrue();
+        assertThat(window3.getNextCursor()).isNull();
+        assertThat(window3.getLinks()).doesNotContainKey("next");
+    }
+
+    @Test
+    @DisplayName("findAllByCursor - Should reject a cursor issued for another sort")
+    void findAllByCursor_ShouldRejectMismatchedCursor() throws ServletException, IOException {
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        customerService.create(getCustomerDTO("Unique Admin 1", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        customerService.create(getCustomerDTO("Unique Admin 2", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+
+        String cursor = customerService.findAllByCursor("", 1, "name", "asc", "/api/customers").getNextCursor();
+
+        // Act & Assert
+        assertThatThrownBy(() -> customerService.findAllByCursor(cursor, 1, "created", "asc", "/api/customers"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> customerService.findAllByCursor("not-a-cursor", 1, "name", "asc", "/api/customers"))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    @DisplayName("findAll - Should return customer summaries without baskets by default")
+    void findAll_WithoutExpand_ShouldReturnSummaries() throws ServletException, IOException {
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Unique Admin 1", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN)).getId();
+        basketService.createBasket(customerId);
+
+        // Act
+        PagedResponse<CustomerResponseDTO> result = customerService.findAll(1, 10, "name", "asc", "/api/customers");
+
+        // Assert
+        assertThat(result.getData()).hasSize(1);
+        assertThat(result.getData().get(0).getName()).isEqualTo("Unique Admin 1");
+        assertThat(result.getData().get(0).getBaskets()).isNull();
+    }
+
+    @Test
+    @DisplayName("findAll - Should batch load expanded baskets and items with one query per level")
+    void findAll_WithExpandedItems_ShouldUseBoundedQueries() throws ServletException, IOException {
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        for (int i = 1; i <= 5; i++) {
+            String customerId = customerService.create(getCustomerDTO("Unique Admin " + i, TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN)).getId();
+            for (int j = 1; j <= 2; j++) {
+                String basketId = basketService.createBasket(customerId).getId();
+                itemService.createItem(customerId, basketId, getItemDTO("Item " + i + "-" + j, j));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        PagedResponse<CustomerResponseDTO> result = customerService.findAll(
+                1, 10, "name", "asc", TotalCountStrategy.NONE, ResponseExpansion.forCustomers("baskets.items"), "/api/customers");
+
+        // Assert - customers, baskets and items are one query each
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(result.getData()).hasSize(5);
+        assertThat(result.getData()).allSatisfy(customer -> {
+            assertThat(customer.getBaskets()).hasSize(2);
+            assertThat(customer.getBaskets()).allSatisfy(basket -> assertThat(basket.getItems()).hasSize(1));
+        });
+        assertThat(result.getData().get(0).getBaskets())
+                .flatExtracting(BasketResponseDTO::getItems)
+                .extracting(ItemResponseDTO::getDescription)
+                .containsExactlyInAnyOrder("Item 1-1", "Item 1-2");
+    }
+
     @Test
     @DisplayName("delete - Should delete customer when found")
     void deleteCustomer() throws ServletException, IOException {
@@ -319,6 +642,45 @@ class CustomerServiceImplTest extends BaseServiceTest {
         assertThat(count).isZero();
     }
 
+    @Test
+    @DisplayName("delete - Should read the basket ids and delete the customer tree with one statement each")
+    void delete_ShouldNotLoadTheCustomerTree() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Test Customer1", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN)).getId();
+        for (int i = 0; i < 3; i++) {
+            String basketId = basketService.createBasket(customerId).getId();
+            itemService.createItem(customerId, basketId, getItemDTO("Item " + i, i + 1));
+        }
+        String emptyCustomerId = customerService.create(getCustomerDTO("Test Customer2", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Another tenant gets a 404 and deletes nothing
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER2_TOKEN);
+        assertThatThrownBy(() -> customerService.delete(customerId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Customer not found");
+
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        customerService.delete(customerId);
+        customerService.delete(emptyCustomerId);
+
+        // Assert - per customer one id projection and one DELETE, the foreign keys cascade to baskets and items
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(customerRepository.findVersionForAdmin(customerId)).isEmpty();
+        assertThat(customerRepository.findVersionForAdmin(emptyCustomerId)).isEmpty();
+        assertThat(entityManager.createQuery("SELECT COUNT(b) FROM ShoppingBasket b WHERE b.customer.id = :id", Long.class)
+                .setParameter("id", customerId).getSingleResult()).isZero();
+        assertThat(entityManager.createQuery("SELECT COUNT(i) FROM Item i WHERE i.basket.customer.id = :id", Long.class)
+                .setParameter("id", customerId).getSingleResult()).isZero();
+    }
+
     @Test
     @DisplayName("delete - Should throw exception when customer not found")
     void deleteCustomerNotFound() throws ServletException, IOException {
@@ -0,0 +1,128 @@
+package com.samuel.sniffers.service.impl;
+
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+import com.samuel.sniffers.config.TokenConfig;
+import com.samuel.sniffers.dto.ExportColumns;
+import com.samuel.sniffers.dto.response.BasketResponseDTO;
+import com.samuel.sniffers.dto.response.CustomerResponseDTO;
+import com.samuel.sniffers.security.SecurityFilter;
+import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.ExportService;
+import com.samuel.sniffers.service.ItemService;
+import com.samuel.sniffers.service.ShoppingBasketService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@Transactional
+class ExportServiceImplTest extends BaseServiceTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ShoppingBasketService basketService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private SecurityFilter securityFilter;
+
+    @Autowired
+    private TokenConfig tokenConfig;
+
+    private FilterChain mockFilterChain;
+
+    @BeforeEach
+    void setUp() {
+        mockFilterChain = mock(FilterChain.class);
+
+        // Clear the RequestContextHolder after each test
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("export hierarchy - Should write one ordered line per item, basket without items and customer without baskets")
+    void testStreamHierarchyToResponse_ShouldFlattenHierarchy() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+
+        CustomerResponseDTO customer = customerService.create(getCustomerDTO("Export Customer", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN));
+        BasketResponseDTO basket = basketService.createBasket(customer.getId());
+        itemService.createItem(customer.getId(), basket.getId(), getItemDTO("Bone, large", 2));
+        itemService.createItem(customer.getId(), basket.getId(), getItemDTO("Leash", 1));
+        BasketResponseDTO emptyBasket = basketService.createBasket(customer.getId());
+        CustomerResponseDTO lonelyCustomer = customerService.create(getCustomerDTO("Lonely Customer", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportService.streamHierarchyToResponse(response.getOutputStream(),
+                ExportColumns.of("customerName,basketId,itemDescription,itemAmount", ExportColumns.HIERARCHY));
+
+        List<String> lines = response.getContentAsString().lines().toList();
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0)).isEqualTo("customerName,basketId,itemDescription,itemAmount");
+        assertThat(lines.subList(1, 5)).contains(
+                "Export Customer," + basket.getId() + ",\"Bone, large\",2",
+                "Export Customer," + basket.getId() + ",Leash,1",
+                "Export Customer," + emptyBasket.getId() + ",,",
+                "Lonely Customer,,,");
+
+        // Rows of a customer are contiguous, ordered by customer and then basket id
+        List<String> customers = lines.subList(1, 5).stream().map(line -> line.substring(0, line.indexOf(','))).toList();
+        String firstCustomer = customer.getId().compareTo(lonelyCustomer.getId()) < 0 ? "Export Customer" : "Lonely Customer";
+        assertThat(customers.get(0)).isEqualTo(firstCustomer);
+        assertThat(customers.stream().distinct()).hasSize(2);
+        assertThat(customers.indexOf("Lonely Customer")).isEqualTo(customers.lastIndexOf("Lonely Customer"));
+    }
+
+    @Test
+    @DisplayName("export hierarchy - Should only export the caller's customers for a tenant token")
+    void testStreamHierarchyToResponse_ShouldApplyOwnerToken() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+        customerService.create(getCustomerDTO("Customer One", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN));
+
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER2_TOKEN);
+        customerService.create(getCustomerDTO("Customer Two", TEST_TIMEZONE_UTC, TEST_CUSTOMER2_TOKEN));
+
+        MockHttpServletResponse tenant = new MockHttpServletResponse();
+        exportService.streamHierarchyToResponse(tenant.getOutputStream(), ExportColumns.of("customerName", ExportColumns.HIERARCHY));
+        assertThat(tenant.getContentAsString().lines()).containsExactly("customerName", "Customer Two");
+
+        // TEST_ADMIN_TOKEN is an ordinary tenant token, the configured admin token sees every tenant
+        setUpTestWithToken(securityFilter, mockFilterChain, tokenConfig.getAdminToken());
+        MockHttpServletResponse admin = new MockHttpServletResponse();
+        exportService.streamHierarchyToResponse(admin.getOutputStream(), ExportColumns.of("customerName", ExportColumns.HIERARCHY));
+        assertThat(admin.getContentAsString().lines()).contains("Customer One", "Customer Two");
+    }
+
+    @Test
+    @DisplayName("export hierarchy - Should reject unknown columns")
+    void testExportColumns_ShouldRejectUnknownColumn() {
+        assertThatThrownBy(() -> ExportColumns.of("customerName,ownerToken", ExportColumns.HIERARCHY))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(ExportColumns.of(null, List.of("itemId", "customerId")).names()).containsExactly("itemId", "customerId");
+    }
+}
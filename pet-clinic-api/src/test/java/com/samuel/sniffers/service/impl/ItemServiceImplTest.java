@@ -1,23 +1,36 @@
 package com.samuel.sniffers.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+import com.samuel.sniffers.api.exception.PreconditionFailedException;
 import com.samuel.sniffers.api.exception.ResourceNotFoundException;
 import com.samuel.sniffers.api.factory.EntityFactory;
 import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.dto.BatchItemCreateDTO;
 import com.samuel.sniffers.dto.BatchItemUpdateDTO;
 import com.samuel.sniffers.dto.CustomerDTO;
 import com.samuel.sniffers.dto.ItemDTO;
+import com.samuel.sniffers.dto.StreamResume;
 import com.samuel.sniffers.dto.UpdateItemDTO;
 import com.samuel.sniffers.dto.response.BasketResponseDTO;
+import com.samuel.sniffers.dto.response.BatchUpdateFailure;
 import com.samuel.sniffers.dto.response.CustomerResponseDTO;
 import com.samuel.sniffers.dto.response.ItemBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.ItemResponseDTO;
+import com.samuel.sniffers.repository.ItemRepository;
 import com.samuel.sniffers.security.SecurityFilter;
 import com.samuel.sniffers.security.SecurityService;
 import com.samuel.sniffers.service.CustomerService;
 import com.samuel.sniffers.service.ItemService;
 import com.samuel.sniffers.service.ShoppingBasketService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -31,7 +44,10 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -52,6 +68,9 @@ class ItemServiceImplTest extends BaseServiceTest {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private ItemRepository itemRepository;
+
     @Autowired
     private SecurityService securityService;
 
@@ -61,6 +80,9 @@ class ItemServiceImplTest extends BaseServiceTest {
     @Autowired
     private EntityFactory entityFactory;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private FilterChain mockFilterChain;
 
     @BeforeEach
@@ -183,6 +205,25 @@ class ItemServiceImplTest extends BaseServiceTest {
                 .hasMessage("Customer not found");
     }
 
+    @Test
+    @DisplayName("getItem - Should report the first missing level of the path")
+    void getItemThrowsForMissingBasketOrItem() throws ServletException, IOException {
+        // Setup context with admin token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+        String uuid = getUniqueUUID();
+
+        String customerId = customerService.create(getCustomerDTO("Test Admin", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN)).getId();
+        String basketId = basketService.createBasket(customerId).getId();
+
+        // Act & Assert
+        assertThatThrownBy(() -> itemService.getItem(customerId, uuid, uuid))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Basket not found or access denied");
+        assertThatThrownBy(() -> itemService.getItem(customerId, basketId, uuid))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Item not found or access denied");
+    }
+
     @Test
     @DisplayName("update item - Should update item successfully")
     void testUpdateItem_ShouldSucceed() throws ServletException, IOException {
@@ -207,6 +248,30 @@ class ItemServiceImplTest extends BaseServiceTest {
         assertThat(updatedItem.getDescription()).isEqualTo("Updated Test Item");
     }
 
+    @Test
+    @DisplayName("update item - Should check an expected version without incrementing it when nothing changes")
+    void testUpdateItem_WithExpectedVersionAndNoChange_ShouldKeepTheVersion() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        String customerId = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN)).getId();
+        String basketId = basketService.createBasket(customerId).getId();
+        String itemId = itemService.createItem(customerId, basketId, getItemDTO("Test Item", 10)).getId();
+        long item = itemRepository.findVersionForAdmin(customerId, basketId, itemId).orElseThrow().version();
+        long customer = customerService.findVersion(customerId).orElseThrow().version();
+
+        UpdateItemDTO updateItemDTO = new UpdateItemDTO();
+        updateItemDTO.setAmount(10);
+
+        // Act & Assert - a stale version still fails, the current one is answered without a write
+        assertThatThrownBy(() -> itemService.updateItem(customerId, basketId, itemId, updateItemDTO, item + 1))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Item was changed since the version in If-Match");
+
+        assertThat(itemService.updateItem(customerId, basketId, itemId, updateItemDTO, item).getAmount()).isEqualTo(10);
+        assertThat(itemRepository.findVersionForAdmin(customerId, basketId, itemId).orElseThrow().version()).isEqualTo(item);
+        assertThat(customerService.findVersion(customerId).orElseThrow().version()).isEqualTo(customer);
+    }
+
     @Test
     @DisplayName("batch update items - Should update items successfully")
     void testBatchUpdateItems_ShouldSucceed() throws ServletException, IOException {
@@ -249,6 +314,79 @@ class ItemServiceImplTest extends BaseServiceTest {
         assertThat(batchResponse.getFailedUpdatesCount()).isEqualTo(2);
     }
 
+    @Test
+    @DisplayName("create items in batch - Should insert valid rows in batches and report invalid rows by index")
+    void testCreateItems_ShouldBatchInsertsAndReportFailures() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = basketService.createBasket(customerResponse.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        BatchItemCreateDTO batchCreateDTO = new BatchItemCreateDTO();
+        batchCreateDTO.setItems(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            batchCreateDTO.getItems().add(getItemDTO("Item " + i, i + 1));
+        }
+        batchCreateDTO.getItems().add(3, getItemDTO("Invalid amount", 0));
+        batchCreateDTO.getItems().add(7, getItemDTO("X", 1));
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ItemBatchUpdateResponseDTO batchResponse = itemService.createItems(customerResponse.getId(), basketResponse.getId(), batchCreateDTO);
+
+        // Ownership lookup plus one prepared INSERT executed as a batch, not one statement per row,
+        // then the version increments of the basket and the customer
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(batchResponse.getSuccessfulUpdatesCount()).isEqualTo(50);
+        assertThat(batchResponse.getFailedUpdatesCount()).isEqualTo(2);
+        assertThat(batchResponse.getFailedUpdates())
+                .extracting(BatchUpdateFailure::getId)
+                .containsExactly("3", "7");
+        assertThat(itemService.findAll(customerResponse.getId(), basketResponse.getId(), 1, 10, "id", "asc", "baseUrl").getTotalElements())
+                .isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("create items in batch - Should insert nothing when every row is invalid")
+    void testCreateItems_WithOnlyInvalidRows_ShouldCreateNothing() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = basketService.createBasket(customerResponse.getId());
+        long basketVersion = basketService.findBasketVersion(customerResponse.getId(), basketResponse.getId()).orElseThrow().version();
+
+        BatchItemCreateDTO batchCreateDTO = new BatchItemCreateDTO();
+        batchCreateDTO.setItems(List.of(getItemDTO("Invalid amount", 0), getItemDTO("X", 1)));
+
+        ItemBatchUpdateResponseDTO batchResponse = itemService.createItems(customerResponse.getId(), basketResponse.getId(), batchCreateDTO);
+
+        // The controller answers 400 for a report without successful rows
+        assertThat(batchResponse.getSuccessfulUpdatesCount()).isNull();
+        assertThat(batchResponse.getSuccessfulUpdates()).isEmpty();
+        assertThat(batchResponse.getFailedUpdatesCount()).isEqualTo(2);
+        assertThat(itemService.findAll(customerResponse.getId(), basketResponse.getId(), 1, 10, "id", "asc", "baseUrl").getTotalElements())
+                .isZero();
+        assertThat(basketService.findBasketVersion(customerResponse.getId(), basketResponse.getId()).orElseThrow().version())
+                .isEqualTo(basketVersion);
+    }
+
+    @Test
+    @DisplayName("create items in batch - Should throw exception when the basket is not owned")
+    void testCreateItems_WithUnknownBasket_ShouldThrow() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+
+        BatchItemCreateDTO batchCreateDTO = new BatchItemCreateDTO();
+        batchCreateDTO.setItems(List.of(getItemDTO("Item", 1)));
+
+        assertThatThrownBy(() -> itemService.createItems(customerResponse.getId(), getUniqueUUID(), batchCreateDTO))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
     @Test
     @DisplayName("find all items - Should return paged items for basket")
     void testFindAll_ShouldReturnPagedItems() throws ServletException, IOException {
@@ -302,6 +440,156 @@ class ItemServiceImplTest extends BaseServiceTest {
                 .contains("\"description\":\"Item 2\"");
     }
 
+    @Test
+    @DisplayName("stream all items - Should write rows exactly like the serialized item response")
+    void testStreamAllToResponse_ShouldMatchResponseSerialization() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = basketService.createBasket(customerResponse.getId());
+        ItemResponseDTO itemResponse = itemService.createItem(customerResponse.getId(), basketResponse.getId(), getItemDTO("Item \"quoted\"", 10));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        itemService.streamAllToResponse(response.getOutputStream(), customerResponse.getId(), basketResponse.getId());
+
+        assertThat(response.getContentAsString())
+                .isEqualTo(entityFactory.getObjectMapperForStreaming().writeValueAsString(itemResponse) + "\n");
+    }
+
+    @Test
+    @DisplayName("stream all items - Should write id ordered rows with checkpoints and resume after a checkpoint")
+    void testStreamAllToResponse_ShouldResumeAfterCheckpoint() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = basketService.createBasket(customerResponse.getId());
+        for (int i = 0; i < 5; i++) {
+            itemService.createItem(customerResponse.getId(), basketResponse.getId(), getItemDTO("Item " + i, i + 1));
+        }
+
+        MockHttpServletResponse full = new MockHttpServletResponse();
+        itemService.streamAllToResponse(full.getOutputStream(), customerResponse.getId(), basketResponse.getId(), StreamResume.of(null, 2));
+
+        List<String> lines = full.getContentAsString().lines().toList();
+        List<String> rows = lines.stream().filter(line -> !line.startsWith("{\"checkpoint\"")).toList();
+        List<String> ids = new ArrayList<>();
+        for (String row : rows) {
+            ids.add(entityFactory.getObjectMapperForStreaming().readTree(row).get("id").asText());
+        }
+
+        assertThat(ids).hasSize(5).isSorted();
+        assertThat(lines).hasSize(7);
+        assertThat(lines.get(2)).isEqualTo("{\"checkpoint\":\"" + ids.get(1) + "\"}");
+        assertThat(lines.get(5)).isEqualTo("{\"checkpoint\":\"" + ids.get(3) + "\"}");
+
+        MockHttpServletResponse resumed = new MockHttpServletResponse();
+        itemService.streamAllToResponse(resumed.getOutputStream(), customerResponse.getId(), basketResponse.getId(), StreamResume.of(ids.get(1), null));
+
+        assertThat(resumed.getContentAsString().lines().toList()).isEqualTo(rows.subList(2, 5));
+        assertThatThrownBy(() -> StreamResume.of("not-a-cursor", null))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    @DisplayName("stream all items - Should write the same records as length-prefixed Smile")
+    void testStreamAllToResponse_ShouldWriteSmileRecords() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = basketService.createBasket(customerResponse.getId());
+        for (int i = 0; i < 3; i++) {
+            itemService.createItem(customerResponse.getId(), basketResponse.getId(), getItemDTO("Item " + i, i + 1));
+        }
+
+        MockHttpServletResponse json = new MockHttpServletResponse();
+        itemService.streamAllToResponse(json.getOutputStream(), customerResponse.getId(), basketResponse.getId());
+        MockHttpServletResponse smile = new MockHttpServletResponse();
+        itemService.streamAllToResponse(smile.getOutputStream(), customerResponse.getId(), basketResponse.getId(), StreamResume.NONE, StreamFormat.SMILE);
+
+        ObjectMapper jsonMapper = entityFactory.getObjectMapperForStreaming();
+        ObjectMapper smileMapper = StreamFormat.SMILE.mapper(jsonMapper);
+        List<ItemResponseDTO> expected = new ArrayList<>();
+        for (String line : json.getContentAsString().lines().toList()) {
+            expected.add(jsonMapper.readValue(line, ItemResponseDTO.class));
+        }
+
+        List<ItemResponseDTO> records = new ArrayList<>();
+        ByteBuffer frames = ByteBuffer.wrap(smile.getContentAsByteArray());
+        while (frames.hasRemaining()) {
+            int length = frames.getInt();
+            records.add(smileMapper.readValue(frames.array(), frames.position(), length, ItemResponseDTO.class));
+            frames.position(frames.position() + length);
+        }
+
+        assertThat(records).hasSize(3).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+        assertThat(smile.getContentAsByteArray().length).isLessThan(json.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("stream all items - Should keep the persistence context and heap flat over 1M rows")
+    void testStreamAllToResponse_ShouldStayFlatInMemory() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Streaming Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = basketService.createBasket(customerResponse.getId());
+        entityManager.flush();
+
+        final int rows = 1_000_000;
+        entityManager.createNativeQuery("""
+                INSERT INTO items (id, description, amount, basket_id, created)
+                SELECT CAST(RANDOM_UUID() AS BINARY(16)), CONCAT('Item ', x), 1,
+                       (SELECT b.id FROM shopping_baskets b JOIN customers c ON c.id = b.customer_id WHERE c.name = 'Streaming Customer'),
+                       CURRENT_TIMESTAMP
+                FROM SYSTEM_RANGE(1, ?)
+                """)
+                .setParameter(1, rows)
+                .executeUpdate();
+        entityManager.clear();
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        long heapBefore = usedHeapAfterGc();
+
+        // Samples the persistence context on every flush of the stream
+        final int[] maxManagedEntities = {0};
+        final long[] lines = {0};
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    lines[0]++;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                for (int i = off; i < off + len; i++) {
+                    write(b[i]);
+                }
+            }
+
+            @Override
+            public void flush() {
+                maxManagedEntities[0] = Math.max(maxManagedEntities[0], session.getPersistenceContextInternal().getNumberOfManagedEntities());
+            }
+        };
+
+        itemService.streamAllToResponse(sink, customerResponse.getId(), basketResponse.getId());
+
+        // Still inside the transaction: without clearing, every streamed item would still be referenced here
+        long heapGrowth = usedHeapAfterGc() - heapBefore;
+
+        assertThat(lines[0]).isEqualTo(rows);
+        assertThat(maxManagedEntities[0]).isLessThanOrEqualTo(1_000 + 10);
+        assertThat(session.getPersistenceContextInternal().getNumberOfManagedEntities()).isLessThanOrEqualTo(1_000 + 10);
+        assertThat(heapGrowth).isLessThan(64L * 1024 * 1024);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
     private CustomerResponseDTO createCustomer () {
         CustomerDTO customerDTO = getCustomerDTO("Test Admin", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN);
 
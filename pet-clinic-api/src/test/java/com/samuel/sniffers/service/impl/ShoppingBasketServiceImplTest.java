@@ -7,6 +7,7 @@ import com.samuel.sniffers.dto.BatchBasketUpdateDTO;
 import com.samuel.sniffers.dto.UpdateBasketDTO;
 import com.samuel.sniffers.dto.response.BasketBatchUpdateResponseDTO;
 import com.samuel.sniffers.dto.response.BasketResponseDTO;
+import com.samuel.sniffers.dto.response.BatchUpdateFailure;
 import com.samuel.sniffers.dto.response.CustomerResponseDTO;
 import com.samuel.sniffers.entity.Customer;
 import com.samuel.sniffers.entity.ShoppingBasket;
@@ -16,8 +17,15 @@ import com.samuel.sniffers.repository.ShoppingBasketRepository;
 import com.samuel.sniffers.security.SecurityFilter;
 import com.samuel.sniffers.security.SecurityService;
 import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.events.BasketStatusChange;
+import com.samuel.sniffers.service.mapper.ResponseMapper;
+import com.samuel.sniffers.service.version.Versioned;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -26,21 +34,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 
 @SpringBootTest
 @ExtendWith(SpringExtension.class)
 @Transactional // Resets the database to its state before the test
 @ActiveProfiles("test")
+@RecordApplicationEvents
 class ShoppingBasketServiceImplTest extends BaseServiceTest {
 
     @Autowired
@@ -61,12 +74,21 @@ class ShoppingBasketServiceImplTest extends BaseServiceTest {
     @Autowired
     private ShoppingBasketServiceImpl shoppingBasketService;
 
+    @Autowired
+    private ResponseMapper responseMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private Customer customer;
     private ShoppingBasket basket;
 
     @Autowired
     private SecurityFilter securityFilter;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     private FilterChain mockFilterChain;
 
     @BeforeEach
@@ -141,6 +163,40 @@ class ShoppingBasketServiceImplTest extends BaseServiceTest {
         assertThat(getBasketResponseDTO.getStatus()).isEqualTo(BasketStatus.NEW);
     }
 
+    @Test
+    @DisplayName("get basket - Should read the owner token with the access path instead of fetching the customer")
+    void testGetBasket_ShouldNotFetchTheCustomer() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+        CustomerResponseDTO customer = customerService.create(getCustomerDTO("Test Admin", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        String basketId = shoppingBasketService.createBasket(customer.getId()).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        shoppingBasketService.getBasket(customer.getId(), basketId);
+
+        // The access path with the owner token, then the items the conversion reads
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityFetchCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("get basket - Should return the version of the basket it rendered")
+    void testGetVersionedBasket_ShouldReturnTheRenderedVersion() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+        CustomerResponseDTO customer = customerService.create(getCustomerDTO("Test Admin", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        String basketId = shoppingBasketService.createBasket(customer.getId()).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        Versioned<BasketResponseDTO> result = shoppingBasketService.getVersionedBasket(customer.getId(), basketId);
+
+        assertThat(result.value().getId()).isEqualTo(basketId);
+        assertThat(result.version()).isEqualTo(shoppingBasketService.findBasketVersion(customer.getId(), basketId).orElseThrow());
+    }
+
     @Test
     @DisplayName("get basket - Should return 404 exception when customer with Id not found for Get Basket")
     void testGetBasketInvalidCustomerId_ShouldReturnNotFound() throws ServletException, IOException {
@@ -338,6 +394,22 @@ class ShoppingBasketServiceImplTest extends BaseServiceTest {
                 .contains("\"id\":\"" + basketResponseDTO2.getId() + "\"");
     }
 
+    @Test
+    @DisplayName("stream all baskets - Should write rows exactly like the serialized basket summary")
+    void testStreamAllToResponse_ShouldMatchSummarySerialization() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = shoppingBasketService.createBasket(customerResponse.getId());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        shoppingBasketService.streamAllToResponse(response.getOutputStream(), customerResponse.getId());
+
+        ShoppingBasket basket = basketRepository.findById(basketResponse.getId()).orElseThrow();
+        assertThat(response.getContentAsString())
+                .isEqualTo(entityFactory.getObjectMapperForStreaming().writeValueAsString(responseMapper.toBasketSummary(basket)) + "\n");
+    }
+
     @Test
     @DisplayName("stream all baskets - Should return empty basket")
     void testStreamAllToResponse_ShouldSucceed() throws ServletException, IOException {
@@ -408,6 +480,75 @@ class ShoppingBasketServiceImplTest extends BaseServiceTest {
                 .containsExactlyInAnyOrder(BasketStatus.PAID, BasketStatus.PROCESSED);
     }
 
+    @Test
+    @DisplayName("update basket - Should publish a status change for every updated basket")
+    void testUpdateBasket_ShouldPublishStatusChanges() throws ServletException, IOException {
+        // Setup context with a tenant token
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basket1Response = shoppingBasketService.createBasket(customerResponse.getId());
+        BasketResponseDTO basket2Response = shoppingBasketService.createBasket(customerResponse.getId());
+
+        UpdateBasketDTO updateBasketDTO = new UpdateBasketDTO();
+        updateBasketDTO.setStatus(BasketStatus.PAID);
+        shoppingBasketService.updateBasket(customerResponse.getId(), basket1Response.getId(), updateBasketDTO);
+
+        BatchBasketUpdateDTO batchUpdateDTO = new BatchBasketUpdateDTO();
+        batchUpdateDTO.setUpdates(new ArrayList<>());
+        BatchBasketUpdateDTO.BasketPatchDTO basketPatchDTO = new BatchBasketUpdateDTO.BasketPatchDTO();
+        basketPatchDTO.setStatus(BasketStatus.PAID);
+        basketPatchDTO.setBasketId(basket2Response.getId());
+        batchUpdateDTO.getUpdates().add(basketPatchDTO);
+        BatchBasketUpdateDTO.BasketPatchDTO failingPatchDTO = new BatchBasketUpdateDTO.BasketPatchDTO();
+        failingPatchDTO.setStatus(BasketStatus.PROCESSED);
+        failingPatchDTO.setBasketId(getUniqueUUID());
+        batchUpdateDTO.getUpdates().add(failingPatchDTO);
+
+        shoppingBasketService.batchUpdateBasket(customerResponse.getId(), batchUpdateDTO);
+
+        // Failed updates publish nothing, the owner token is kept for the feed's access check
+        assertThat(applicationEvents.stream(BasketStatusChange.class))
+                .extracting(BasketStatusChange::basketId, BasketStatusChange::previousStatus, BasketStatusChange::status, BasketStatusChange::ownerToken)
+                .containsExactly(
+                        tuple(basket1Response.getId(), BasketStatus.NEW, BasketStatus.PAID, TEST_ADMIN_TOKEN),
+                        tuple(basket2Response.getId(), BasketStatus.NEW, BasketStatus.PAID, TEST_ADMIN_TOKEN));
+    }
+
+    @Test
+    @DisplayName("batch update basket - Should report a basket listed twice once and publish each step")
+    void testBatchUpdateBasket_WithDuplicatedBasketId_ShouldReportOneRowAndEveryStep() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        BasketResponseDTO basketResponse = shoppingBasketService.createBasket(customerResponse.getId());
+
+        BatchBasketUpdateDTO batchUpdateDTO = new BatchBasketUpdateDTO();
+        batchUpdateDTO.setUpdates(new ArrayList<>(List.of(
+                getBasketPatchDTO(basketResponse.getId(), BasketStatus.PAID),
+                getBasketPatchDTO(basketResponse.getId(), BasketStatus.PROCESSED))));
+
+        BasketBatchUpdateResponseDTO batchResponse = shoppingBasketService.batchUpdateBasket(customerResponse.getId(), batchUpdateDTO);
+
+        // One response row, so the PROCESSED metric is counted once as well
+        assertThat(batchResponse.getSuccessfulUpdatesCount()).isEqualTo(1);
+        assertThat(batchResponse.getFailedUpdatesCount()).isNull();
+        assertThat(batchResponse.getSuccessfulUpdates())
+                .extracting(BasketResponseDTO::getId, BasketResponseDTO::getStatus)
+                .containsExactly(tuple(basketResponse.getId(), BasketStatus.PROCESSED));
+        assertThat(applicationEvents.stream(BasketStatusChange.class))
+                .extracting(BasketStatusChange::basketId, BasketStatusChange::previousStatus, BasketStatusChange::status)
+                .containsExactly(
+                        tuple(basketResponse.getId(), BasketStatus.NEW, BasketStatus.PAID),
+                        tuple(basketResponse.getId(), BasketStatus.PAID, BasketStatus.PROCESSED));
+
+        entityManager.clear();
+        assertThat(basketRepository.findById(basketResponse.getId()))
+                .get()
+                .extracting(ShoppingBasket::getStatus)
+                .isEqualTo(BasketStatus.PROCESSED);
+    }
+
     @Test
     @DisplayName("batch update basket - Should batch update success and fail batch")
     void testBatchUpdateBasket_PartialSucceed() throws ServletException, IOException {
@@ -440,5 +581,59 @@ class ShoppingBasketServiceImplTest extends BaseServiceTest {
                 .extracting(BasketResponseDTO::getStatus)
                 .containsExactlyInAnyOrder(BasketStatus.PAID);
     }
-}
 
+    @Test
+    @DisplayName("batch update basket - Should move baskets with one conditional update per status transition")
+    void testBatchUpdateBasket_ShouldUpdateBySetBasedStatements() throws ServletException, IOException {
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        CustomerResponseDTO customerResponse = customerService.create(getCustomerDTO("Test Customer", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        List<String> basketIds = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            basketIds.add(shoppingBasketService.createBasket(customerResponse.getId()).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        BatchBasketUpdateDTO batchUpdateDTO = new BatchBasketUpdateDTO();
+        batchUpdateDTO.setUpdates(new ArrayList<>());
+        basketIds.forEach(basketId -> batchUpdateDTO.getUpdates().add(getBasketPatchDTO(basketId, BasketStatus.PAID)));
+        // The first ten move twice, the next one asks for a transition that is not allowed after PAID
+        basketIds.subList(0, 10).forEach(basketId -> batchUpdateDTO.getUpdates().add(getBasketPatchDTO(basketId, BasketStatus.PROCESSED)));
+        batchUpdateDTO.getUpdates().add(getBasketPatchDTO(basketIds.get(10), BasketStatus.NEW));
+        batchUpdateDTO.getUpdates().add(getBasketPatchDTO(getUniqueUUID(), BasketStatus.PAID));
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BasketBatchUpdateResponseDTO batchResponse = shoppingBasketService.batchUpdateBasket(customerResponse.getId(), batchUpdateDTO);
+
+        // Customer check, one status read and one UPDATE per (from -> to) group, independent of the batch size,
+        // then the version increment of the customer
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(5);
+        // The admin path reads the owner token alone, the customer is never loaded
+        assertThat(statistics.getEntityStatistics(Customer.class.getName()).getLoadCount()).isZero();
+        // One row per basket, the ten that moved twice are reported once with their final status
+        assertThat(batchResponse.getSuccessfulUpdatesCount()).isEqualTo(40);
+        assertThat(batchResponse.getFailedUpdatesCount()).isEqualTo(2);
+        assertThat(batchResponse.getFailedUpdates())
+                .extracting(BatchUpdateFailure::getError)
+                .containsExactly(
+                        "Failed to update basket: Invalid status transition from PAID to NEW",
+                        "Basket not found or access denied");
+
+        entityManager.clear();
+        assertThat(basketRepository.findAllById(basketIds))
+                .extracting(ShoppingBasket::getStatus)
+                .containsOnly(BasketStatus.PAID, BasketStatus.PROCESSED)
+                .filteredOn(status -> status == BasketStatus.PROCESSED)
+                .hasSize(10);
+    }
+
+    private BatchBasketUpdateDTO.BasketPatchDTO getBasketPatchDTO(String basketId, BasketStatus status) {
+        BatchBasketUpdateDTO.BasketPatchDTO basketPatchDTO = new BatchBasketUpdateDTO.BasketPatchDTO();
+        basketPatchDTO.setBasketId(basketId);
+        basketPatchDTO.setStatus(status);
+        return basketPatchDTO;
+    }
+}
@@ -0,0 +1,133 @@
+package com.samuel.sniffers.service.streaming;
+
+import com.samuel.sniffers.api.exception.StreamRejectedException;
+import com.samuel.sniffers.api.response.ApiResponse;
+import com.samuel.sniffers.config.StreamingConfig;
+import com.samuel.sniffers.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamAdmissionTest {
+
+    private final StreamingResponseBody body = outputStream -> outputStream.write('x');
+
+    private SimpleMeterRegistry meterRegistry;
+    private StreamAdmission admission;
+
+    @BeforeEach
+    void setUp() {
+        StreamingConfig config = new StreamingConfig();
+        config.getExecutor().setMaxConcurrent(1);
+        config.getExecutor().setMaxQueued(1);
+        config.getExecutor().setRetryAfter(Duration.ofSeconds(7));
+
+        meterRegistry = new SimpleMeterRegistry();
+        admission = new StreamAdmission(config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void admit_ShouldRejectOnceRunningAndQueuedStreamsReachTheLimit() {
+        admission.admit(body);
+        admission.admit(body);
+
+        assertThatThrownBy(() -> admission.admit(body))
+                .isInstanceOf(StreamRejectedException.class)
+                .satisfies(ex -> assertThat(((StreamRejectedException) ex).getRetryAfter()).hasSeconds(7));
+
+        assertThat(meterRegistry.get("petshop.streams.queued").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("petshop.streams.active").gauge().value()).isZero();
+        assertThat(meterRegistry.get("petshop.streams.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void admit_ShouldReleaseThePermitWhenTheStreamEnds() throws IOException {
+        StreamingResponseBody first = admission.admit(body);
+        admission.admit(body);
+
+        first.writeTo(new ByteArrayOutputStream());
+
+        admission.admit(body);
+        assertThat(meterRegistry.get("petshop.streams.queued").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void admit_ShouldReleaseThePermitWhenTheStreamFails() {
+        StreamingResponseBody failing = admission.admit(outputStream -> {
+            throw new IOException("Broken pipe");
+        });
+        admission.admit(body);
+
+        assertThatThrownBy(() -> failing.writeTo(new ByteArrayOutputStream())).isInstanceOf(IOException.class);
+
+        admission.admit(body);
+        assertThat(meterRegistry.get("petshop.streams.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    void admit_ShouldReleaseThePermitWhenAQueuedStreamIsCancelled() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        StreamingResponseBody cancelled = admission.admit(body);
+        RequestContextHolder.resetRequestAttributes();
+        admission.admit(body);
+
+        // The async request timed out before a streaming thread picked the stream up
+        admission.afterCompletion(new ServletWebRequest(request), () -> null);
+        admission.afterCompletion(new ServletWebRequest(request), () -> null);
+
+        assertThat(meterRegistry.get("petshop.streams.queued").gauge().value()).isEqualTo(1);
+        admission.admit(body);
+        assertThat(meterRegistry.get("petshop.streams.rejected").counter().count()).isZero();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        cancelled.writeTo(outputStream);
+        assertThat(outputStream.size()).isZero();
+        assertThat(meterRegistry.get("petshop.streams.queued").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void afterCompletion_ShouldNotReleaseTheSamePermitTwiceWhenTheStreamRan() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        StreamingResponseBody finished = admission.admit(body);
+        RequestContextHolder.resetRequestAttributes();
+
+        finished.writeTo(new ByteArrayOutputStream());
+        admission.afterCompletion(new ServletWebRequest(request), () -> null);
+
+        admission.admit(body);
+        admission.admit(body);
+        assertThatThrownBy(() -> admission.admit(body)).isInstanceOf(StreamRejectedException.class);
+    }
+
+    @Test
+    void handler_ShouldAnswerRejectedStreamsWith503AndRetryAfter() {
+        ResponseEntity<ApiResponse<String>> response = new GlobalExceptionHandler()
+                .handleStreamRejected(new StreamRejectedException("Too many concurrent streams", Duration.ofSeconds(7)));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+    }
+}
@@ -0,0 +1,214 @@
+package com.samuel.sniffers.service.version;
+
+import com.samuel.sniffers.dto.BatchBasketUpdateDTO;
+import com.samuel.sniffers.dto.BatchItemCreateDTO;
+import com.samuel.sniffers.dto.BatchItemUpdateDTO;
+import com.samuel.sniffers.dto.CustomerBatchUpdateDTO;
+import com.samuel.sniffers.dto.CustomerPatchDTO;
+import com.samuel.sniffers.dto.UpdateBasketDTO;
+import com.samuel.sniffers.dto.UpdateItemDTO;
+import com.samuel.sniffers.enums.BasketStatus;
+import com.samuel.sniffers.repository.CustomerRepository;
+import com.samuel.sniffers.repository.ItemRepository;
+import com.samuel.sniffers.repository.ShoppingBasketRepository;
+import com.samuel.sniffers.security.SecurityFilter;
+import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.ItemService;
+import com.samuel.sniffers.service.ShoppingBasketService;
+import com.samuel.sniffers.service.impl.BaseServiceTest;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The version columns are not mapped with @Version, every write path increments them itself. Each mutating
+ * service method is checked here to move the version of what it changed and of every parent rendering it.
+ */
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@Transactional
+@ActiveProfiles("test")
+class EntityVersionsTest extends BaseServiceTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ShoppingBasketService basketService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ShoppingBasketRepository basketRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private SecurityFilter securityFilter;
+
+    private String customerId;
+    private String basketId;
+    private String itemId;
+
+    @BeforeEach
+    void setUp() throws ServletException, IOException {
+        RequestContextHolder.resetRequestAttributes();
+        FilterChain mockFilterChain = mock(FilterChain.class);
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_ADMIN_TOKEN);
+
+        customerId = customerService.create(getCustomerDTO("Test Admin", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN)).getId();
+        basketId = basketService.createBasket(customerId).getId();
+        itemId = itemService.createItem(customerId, basketId, getItemDTO("Item 1", 1)).getId();
+    }
+
+    @Test
+    @DisplayName("create - Should move the versions of the parents of a new basket or item")
+    void create_ShouldMoveTheParents() {
+        long customer = customerVersion();
+        long basket = basketVersion();
+
+        String otherBasketId = basketService.createBasket(customerId).getId();
+        assertThat(customerVersion()).isEqualTo(customer + 1);
+
+        itemService.createItem(customerId, otherBasketId, getItemDTO("Item 2", 2));
+        assertThat(customerVersion()).isEqualTo(customer + 2);
+
+        itemService.createItem(customerId, basketId, getItemDTO("Item 3", 3));
+        assertThat(basketVersion()).isEqualTo(basket + 1);
+        assertThat(customerVersion()).isEqualTo(customer + 3);
+    }
+
+    @Test
+    @DisplayName("update - Should move the version of a single changed row and its parents")
+    void singleUpdates_ShouldMoveTheRowAndItsParents() {
+        long customer = customerVersion();
+        long basket = basketVersion();
+        long item = itemVersion();
+
+        customerService.update(customerId, getCustomerDTO("Renamed", TEST_TIMEZONE_UTC, TEST_ADMIN_TOKEN));
+        assertThat(customerVersion()).isEqualTo(customer + 1);
+
+        CustomerPatchDTO customerPatch = new CustomerPatchDTO();
+        customerPatch.setTimezone(TEST_TIMEZONE_GMT);
+        customerService.update(customerId, customerPatch);
+        assertThat(customerVersion()).isEqualTo(customer + 2);
+
+        itemService.updateItem(customerId, basketId, itemId, getItemDTO("Item 1", 5));
+        assertThat(itemVersion()).isEqualTo(item + 1);
+        assertThat(basketVersion()).isEqualTo(basket + 1);
+        assertThat(customerVersion()).isEqualTo(customer + 3);
+
+        UpdateItemDTO itemPatch = new UpdateItemDTO();
+        itemPatch.setDescription("Renamed Item 1");
+        itemService.updateItem(customerId, basketId, itemId, itemPatch);
+        assertThat(itemVersion()).isEqualTo(item + 2);
+        assertThat(basketVersion()).isEqualTo(basket + 2);
+        assertThat(customerVersion()).isEqualTo(customer + 4);
+    }
+
+    @Test
+    @DisplayName("batch - Should move the versions of every changed row and their parents")
+    void batchUpdates_ShouldMoveTheRowsAndTheirParents() {
+        long customer = customerVersion();
+        long basket = basketVersion();
+        long item = itemVersion();
+
+        CustomerBatchUpdateDTO.CustomerBatchPatchDTO customerPatch = new CustomerBatchUpdateDTO.CustomerBatchPatchDTO();
+        customerPatch.setId(customerId);
+        customerPatch.setName("Renamed");
+        CustomerBatchUpdateDTO customers = new CustomerBatchUpdateDTO();
+        customers.setUpdates(List.of(customerPatch));
+        customerService.batchUpdate(customers);
+        assertThat(customerVersion()).isEqualTo(customer + 1);
+
+        BatchItemUpdateDTO.ItemPatchDTO itemPatch = new BatchItemUpdateDTO.ItemPatchDTO();
+        itemPatch.setItemId(itemId);
+        itemPatch.setAmount(7);
+        BatchItemUpdateDTO items = new BatchItemUpdateDTO();
+        items.setUpdates(List.of(itemPatch));
+        BatchItemCreateDTO newItems = new BatchItemCreateDTO();
+        newItems.setItems(List.of(getItemDTO("Item 2", 2), getItemDTO("Item 3", 3)));
+        itemService.createItems(customerId, basketId, newItems);
+        assertThat(basketVersion()).isEqualTo(basket + 1);
+        assertThat(customerVersion()).isEqualTo(customer + 2);
+
+        // Batch item patches are reported as failed rows (see ItemServiceImplTest), nothing changes and nothing moves
+        assertThat(itemService.batchUpdateItems(customerId, basketId, items).getFailedUpdatesCount()).isEqualTo(1);
+        assertThat(itemVersion()).isEqualTo(item);
+        assertThat(basketVersion()).isEqualTo(basket + 1);
+        assertThat(customerVersion()).isEqualTo(customer + 2);
+    }
+
+    @Test
+    @DisplayName("status - Should move the versions of a basket changing status and of its customer")
+    void statusUpdates_ShouldMoveTheBasketAndItsCustomer() {
+        long customer = customerVersion();
+        long basket = basketVersion();
+
+        UpdateBasketDTO update = new UpdateBasketDTO();
+        update.setStatus(BasketStatus.PAID);
+        basketService.updateBasket(customerId, basketId, update);
+        assertThat(basketVersion()).isEqualTo(basket + 1);
+        assertThat(customerVersion()).isEqualTo(customer + 1);
+
+        BatchBasketUpdateDTO.BasketPatchDTO patch = new BatchBasketUpdateDTO.BasketPatchDTO();
+        patch.setBasketId(basketId);
+        patch.setStatus(BasketStatus.PROCESSED);
+        BatchBasketUpdateDTO batch = new BatchBasketUpdateDTO();
+        batch.setUpdates(List.of(patch));
+        basketService.batchUpdateBasket(customerId, batch);
+        assertThat(basketVersion()).isEqualTo(basket + 2);
+        assertThat(customerVersion()).isEqualTo(customer + 2);
+    }
+
+    @Test
+    @DisplayName("delete - Should move the versions of the parents of a deleted item or basket")
+    void deletes_ShouldMoveTheParents() {
+        long customer = customerVersion();
+        long basket = basketVersion();
+
+        itemService.deleteItem(customerId, basketId, itemId);
+        assertThat(itemRepository.findVersionForAdmin(customerId, basketId, itemId)).isEmpty();
+        assertThat(basketVersion()).isEqualTo(basket + 1);
+        assertThat(customerVersion()).isEqualTo(customer + 1);
+
+        basketService.deleteBasket(customerId, basketId);
+        assertThat(basketRepository.findVersionForAdmin(customerId, basketId)).isEmpty();
+        assertThat(customerVersion()).isEqualTo(customer + 2);
+
+        customerService.delete(customerId);
+        assertThat(customerRepository.findVersionForAdmin(customerId)).isEmpty();
+    }
+
+    private long customerVersion() {
+        return customerRepository.findVersionForAdmin(customerId).orElseThrow().version();
+    }
+
+    private long basketVersion() {
+        return basketRepository.findVersionForAdmin(customerId, basketId).orElseThrow().version();
+    }
+
+    private long itemVersion() {
+        return itemRepository.findVersionForAdmin(customerId, basketId, itemId).orElseThrow().version();
+    }
+}
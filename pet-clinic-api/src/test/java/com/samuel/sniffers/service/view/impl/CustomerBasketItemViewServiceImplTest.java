@@ -0,0 +1,155 @@
+package com.samuel.sniffers.service.view.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+import com.samuel.sniffers.api.factory.EntityFactory;
+import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.config.ViewConfig;
+import com.samuel.sniffers.dto.response.BasketResponseDTO;
+import com.samuel.sniffers.dto.response.CustomerResponseDTO;
+import com.samuel.sniffers.dto.response.view.CustomerBasketItemViewDTO;
+import com.samuel.sniffers.security.SecurityFilter;
+import com.samuel.sniffers.service.CustomerService;
+import com.samuel.sniffers.service.ItemService;
+import com.samuel.sniffers.service.ShoppingBasketService;
+import com.samuel.sniffers.service.impl.BaseServiceTest;
+import com.samuel.sniffers.service.view.CustomerBasketItemViewService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@Transactional
+class CustomerBasketItemViewServiceImplTest extends BaseServiceTest {
+
+    private static final String BASE_URL = "http://localhost/api/v1/view/customer-basket-items/page";
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ShoppingBasketService basketService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private CustomerBasketItemViewService viewService;
+
+    @Autowired
+    private SecurityFilter securityFilter;
+
+    @Autowired
+    private ViewConfig viewConfig;
+
+    @Autowired
+    private EntityFactory entityFactory;
+
+    private FilterChain mockFilterChain;
+    private int maxListRows;
+
+    @BeforeEach
+    void setUp() throws ServletException, IOException {
+        mockFilterChain = mock(FilterChain.class);
+        maxListRows = viewConfig.getMaxListRows();
+
+        // Clear the RequestContextHolder after each test
+        RequestContextHolder.resetRequestAttributes();
+        setUpTestWithToken(securityFilter, mockFilterChain, TEST_CUSTOMER1_TOKEN);
+
+        // One customer with a basket of three items and an empty basket, one customer without baskets: 5 rows
+        CustomerResponseDTO customer = customerService.create(getCustomerDTO("View Customer", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN));
+        BasketResponseDTO basket = basketService.createBasket(customer.getId());
+        for (int i = 0; i < 3; i++) {
+            itemService.createItem(customer.getId(), basket.getId(), getItemDTO("Item " + i, i + 1));
+        }
+        basketService.createBasket(customer.getId());
+        customerService.create(getCustomerDTO("Other Customer", TEST_TIMEZONE_UTC, TEST_CUSTOMER1_TOKEN));
+    }
+
+    @AfterEach
+    void tearDown() {
+        viewConfig.setMaxListRows(maxListRows);
+    }
+
+    @Test
+    @DisplayName("find all - Should return every row and refuse results over the row cap")
+    void testFindAllWithAccess_ShouldRefuseResultsOverTheCap() {
+        assertThat(viewService.findAllWithAccess()).hasSize(5)
+                .extracting(CustomerBasketItemViewDTO::getItemDescription)
+                .containsOnlyOnce("Item 0", "Item 1", "Item 2");
+
+        viewConfig.setMaxListRows(4);
+        assertThatThrownBy(() -> viewService.findAllWithAccess())
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("/page");
+        assertThat(viewService.findByCustomerNameWithAccess("Other Customer")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("find all by cursor - Should page through every row once")
+    void testFindAllByCursor_ShouldPageThroughEveryRow() {
+        List<CustomerBasketItemViewDTO> rows = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PagedResponse<CustomerBasketItemViewDTO> page = viewService.findAllByCursor(cursor, 2, BASE_URL);
+            rows.addAll(page.getData());
+            cursor = page.getNextCursor();
+            pages++;
+            assertThat(page.isLast()).isEqualTo(cursor == null);
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(rows).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(viewService.findAllWithAccess());
+
+        assertThatThrownBy(() -> viewService.findAllByCursor("not-a-cursor", 2, BASE_URL))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> viewService.findAllByCursor(null, maxListRows + 1, BASE_URL))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    @DisplayName("stream all - Should write the list rows as NDJSON")
+    void testStreamAllToResponse_ShouldWriteEveryRow() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        viewService.streamByCustomerNameToResponse(response.getOutputStream(), "View Customer", StreamFormat.NDJSON);
+
+        ObjectMapper objectMapper = entityFactory.getObjectMapperForStreaming();
+        List<CustomerBasketItemViewDTO> streamed = new ArrayList<>();
+        for (String line : response.getContentAsString().lines().toList()) {
+            streamed.add(objectMapper.readValue(line, CustomerBasketItemViewDTO.class));
+        }
+
+        // Dates are written in the DTO format, to the second
+        List<CustomerBasketItemViewDTO> listed = viewService.findByCustomerNameWithAccess("View Customer");
+        assertThat(streamed).hasSize(4)
+                .extracting(CustomerBasketItemViewDTO::getBasketId, CustomerBasketItemViewDTO::getItemId, CustomerBasketItemViewDTO::getItemAmount)
+                .containsExactlyElementsOf(listed.stream()
+                        .map(row -> tuple(row.getBasketId(), row.getItemId(), row.getItemAmount()))
+                        .toList());
+    }
+}
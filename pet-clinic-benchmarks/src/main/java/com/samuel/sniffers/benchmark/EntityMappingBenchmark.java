@@ -0,0 +1,324 @@
+package com.samuel.sniffers.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.Item;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import com.samuel.sniffers.entity.view.CustomerBasketItemView;
+import com.samuel.sniffers.enums.BasketStatus;
+import com.samuel.sniffers.internal.JacksonModelFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversions per second with ObjectMapper.convertValue, the token buffer round trip
+ * JacksonModelFactory used for every conversion, and with the compiled mappers it uses now. Baskets carry
+ * three items, so the basket and customer conversions include nested collections. The patch benchmarks merge
+ * an UpdateItemDTO into an item with updateValue over a Map, as patchEntity did, and with the compiled patch plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EntityMappingBenchmark {
+
+    private static final int RECORDS = 1000;
+
+    private final Customer[] customers = new Customer[RECORDS];
+    private final ShoppingBasket[] baskets = new ShoppingBasket[RECORDS];
+    private final Item[] items = new Item[RECORDS];
+    private final CustomerBasketItemView[] views = new CustomerBasketItemView[RECORDS];
+    private final ItemPatch[] patches = new ItemPatch[RECORDS];
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JacksonModelFactory modelFactory = new JacksonModelFactory();
+
+    @Setup
+    public void setUp() {
+        // The mapper JacksonModelFactory converts with
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < RECORDS; i++) {
+            Customer customer = new Customer();
+            customer.setId(id(i));
+            customer.setName("Customer " + i);
+            customer.setTimezone("Europe/Berlin");
+            customer.setOwnerToken("CUSTOMER1_TOKEN_456");
+            customer.setCreated(now);
+            customers[i] = customer;
+
+            ShoppingBasket basket = new ShoppingBasket();
+            basket.setId(id(i));
+            basket.setStatus(BasketStatus.PAID);
+            basket.setStatusDate(now);
+            basket.setCreated(now);
+            for (int j = 0; j < 3; j++) {
+                Item item = new Item();
+                item.setId(id(i * 3 + j));
+                item.setDescription("Item " + j);
+                item.setAmount(j + 1);
+                item.setCreated(now);
+                basket.getItems().add(item);
+            }
+            baskets[i] = basket;
+            items[i] = basket.getItems().iterator().next();
+            customer.getBaskets().add(basket);
+
+            CustomerBasketItemView view = new CustomerBasketItemView();
+            view.setCustomerId(customer.getId());
+            view.setCustomerName(customer.getName());
+            view.setCustomerTimezone(customer.getTimezone());
+            view.setOwnerToken(customer.getOwnerToken());
+            view.setCustomerCreated(now);
+            view.setBasketId(basket.getId());
+            view.setBasketStatus(basket.getStatus());
+            view.setBasketCreated(now);
+            view.setBasketStatusDate(now);
+            view.setItemId(items[i].getId());
+            view.setItemDescription(items[i].getDescription());
+            view.setItemAmount(items[i].getAmount());
+            view.setItemCreated(now);
+            views[i] = view;
+
+            ItemPatch patch = new ItemPatch();
+            patch.setDescription("Patched item " + i);
+            patch.setAmount(i % 2 == 0 ? i : null);
+            patches[i] = patch;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void customerConvertValue(Blackhole blackhole) {
+        for (Customer customer : customers) {
+            blackhole.consume(objectMapper.convertValue(customer, CustomerResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void customerCompiled(Blackhole blackhole) {
+        for (Customer customer : customers) {
+            blackhole.consume(modelFactory.convertToDTO(customer, CustomerResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void basketConvertValue(Blackhole blackhole) {
+        for (ShoppingBasket basket : baskets) {
+            blackhole.consume(objectMapper.convertValue(basket, BasketResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void basketCompiled(Blackhole blackhole) {
+        for (ShoppingBasket basket : baskets) {
+            blackhole.consume(modelFactory.convertToDTO(basket, BasketResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void itemConvertValue(Blackhole blackhole) {
+        for (Item item : items) {
+            blackhole.consume(objectMapper.convertValue(item, ItemResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void itemCompiled(Blackhole blackhole) {
+        for (Item item : items) {
+            blackhole.consume(modelFactory.convertToDTO(item, ItemResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void viewConvertValue(Blackhole blackhole) {
+        for (CustomerBasketItemView view : views) {
+            blackhole.consume(objectMapper.convertValue(view, ViewResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void viewCompiled(Blackhole blackhole) {
+        for (CustomerBasketItemView view : views) {
+            blackhole.consume(modelFactory.convertToDTO(view, ViewResponse.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void itemPatchUpdateValue(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(objectMapper.updateValue(items[i], objectMapper.convertValue(patches[i], Map.class)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void itemPatchCompiled(Blackhole blackhole) {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(modelFactory.patchEntityFields(patches[i], items[i]));
+        }
+    }
+
+    private static String id(int i) {
+        return "0192f0c4-7b1e-7c3a-9d2e-" + String.format("%012d", i);
+    }
+
+    // Same properties and annotations as CustomerResponseDTO
+    public static class CustomerResponse {
+        private String id;
+        private String name;
+        private String timezone;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private List<BasketResponse> baskets;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime created;
+        @JsonIgnore
+        private String ownerToken;
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getTimezone() { return timezone; }
+        public void setTimezone(String timezone) { this.timezone = timezone; }
+        public List<BasketResponse> getBaskets() { return baskets; }
+        public void setBaskets(List<BasketResponse> baskets) { this.baskets = baskets; }
+        public LocalDateTime getCreated() { return created; }
+        public void setCreated(LocalDateTime created) { this.created = created; }
+        public String getOwnerToken() { return ownerToken; }
+        public void setOwnerToken(String ownerToken) { this.ownerToken = ownerToken; }
+    }
+
+    // Same properties and annotations as BasketResponseDTO
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class BasketResponse {
+        private String id;
+        private BasketStatus status;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime statusDate;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Set<ItemResponse> items;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime created;
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public BasketStatus getStatus() { return status; }
+        public void setStatus(BasketStatus status) { this.status = status; }
+        public LocalDateTime getStatusDate() { return statusDate; }
+        public void setStatusDate(LocalDateTime statusDate) { this.statusDate = statusDate; }
+        public Set<ItemResponse> getItems() { return items; }
+        public void setItems(Set<ItemResponse> items) { this.items = items; }
+        public LocalDateTime getCreated() { return created; }
+        public void setCreated(LocalDateTime created) { this.created = created; }
+    }
+
+    // Same properties and annotations as ItemResponseDTO
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ItemResponse {
+        private String id;
+        private String description;
+        private Integer amount;
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public Integer getAmount() { return amount; }
+        public void setAmount(Integer amount) { this.amount = amount; }
+    }
+
+    // Same properties and annotations as UpdateItemDTO
+    public static class ItemPatch {
+        private String description;
+        private Integer amount;
+
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public Integer getAmount() { return amount; }
+        public void setAmount(Integer amount) { this.amount = amount; }
+    }
+
+    // Same properties and annotations as CustomerBasketItemViewDTO
+    public static class ViewResponse {
+        private String customerId;
+        private String customerName;
+        private String customerTimezone;
+        @JsonIgnore
+        private String ownerToken;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime customerCreated;
+        private String basketId;
+        private String basketStatus;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime basketCreated;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime basketStatusDate;
+        private String itemId;
+        private String itemDescription;
+        private Integer itemAmount;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime itemCreated;
+
+        public String getCustomerId() { return customerId; }
+        public void setCustomerId(String customerId) { this.customerId = customerId; }
+        public String getCustomerName() { return customerName; }
+        public void setCustomerName(String customerName) { this.customerName = customerName; }
+        public String getCustomerTimezone() { return customerTimezone; }
+        public void setCustomerTimezone(String customerTimezone) { this.customerTimezone = customerTimezone; }
+        public String getOwnerToken() { return ownerToken; }
+        public void setOwnerToken(String ownerToken) { this.ownerToken = ownerToken; }
+        public LocalDateTime getCustomerCreated() { return customerCreated; }
+        public void setCustomerCreated(LocalDateTime customerCreated) { this.customerCreated = customerCreated; }
+        public String getBasketId() { return basketId; }
+        public void setBasketId(String basketId) { this.basketId = basketId; }
+        public String getBasketStatus() { return basketStatus; }
+        public void setBasketStatus(String basketStatus) { this.basketStatus = basketStatus; }
+        public LocalDateTime getBasketCreated() { return basketCreated; }
+        public void setBasketCreated(LocalDateTime basketCreated) { this.basketCreated = basketCreated; }
+        public LocalDateTime getBasketStatusDate() { return basketStatusDate; }
+        public void setBasketStatusDate(LocalDateTime basketStatusDate) { this.basketStatusDate = basketStatusDate; }
+        public String getItemId() { return itemId; }
+        public void setItemId(String itemId) { this.itemId = itemId; }
+        public String getItemDescription() { return itemDescription; }
+        public void setItemDescription(String itemDescription) { this.itemDescription = itemDescription; }
+        public Integer getItemAmount() { return itemAmount; }
+        public void setItemAmount(Integer itemAmount) { this.itemAmount = itemAmount; }
+        public LocalDateTime getItemCreated() { return itemCreated; }
+        public void setItemCreated(LocalDateTime itemCreated) { this.itemCreated = itemCreated; }
+    }
+}
@@ -0,0 +1,122 @@
+package com.samuel.sniffers.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samuel.sniffers.api.streaming.FlushPolicy;
+import com.samuel.sniffers.api.streaming.NdjsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per second written through {@link NdjsonWriter} for each flush policy, into a loopback TCP
+ * socket behind an 8 KB buffer like the servlet response buffer, so every flush is a real write to
+ * the socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NdjsonFlushBenchmark {
+
+    private static final int RECORDS = 10_000;
+
+    public enum Policy {
+        PER_RECORD(FlushPolicy.PER_RECORD),
+        RECORDS_1000(FlushPolicy.everyRecords(1000)),
+        BYTES_64K(FlushPolicy.everyBytes(64 * 1024)),
+        INTERVAL_500MS(FlushPolicy.every(Duration.ofMillis(500))),
+        // Defaults of petshop.streaming.flush
+        COMBINED(new FlushPolicy(1000, 64 * 1024, Duration.ofMillis(500)));
+
+        private final FlushPolicy flushPolicy;
+
+        Policy(FlushPolicy flushPolicy) {
+            this.flushPolicy = flushPolicy;
+        }
+    }
+
+    public record CustomerRecord(String id, String name, String timezone, String created) {
+    }
+
+    @Param({"PER_RECORD", "RECORDS_1000", "BYTES_64K", "INTERVAL_500MS", "COMBINED"})
+    public Policy policy;
+
+    // Same generator settings as the streaming object mapper of the api
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+    private final CustomerRecord[] records = new CustomerRecord[RECORDS];
+
+    private ServerSocket server;
+    private Socket client;
+    private Thread drain;
+    private OutputStream output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = new CustomerRecord("0192f0c4-7b1e-7c3a-9d2e-" + String.format("%012d", i), "Customer " + i, "Europe/Amsterdam", "2025-01-01T10:00:00");
+        }
+
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+        client.setTcpNoDelay(true);
+        Socket accepted = server.accept();
+
+        drain = new Thread(() -> {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream input = accepted.getInputStream()) {
+                while (input.read(buffer) >= 0) {
+                    // discard
+                }
+            } catch (IOException ignored) {
+                // socket closed in tearDown
+            }
+        }, "ndjson-drain");
+        drain.setDaemon(true);
+        drain.start();
+
+        output = new BufferedOutputStream(client.getOutputStream(), 8192);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        client.close();
+        server.close();
+        drain.join(1000);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void writeRecords() throws IOException {
+        // The writer is closed per invocation like one streamed response, without closing the socket
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, output, policy.flushPolicy);
+        for (CustomerRecord record : records) {
+            writer.write(record);
+        }
+        writer.close();
+    }
+}
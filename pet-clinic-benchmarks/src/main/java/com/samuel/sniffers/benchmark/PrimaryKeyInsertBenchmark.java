@@ -0,0 +1,142 @@
+package com.samuel.sniffers.benchmark;
+
+import com.samuel.sniffers.entity.id.BinaryUuidJavaType;
+import com.samuel.sniffers.entity.id.UuidV7;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput (rows per second) into a table that already holds preloadedRows rows, for the
+ * previous MD5 name based CHAR(36) keys and the time ordered BINARY(16) keys.
+ *
+ * <p>Runs against an in-memory H2 database by default. Point it at MariaDB to see the InnoDB page
+ * splits the random keys cause:
+ * <pre>
+ * java -Dbenchmark.jdbc.url=jdbc:mariadb://localhost:3306/petshop -Dbenchmark.jdbc.user=... \
+ *      -Dbenchmark.jdbc.password=... -jar pet-clinic-benchmarks/target/benchmarks.jar PrimaryKeyInsert
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    public enum KeyLayout {
+
+        // Previous BaseEntity.onCreate: MD5 over a nano time name, random order, stored as text
+        CHAR36_MD5("CHAR(36)") {
+            @Override
+            void bindId(PreparedStatement statement) throws SQLException {
+                final String name = "unique-id-" + System.nanoTime();
+                statement.setString(1, UUID.nameUUIDFromBytes(("urn:my-namespace" + name).getBytes(StandardCharsets.UTF_8)).toString());
+            }
+        },
+
+        // Current BaseEntity.onCreate: UUID v7 string converted the same way Hibernate binds it
+        BINARY16_UUID_V7("BINARY(16)") {
+            @Override
+            void bindId(PreparedStatement statement) throws SQLException {
+                statement.setBytes(1, ID_TYPE.unwrap(UuidV7.next().toString(), byte[].class, null));
+            }
+        };
+
+        private static final BinaryUuidJavaType ID_TYPE = new BinaryUuidJavaType();
+
+        private final String columnDefinition;
+
+        KeyLayout(String columnDefinition) {
+            this.columnDefinition = columnDefinition;
+        }
+
+        abstract void bindId(PreparedStatement statement) throws SQLException;
+    }
+
+    @Param({"CHAR36_MD5", "BINARY16_UUID_V7"})
+    public KeyLayout layout;
+
+    @Param({"100000"})
+    public int preloadedRows;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private String table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1"),
+                System.getProperty("benchmark.jdbc.user", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+        connection.setAutoCommit(false);
+
+        table = "benchmark_" + layout.name().toLowerCase(Locale.ROOT);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " ("
+                    + "id " + layout.columnDefinition + " NOT NULL, "
+                    + "description VARCHAR(100) NOT NULL, "
+                    + "created DATETIME NOT NULL, "
+                    + "PRIMARY KEY (id))");
+        }
+        connection.commit();
+
+        insert = connection.prepareStatement("INSERT INTO " + table + " (id, description, created) VALUES (?, ?, ?)");
+        for (int inserted = 0; inserted < preloadedRows; inserted += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        insert.close();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + table);
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            layout.bindId(insert);
+            insert.setString(2, "Item");
+            insert.setTimestamp(3, now);
+            insert.addBatch();
+        }
+
+        int[] counts = insert.executeBatch();
+        connection.commit();
+        return counts;
+    }
+}
@@ -0,0 +1,121 @@
+package com.samuel.sniffers.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.samuel.sniffers.api.factory.ObjectMapperFactory;
+import com.samuel.sniffers.api.response.ApiResponse;
+import com.samuel.sniffers.api.response.PagedResponse;
+import com.samuel.sniffers.benchmark.EntityMappingBenchmark.BasketResponse;
+import com.samuel.sniffers.benchmark.EntityMappingBenchmark.CustomerResponse;
+import com.samuel.sniffers.benchmark.EntityMappingBenchmark.ItemResponse;
+import com.samuel.sniffers.enums.BasketStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pages of customers per second written as the list endpoint writes them, an ApiResponse around a
+ * PagedResponse of customers with two baskets of three items each. Compares a mapper configured like Spring
+ * Boot's default with the shared tuned mapper, called directly and through a prebuilt writer for the page type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ApiResponse<PagedResponse<CustomerResponse>> page;
+
+    private ObjectMapper defaultMapper;
+    private ObjectMapper tunedMapper;
+    private ObjectWriter tunedWriter;
+
+    @Setup
+    public void setUp() {
+        // What Spring Boot builds without customization, reflective property access
+        defaultMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        tunedMapper = ObjectMapperFactory.create();
+        JavaType pageType = tunedMapper.getTypeFactory().constructParametricType(ApiResponse.class,
+                tunedMapper.getTypeFactory().constructParametricType(PagedResponse.class, CustomerResponse.class));
+        tunedWriter = tunedMapper.writerFor(pageType);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<CustomerResponse> customers = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            CustomerResponse customer = new CustomerResponse();
+            customer.setId(id(i));
+            customer.setName("Customer " + i);
+            customer.setTimezone("Europe/Berlin");
+            customer.setCreated(now);
+            customer.setBaskets(new ArrayList<>());
+            for (int j = 0; j < 2; j++) {
+                BasketResponse basket = new BasketResponse();
+                basket.setId(id(i * 2 + j));
+                basket.setStatus(BasketStatus.PAID);
+                basket.setStatusDate(now);
+                basket.setCreated(now);
+                Set<ItemResponse> items = new HashSet<>();
+                for (int k = 0; k < 3; k++) {
+                    ItemResponse item = new ItemResponse();
+                    item.setId(id((i * 2 + j) * 3 + k));
+                    item.setDescription("Item " + k);
+                    item.setAmount(k + 1);
+                    items.add(item);
+                }
+                basket.setItems(items);
+                customer.getBaskets().add(basket);
+            }
+            customers.add(customer);
+        }
+        PagedResponse<CustomerResponse> paged = new PagedResponse<>(customers, 0, pageSize, 10_000L, 10_000 / pageSize, false);
+        paged.getLinks().put("next", "/api/v1/customers?page=1&size=" + pageSize);
+        page = new ApiResponse<>(200, "Success", paged, null);
+    }
+
+    @Benchmark
+    public byte[] defaultMapper() throws IOException {
+        return defaultMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] tunedMapper() throws IOException {
+        return tunedMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] tunedWriter() throws IOException {
+        return tunedWriter.writeValueAsBytes(page);
+    }
+
+    private static String id(int i) {
+        return "0192f0c4-7b1e-7c3a-9d2e-" + String.format("%012d", i);
+    }
+}
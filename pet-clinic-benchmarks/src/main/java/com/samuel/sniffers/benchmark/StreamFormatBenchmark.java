@@ -0,0 +1,120 @@
+package com.samuel.sniffers.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.samuel.sniffers.api.streaming.FlushPolicy;
+import com.samuel.sniffers.api.streaming.ObjectWriterCache;
+import com.samuel.sniffers.api.streaming.RecordWriter;
+import com.samuel.sniffers.api.streaming.RowWriter;
+import com.samuel.sniffers.api.streaming.StreamFormat;
+import com.samuel.sniffers.entity.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item records per second encoded and decoded for one streamed response of 1000 items, as NDJSON and
+ * as length-prefixed Smile and CBOR records. The payload size of each format is printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StreamFormatBenchmark {
+
+    private static final int RECORDS = 1000;
+
+    private static final FlushPolicy FLUSH_POLICY = FlushPolicy.everyRecords(RECORDS);
+
+    // Same output as StreamRows.ITEM in the api
+    private static final RowWriter<Item> ITEM_ROW = (item, generator) -> {
+        generator.writeStartObject();
+        generator.writeStringField("id", item.getId());
+        generator.writeStringField("description", item.getDescription());
+        generator.writeNumberField("amount", item.getAmount());
+        generator.writeEndObject();
+    };
+
+    // Same fields and order as ItemResponseDTO
+    public record ItemResponse(String id, String description, Integer amount) {
+    }
+
+    @Param({"NDJSON", "SMILE", "CBOR"})
+    public StreamFormat format;
+
+    private final Item[] items = new Item[RECORDS];
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(128 * RECORDS);
+    private ObjectWriterCache objectWriters;
+    private ObjectReader reader;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        for (int i = 0; i < RECORDS; i++) {
+            Item item = new Item();
+            item.setId("0192f0c4-7b1e-7c3a-9d2e-" + String.format("%012d", i));
+            item.setDescription("Item " + i);
+            item.setAmount(i + 1);
+            items[i] = item;
+        }
+
+        ObjectMapper mapper = format.mapper(new ObjectMapper().configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false));
+        objectWriters = new ObjectWriterCache(mapper);
+        reader = mapper.readerFor(ItemResponse.class);
+
+        encode();
+        payload = output.toByteArray();
+        System.out.printf(Locale.ROOT, "%n%s payload: %d bytes for %d records (%.1f bytes per record)%n",
+                format, payload.length, RECORDS, (double) payload.length / RECORDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int encode() throws IOException {
+        output.reset();
+        try (RecordWriter writer = format.open(objectWriters, output, FLUSH_POLICY)) {
+            for (Item item : items) {
+                writer.writeRow(item, ITEM_ROW);
+            }
+        }
+        return output.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void decode(Blackhole blackhole) throws IOException {
+        if (format == StreamFormat.NDJSON) {
+            try (JsonParser parser = reader.createParser(payload)) {
+                reader.<ItemResponse>readValues(parser).forEachRemaining(blackhole::consume);
+            }
+            return;
+        }
+
+        ByteBuffer frames = ByteBuffer.wrap(payload);
+        while (frames.hasRemaining()) {
+            int length = frames.getInt();
+            blackhole.consume(reader.readValue(payload, frames.position(), length));
+            frames.position(frames.position() + length);
+        }
+    }
+}
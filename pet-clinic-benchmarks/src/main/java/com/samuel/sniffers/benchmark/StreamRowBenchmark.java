@@ -0,0 +1,120 @@
+package com.samuel.sniffers.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.samuel.sniffers.api.streaming.FlushPolicy;
+import com.samuel.sniffers.api.streaming.NdjsonWriter;
+import com.samuel.sniffers.api.streaming.ObjectWriterCache;
+import com.samuel.sniffers.api.streaming.RowWriter;
+import com.samuel.sniffers.entity.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item records per second for one streamed response of 1000 items: the previous per-call object
+ * mapper with an entity to DTO round trip, a cached object writer for the DTO, and a row writer that
+ * writes the entity fields directly. Output goes to a null stream to measure serialization only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StreamRowBenchmark {
+
+    private static final int RECORDS = 1000;
+
+    private static final FlushPolicy FLUSH_POLICY = FlushPolicy.everyRecords(RECORDS);
+
+    // Same fields and order as ItemResponseDTO
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ItemResponse(String id, String description, Integer amount) {
+    }
+
+    // Same output as StreamRows.ITEM in the api
+    private static final RowWriter<Item> ITEM_ROW = (item, generator) -> {
+        generator.writeStartObject();
+        generator.writeStringField("id", item.getId());
+        generator.writeStringField("description", item.getDescription());
+        generator.writeNumberField("amount", item.getAmount());
+        generator.writeEndObject();
+    };
+
+    private final Item[] items = new Item[RECORDS];
+    private final ObjectMapper entityMapper = new ObjectMapper();
+    private ObjectWriterCache objectWriters;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < RECORDS; i++) {
+            Item item = new Item();
+            item.setId("0192f0c4-7b1e-7c3a-9d2e-" + String.format("%012d", i));
+            item.setDescription("Item " + i);
+            item.setAmount(i + 1);
+            item.setCreated(LocalDateTime.now());
+            items[i] = item;
+        }
+        entityMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        entityMapper.registerModule(new JavaTimeModule());
+        objectWriters = new ObjectWriterCache(streamingObjectMapper());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void newMapperAndConvertValue() throws IOException {
+        try (NdjsonWriter writer = new NdjsonWriter(streamingObjectMapper(), OutputStream.nullOutputStream(), FLUSH_POLICY)) {
+            for (Item item : items) {
+                writer.write(entityMapper.convertValue(item, ItemResponse.class));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void cachedWriterWithDto() throws IOException {
+        try (NdjsonWriter writer = new NdjsonWriter(objectWriters, OutputStream.nullOutputStream(), FLUSH_POLICY)) {
+            for (Item item : items) {
+                writer.write(new ItemResponse(item.getId(), item.getDescription(), item.getAmount()));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void rowWriter() throws IOException {
+        try (NdjsonWriter writer = new NdjsonWriter(objectWriters, OutputStream.nullOutputStream(), FLUSH_POLICY)) {
+            for (Item item : items) {
+                writer.writeRow(item, ITEM_ROW);
+            }
+        }
+    }
+
+    // The settings JacksonModelFactory.getObjectMapperForStreaming used to build on every call
+    private static ObjectMapper streamingObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM, false);
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
+    }
+}
@@ -1,13 +1,17 @@
 package com.samuel.sniffers.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.samuel.sniffers.entity.id.BinaryUuidJavaType;
+import com.samuel.sniffers.entity.id.UuidV7;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Getter
 @Setter
@@ -15,18 +19,28 @@ import java.util.UUID;
 public abstract class BaseEntity {
 
     @Id
-    @Column(name = "id", columnDefinition = "CHAR(36)") // UUID v5 stored as CHAR(36)
+    @JavaType(BinaryUuidJavaType.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "id", columnDefinition = "BINARY(16)") // Time ordered UUID v7 stored as BINARY(16)
     private String id;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @Column(name = "created", nullable = false, updatable = false)
     private LocalDateTime created;
 
+    // Version and modification time of the rendered row, children included. Only the repositories'
+    // incrementVersion queries change them, the entity never writes them
+    @JsonIgnore
+    @Column(name = "version", nullable = false, insertable = false, updatable = false)
+    private long version;
+
+    @JsonIgnore
+    @Column(name = "modified", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime modified;
+
     @PrePersist
     protected void onCreate() {
-        // Use a namespace and a unique name to generate UUID v5
-        final String name = "unique-id-" + System.nanoTime(); // Unique name for each entity instance
-        this.id = UUID.nameUUIDFromBytes(("urn:my-namespace" + name).getBytes(StandardCharsets.UTF_8)).toString();
+        this.id = UuidV7.next().toString();
         this.created = LocalDateTime.now(); // Set created timestamp
     }
 }
\ No newline at end of file
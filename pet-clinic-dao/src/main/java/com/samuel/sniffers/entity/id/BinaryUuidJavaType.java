@@ -0,0 +1,83 @@
+package com.samuel.sniffers.entity.id;
+
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractClassJavaType;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+import org.hibernate.type.descriptor.jdbc.JdbcTypeIndicators;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Keeps ids as their canonical string in the entities and the API while storing them as BINARY(16).
+ * This is a Hibernate JavaType rather than a JPA AttributeConverter because converters are not applied
+ * to @Id attributes, and foreign keys, query parameters and projections all follow the id mapping.
+ */
+public class BinaryUuidJavaType extends AbstractClassJavaType<String> {
+
+    // Never generated (version bits are zero), used for ids that are not UUIDs so lookups find nothing
+    private static final byte[] NO_MATCH = new byte[16];
+
+    public BinaryUuidJavaType() {
+        super(String.class);
+    }
+
+    @Override
+    public JdbcType getRecommendedJdbcType(JdbcTypeIndicators indicators) {
+        return indicators.getJdbcType(SqlTypes.BINARY);
+    }
+
+    @Override
+    public String toString(String value) {
+        return value;
+    }
+
+    @Override
+    public String fromString(CharSequence string) {
+        return string == null ? null : string.toString();
+    }
+
+    @Override
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (byte[].class.isAssignableFrom(type)) {
+            return type.cast(toBytes(value));
+        }
+        if (String.class.isAssignableFrom(type)) {
+            return type.cast(value);
+        }
+        throw unknownUnwrap(type);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        if (value instanceof String string) {
+            return string;
+        }
+        throw unknownWrap(value.getClass());
+    }
+
+    private static byte[] toBytes(String value) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(value);
+        } catch (IllegalArgumentException ex) {
+            return NO_MATCH.clone();
+        }
+
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,33 @@
+package com.samuel.sniffers.entity.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time ordered UUID version 7 (RFC 9562): 48 bit unix millis, 12 bit sequence, 62 random bits.
+ * Ids created by this JVM are strictly increasing, so new rows are appended at the right edge of the
+ * primary and foreign key indexes instead of landing on a random page.
+ */
+public final class UuidV7 {
+
+    private static final int SEQUENCE_BITS = 12;
+
+    // millis << SEQUENCE_BITS | sequence of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long state = LAST.updateAndGet(previous -> {
+            long now = System.currentTimeMillis() << SEQUENCE_BITS;
+            // Same millisecond (or clock moved back): bump the sequence, an overflow carries into the millis
+            return now > previous ? now : previous + 1;
+        });
+
+        long mostSigBits = (state >>> SEQUENCE_BITS) << 16 | 0x7000L | (state & 0xFFFL);
+        long leastSigBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
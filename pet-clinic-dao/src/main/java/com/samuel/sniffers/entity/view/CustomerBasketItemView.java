@@ -1,10 +1,15 @@
 package com.samuel.sniffers.entity.view;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.samuel.sniffers.entity.id.BinaryUuidJavaType;
 import com.samuel.sniffers.enums.BasketStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Synchronize;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -14,11 +19,15 @@ import java.util.Objects;
 @Entity
 @Immutable
 @Table(name = "customer_basket_item_overview")
+// Queries on the view flush pending changes of the tables it reads
+@Synchronize({"customers", "shopping_baskets", "items"})
 @IdClass(CustomerBasketItemView.CustomerKey.class)
 public class CustomerBasketItemView {
 
     @Id
-    @Column(name = "customer_id", columnDefinition = "CHAR(36)")
+    @JavaType(BinaryUuidJavaType.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "customer_id", columnDefinition = "BINARY(16)")
     private String customerId;
 
     @Column(name = "customer_name")
@@ -34,7 +43,9 @@ public class CustomerBasketItemView {
     @Column(name = "customer_created")
     private LocalDateTime customerCreated;
 
-    @Column(name = "basket_id", columnDefinition = "CHAR(36)")
+    @JavaType(BinaryUuidJavaType.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "basket_id", columnDefinition = "BINARY(16)")
     private String basketId;
 
     @Enumerated(EnumType.STRING)
@@ -49,7 +60,9 @@ public class CustomerBasketItemView {
     @Column(name = "basket_status_date")
     private LocalDateTime basketStatusDate;
 
-    @Column(name = "item_id", columnDefinition = "CHAR(36)")
+    @JavaType(BinaryUuidJavaType.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "item_id", columnDefinition = "BINARY(16)")
     private String itemId;
 
     @Column(name = "item_description")
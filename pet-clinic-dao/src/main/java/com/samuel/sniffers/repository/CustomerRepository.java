@@ -1,92 +1,304 @@
 package com.samuel.sniffers.repository;
 
 import com.samuel.sniffers.entity.Customer;
-import org.springframework.data.domain.Page;
+import com.samuel.sniffers.repository.projection.CustomerBasketId;
+import com.samuel.sniffers.repository.projection.CustomerView;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.repository.projection.HierarchyRow;
+import com.samuel.sniffers.repository.specification.CustomerSpecifications;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
-public interface CustomerRepository extends JpaRepository<Customer, String> {
+/**
+ * Every access checked read comes in two variants, one for tenants filtering on the owner token and
+ * one for admins without it. A single query with {@code (c.ownerToken = :token OR :isAdmin = true)}
+ * cannot use idx_customers_owner_token, so the {@code ...WithAccess} default methods pick the
+ * variant and are the only entry point used by the services.
+ */
+public interface CustomerRepository extends JpaRepository<Customer, String>, JpaSpecificationExecutor<Customer> {
+
+    default List<Customer> findAllWithAccess(String token, boolean isAdmin) {
+        return isAdmin ? findAll() : findAllByOwnerToken(token);
+    }
+
+    List<Customer> findAllByOwnerToken(String ownerToken);
+
+    default Optional<Customer> findByIdWithAccess(String id, String token, boolean isAdmin) {
+        return isAdmin ? findByIdForAdmin(id) : findByIdForTenant(id, token);
+    }
 
     @Query("""
         SELECT c FROM Customer c 
-        WHERE c.ownerToken = :token OR :isAdmin = true
+        LEFT JOIN FETCH c.baskets b
+        LEFT JOIN FETCH b.items i
+        WHERE c.id = :id AND c.ownerToken = :token
     """)
-    List<Customer> findAllWithAccess(@Param("token") String token, @Param("isAdmin") boolean isAdmin);
+    Optional<Customer> findByIdForTenant(@Param("id") String id, @Param("token") String token);
 
     @Query("""
         SELECT c FROM Customer c 
         LEFT JOIN FETCH c.baskets b
         LEFT JOIN FETCH b.items i
-        WHERE c.id = :id AND (c.ownerToken = :token OR :isAdmin = true)
+        WHERE c.id = :id
+    """)
+    Optional<Customer> findByIdForAdmin(@Param("id") String id);
+
+    /**
+     * Owner token and basket ids of a customer visible to the caller in one read, what a delete needs to
+     * invalidate its caches and counts. An empty list means the customer does not exist for the caller.
+     */
+    default List<CustomerBasketId> findBasketIdsWithAccess(String id, String token, boolean isAdmin) {
+        return isAdmin ? findBasketIdsForAdmin(id) : findBasketIdsForTenant(id, token);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.CustomerBasketId(c.ownerToken, b.id)
+        FROM Customer c
+        LEFT JOIN c.baskets b
+        WHERE c.id = :id AND c.ownerToken = :token
+    """)
+    List<CustomerBasketId> findBasketIdsForTenant(@Param("id") String id, @Param("token") String token);
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.CustomerBasketId(c.ownerToken, b.id)
+        FROM Customer c
+        LEFT JOIN c.baskets b
+        WHERE c.id = :id
+    """)
+    List<CustomerBasketId> findBasketIdsForAdmin(@Param("id") String id);
+
+    /**
+     * Deletes a customer with one statement, its baskets and items go with it through the ON DELETE CASCADE
+     * foreign keys instead of being loaded and removed one by one. The id must come from an access checked read.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Customer c WHERE c.id = :id")
+    int deleteCustomerById(@Param("id") String id);
+
+    /**
+     * The owner token of a customer visible to the caller, without loading the customer or its children.
+     */
+    default Optional<String> findOwnerTokenWithAccess(String id, String token, boolean isAdmin) {
+        return isAdmin ? findOwnerTokenForAdmin(id) : findOwnerTokenForTenant(id, token);
+    }
+
+    @Query("SELECT c.ownerToken FROM Customer c WHERE c.id = :id AND c.ownerToken = :token")
+    Optional<String> findOwnerTokenForTenant(@Param("id") String id, @Param("token") String token);
+
+    @Query("SELECT c.ownerToken FROM Customer c WHERE c.id = :id")
+    Optional<String> findOwnerTokenForAdmin(@Param("id") String id);
+
+    /**
+     * Read-only lookup for rendering a customer. Only the scalar columns are selected, the children are
+     * loaded separately with findViewsByCustomerIdIn and findViewsByBasketIdIn instead of one fetch joined
+     * customer x baskets x items product. findByIdWithAccess stays for the mutating paths.
+     */
+    default Optional<CustomerView> findViewByIdWithAccess(String id, String token, boolean isAdmin) {
+        return isAdmin ? findViewByIdForAdmin(id) : findViewByIdForTenant(id, token);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.CustomerView(c.id, c.name, c.timezone, c.created, c.ownerToken, c.version, c.modified)
+        FROM Customer c
+        WHERE c.id = :id AND c.ownerToken = :token
+    """)
+    Optional<CustomerView> findViewByIdForTenant(@Param("id") String id, @Param("token") String token);
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.CustomerView(c.id, c.name, c.timezone, c.created, c.ownerToken, c.version, c.modified)
+        FROM Customer c
+        WHERE c.id = :id
     """)
-    Optional<Customer> findByIdWithAccess(
-            @Param("id") String id,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
-    );
+    Optional<CustomerView> findViewByIdForAdmin(@Param("id") String id);
+
+    default List<Customer> findAllByIdAndOwnerToken(List<String> ids, String token, boolean isAdmin) {
+        return isAdmin ? findAllById(ids) : findAllByIdForTenant(ids, token);
+    }
 
     @Query("""
         SELECT c FROM Customer c 
         WHERE c.id IN :ids 
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    List<Customer> findAllByIdAndOwnerToken(
-            @Param("ids") List<String> ids,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
-    );
+    List<Customer> findAllByIdForTenant(@Param("ids") List<String> ids, @Param("token") String token);
+
+    default boolean existByNameAndOwnerToken(String name, String token, boolean isAdmin) {
+        return isAdmin ? existsByName(name) : existsByNameAndOwnerToken(name, token);
+    }
+
+    boolean existsByName(String name);
+
+    boolean existsByNameAndOwnerToken(String name, String ownerToken);
+
+    default boolean existByIdAndOwnerToken(String id, String token, boolean isAdmin) {
+        return isAdmin ? existsById(id) : existsByIdAndOwnerToken(id, token);
+    }
+
+    boolean existsByIdAndOwnerToken(String id, String ownerToken);
 
+    /**
+     * Stream all customers with access control based on token and admin status.
+     * IMPORTANT: This stream must be closed after use to prevent connection leaks.
+     */
+    default Stream<Customer> streamAllWithAccess(String token, boolean isAdmin) {
+        return streamAllWithAccess(token, isAdmin, null);
+    }
+
+    /**
+     * Stream the customers after the given id in id order, all of them when after is null.
+     */
+    default Stream<Customer> streamAllWithAccess(String token, boolean isAdmin, String after) {
+        String start = after == null ? StreamingQueries.START : after;
+        return isAdmin ? streamAllForAdmin(start) : streamAllForTenant(token, start);
+    }
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT c FROM Customer c
+        WHERE c.ownerToken = :token
+        AND c.id > :after
+        ORDER BY c.id
+    """)
+    Stream<Customer> streamAllForTenant(@Param("token") String token, @Param("after") String after);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
-        SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END
+        SELECT c FROM Customer c
+        WHERE c.id > :after
+        ORDER BY c.id
+    """)
+    Stream<Customer> streamAllForAdmin(@Param("after") String after);
+
+    /**
+     * The customer -> basket -> item hierarchy as flat rows in one ordered pass, customers without baskets
+     * and baskets without items included. Rows are projected, nothing is registered in the persistence
+     * context however long the export runs.
+     * IMPORTANT: This stream must be closed after use to prevent connection leaks.
+     */
+    default Stream<HierarchyRow> streamHierarchyWithAccess(String token, boolean isAdmin) {
+        return isAdmin ? streamHierarchyForAdmin() : streamHierarchyForTenant(token);
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            c.id, c.name, c.timezone, c.created,
+            b.id, b.status, b.statusDate, b.created,
+            i.id, i.description, i.amount, i.created)
         FROM Customer c
         LEFT JOIN c.baskets b
         LEFT JOIN b.items i
-        WHERE c.name = :name 
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        WHERE c.ownerToken = :token
+        ORDER BY c.id, b.id, i.id
     """)
-    boolean existByNameAndOwnerToken(
-            @Param("name") String name,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
-    );
+    Stream<HierarchyRow> streamHierarchyForTenant(@Param("token") String token);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
     @Query("""
-        SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            c.id, c.name, c.timezone, c.created,
+            b.id, b.status, b.statusDate, b.created,
+            i.id, i.description, i.amount, i.created)
         FROM Customer c
         LEFT JOIN c.baskets b
         LEFT JOIN b.items i
-        WHERE c.id = :id 
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        ORDER BY c.id, b.id, i.id
     """)
-    boolean existByIdAndOwnerToken(
-            @Param("id") String id,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
-    );
+    Stream<HierarchyRow> streamHierarchyForAdmin();
 
     /**
-     * Stream all customers with access control based on token and admin status.
-     * IMPORTANT: This stream must be closed after use to prevent connection leaks.
+     * One page of the customers the token may read, without a count query. countWithAccess counts them
+     * when the total is asked for.
      */
+    default Slice<Customer> findSliceWithAccess(String token, boolean isAdmin, Pageable pageable) {
+        return isAdmin ? findSliceBy(pageable) : findSliceByOwnerToken(token, pageable);
+    }
+
+    Slice<Customer> findSliceBy(Pageable pageable);
+
+    Slice<Customer> findSliceByOwnerToken(String ownerToken, Pageable pageable);
+
+    long countByOwnerToken(String ownerToken);
+
+    default long countWithAccess(String token, boolean isAdmin) {
+        return isAdmin ? count() : countByOwnerToken(token);
+    }
+
+    /**
+     * Keyset (seek) variant of findSliceWithAccess. Rows are located through the sort key and id
+     * carried by the position instead of an OFFSET, so every window costs the same to fetch.
+     */
+    default Window<Customer> scrollAllWithAccess(
+            String token,
+            boolean isAdmin,
+            Sort sort,
+            int limit,
+            KeysetScrollPosition position
+    ) {
+        return findBy(CustomerSpecifications.withAccess(token, isAdmin),
+                query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    default Optional<EntityVersion> findVersionWithAccess(String id, String token, boolean isAdmin) {
+        return isAdmin ? findVersionForAdmin(id) : findVersionForTenant(id, token);
+    }
+
     @Query("""
-        SELECT c FROM Customer c 
-        WHERE c.ownerToken = :token OR :isAdmin = true
+        SELECT new com.samuel.sniffers.repository.projection.EntityVersion(c.version, c.modified)
+        FROM Customer c
+        WHERE c.id = :id AND c.ownerToken = :token
     """)
-    Stream<Customer> streamAllWithAccess(@Param("token") String token, @Param("isAdmin") boolean isAdmin);
+    Optional<EntityVersion> findVersionForTenant(@Param("id") String id, @Param("token") String token);
 
-    // Repository method
     @Query("""
-        SELECT c FROM Customer c 
-        WHERE c.ownerToken = :token OR :isAdmin = true
+        SELECT new com.samuel.sniffers.repository.projection.EntityVersion(c.version, c.modified)
+        FROM Customer c
+        WHERE c.id = :id
+    """)
+    Optional<EntityVersion> findVersionForAdmin(@Param("id") String id);
+
+    /**
+     * Increments the version of each customer, the row stays locked until the transaction ends.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Customer c
+        SET c.version = c.version + 1, c.modified = :modified
+        WHERE c.id IN :ids
+    """)
+    int incrementVersion(@Param("ids") Collection<String> ids, @Param("modified") LocalDateTime modified);
+
+    /**
+     * Increments the version only while it is still the expected one, 0 means the customer changed since.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Customer c
+        SET c.version = c.version + 1, c.modified = :modified
+        WHERE c.id = :id AND c.version = :version
     """)
-    Page<Customer> findAllWithAccess(
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin,
-            Pageable pageable
-    );
+    int incrementVersionIfMatches(@Param("id") String id, @Param("version") long version, @Param("modified") LocalDateTime modified);
 }
@@ -1,18 +1,41 @@
 package com.samuel.sniffers.repository;
 
 import com.samuel.sniffers.entity.Item;
-import org.springframework.data.domain.Page;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.repository.projection.ItemAccessPath;
+import com.samuel.sniffers.repository.projection.ItemView;
+import com.samuel.sniffers.repository.specification.ItemSpecifications;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
-public interface ItemRepository extends JpaRepository<Item, String> {
+/**
+ * Access checked reads come as tenant and admin variants, see {@link CustomerRepository}.
+ * Admin variants never join the customer table.
+ */
+public interface ItemRepository extends JpaRepository<Item, String>, JpaSpecificationExecutor<Item> {
 
+    default Optional<Item> findByIdWithAccess(String itemId, String basketId, String customerId, String token, boolean isAdmin) {
+        return isAdmin
+                ? findByIdForAdmin(itemId, basketId, customerId)
+                : findByIdForTenant(itemId, basketId, customerId, token);
+    }
 
     @Query("""
         SELECT i FROM Item i
@@ -21,32 +44,130 @@ public interface ItemRepository extends JpaRepository<Item, String> {
         WHERE i.id = :itemId
         AND b.id = :basketId
         AND c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    Optional<Item> findByIdWithAccess(
+    Optional<Item> findByIdForTenant(
             @Param("itemId") String itemId,
             @Param("basketId") String basketId,
             @Param("customerId") String customerId,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("token") String token
+    );
+
+    @Query("""
+        SELECT i FROM Item i
+        JOIN i.basket b
+        WHERE i.id = :itemId
+        AND b.id = :basketId
+        AND b.customer.id = :customerId
+    """)
+    Optional<Item> findByIdForAdmin(
+            @Param("itemId") String itemId,
+            @Param("basketId") String basketId,
+            @Param("customerId") String customerId
+    );
+
+    /**
+     * Resolves customer, basket and item in one query, each level is left joined on the previous one
+     * so the first missing level can be reported.
+     */
+    default Optional<ItemAccessPath> findAccessPath(String customerId, String basketId, String itemId, String token, boolean isAdmin) {
+        return isAdmin
+                ? findAccessPathForAdmin(customerId, basketId, itemId)
+                : findAccessPathForTenant(customerId, basketId, itemId, token);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.ItemAccessPath(c.id, b.id, i)
+        FROM Customer c
+        LEFT JOIN c.baskets b ON b.id = :basketId
+        LEFT JOIN b.items i ON i.id = :itemId
+        WHERE c.id = :customerId
+        AND c.ownerToken = :token
+    """)
+    Optional<ItemAccessPath> findAccessPathForTenant(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId,
+            @Param("token") String token
+    );
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.ItemAccessPath(c.id, b.id, i)
+        FROM Customer c
+        LEFT JOIN c.baskets b ON b.id = :basketId
+        LEFT JOIN b.items i ON i.id = :itemId
+        WHERE c.id = :customerId
+    """)
+    Optional<ItemAccessPath> findAccessPathForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId
     );
 
+    /**
+     * One page of the items of a basket, without a count query. countByBasketId counts them when the
+     * total is asked for.
+     */
+    default Slice<Item> findSliceByCustomerWithAccess(String basketId, String customerId, String token, boolean isAdmin, Pageable pageable) {
+        return isAdmin
+                ? findSliceByCustomerForAdmin(basketId, customerId, pageable)
+                : findSliceByCustomerForTenant(basketId, customerId, token, pageable);
+    }
+
     @Query("""
         SELECT i FROM Item i
         JOIN i.basket b
         JOIN b.customer c
         WHERE b.id = :basketId
         AND c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    Page<Item> findByCustomerWithAccess(
+    Slice<Item> findSliceByCustomerForTenant(
             @Param("basketId") String basketId,
             @Param("customerId") String customerId,
             @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin,
             Pageable pageable
     );
 
+    @Query("""
+        SELECT i FROM Item i
+        JOIN i.basket b
+        WHERE b.id = :basketId
+        AND b.customer.id = :customerId
+    """)
+    Slice<Item> findSliceByCustomerForAdmin(
+            @Param("basketId") String basketId,
+            @Param("customerId") String customerId,
+            Pageable pageable
+    );
+
+    /**
+     * Lean count on the item table only, the foreign key replaces the joins to basket and customer.
+     * Access to the basket must have been checked by the caller.
+     */
+    @Query("""
+        SELECT COUNT(i) FROM Item i
+        WHERE i.basket.id = :basketId
+    """)
+    long countByBasketId(@Param("basketId") String basketId);
+
+    /**
+     * Batch load of the items of several baskets, used to expand a page of baskets with one query.
+     * The basket ids must come from an access checked read.
+     */
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.ItemView(i.id, i.basket.id, i.description, i.amount)
+        FROM Item i
+        WHERE i.basket.id IN :basketIds
+    """)
+    List<ItemView> findViewsByBasketIdIn(@Param("basketIds") Collection<String> basketIds);
+
+    default List<Item> findByCustomerIdAndBasketIds(String customerId, String basketId, List<String> itemIds, String token, boolean isAdmin) {
+        return isAdmin
+                ? findByCustomerIdAndBasketIdsForAdmin(customerId, basketId, itemIds)
+                : findByCustomerIdAndBasketIdsForTenant(customerId, basketId, itemIds, token);
+    }
+
     @Query("""
         SELECT i FROM Item i
         JOIN i.basket b
@@ -54,32 +175,154 @@ public interface ItemRepository extends JpaRepository<Item, String> {
         WHERE i.id IN :itemIds
         AND b.id = :basketId
         AND c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    List<Item> findByCustomerIdAndBasketIds(
+    List<Item> findByCustomerIdAndBasketIdsForTenant(
             @Param("customerId") String customerId,
             @Param("basketId") String basketId,
             @Param("itemIds") List<String> itemIds,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("token") String token
+    );
+
+    @Query("""
+        SELECT i FROM Item i
+        JOIN i.basket b
+        WHERE i.id IN :itemIds
+        AND b.id = :basketId
+        AND b.customer.id = :customerId
+    """)
+    List<Item> findByCustomerIdAndBasketIdsForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemIds") List<String> itemIds
     );
 
     /**
      * Stream all items with access control based on customer, basket, and token.
      * IMPORTANT: This stream must be closed after use to prevent connection leaks.
      */
+    default Stream<Item> streamAllWithAccess(String basketId, String customerId, String token, boolean isAdmin) {
+        return streamAllWithAccess(basketId, customerId, token, isAdmin, null);
+    }
+
+    /**
+     * Stream the basket's items after the given id in id order, all of them when after is null.
+     */
+    default Stream<Item> streamAllWithAccess(String basketId, String customerId, String token, boolean isAdmin, String after) {
+        String start = after == null ? StreamingQueries.START : after;
+        return isAdmin
+                ? streamAllForAdmin(basketId, customerId, start)
+                : streamAllForTenant(basketId, customerId, token, start);
+    }
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
         SELECT i FROM Item i
         JOIN i.basket b
         JOIN b.customer c
         WHERE b.id = :basketId
         AND c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
+        AND i.id > :after
+        ORDER BY i.id
     """)
-    Stream<Item> streamAllWithAccess(
+    Stream<Item> streamAllForTenant(
             @Param("basketId") String basketId,
             @Param("customerId") String customerId,
             @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("after") String after
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT i FROM Item i
+        JOIN i.basket b
+        WHERE b.id = :basketId
+        AND b.customer.id = :customerId
+        AND i.id > :after
+        ORDER BY i.id
+    """)
+    Stream<Item> streamAllForAdmin(
+            @Param("basketId") String basketId,
+            @Param("customerId") String customerId,
+            @Param("after") String after
+    );
+
+    /**
+     * Keyset (seek) variant of findSliceByCustomerWithAccess.
+     */
+    default Window<Item> scrollByCustomerWithAccess(
+            String basketId,
+            String customerId,
+            String token,
+            boolean isAdmin,
+            Sort sort,
+            int limit,
+            KeysetScrollPosition position
+    ) {
+        return findBy(ItemSpecifications.forBasketWithAccess(basketId, customerId, token, isAdmin),
+                query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    default Optional<EntityVersion> findVersionWithAccess(String customerId, String basketId, String itemId, String token, boolean isAdmin) {
+        return isAdmin
+                ? findVersionForAdmin(customerId, basketId, itemId)
+                : findVersionForTenant(customerId, basketId, itemId, token);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.EntityVersion(i.version, i.modified)
+        FROM Item i
+        JOIN i.basket b
+        JOIN b.customer c
+        WHERE i.id = :itemId
+        AND b.id = :basketId
+        AND c.id = :customerId
+        AND c.ownerToken = :token
+    """)
+    Optional<EntityVersion> findVersionForTenant(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId,
+            @Param("token") String token
     );
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.EntityVersion(i.version, i.modified)
+        FROM Item i
+        JOIN i.basket b
+        WHERE i.id = :itemId
+        AND b.id = :basketId
+        AND b.customer.id = :customerId
+    """)
+    Optional<EntityVersion> findVersionForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId
+    );
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Item i
+        SET i.version = i.version + 1, i.modified = :modified
+        WHERE i.id IN :ids
+    """)
+    int incrementVersion(@Param("ids") Collection<String> ids, @Param("modified") LocalDateTime modified);
+
+    /**
+     * Increments the version only while it is still the expected one, 0 means the item changed since.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Item i
+        SET i.version = i.version + 1, i.modified = :modified
+        WHERE i.id = :id AND i.version = :version
+    """)
+    int incrementVersionIfMatches(@Param("id") String id, @Param("version") long version, @Param("modified") LocalDateTime modified);
 }
@@ -1,88 +1,375 @@
 package com.samuel.sniffers.repository;
 
 import com.samuel.sniffers.entity.ShoppingBasket;
-import org.springframework.data.domain.Page;
+import com.samuel.sniffers.enums.BasketStatus;
+import com.samuel.sniffers.repository.projection.BasketAccessPath;
+import com.samuel.sniffers.repository.projection.BasketView;
+import com.samuel.sniffers.repository.projection.EntityVersion;
+import com.samuel.sniffers.repository.specification.ShoppingBasketSpecifications;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
-public interface ShoppingBasketRepository extends JpaRepository<ShoppingBasket, String> {
+/**
+ * Access checked reads come as tenant and admin variants, see {@link CustomerRepository}.
+ * Admin variants never join the customer table, the customer_id foreign key is enough.
+ */
+public interface ShoppingBasketRepository extends JpaRepository<ShoppingBasket, String>, JpaSpecificationExecutor<ShoppingBasket> {
+
+    default Optional<ShoppingBasket> findByIdWithAccess(String basketId, String customerId, String token, boolean isAdmin) {
+        return isAdmin
+                ? findByIdForAdmin(basketId, customerId)
+                : findByIdForTenant(basketId, customerId, token);
+    }
 
     @Query("""
         SELECT b FROM ShoppingBasket b
         JOIN b.customer c
         WHERE b.id = :basketId 
         AND c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    Optional<ShoppingBasket> findByIdWithAccess(
+    Optional<ShoppingBasket> findByIdForTenant(
             @Param("basketId") String basketId,
             @Param("customerId") String customerId,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("token") String token
+    );
+
+    @Query("""
+        SELECT b FROM ShoppingBasket b
+        WHERE b.id = :basketId 
+        AND b.customer.id = :customerId
+    """)
+    Optional<ShoppingBasket> findByIdForAdmin(
+            @Param("basketId") String basketId,
+            @Param("customerId") String customerId
+    );
+
+    /**
+     * Resolves customer and basket in one query, the customer row is the left side so a missing
+     * basket can be told apart from a missing customer.
+     */
+    default Optional<BasketAccessPath> findAccessPath(String customerId, String basketId, String token, boolean isAdmin) {
+        return isAdmin
+                ? findAccessPathForAdmin(customerId, basketId)
+                : findAccessPathForTenant(customerId, basketId, token);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.BasketAccessPath(c.id, c.ownerToken, b)
+        FROM Customer c
+        LEFT JOIN c.baskets b ON b.id = :basketId
+        WHERE c.id = :customerId
+        AND c.ownerToken = :token
+    """)
+    Optional<BasketAccessPath> findAccessPathForTenant(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("token") String token
     );
 
     @Query("""
-        SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END
+        SELECT new com.samuel.sniffers.repository.projection.BasketAccessPath(c.id, c.ownerToken, b)
         FROM Customer c
-        LEFT JOIN c.baskets b
-        LEFT JOIN b.items i
+        LEFT JOIN c.baskets b ON b.id = :basketId
+        WHERE c.id = :customerId
+    """)
+    Optional<BasketAccessPath> findAccessPathForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId
+    );
+
+    default boolean existByIdAndOwnerToken(String customerId, String basketId, String token, boolean isAdmin) {
+        return isAdmin
+                ? existsByIdForAdmin(customerId, basketId)
+                : existsByIdForTenant(customerId, basketId, token);
+    }
+
+    @Query("""
+        SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END
+        FROM ShoppingBasket b
+        JOIN b.customer c
         WHERE c.id = :customerId
         AND b.id = :basketId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    boolean existByIdAndOwnerToken(
+    boolean existsByIdForTenant(
             @Param("customerId") String customerId,
             @Param("basketId") String basketId,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("token") String token
+    );
+
+    @Query("""
+        SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END
+        FROM ShoppingBasket b
+        WHERE b.customer.id = :customerId
+        AND b.id = :basketId
+    """)
+    boolean existsByIdForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId
     );
 
+    /**
+     * One page of the baskets of a customer, without a count query. countByCustomerId counts them when
+     * the total is asked for.
+     */
+    default Slice<ShoppingBasket> findSliceByCustomerWithAccess(String customerId, String token, boolean isAdmin, Pageable pageable) {
+        return isAdmin
+                ? findSliceByCustomerForAdmin(customerId, pageable)
+                : findSliceByCustomerForTenant(customerId, token, pageable);
+    }
+
     @Query("""
         SELECT b FROM ShoppingBasket b
         JOIN b.customer c
         WHERE c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    Page<ShoppingBasket> findByCustomerWithAccess(
+    Slice<ShoppingBasket> findSliceByCustomerForTenant(
             @Param("customerId") String customerId,
             @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin,
             Pageable pageable
     );
 
     @Query("""
         SELECT b FROM ShoppingBasket b
+        WHERE b.customer.id = :customerId
+    """)
+    Slice<ShoppingBasket> findSliceByCustomerForAdmin(
+            @Param("customerId") String customerId,
+            Pageable pageable
+    );
+
+    /**
+     * Lean count on the basket table only, the foreign key replaces the join to customer.
+     * Access to the customer must have been checked by the caller.
+     */
+    @Query("""
+        SELECT COUNT(b) FROM ShoppingBasket b
+        WHERE b.customer.id = :customerId
+    """)
+    long countByCustomerId(@Param("customerId") String customerId);
+
+    /**
+     * Batch load of the baskets of several customers, used to expand a page of customers with one query.
+     * The customer ids must come from an access checked read.
+     */
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.BasketView(b.id, b.customer.id, b.status, b.statusDate, b.created)
+        FROM ShoppingBasket b
+        WHERE b.customer.id IN :customerIds
+    """)
+    List<BasketView> findViewsByCustomerIdIn(@Param("customerIds") Collection<String> customerIds);
+
+    /**
+     * Current status of the requested baskets without loading entities, the input of a set based status change.
+     */
+    default List<BasketView> findViewsByCustomerIdAndBasketIds(String customerId, Collection<String> basketIds, String token, boolean isAdmin) {
+        return isAdmin
+                ? findViewsByCustomerIdAndBasketIdsForAdmin(customerId, basketIds)
+                : findViewsByCustomerIdAndBasketIdsForTenant(customerId, basketIds, token);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.BasketView(b.id, c.id, b.status, b.statusDate, b.created)
+        FROM ShoppingBasket b
         JOIN b.customer c
         WHERE b.id IN :basketIds
         AND c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
     """)
-    List<ShoppingBasket> findByCustomerIdAndBasketIds(
+    List<BasketView> findViewsByCustomerIdAndBasketIdsForTenant(
             @Param("customerId") String customerId,
-            @Param("basketIds") List<String> basketIds,
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("basketIds") Collection<String> basketIds,
+            @Param("token") String token
+    );
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.BasketView(b.id, b.customer.id, b.status, b.statusDate, b.created)
+        FROM ShoppingBasket b
+        WHERE b.id IN :basketIds
+        AND b.customer.id = :customerId
+    """)
+    List<BasketView> findViewsByCustomerIdAndBasketIdsForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketIds") Collection<String> basketIds
+    );
+
+    /**
+     * Conditional bulk status change: only rows still in fromStatus move, so the affected row count tells
+     * the caller how many of the ids were actually updated. Bypasses the persistence context, which is
+     * flushed before and cleared after the statement.
+     */
+    default int updateStatusWithAccess(
+            String customerId,
+            Collection<String> basketIds,
+            BasketStatus fromStatus,
+            BasketStatus toStatus,
+            LocalDateTime statusDate,
+            String token,
+            boolean isAdmin
+    ) {
+        return isAdmin
+                ? updateStatusForAdmin(customerId, basketIds, fromStatus, toStatus, statusDate)
+                : updateStatusForTenant(customerId, basketIds, fromStatus, toStatus, statusDate, token);
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE ShoppingBasket b
+        SET b.status = :toStatus, b.statusDate = :statusDate, b.version = b.version + 1, b.modified = :statusDate
+        WHERE b.id IN :basketIds
+        AND b.status = :fromStatus
+        AND b.customer.id = :customerId
+        AND EXISTS (SELECT c.id FROM Customer c WHERE c.id = :customerId AND c.ownerToken = :token)
+    """)
+    int updateStatusForTenant(
+            @Param("customerId") String customerId,
+            @Param("basketIds") Collection<String> basketIds,
+            @Param("fromStatus") BasketStatus fromStatus,
+            @Param("toStatus") BasketStatus toStatus,
+            @Param("statusDate") LocalDateTime statusDate,
+            @Param("token") String token
+    );
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE ShoppingBasket b
+        SET b.status = :toStatus, b.statusDate = :statusDate, b.version = b.version + 1, b.modified = :statusDate
+        WHERE b.id IN :basketIds
+        AND b.status = :fromStatus
+        AND b.customer.id = :customerId
+    """)
+    int updateStatusForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketIds") Collection<String> basketIds,
+            @Param("fromStatus") BasketStatus fromStatus,
+            @Param("toStatus") BasketStatus toStatus,
+            @Param("statusDate") LocalDateTime statusDate
     );
 
     /**
      * Stream all baskets for a specific customer with access control.
      * IMPORTANT: This stream must be closed after use to prevent connection leaks.
      */
+    default Stream<ShoppingBasket> streamAllWithAccess(String customerId, String token, boolean isAdmin) {
+        return streamAllWithAccess(customerId, token, isAdmin, null);
+    }
+
+    /**
+     * Stream the customer's baskets after the given id in id order, all of them when after is null.
+     */
+    default Stream<ShoppingBasket> streamAllWithAccess(String customerId, String token, boolean isAdmin, String after) {
+        String start = after == null ? StreamingQueries.START : after;
+        return isAdmin ? streamAllForAdmin(customerId, start) : streamAllForTenant(customerId, token, start);
+    }
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("""
         SELECT b FROM ShoppingBasket b
         JOIN b.customer c
         WHERE c.id = :customerId
-        AND (c.ownerToken = :token OR :isAdmin = true)
+        AND c.ownerToken = :token
+        AND b.id > :after
+        ORDER BY b.id
     """)
-    Stream<ShoppingBasket> streamAllWithAccess(
+    Stream<ShoppingBasket> streamAllForTenant(
             @Param("customerId") String customerId,
             @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("after") String after
     );
-}
\ No newline at end of file
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT b FROM ShoppingBasket b
+        WHERE b.customer.id = :customerId
+        AND b.id > :after
+        ORDER BY b.id
+    """)
+    Stream<ShoppingBasket> streamAllForAdmin(@Param("customerId") String customerId, @Param("after") String after);
+
+    /**
+     * Keyset (seek) variant of findSliceByCustomerWithAccess.
+     */
+    default Window<ShoppingBasket> scrollByCustomerWithAccess(
+            String customerId,
+            String token,
+            boolean isAdmin,
+            Sort sort,
+            int limit,
+            KeysetScrollPosition position
+    ) {
+        return findBy(ShoppingBasketSpecifications.forCustomerWithAccess(customerId, token, isAdmin),
+                query -> query.sortBy(sort).limit(limit).scroll(position));
+    }
+
+    default Optional<EntityVersion> findVersionWithAccess(String customerId, String basketId, String token, boolean isAdmin) {
+        return isAdmin
+                ? findVersionForAdmin(customerId, basketId)
+                : findVersionForTenant(customerId, basketId, token);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.EntityVersion(b.version, b.modified)
+        FROM ShoppingBasket b
+        JOIN b.customer c
+        WHERE b.id = :basketId
+        AND c.id = :customerId
+        AND c.ownerToken = :token
+    """)
+    Optional<EntityVersion> findVersionForTenant(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("token") String token
+    );
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.EntityVersion(b.version, b.modified)
+        FROM ShoppingBasket b
+        WHERE b.id = :basketId
+        AND b.customer.id = :customerId
+    """)
+    Optional<EntityVersion> findVersionForAdmin(@Param("customerId") String customerId, @Param("basketId") String basketId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE ShoppingBasket b
+        SET b.version = b.version + 1, b.modified = :modified
+        WHERE b.id = :id
+    """)
+    int incrementVersion(@Param("id") String id, @Param("modified") LocalDateTime modified);
+
+    /**
+     * Increments the version only while it is still the expected one, 0 means the basket changed since.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE ShoppingBasket b
+        SET b.version = b.version + 1, b.modified = :modified
+        WHERE b.id = :id AND b.version = :version
+    """)
+    int incrementVersionIfMatches(@Param("id") String id, @Param("version") long version, @Param("modified") LocalDateTime modified);
+}
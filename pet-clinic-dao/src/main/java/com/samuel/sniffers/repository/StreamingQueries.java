@@ -0,0 +1,16 @@
+package com.samuel.sniffers.repository;
+
+/**
+ * Shared settings of the repository stream queries.
+ */
+public final class StreamingQueries {
+
+    // Rows per round trip. With a fetch size MariaDB Connector/J streams the result set instead of buffering it whole
+    public static final String FETCH_SIZE = "100";
+
+    // Position before the first row, 16 zero bytes sort before every stored id
+    public static final String START = "00000000-0000-0000-0000-000000000000";
+
+    private StreamingQueries() {
+    }
+}
@@ -0,0 +1,11 @@
+package com.samuel.sniffers.repository.projection;
+
+import com.samuel.sniffers.entity.ShoppingBasket;
+
+/**
+ * Result of a customer -> basket ownership lookup. The row exists when the customer is visible to the
+ * caller, the basket is null when the customer has no basket with the requested id. The owner token is
+ * read from the joined customer, so it is known without loading the basket's lazy customer.
+ */
+public record BasketAccessPath(String customerId, String ownerToken, ShoppingBasket basket) {
+}
@@ -0,0 +1,11 @@
+package com.samuel.sniffers.repository.projection;
+
+import com.samuel.sniffers.enums.BasketStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only basket columns, customerId is the foreign key column so the customer is never joined.
+ */
+public record BasketView(String id, String customerId, BasketStatus status, LocalDateTime statusDate, LocalDateTime created) {
+}
@@ -0,0 +1,8 @@
+package com.samuel.sniffers.repository.projection;
+
+/**
+ * One row per basket of a customer visible to the caller, with the customer's owner token. A customer without
+ * baskets gives a single row with a null basket id, a customer the caller cannot see gives no rows.
+ */
+public record CustomerBasketId(String ownerToken, String basketId) {
+}
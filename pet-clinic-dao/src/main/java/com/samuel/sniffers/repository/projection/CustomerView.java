@@ -0,0 +1,10 @@
+package com.samuel.sniffers.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only customer columns selected straight into a record, nothing is registered in the persistence context.
+ */
+public record CustomerView(String id, String name, String timezone, LocalDateTime created, String ownerToken, long version,
+                           LocalDateTime modified) {
+}
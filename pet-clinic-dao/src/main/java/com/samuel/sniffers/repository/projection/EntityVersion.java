@@ -0,0 +1,9 @@
+package com.samuel.sniffers.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version and modification time of a row, read without loading the entity to answer conditional requests.
+ */
+public record EntityVersion(long version, LocalDateTime modified) {
+}
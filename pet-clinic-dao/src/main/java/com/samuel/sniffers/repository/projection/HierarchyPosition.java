@@ -0,0 +1,16 @@
+package com.samuel.sniffers.repository.projection;
+
+import com.samuel.sniffers.repository.StreamingQueries;
+
+/**
+ * Keyset position in (customer, basket, item) id order, the ids of the last row read. A null basketId or
+ * itemId marks the only row of its customer or basket.
+ */
+public record HierarchyPosition(String customerId, String basketId, String itemId) {
+
+    public static final HierarchyPosition START = new HierarchyPosition(StreamingQueries.START, null, null);
+
+    public static HierarchyPosition after(HierarchyRow row) {
+        return new HierarchyPosition(row.customerId(), row.basketId(), row.itemId());
+    }
+}
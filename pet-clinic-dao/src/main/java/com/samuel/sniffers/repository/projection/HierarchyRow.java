@@ -0,0 +1,26 @@
+package com.samuel.sniffers.repository.projection;
+
+import com.samuel.sniffers.enums.BasketStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * One customer x basket x item row, as written by the hierarchy export and read from the
+ * customer_basket_item_overview view. The basket columns are null for a customer without baskets and
+ * the item columns for a basket without items.
+ */
+public record HierarchyRow(
+        String customerId,
+        String customerName,
+        String customerTimezone,
+        LocalDateTime customerCreated,
+        String basketId,
+        BasketStatus basketStatus,
+        LocalDateTime basketStatusDate,
+        LocalDateTime basketCreated,
+        String itemId,
+        String itemDescription,
+        Integer itemAmount,
+        LocalDateTime itemCreated
+) {
+}
@@ -0,0 +1,10 @@
+package com.samuel.sniffers.repository.projection;
+
+import com.samuel.sniffers.entity.Item;
+
+/**
+ * Result of a customer -> basket -> item ownership lookup. The row exists when the customer is visible
+ * to the caller, basketId and item are null when the corresponding level does not match.
+ */
+public record ItemAccessPath(String customerId, String basketId, Item item) {
+}
@@ -0,0 +1,7 @@
+package com.samuel.sniffers.repository.projection;
+
+/**
+ * Read-only item columns, basketId is the foreign key column so the basket is never joined.
+ */
+public record ItemView(String id, String basketId, String description, Integer amount) {
+}
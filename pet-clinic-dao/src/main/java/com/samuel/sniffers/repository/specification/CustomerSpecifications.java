@@ -0,0 +1,21 @@
+package com.samuel.sniffers.repository.specification;
+
+import com.samuel.sniffers.entity.Customer;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class CustomerSpecifications {
+
+    private CustomerSpecifications() {
+        // Prevent instantiation of CustomerSpecifications
+        throw new UnsupportedOperationException("This is an utility class and cannot be instantiated");
+    }
+
+    /**
+     * Restricts customers to the given owner token unless the caller is admin.
+     */
+    public static Specification<Customer> withAccess(String token, boolean isAdmin) {
+        return (root, query, cb) -> isAdmin
+                ? cb.conjunction()
+                : cb.equal(root.get("ownerToken"), token);
+    }
+}
@@ -0,0 +1,35 @@
+package com.samuel.sniffers.repository.specification;
+
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.Item;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import jakarta.persistence.criteria.Join;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class ItemSpecifications {
+
+    private ItemSpecifications() {
+        // Prevent instantiation of ItemSpecifications
+        throw new UnsupportedOperationException("This is an utility class and cannot be instantiated");
+    }
+
+    /**
+     * Restricts items to the given customer basket, and to the given owner token unless the caller is admin.
+     */
+    public static Specification<Item> forBasketWithAccess(String basketId, String customerId, String token, boolean isAdmin) {
+        return (root, query, cb) -> {
+            Join<Item, ShoppingBasket> basket = root.join("basket");
+            if (isAdmin) {
+                return cb.and(
+                        cb.equal(basket.get("id"), basketId),
+                        cb.equal(basket.get("customer").get("id"), customerId));
+            }
+
+            Join<ShoppingBasket, Customer> customer = basket.join("customer");
+            return cb.and(
+                    cb.equal(basket.get("id"), basketId),
+                    cb.equal(customer.get("id"), customerId),
+                    cb.equal(customer.get("ownerToken"), token));
+        };
+    }
+}
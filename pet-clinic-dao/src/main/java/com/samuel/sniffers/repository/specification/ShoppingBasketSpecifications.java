@@ -0,0 +1,30 @@
+package com.samuel.sniffers.repository.specification;
+
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import jakarta.persistence.criteria.Join;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class ShoppingBasketSpecifications {
+
+    private ShoppingBasketSpecifications() {
+        // Prevent instantiation of ShoppingBasketSpecifications
+        throw new UnsupportedOperationException("This is an utility class and cannot be instantiated");
+    }
+
+    /**
+     * Restricts baskets to the given customer, and to the given owner token unless the caller is admin.
+     */
+    public static Specification<ShoppingBasket> forCustomerWithAccess(String customerId, String token, boolean isAdmin) {
+        return (root, query, cb) -> {
+            if (isAdmin) {
+                return cb.equal(root.get("customer").get("id"), customerId);
+            }
+
+            Join<ShoppingBasket, Customer> customer = root.join("customer");
+            return cb.and(
+                    cb.equal(customer.get("id"), customerId),
+                    cb.equal(customer.get("ownerToken"), token));
+        };
+    }
+}
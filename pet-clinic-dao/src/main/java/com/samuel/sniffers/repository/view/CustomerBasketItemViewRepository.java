@@ -1,25 +1,205 @@
 package com.samuel.sniffers.repository.view;
 
 import com.samuel.sniffers.entity.view.CustomerBasketItemView;
+import com.samuel.sniffers.repository.StreamingQueries;
+import com.samuel.sniffers.repository.projection.HierarchyPosition;
+import com.samuel.sniffers.repository.projection.HierarchyRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * The window and stream reads select straight into {@link HierarchyRow}. The view entity is keyed by
+ * customer id only, rows of the same customer loaded as entities would collapse into one instance.
+ *
+ * <p>Windows are ordered by customer, basket and item id and continue after a {@link HierarchyPosition}.
+ * A null basket or item id in the position compares as unknown, so the next window starts with the next
+ * customer or basket, which is right because such a row is the only one of its customer or basket.
+ */
 public interface CustomerBasketItemViewRepository extends JpaRepository<CustomerBasketItemView, String> {
-    @Query(value = "SELECT * FROM customer_basket_item_overview WHERE owner_token = :token OR :isAdmin = true",
+
+    default List<CustomerBasketItemView> findAllWithAccess(String token, boolean isAdmin) {
+        return isAdmin ? findAllForAdmin() : findAllForTenant(token);
+    }
+
+    @Query(value = "SELECT * FROM customer_basket_item_overview WHERE owner_token = :token",
             nativeQuery = true)
-    List<CustomerBasketItemView> findAllWithAccess(
-            @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+    List<CustomerBasketItemView> findAllForTenant(@Param("token") String token);
+
+    @Query(value = "SELECT * FROM customer_basket_item_overview",
+            nativeQuery = true)
+    List<CustomerBasketItemView> findAllForAdmin();
+
+    default List<CustomerBasketItemView> findByCustomerNameWithAccess(String customerName, String token, boolean isAdmin) {
+        return isAdmin
+                ? findByCustomerNameForAdmin(customerName)
+                : findByCustomerNameForTenant(customerName, token);
+    }
+
+    @Query(value = "SELECT * FROM customer_basket_item_overview WHERE customer_name = :customerName AND owner_token = :token",
+            nativeQuery = true)
+    List<CustomerBasketItemView> findByCustomerNameForTenant(
+            @Param("customerName") String customerName,
+            @Param("token") String token
     );
 
-    @Query(value = "SELECT * FROM customer_basket_item_overview WHERE customer_name = :customerName AND (owner_token = :token OR :isAdmin = true)",
+    @Query(value = "SELECT * FROM customer_basket_item_overview WHERE customer_name = :customerName",
             nativeQuery = true)
-    List<CustomerBasketItemView> findByCustomerNameWithAccess(
+    List<CustomerBasketItemView> findByCustomerNameForAdmin(@Param("customerName") String customerName);
+
+    default List<HierarchyRow> findWindowWithAccess(String token, boolean isAdmin, HierarchyPosition after, Limit limit) {
+        return isAdmin
+                ? findWindowForAdmin(after.customerId(), after.basketId(), after.itemId(), limit)
+                : findWindowForTenant(token, after.customerId(), after.basketId(), after.itemId(), limit);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        WHERE v.ownerToken = :token
+        AND (v.customerId > :customerId OR (v.customerId = :customerId
+            AND (v.basketId > :basketId OR (v.basketId = :basketId AND v.itemId > :itemId))))
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    List<HierarchyRow> findWindowForTenant(
+            @Param("token") String token,
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId,
+            Limit limit
+    );
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        WHERE v.customerId > :customerId OR (v.customerId = :customerId
+            AND (v.basketId > :basketId OR (v.basketId = :basketId AND v.itemId > :itemId)))
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    List<HierarchyRow> findWindowForAdmin(
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId,
+            Limit limit
+    );
+
+    default List<HierarchyRow> findWindowByCustomerNameWithAccess(
+            String customerName, String token, boolean isAdmin, HierarchyPosition after, Limit limit) {
+        return isAdmin
+                ? findWindowByCustomerNameForAdmin(customerName, after.customerId(), after.basketId(), after.itemId(), limit)
+                : findWindowByCustomerNameForTenant(customerName, token, after.customerId(), after.basketId(), after.itemId(), limit);
+    }
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        WHERE v.customerName = :customerName AND v.ownerToken = :token
+        AND (v.customerId > :customerId OR (v.customerId = :customerId
+            AND (v.basketId > :basketId OR (v.basketId = :basketId AND v.itemId > :itemId))))
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    List<HierarchyRow> findWindowByCustomerNameForTenant(
             @Param("customerName") String customerName,
             @Param("token") String token,
-            @Param("isAdmin") boolean isAdmin
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId,
+            Limit limit
+    );
+
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        WHERE v.customerName = :customerName
+        AND (v.customerId > :customerId OR (v.customerId = :customerId
+            AND (v.basketId > :basketId OR (v.basketId = :basketId AND v.itemId > :itemId))))
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    List<HierarchyRow> findWindowByCustomerNameForAdmin(
+            @Param("customerName") String customerName,
+            @Param("customerId") String customerId,
+            @Param("basketId") String basketId,
+            @Param("itemId") String itemId,
+            Limit limit
     );
+
+    /**
+     * IMPORTANT: This stream must be closed after use to prevent connection leaks.
+     */
+    default Stream<HierarchyRow> streamAllWithAccess(String token, boolean isAdmin) {
+        return isAdmin ? streamAllForAdmin() : streamAllForTenant(token);
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        WHERE v.ownerToken = :token
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    Stream<HierarchyRow> streamAllForTenant(@Param("token") String token);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    Stream<HierarchyRow> streamAllForAdmin();
+
+    /**
+     * IMPORTANT: This stream must be closed after use to prevent connection leaks.
+     */
+    default Stream<HierarchyRow> streamByCustomerNameWithAccess(String customerName, String token, boolean isAdmin) {
+        return isAdmin ? streamByCustomerNameForAdmin(customerName) : streamByCustomerNameForTenant(customerName, token);
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        WHERE v.customerName = :customerName AND v.ownerToken = :token
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    Stream<HierarchyRow> streamByCustomerNameForTenant(@Param("customerName") String customerName, @Param("token") String token);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
+    @Query("""
+        SELECT new com.samuel.sniffers.repository.projection.HierarchyRow(
+            v.customerId, v.customerName, v.customerTimezone, v.customerCreated,
+            v.basketId, v.basketStatus, v.basketStatusDate, v.basketCreated,
+            v.itemId, v.itemDescription, v.itemAmount, v.itemCreated)
+        FROM CustomerBasketItemView v
+        WHERE v.customerName = :customerName
+        ORDER BY v.customerId, v.basketId, v.itemId
+    """)
+    Stream<HierarchyRow> streamByCustomerNameForAdmin(@Param("customerName") String customerName);
 }
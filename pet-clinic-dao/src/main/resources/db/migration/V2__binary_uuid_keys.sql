@@ -0,0 +1,70 @@
+-- Flyway migration script: V2__binary_uuid_keys.sql
+-- Stores ids as BINARY(16) instead of CHAR(36). Existing ids keep their value, new ones are time ordered UUID v7.
+
+DROP VIEW IF EXISTS customer_basket_item_overview;
+
+ALTER TABLE items DROP FOREIGN KEY items_ibfk_1;
+ALTER TABLE shopping_baskets DROP FOREIGN KEY shopping_baskets_ibfk_1;
+
+-- customers
+ALTER TABLE customers ADD COLUMN id_bin BINARY(16) NULL FIRST;
+UPDATE customers SET id_bin = UNHEX(REPLACE(id, '-', ''));
+ALTER TABLE customers DROP PRIMARY KEY, DROP COLUMN id;
+ALTER TABLE customers CHANGE id_bin id BINARY(16) NOT NULL, ADD PRIMARY KEY (id);
+
+-- shopping_baskets
+ALTER TABLE shopping_baskets
+    ADD COLUMN id_bin BINARY(16) NULL FIRST,
+    ADD COLUMN customer_id_bin BINARY(16) NULL AFTER customer_id;
+UPDATE shopping_baskets
+SET id_bin = UNHEX(REPLACE(id, '-', '')),
+    customer_id_bin = UNHEX(REPLACE(customer_id, '-', ''));
+ALTER TABLE shopping_baskets DROP PRIMARY KEY, DROP COLUMN id, DROP COLUMN customer_id;
+ALTER TABLE shopping_baskets
+    CHANGE id_bin id BINARY(16) NOT NULL,
+    CHANGE customer_id_bin customer_id BINARY(16) NOT NULL,
+    ADD PRIMARY KEY (id);
+
+-- items
+ALTER TABLE items
+    ADD COLUMN id_bin BINARY(16) NULL FIRST,
+    ADD COLUMN basket_id_bin BINARY(16) NULL AFTER basket_id;
+UPDATE items
+SET id_bin = UNHEX(REPLACE(id, '-', '')),
+    basket_id_bin = UNHEX(REPLACE(basket_id, '-', ''));
+ALTER TABLE items DROP PRIMARY KEY, DROP COLUMN id, DROP COLUMN basket_id;
+ALTER TABLE items
+    CHANGE id_bin id BINARY(16) NOT NULL,
+    CHANGE basket_id_bin basket_id BINARY(16) NOT NULL,
+    ADD PRIMARY KEY (id);
+
+-- Indexes on the dropped columns went with them
+CREATE INDEX idx_baskets_customer_id ON shopping_baskets (customer_id);
+CREATE INDEX idx_items_basket_id ON items (basket_id);
+
+ALTER TABLE shopping_baskets
+    ADD CONSTRAINT fk_baskets_customer FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE;
+ALTER TABLE items
+    ADD CONSTRAINT fk_items_basket FOREIGN KEY (basket_id) REFERENCES shopping_baskets(id) ON DELETE CASCADE;
+
+CREATE OR REPLACE VIEW customer_basket_item_overview AS
+SELECT
+    c.id AS customer_id,
+    c.name AS customer_name,
+    c.timezone AS customer_timezone,
+    c.owner_token AS owner_token,
+    c.created AS customer_created,
+    b.id AS basket_id,
+    b.status AS basket_status,
+    b.created AS basket_created,
+    b.status_date AS basket_status_date,
+    i.id AS item_id,
+    i.description AS item_description,
+    i.amount AS item_amount,
+    i.created AS item_created
+FROM
+    customers c
+LEFT JOIN
+    shopping_baskets b ON c.id = b.customer_id
+LEFT JOIN
+    items i ON b.id = i.basket_id;
@@ -0,0 +1,18 @@
+-- Flyway migration script: V3__representation_versions.sql
+-- Version and modification time of what GET returns for a row. A customer is rendered with its baskets and
+-- items and a basket with its items, so the write paths also increment the parents of what they change.
+
+ALTER TABLE customers
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN modified DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+UPDATE customers SET modified = created;
+
+ALTER TABLE shopping_baskets
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN modified DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+UPDATE shopping_baskets SET modified = GREATEST(created, status_date);
+
+ALTER TABLE items
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN modified DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+UPDATE items SET modified = created;
@@ -9,10 +9,13 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
@@ -21,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -73,6 +77,19 @@ class CustomerRepositoryTest {
         customerRepository.saveAll(List.of(customer1, customer2));
     }
 
+    @Test
+    @DisplayName("ids should be time ordered UUID v7 strings that round trip through BINARY(16)")
+    void save_ShouldAssignTimeOrderedBinaryIds() {
+        // Then: ids are version 7 and increase in insertion order
+        assertThat(UUID.fromString(customer1.getId()).version()).isEqualTo(7);
+        assertThat(customer1.getId()).isLessThan(customer2.getId());
+
+        // Then: lookups bind the string id as binary, a malformed id simply matches nothing
+        assertThat(customerRepository.findById(customer1.getId())).isPresent();
+        assertThat(customerRepository.existsByIdAndOwnerToken(customer2.getId(), OWNER_TOKEN_2)).isTrue();
+        assertThat(customerRepository.findById("not-a-uuid")).isEmpty();
+    }
+
     @Test
     @DisplayName("streamAllWithAccess should return all customers for admin")
     void streamAllWithAccess_AsAdmin_ShouldReturnAllCustomers() {
@@ -148,52 +165,52 @@ class CustomerRepositoryTest {
     }
 
     @Test
-    @DisplayName("findAllWithAccess with pagination should return all customers for admin")
-    void findAllWithAccess_WithPagination_AsAdmin_ShouldReturnAllCustomers() {
+    @DisplayName("findSliceWithAccess should return all customers for admin")
+    void findSliceWithAccess_AsAdmin_ShouldReturnAllCustomers() {
         // When: Finding all customers as admin with pagination
-        Page<Customer> customerPage = customerRepository.findAllWithAccess("any-token", IS_ADMIN, Pageable.unpaged());
+        Slice<Customer> customerSlice = customerRepository.findSliceWithAccess("any-token", IS_ADMIN, Pageable.unpaged());
 
         // Then: Should return all customers
-        assertThat(customerPage.getContent()).hasSize(2);
-        assertThat(customerPage.getContent()).extracting(Customer::getId)
+        assertThat(customerSlice.getContent()).hasSize(2);
+        assertThat(customerSlice.getContent()).extracting(Customer::getId)
                 .containsExactlyInAnyOrder(customer1.getId(), customer2.getId());
-        assertThat(customerPage.getTotalElements()).isEqualTo(2);
+        assertThat(customerRepository.countWithAccess("any-token", IS_ADMIN)).isEqualTo(2);
     }
 
     @Test
-    @DisplayName("findAllWithAccess with pagination should return only matching customers for non-admin")
-    void findAllWithAccess_WithPagination_AsNonAdmin_ShouldReturnOnlyMatchingCustomers() {
+    @DisplayName("findSliceWithAccess should return only matching customers for non-admin")
+    void findSliceWithAccess_AsNonAdmin_ShouldReturnOnlyMatchingCustomers() {
         // When: Finding as token1 user with pagination
-        Page<Customer> customerPage1 = customerRepository.findAllWithAccess(OWNER_TOKEN_1, NOT_ADMIN, Pageable.unpaged());
+        Slice<Customer> customerSlice1 = customerRepository.findSliceWithAccess(OWNER_TOKEN_1, NOT_ADMIN, Pageable.unpaged());
 
         // Then: Should return only customer1
-        assertThat(customerPage1.getContent()).hasSize(1);
-        assertThat(customerPage1.getContent().get(0).getId()).isEqualTo(customer1.getId());
-        assertThat(customerPage1.getTotalElements()).isEqualTo(1);
+        assertThat(customerSlice1.getContent()).hasSize(1);
+        assertThat(customerSlice1.getContent().get(0).getId()).isEqualTo(customer1.getId());
+        assertThat(customerRepository.countWithAccess(OWNER_TOKEN_1, NOT_ADMIN)).isEqualTo(1);
 
         // When: Finding as token2 user with pagination
-        Page<Customer> customerPage2 = customerRepository.findAllWithAccess(OWNER_TOKEN_2, NOT_ADMIN, Pageable.unpaged());
+        Slice<Customer> customerSlice2 = customerRepository.findSliceWithAccess(OWNER_TOKEN_2, NOT_ADMIN, Pageable.unpaged());
 
         // Then: Should return only customer2
-        assertThat(customerPage2.getContent()).hasSize(1);
-        assertThat(customerPage2.getContent().get(0).getId()).isEqualTo(customer2.getId());
-        assertThat(customerPage2.getTotalElements()).isEqualTo(1);
+        assertThat(customerSlice2.getContent()).hasSize(1);
+        assertThat(customerSlice2.getContent().get(0).getId()).isEqualTo(customer2.getId());
+        assertThat(customerRepository.countWithAccess(OWNER_TOKEN_2, NOT_ADMIN)).isEqualTo(1);
     }
 
     @Test
-    @DisplayName("findAllWithAccess with pagination should return empty page for non-matching token")
-    void findAllWithAccess_WithPagination_WithNonMatchingToken_ShouldReturnEmptyPage() {
+    @DisplayName("findSliceWithAccess should return empty slice for non-matching token")
+    void findSliceWithAccess_WithNonMatchingToken_ShouldReturnEmptySlice() {
         // When: Finding with invalid token with pagination
-        Page<Customer> customerPage = customerRepository.findAllWithAccess("non-existing-token", NOT_ADMIN, Pageable.unpaged());
+        Slice<Customer> customerSlice = customerRepository.findSliceWithAccess("non-existing-token", NOT_ADMIN, Pageable.unpaged());
 
-        // Then: Should return empty page
-        assertThat(customerPage.getContent()).isEmpty();
-        assertThat(customerPage.getTotalElements()).isZero();
+        // Then: Should return empty slice
+        assertThat(customerSlice.getContent()).isEmpty();
+        assertThat(customerRepository.countWithAccess("non-existing-token", NOT_ADMIN)).isZero();
     }
 
     @Test
-    @DisplayName("findAllWithAccess with pagination should respect pagination parameters")
-    void findAllWithAccess_WithPagination_ShouldRespectPageSize() {
+    @DisplayName("findSliceWithAccess should respect pagination parameters")
+    void findSliceWithAccess_WithPagination_ShouldRespectPageSize() {
         // Create additional customers to have more data
         Customer customer3 = new Customer();
         customer3.setName("Test Customer 3");
@@ -206,18 +223,50 @@ class CustomerRepositoryTest {
 
         // When: Finding with page size 1 as admin
         PageRequest pageRequest = PageRequest.of(0, 1, Sort.by("name").ascending());
-        Page<Customer> customerPage = customerRepository.findAllWithAccess("any-token", IS_ADMIN, pageRequest);
+        Slice<Customer> customerSlice = customerRepository.findSliceWithAccess("any-token", IS_ADMIN, pageRequest);
 
-        // Then: Should return only one customer but know about all three
-        assertThat(customerPage.getContent()).hasSize(1);
-        assertThat(customerPage.getTotalElements()).isEqualTo(3);
-        assertThat(customerPage.getTotalPages()).isEqualTo(3);
+        // Then: Should return only one customer and know there are more
+        assertThat(customerSlice.getContent()).hasSize(1);
+        assertThat(customerSlice.hasNext()).isTrue();
+        assertThat(customerRepository.countWithAccess("any-token", IS_ADMIN)).isEqualTo(3);
 
         // Check sorting and pagination
         PageRequest secondPageRequest = PageRequest.of(1, 1, Sort.by("name").ascending());
-        Page<Customer> secondPage = customerRepository.findAllWithAccess("any-token", IS_ADMIN, secondPageRequest);
+        Slice<Customer> secondSlice = customerRepository.findSliceWithAccess("any-token", IS_ADMIN, secondPageRequest);
+
+        assertThat(secondSlice.getContent()).hasSize(1);
+        assertThat(secondSlice.getNumber()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("scrollAllWithAccess should seek past the previous window for matching token")
+    void scrollAllWithAccess_AsNonAdmin_ShouldSeekFromPosition() {
+        Customer customer3 = new Customer();
+        customer3.setName("Test Customer 3");
+        customer3.setTimezone("UTC");
+        customer3.setCreated(LocalDateTime.now());
+        customer3.setOwnerToken(OWNER_TOKEN_1);
+        customer3.setBaskets(new HashSet<>());
+
+        customerRepository.save(customer3);
+
+        Sort sort = Sort.by("name").ascending().and(Sort.by("id").ascending());
+
+        // When: Reading the first window of one customer for token1
+        Window<Customer> firstWindow = customerRepository.scrollAllWithAccess(
+                OWNER_TOKEN_1, NOT_ADMIN, sort, 1, ScrollPosition.keyset());
+
+        // Then: Should return the first customer and signal more rows
+        assertThat(firstWindow.getContent()).extracting(Customer::getName).containsExactly("Test Customer 1");
+        assertThat(firstWindow.hasNext()).isTrue();
+
+        // When: Seeking from the last position of the first window
+        KeysetScrollPosition position = (KeysetScrollPosition) firstWindow.positionAt(0);
+        Window<Customer> secondWindow = customerRepository.scrollAllWithAccess(
+                OWNER_TOKEN_1, NOT_ADMIN, sort, 1, position);
 
-        assertThat(secondPage.getContent()).hasSize(1);
-        assertThat(secondPage.getNumber()).isEqualTo(1);
+        // Then: Should return the remaining customer of token1 only
+        assertThat(secondWindow.getContent()).extracting(Customer::getName).containsExactly("Test Customer 3");
+        assertThat(secondWindow.hasNext()).isFalse();
     }
-}
\ No newline at end of file
+}
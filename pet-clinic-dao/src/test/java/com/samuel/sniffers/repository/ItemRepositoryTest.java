@@ -4,6 +4,7 @@ import com.samuel.sniffers.entity.Customer;
 import com.samuel.sniffers.entity.Item;
 import com.samuel.sniffers.entity.ShoppingBasket;
 import com.samuel.sniffers.enums.BasketStatus;
+import com.samuel.sniffers.repository.projection.ItemAccessPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,14 +18,15 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -188,56 +190,88 @@ class ItemRepositoryTest {
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should return all items for basket as admin")
-    void findByCustomerWithAccess_AsAdmin_ShouldReturnAllItemsForBasket() {
+    @DisplayName("findSliceByCustomerWithAccess should return all items for basket as admin")
+    void findSliceByCustomerWithAccess_AsAdmin_ShouldReturnAllItemsForBasket() {
         // When: Finding items for basket1 as admin with pagination
-        Page<Item> itemPage = itemRepository.findByCustomerWithAccess(
+        Slice<Item> itemSlice = itemRepository.findSliceByCustomerWithAccess(
                 basket1.getId(), customer1.getId(), "any-token", IS_ADMIN, Pageable.unpaged());
 
         // Then: Should return all items in basket1
-        assertThat(itemPage.getContent()).hasSize(2);
-        assertThat(itemPage.getContent()).extracting(Item::getId)
+        assertThat(itemSlice.getContent()).hasSize(2);
+        assertThat(itemSlice.getContent()).extracting(Item::getId)
                 .containsExactlyInAnyOrder(item1.getId(), item2.getId());
-        assertThat(itemPage.getTotalElements()).isEqualTo(2);
+        assertThat(itemRepository.countByBasketId(basket1.getId())).isEqualTo(2);
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should return items for matching token")
-    void findByCustomerWithAccess_WithMatchingToken_ShouldReturnItems() {
+    @DisplayName("findSliceByCustomerWithAccess should return items for matching token")
+    void findSliceByCustomerWithAccess_WithMatchingToken_ShouldReturnItems() {
         // When: Finding items for basket1 with matching token and pagination
-        Page<Item> itemPage = itemRepository.findByCustomerWithAccess(
+        Slice<Item> itemSlice = itemRepository.findSliceByCustomerWithAccess(
                 basket1.getId(), customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, Pageable.unpaged());
 
         // Then: Should return items in basket1
-        assertThat(itemPage.getContent()).hasSize(2);
-        assertThat(itemPage.getContent()).extracting(Item::getId)
+        assertThat(itemSlice.getContent()).hasSize(2);
+        assertThat(itemSlice.getContent()).extracting(Item::getId)
                 .containsExactlyInAnyOrder(item1.getId(), item2.getId());
-        assertThat(itemPage.getTotalElements()).isEqualTo(2);
+        assertThat(itemSlice.hasNext()).isFalse();
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should return empty page for non-matching token")
-    void findByCustomerWithAccess_WithNonMatchingToken_ShouldReturnEmptyPage() {
+    @DisplayName("findSliceByCustomerWithAccess should return empty slice for non-matching token")
+    void findSliceByCustomerWithAccess_WithNonMatchingToken_ShouldReturnEmptySlice() {
         // When: Finding items for basket1 with non-matching token
-        Page<Item> itemPage = itemRepository.findByCustomerWithAccess(
+        Slice<Item> itemSlice = itemRepository.findSliceByCustomerWithAccess(
                 basket1.getId(), customer1.getId(), OWNER_TOKEN_2, NOT_ADMIN, Pageable.unpaged());
 
-        // Then: Should return empty page (no access)
-        assertThat(itemPage.getContent()).isEmpty();
-        assertThat(itemPage.getTotalElements()).isZero();
+        // Then: Should return empty slice (no access)
+        assertThat(itemSlice.getContent()).isEmpty();
+        assertThat(itemSlice.hasNext()).isFalse();
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should respect pagination")
-    void findByCustomerWithAccess_WithPagination_ShouldRespectPageSize() {
+    @DisplayName("findSliceByCustomerWithAccess should respect pagination")
+    void findSliceByCustomerWithAccess_WithPagination_ShouldRespectPageSize() {
         // When: Finding items with page size 1
-        PageRequest pageRequest = PageRequest.of(0, 1);
-        Page<Item> itemPage = itemRepository.findByCustomerWithAccess(
-                basket1.getId(), customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, pageRequest);
-
-        // Then: Should return only one item but know about both
-        assertThat(itemPage.getContent()).hasSize(1);
-        assertThat(itemPage.getTotalElements()).isEqualTo(2);
-        assertThat(itemPage.getTotalPages()).isEqualTo(2);
+        Slice<Item> itemSlice = itemRepository.findSliceByCustomerWithAccess(
+                basket1.getId(), customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, PageRequest.of(0, 1));
+
+        // Then: Should return only one item and know there is another one
+        assertThat(itemSlice.getContent()).hasSize(1);
+        assertThat(itemSlice.hasNext()).isTrue();
+        assertThat(itemRepository.findSliceByCustomerWithAccess(
+                basket1.getId(), customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, itemSlice.nextPageable()).getContent()).hasSize(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findAccessPath should resolve every level of the path for matching token")
+    void findAccessPath_WithMatchingToken_ShouldResolveItem() {
+        Optional<ItemAccessPath> path = itemRepository.findAccessPath(
+                customer1.getId(), basket1.getId(), item1.getId(), OWNER_TOKEN_1, NOT_ADMIN);
+
+        assertThat(path).isPresent();
+        assertThat(path.get().basketId()).isEqualTo(basket1.getId());
+        assertThat(path.get().item().getId()).isEqualTo(item1.getId());
+    }
+
+    @Test
+    @DisplayName("findAccessPath should tell which level of the path is missing")
+    void findAccessPath_ShouldReportMissingLevel() {
+        // Customer of another token
+        assertThat(itemRepository.findAccessPath(
+                customer1.getId(), basket1.getId(), item1.getId(), OWNER_TOKEN_2, NOT_ADMIN)).isEmpty();
+
+        // Basket of another customer
+        Optional<ItemAccessPath> foreignBasket = itemRepository.findAccessPath(
+                customer1.getId(), basket2.getId(), item3.getId(), "any-token", IS_ADMIN);
+        assertThat(foreignBasket).isPresent();
+        assertThat(foreignBasket.get().basketId()).isNull();
+
+        // Item of another basket
+        Optional<ItemAccessPath> foreignItem = itemRepository.findAccessPath(
+                customer1.getId(), basket1.getId(), item3.getId(), OWNER_TOKEN_1, NOT_ADMIN);
+        assertThat(foreignItem).isPresent();
+        assertThat(foreignItem.get().basketId()).isEqualTo(basket1.getId());
+        assertThat(foreignItem.get().item()).isNull();
+    }
+}
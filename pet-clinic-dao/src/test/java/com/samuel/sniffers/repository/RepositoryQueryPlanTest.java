@@ -0,0 +1,273 @@
+package com.samuel.sniffers.repository;
+
+import com.samuel.sniffers.entity.Customer;
+import com.samuel.sniffers.entity.Item;
+import com.samuel.sniffers.entity.ShoppingBasket;
+import com.samuel.sniffers.enums.BasketStatus;
+import com.samuel.sniffers.repository.projection.HierarchyPosition;
+import com.samuel.sniffers.repository.projection.HierarchyRow;
+import com.samuel.sniffers.repository.view.CustomerBasketItemViewRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the SQL generated for each access checked query and fails when a plan falls back
+ * to a full table scan. Admin list queries read everything by design and are not checked.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.samuel.sniffers.repository.RepositoryQueryPlanTest$RecordingStatementInspector")
+@ActiveProfiles("test")
+@ContextConfiguration(classes = RepositoryQueryPlanTest.TestConfig.class)
+@Transactional
+class RepositoryQueryPlanTest {
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackages = "com.samuel.sniffers.entity")
+    @EnableJpaRepositories(basePackages = "com.samuel.sniffers.repository")
+    static class TestConfig {
+        // Empty configuration class that enables Spring Boot auto-configuration
+    }
+
+    /**
+     * Keeps every SQL statement prepared by Hibernate so its plan can be inspected.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    private static final String TABLE_SCAN = "tablescan";
+
+    // The keyset the list services scroll by when sorting by id
+    private static final Sort KEYSET_SORT = Sort.by("id");
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ShoppingBasketRepository basketRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CustomerBasketItemViewRepository viewRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String OWNER_TOKEN = "token1";
+    private final boolean IS_ADMIN = true;
+    private final boolean NOT_ADMIN = false;
+
+    private Customer customer;
+    private ShoppingBasket basket;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setName("Test Customer 1");
+        customer.setTimezone("UTC");
+        customer.setOwnerToken(OWNER_TOKEN);
+        customerRepository.save(customer);
+
+        basket = new ShoppingBasket();
+        basket.setCustomer(customer);
+        basket.setStatus(BasketStatus.NEW);
+        basketRepository.save(basket);
+
+        item = new Item();
+        item.setDescription("Item");
+        item.setAmount(1);
+        item.setBasket(basket);
+        itemRepository.saveAndFlush(item);
+    }
+
+    @Test
+    @DisplayName("Tenant customer queries should not scan the customers table")
+    void customerQueries_AsTenant_ShouldUseIndexes() {
+        assertNoTableScan(() -> customerRepository.findAllWithAccess(OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.findByIdWithAccess(customer.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.findViewByIdWithAccess(customer.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.findAllByIdAndOwnerToken(List.of(customer.getId()), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.existByNameAndOwnerToken(customer.getName(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.existByIdAndOwnerToken(customer.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.findSliceWithAccess(OWNER_TOKEN, NOT_ADMIN, PageRequest.of(0, 1)));
+        assertNoTableScan(() -> customerRepository.countWithAccess(OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.scrollAllWithAccess(OWNER_TOKEN, NOT_ADMIN, KEYSET_SORT, 1, ScrollPosition.keyset()));
+        assertNoTableScan(() -> customerRepository.scrollAllWithAccess(OWNER_TOKEN, NOT_ADMIN, KEYSET_SORT, 1, after(customer.getId())));
+        assertNoTableScan(() -> customerRepository.findVersionWithAccess(customer.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.findOwnerTokenWithAccess(customer.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> customerRepository.findBasketIdsWithAccess(customer.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> {
+            try (Stream<Customer> customers = customerRepository.streamAllWithAccess(OWNER_TOKEN, NOT_ADMIN)) {
+                customers.toList();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Admin customer lookups by id should not scan the customers table")
+    void customerQueries_AsAdmin_ShouldUseIndexes() {
+        assertNoTableScan(() -> customerRepository.findByIdWithAccess(customer.getId(), OWNER_TOKEN, IS_ADMIN));
+        assertNoTableScan(() -> customerRepository.findViewByIdWithAccess(customer.getId(), OWNER_TOKEN, IS_ADMIN));
+        assertNoTableScan(() -> customerRepository.findAllByIdAndOwnerToken(List.of(customer.getId()), OWNER_TOKEN, IS_ADMIN));
+        assertNoTableScan(() -> customerRepository.existByIdAndOwnerToken(customer.getId(), OWNER_TOKEN, IS_ADMIN));
+        assertNoTableScan(() -> customerRepository.findVersionWithAccess(customer.getId(), OWNER_TOKEN, IS_ADMIN));
+        assertNoTableScan(() -> customerRepository.findOwnerTokenWithAccess(customer.getId(), OWNER_TOKEN, IS_ADMIN));
+        assertNoTableScan(() -> customerRepository.findBasketIdsWithAccess(customer.getId(), OWNER_TOKEN, IS_ADMIN));
+    }
+
+    @Test
+    @DisplayName("Basket queries should not scan any table")
+    void basketQueries_ShouldUseIndexes() {
+        for (boolean isAdmin : List.of(NOT_ADMIN, IS_ADMIN)) {
+            assertNoTableScan(() -> basketRepository.findByIdWithAccess(basket.getId(), customer.getId(), OWNER_TOKEN, isAdmin));
+            assertNoTableScan(() -> basketRepository.existByIdAndOwnerToken(customer.getId(), basket.getId(), OWNER_TOKEN, isAdmin));
+            assertNoTableScan(() -> basketRepository.findSliceByCustomerWithAccess(customer.getId(), OWNER_TOKEN, isAdmin, PageRequest.of(0, 1)));
+            assertNoTableScan(() -> basketRepository.scrollByCustomerWithAccess(customer.getId(), OWNER_TOKEN, isAdmin, KEYSET_SORT, 1, ScrollPosition.keyset()));
+            assertNoTableScan(() -> basketRepository.scrollByCustomerWithAccess(customer.getId(), OWNER_TOKEN, isAdmin, KEYSET_SORT, 1, after(basket.getId())));
+            assertNoTableScan(() -> basketRepository.findVersionWithAccess(customer.getId(), basket.getId(), OWNER_TOKEN, isAdmin));
+            assertNoTableScan(() -> {
+                try (Stream<ShoppingBasket> baskets = basketRepository.streamAllWithAccess(customer.getId(), OWNER_TOKEN, isAdmin)) {
+                    baskets.toList();
+                }
+            });
+        }
+        assertNoTableScan(() -> basketRepository.countByCustomerId(customer.getId()));
+        assertNoTableScan(() -> basketRepository.findViewsByCustomerIdIn(List.of(customer.getId())));
+        assertNoTableScan(() -> basketRepository.findAccessPath(customer.getId(), basket.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> basketRepository.findAccessPath(customer.getId(), basket.getId(), OWNER_TOKEN, IS_ADMIN));
+    }
+
+    @Test
+    @DisplayName("Item queries should not scan any table")
+    void itemQueries_ShouldUseIndexes() {
+        for (boolean isAdmin : List.of(NOT_ADMIN, IS_ADMIN)) {
+            assertNoTableScan(() -> itemRepository.findByIdWithAccess(item.getId(), basket.getId(), customer.getId(), OWNER_TOKEN, isAdmin));
+            assertNoTableScan(() -> itemRepository.findSliceByCustomerWithAccess(basket.getId(), customer.getId(), OWNER_TOKEN, isAdmin, PageRequest.of(0, 1)));
+            assertNoTableScan(() -> itemRepository.scrollByCustomerWithAccess(basket.getId(), customer.getId(), OWNER_TOKEN, isAdmin, KEYSET_SORT, 1, ScrollPosition.keyset()));
+            assertNoTableScan(() -> itemRepository.scrollByCustomerWithAccess(basket.getId(), customer.getId(), OWNER_TOKEN, isAdmin, KEYSET_SORT, 1, after(item.getId())));
+            assertNoTableScan(() -> itemRepository.findVersionWithAccess(customer.getId(), basket.getId(), item.getId(), OWNER_TOKEN, isAdmin));
+            assertNoTableScan(() -> itemRepository.findByCustomerIdAndBasketIds(customer.getId(), basket.getId(), List.of(item.getId()), OWNER_TOKEN, isAdmin));
+            assertNoTableScan(() -> {
+                try (Stream<Item> items = itemRepository.streamAllWithAccess(basket.getId(), customer.getId(), OWNER_TOKEN, isAdmin)) {
+                    items.toList();
+                }
+            });
+        }
+        assertNoTableScan(() -> itemRepository.countByBasketId(basket.getId()));
+        assertNoTableScan(() -> itemRepository.findViewsByBasketIdIn(List.of(basket.getId())));
+        assertNoTableScan(() -> itemRepository.findAccessPath(customer.getId(), basket.getId(), item.getId(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> itemRepository.findAccessPath(customer.getId(), basket.getId(), item.getId(), OWNER_TOKEN, IS_ADMIN));
+    }
+
+    @Test
+    @DisplayName("Tenant view queries should not scan any table")
+    void viewQueries_AsTenant_ShouldUseIndexes() {
+        assertNoTableScan(() -> viewRepository.findAllWithAccess(OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> viewRepository.findByCustomerNameWithAccess(customer.getName(), OWNER_TOKEN, NOT_ADMIN));
+        assertNoTableScan(() -> viewRepository.findWindowWithAccess(OWNER_TOKEN, NOT_ADMIN, HierarchyPosition.START, Limit.of(10)));
+        assertNoTableScan(() -> viewRepository.findWindowByCustomerNameWithAccess(customer.getName(), OWNER_TOKEN, NOT_ADMIN, HierarchyPosition.START, Limit.of(10)));
+        assertNoTableScan(() -> {
+            try (Stream<HierarchyRow> rows = viewRepository.streamAllWithAccess(OWNER_TOKEN, NOT_ADMIN)) {
+                rows.toList();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("The shared OR access predicate is the full scan these variants avoid")
+    void orAccessPredicate_ShouldScanCustomers() {
+        String plan = explain("SELECT c.id FROM customers c WHERE c.owner_token = ? OR ? = TRUE");
+
+        assertThat(plan.toLowerCase(Locale.ROOT)).contains(TABLE_SCAN);
+    }
+
+    // The position after a row, as decoded from a cursor
+    private static KeysetScrollPosition after(String id) {
+        return ScrollPosition.forward(Map.of("id", id));
+    }
+
+    private void assertNoTableScan(Runnable repositoryCall) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        repositoryCall.run();
+
+        List<String> selects = new ArrayList<>(RecordingStatementInspector.STATEMENTS).stream()
+                .filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith("select"))
+                .toList();
+        assertThat(selects).isNotEmpty();
+
+        for (String sql : selects) {
+            assertThat(explain(sql).toLowerCase(Locale.ROOT))
+                    .as("Plan of %s", sql)
+                    .doesNotContain(TABLE_SCAN);
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                bindPlaceholders(statement);
+                try (ResultSet plan = statement.executeQuery()) {
+                    StringBuilder builder = new StringBuilder();
+                    while (plan.next()) {
+                        builder.append(plan.getString(1)).append('\n');
+                    }
+                    return builder.toString();
+                }
+            }
+        });
+    }
+
+    // Values do not matter for the plan, they only need to match the column types
+    private void bindPlaceholders(PreparedStatement statement) throws java.sql.SQLException {
+        ParameterMetaData metaData = statement.getParameterMetaData();
+        for (int i = 1; i <= metaData.getParameterCount(); i++) {
+            switch (metaData.getParameterType(i)) {
+                case Types.INTEGER, Types.BIGINT, Types.SMALLINT, Types.NUMERIC -> statement.setInt(i, 1);
+                case Types.BOOLEAN -> statement.setBoolean(i, false);
+                default -> statement.setString(i, "explain");
+            }
+        }
+    }
+}
@@ -11,9 +11,10 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
@@ -149,54 +150,75 @@ class ShoppingBasketRepositoryTest {
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should return all baskets for customer as admin")
-    void findByCustomerWithAccess_AsAdmin_ShouldReturnAllBasketsForCustomer() {
+    @DisplayName("findSliceByCustomerWithAccess should return all baskets for customer as admin")
+    void findSliceByCustomerWithAccess_AsAdmin_ShouldReturnAllBasketsForCustomer() {
         // When: Finding baskets for customer1 as admin with pagination
-        Page<ShoppingBasket> basketPage = basketRepository.findByCustomerWithAccess(
+        Slice<ShoppingBasket> basketSlice = basketRepository.findSliceByCustomerWithAccess(
                 customer1.getId(), "any-token", IS_ADMIN, Pageable.unpaged());
 
         // Then: Should return all baskets for customer1
-        assertThat(basketPage.getContent()).hasSize(2);
-        assertThat(basketPage.getContent()).extracting(ShoppingBasket::getId)
+        assertThat(basketSlice.getContent()).hasSize(2);
+        assertThat(basketSlice.getContent()).extracting(ShoppingBasket::getId)
                 .containsExactlyInAnyOrder(basket1.getId(), basket2.getId());
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should return baskets for matching token")
-    void findByCustomerWithAccess_WithMatchingToken_ShouldReturnBaskets() {
+    @DisplayName("findSliceByCustomerWithAccess should return baskets for matching token")
+    void findSliceByCustomerWithAccess_WithMatchingToken_ShouldReturnBaskets() {
         // When: Finding baskets for customer1 with matching token and pagination
-        Page<ShoppingBasket> basketPage = basketRepository.findByCustomerWithAccess(
+        Slice<ShoppingBasket> basketSlice = basketRepository.findSliceByCustomerWithAccess(
                 customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, Pageable.unpaged());
 
         // Then: Should return baskets for customer1
-        assertThat(basketPage.getContent()).hasSize(2);
-        assertThat(basketPage.getContent()).extracting(ShoppingBasket::getId)
+        assertThat(basketSlice.getContent()).hasSize(2);
+        assertThat(basketSlice.getContent()).extracting(ShoppingBasket::getId)
                 .containsExactlyInAnyOrder(basket1.getId(), basket2.getId());
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should return empty page for non-matching token")
-    void findByCustomerWithAccess_WithNonMatchingToken_ShouldReturnEmptyPage() {
+    @DisplayName("findSliceByCustomerWithAccess should return empty slice for non-matching token")
+    void findSliceByCustomerWithAccess_WithNonMatchingToken_ShouldReturnEmptySlice() {
         // When: Finding baskets for customer1 with non-matching token
-        Page<ShoppingBasket> basketPage = basketRepository.findByCustomerWithAccess(
+        Slice<ShoppingBasket> basketSlice = basketRepository.findSliceByCustomerWithAccess(
                 customer1.getId(), OWNER_TOKEN_2, NOT_ADMIN, Pageable.unpaged());
 
-        // Then: Should return empty page (no access)
-        assertThat(basketPage.getContent()).isEmpty();
-        assertThat(basketPage.getTotalElements()).isZero();
+        // Then: Should return empty slice (no access)
+        assertThat(basketSlice.getContent()).isEmpty();
+        assertThat(basketSlice.hasNext()).isFalse();
     }
 
     @Test
-    @DisplayName("findByCustomerWithAccess should respect pagination")
-    void findByCustomerWithAccess_WithPagination_ShouldRespectPageSize() {
-        // When: Finding baskets with page size 1
-        PageRequest pageRequest = PageRequest.of(0, 1);
-        Page<ShoppingBasket> basketPage = basketRepository.findByCustomerWithAccess(
-                customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, pageRequest);
-
-        // Then: Should return only one basket but know about both
-        assertThat(basketPage.getContent()).hasSize(1);
-        assertThat(basketPage.getTotalElements()).isEqualTo(2);
-        assertThat(basketPage.getTotalPages()).isEqualTo(2);
+    @DisplayName("findSliceByCustomerWithAccess should respect pagination")
+    void findSliceByCustomerWithAccess_WithPagination_ShouldRespectPageSize() {
+        // When: Reading both baskets with page size 1
+        Slice<ShoppingBasket> firstSlice = basketRepository.findSliceByCustomerWithAccess(
+                customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, PageRequest.of(0, 1, Sort.by("id")));
+        Slice<ShoppingBasket> secondSlice = basketRepository.findSliceByCustomerWithAccess(
+                customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, firstSlice.nextPageable());
+
+        // Then: Should return the other basket and no further page
+        assertThat(secondSlice.getContent()).hasSize(1);
+        assertThat(secondSlice.getContent().get(0).getId()).isNotEqualTo(firstSlice.getContent().get(0).getId());
+        assertThat(secondSlice.hasNext()).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findSliceByCustomerWithAccess should tell about a next page without counting")
+    void findSliceByCustomerWithAccess_WithPagination_ShouldReportNextPage() {
+        // When: Reading the first slice of one basket
+        Slice<ShoppingBasket> basketSlice = basketRepository.findSliceByCustomerWithAccess(
+                customer1.getId(), OWNER_TOKEN_1, NOT_ADMIN, PageRequest.of(0, 1));
+
+        // Then: Should return one basket and know there is more
+        assertThat(basketSlice.getContent()).hasSize(1);
+        assertThat(basketSlice.hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("countByCustomerId should count the customer baskets only")
+    void countByCustomerId_ShouldCountCustomerBaskets() {
+        assertThat(basketRepository.countByCustomerId(customer1.getId())).isEqualTo(2);
+        assertThat(basketRepository.countByCustomerId(customer2.getId())).isEqualTo(1);
+        assertThat(basketRepository.countByCustomerId("unknown-customer")).isZero();
+    }
+}
@@ -8,6 +8,8 @@ import com.samuel.sniffers.enums.BasketStatus;
 import com.samuel.sniffers.repository.CustomerRepository;
 import com.samuel.sniffers.repository.ItemRepository;
 import com.samuel.sniffers.repository.ShoppingBasketRepository;
+import com.samuel.sniffers.repository.projection.HierarchyPosition;
+import com.samuel.sniffers.repository.projection.HierarchyRow;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,13 +20,16 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -188,4 +193,49 @@ class CustomerBasketItemViewRepositoryTest {
                 .extracting(CustomerBasketItemView::getCustomerId)
                 .containsExactlyInAnyOrder(customer1.getId(), customer1.getId());
     }
+
+    @Test
+    @DisplayName("findWindowWithAccess should page through every row once, including customers without baskets and baskets without items")
+    void findWindowWithAccess_ShouldPageThroughEveryRowInIdOrder() {
+        // Given: a basket without items and a customer without baskets next to the item rows
+        ShoppingBasket emptyBasket = new ShoppingBasket();
+        emptyBasket.setCustomer(customer1);
+        emptyBasket.setStatus(BasketStatus.NEW);
+        emptyBasket.setItems(new HashSet<>());
+        basketRepository.save(emptyBasket);
+
+        Customer customer3 = new Customer();
+        customer3.setName("Test Customer 3");
+        customer3.setTimezone("UTC");
+        customer3.setOwnerToken(OWNER_TOKEN_1);
+        customerRepository.save(customer3);
+
+        // When: reading windows of one row until the last one
+        List<HierarchyRow> rows = new ArrayList<>();
+        HierarchyPosition position = HierarchyPosition.START;
+        List<HierarchyRow> window;
+        while (!(window = viewRepository.findWindowWithAccess("any-token", IS_ADMIN, position, Limit.of(1))).isEmpty()) {
+            rows.addAll(window);
+            position = HierarchyPosition.after(window.get(0));
+        }
+
+        // Then: every row is read once, in the order of a single ordered read
+        assertThat(rows).hasSize(5);
+        try (Stream<HierarchyRow> stream = viewRepository.streamAllWithAccess("any-token", IS_ADMIN)) {
+            assertThat(rows).containsExactlyElementsOf(stream.toList());
+        }
+        assertThat(rows).extracting(HierarchyRow::itemId).containsOnlyOnce(item1.getId(), item2.getId(), item3.getId());
+        assertThat(rows).filteredOn(row -> emptyBasket.getId().equals(row.basketId())).singleElement()
+                .extracting(HierarchyRow::itemId).isNull();
+        assertThat(rows).filteredOn(row -> customer3.getId().equals(row.customerId())).singleElement()
+                .extracting(HierarchyRow::basketId).isNull();
+
+        // And: tenants only page through their own customers
+        assertThat(viewRepository.findWindowByCustomerNameWithAccess("Test Customer 1", OWNER_TOKEN_2, NOT_ADMIN, HierarchyPosition.START, Limit.of(10)))
+                .isEmpty();
+        assertThat(viewRepository.findWindowWithAccess(OWNER_TOKEN_1, NOT_ADMIN, HierarchyPosition.START, Limit.of(10)))
+                .extracting(HierarchyRow::customerId)
+                .containsOnly(customer1.getId(), customer3.getId())
+                .hasSize(4);
+    }
 }
@@ -0,0 +1,11 @@
+-- Flyway migration script: V3__representation_versions.sql
+-- H2 copy of the representation version migration, the test schema is empty so nothing is backfilled.
+
+ALTER TABLE customers ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE customers ADD COLUMN modified DATETIME DEFAULT LOCALTIMESTAMP NOT NULL;
+
+ALTER TABLE shopping_baskets ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE shopping_baskets ADD COLUMN modified DATETIME DEFAULT LOCALTIMESTAMP NOT NULL;
+
+ALTER TABLE items ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE items ADD COLUMN modified DATETIME DEFAULT LOCALTIMESTAMP NOT NULL;
@@ -0,0 +1,7 @@
+package com.samuel.sniffers.api.exception;
+
+public class PreconditionFailedException extends BaseException {
+    public PreconditionFailedException(String message) {
+        super(message, "PRECONDITION_FAILED", 412);
+    }
+}
@@ -0,0 +1,16 @@
+package com.samuel.sniffers.api.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class StreamRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public StreamRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
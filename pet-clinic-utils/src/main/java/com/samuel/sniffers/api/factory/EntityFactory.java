@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samuel.sniffers.api.exception.EntityMappingException;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * This interface provides utility methods for entity mapping using Jackson's ObjectMapper.
@@ -47,6 +48,18 @@ public interface EntityFactory {
      */
     public <D, P> D patchEntity(P pojo, D entity);
 
+    /**
+     * Updates entity with non-null fields from pojo object and reports what changed.
+     *
+     * @param <D> The type of the entity.
+     * @param <P> The type of the DTO.
+     * @param pojo The DTO with fields for updating entity.
+     * @param entity The entity to be updated.
+     * @return The names of the entity properties whose value changed, empty when the patch changed nothing.
+     * @throws EntityMappingException if mapping fails.
+     */
+    <D, P> Set<String> patchEntityFields(P pojo, D entity);
+
     /**
      * Converts a list of entities to a list of Data Transfer Objects (DTOs).
      *
@@ -114,7 +127,7 @@ public interface EntityFactory {
     <T> String convertEntityListToString(List<T> entityList);
 
     /**
-     * Return an Object mapper configured for writing streams.
+     * Return the shared Object mapper configured for writing streams. It must not be reconfigured.
      */
     ObjectMapper getObjectMapperForStreaming();
 }
@@ -0,0 +1,48 @@
+package com.samuel.sniffers.api.factory;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * The Jackson configuration shared by the HTTP message converters and the entity factory, so request bodies,
+ * responses and DTO conversions all see the same settings. Property inclusion is left to the mapper, responses
+ * keep their null fields while the entity factory converts and patches with a NON_NULL copy.
+ */
+public class ObjectMapperFactory {
+
+    private ObjectMapperFactory() {
+        // Prevent instantiation of ObjectMapperFactory
+        throw new UnsupportedOperationException("This is an utility class and cannot be instantiated");
+    }
+
+    /**
+     * A tuned mapper for code that runs without the application context, such as tests and benchmarks.
+     */
+    public static ObjectMapper create() {
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .build();
+        return tune(objectMapper);
+    }
+
+    /**
+     * Applies the shared settings to a mapper and returns it.
+     */
+    public static ObjectMapper tune(ObjectMapper objectMapper) {
+        // Bean properties are read and written through generated lambdas instead of reflective calls
+        objectMapper.registerModule(new BlackbirdModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        // No zoned date types, nothing to adjust per value
+        objectMapper.disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+        objectMapper.disable(SerializationFeature.WRITE_DATES_WITH_CONTEXT_TIME_ZONE);
+        return objectMapper;
+    }
+}
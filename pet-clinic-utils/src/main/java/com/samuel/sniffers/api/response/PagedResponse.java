@@ -1,5 +1,6 @@
 package com.samuel.sniffers.api.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,13 +12,16 @@ import java.util.Map;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PagedResponse<T> {
     private List<T> data;
-    private int page;
+    private Integer page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean last;
+    private TotalCountStrategy totalStrategy;
+    private String nextCursor;
     private Map<String, String> links;
 
     public PagedResponse(List<T> data, int page, int size, long totalElements, int totalPages, boolean last) {
@@ -29,4 +33,27 @@ public class PagedResponse<T> {
         this.last = last;
         this.links = new HashMap<>();
     }
+
+    /**
+     * Page read without a total, only the presence of a next page is known.
+     */
+    public PagedResponse(List<T> data, int page, int size, boolean last) {
+        this.data = data;
+        this.page = page;
+        this.size = size;
+        this.last = last;
+        this.totalStrategy = TotalCountStrategy.NONE;
+        this.links = new HashMap<>();
+    }
+
+    /**
+     * Keyset (cursor) page. There is no page number or total here, only the cursor of the next window.
+     */
+    public PagedResponse(List<T> data, int size, boolean last, String nextCursor) {
+        this.data = data;
+        this.size = size;
+        this.last = last;
+        this.nextCursor = nextCursor;
+        this.links = new HashMap<>();
+    }
 }
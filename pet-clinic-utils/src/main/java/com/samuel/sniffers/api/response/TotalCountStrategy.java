@@ -0,0 +1,39 @@
+package com.samuel.sniffers.api.response;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.samuel.sniffers.api.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+/**
+ * How the totalElements of a {@link PagedResponse} is produced.
+ */
+public enum TotalCountStrategy {
+
+    /** Counted in the database on every request. */
+    EXACT,
+
+    /** Read from a per-tenant counter maintained on create/delete, may drift slightly. */
+    ESTIMATE,
+
+    /** Not computed at all, the page is read as a slice. */
+    NONE;
+
+    @JsonValue
+    public String getValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static TotalCountStrategy fromValue(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+
+        for (TotalCountStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(value.trim())) {
+                return strategy;
+            }
+        }
+        throw new InvalidRequestException("Invalid total count strategy: " + value + ". Allowed values are exact, estimate and none.");
+    }
+}
@@ -0,0 +1,30 @@
+package com.samuel.sniffers.api.streaming;
+
+import java.io.IOException;
+
+/**
+ * Emits a checkpoint line after every {@code every} records of a resumable stream. The position is the
+ * key of the last record written, a client that disconnects passes it back to continue after it.
+ * An interval of zero or less writes no checkpoints.
+ */
+public class Checkpoints {
+
+    public static final String FIELD = "checkpoint";
+
+    private final RecordWriter writer;
+    private final int every;
+
+    private int sinceCheckpoint;
+
+    public Checkpoints(RecordWriter writer, int every) {
+        this.writer = writer;
+        this.every = every;
+    }
+
+    public void written(String position) throws IOException {
+        if (every > 0 && ++sinceCheckpoint >= every) {
+            writer.writeCheckpoint(position);
+            sinceCheckpoint = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes one CSV line per record through a single generator for the whole stream. The schema selects
+ * the columns and their order, fields of a record that are not in the schema are skipped. The object
+ * writers must come from a mapper on a {@code CsvFactory}.
+ */
+public class CsvWriter extends RecordWriter {
+
+    private final ObjectWriterCache objectWriters;
+    private final JsonGenerator generator;
+
+    public CsvWriter(ObjectWriterCache objectWriters, CsvSchema schema, OutputStream outputStream, FlushPolicy flushPolicy) throws IOException {
+        super(outputStream, flushPolicy);
+        this.objectWriters = objectWriters;
+        // The generator encodes through its own writer, a flush has to pass through it to reach the target.
+        // It only flushes when the policy flushes, the CSV generator does not flush per record.
+        this.generator = objectWriters.createGenerator(target())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .enable(JsonGenerator.Feature.IGNORE_UNKNOWN);
+        // Only quote values that need it (separator, quote, line break), not every value with a space or dash
+        ((CsvGenerator) this.generator).enable(CsvGenerator.Feature.STRICT_CHECK_FOR_QUOTING);
+        this.generator.setSchema(schema);
+    }
+
+    @Override
+    public void write(Object value) throws IOException {
+        objectWriters.writerFor(value.getClass()).writeValue(generator, value);
+        endRecord();
+    }
+
+    @Override
+    public <T> void writeRow(T row, RowWriter<T> rowWriter) throws IOException {
+        rowWriter.write(row, generator);
+        endRecord();
+    }
+
+    /**
+     * A checkpoint line would not fit the columns of the export, CSV streams are not resumable.
+     */
+    @Override
+    public void writeCheckpoint(String position) {
+        throw new UnsupportedOperationException("CSV streams do not write checkpoints");
+    }
+
+    @Override
+    protected void flushBuffered() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            generator.close();
+        }
+    }
+}
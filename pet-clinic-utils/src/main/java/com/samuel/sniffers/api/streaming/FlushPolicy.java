@@ -0,0 +1,35 @@
+package com.samuel.sniffers.api.streaming;
+
+import java.time.Duration;
+
+/**
+ * When a streamed response is pushed to the client: after every {@code records} records, once
+ * {@code bytes} bytes are pending or once {@code interval} passed since the last flush, whichever
+ * comes first. A limit of zero or less is disabled.
+ */
+public record FlushPolicy(int records, long bytes, Duration interval) {
+
+    public static final FlushPolicy PER_RECORD = new FlushPolicy(1, 0, Duration.ZERO);
+
+    public static FlushPolicy everyRecords(int records) {
+        return new FlushPolicy(records, 0, Duration.ZERO);
+    }
+
+    public static FlushPolicy everyBytes(long bytes) {
+        return new FlushPolicy(0, bytes, Duration.ZERO);
+    }
+
+    public static FlushPolicy every(Duration interval) {
+        return new FlushPolicy(0, 0, interval);
+    }
+
+    boolean isTimed() {
+        return interval != null && !interval.isZero() && !interval.isNegative();
+    }
+
+    boolean shouldFlush(int pendingRecords, long pendingBytes, long nanosSinceFlush) {
+        return (records > 0 && pendingRecords >= records)
+                || (bytes > 0 && pendingBytes >= bytes)
+                || (isTimed() && nanosSinceFlush >= interval.toNanos());
+    }
+}
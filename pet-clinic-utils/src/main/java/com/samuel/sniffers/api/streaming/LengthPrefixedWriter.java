@@ -0,0 +1,79 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes binary (Smile, CBOR) records, each preceded by its length as a 4 byte big-endian integer.
+ * One generator encodes the whole stream into a record buffer that is framed after every record. The
+ * mappers from {@link StreamFormat#mapper} keep no state between records, so every record decodes on
+ * its own.
+ */
+public class LengthPrefixedWriter extends RecordWriter {
+
+    private final ObjectWriterCache objectWriters;
+    private final RecordBuffer record = new RecordBuffer();
+    private final JsonGenerator generator;
+
+    public LengthPrefixedWriter(ObjectWriterCache objectWriters, OutputStream outputStream, FlushPolicy flushPolicy) throws IOException {
+        super(outputStream, flushPolicy);
+        this.objectWriters = objectWriters;
+        this.generator = objectWriters.createGenerator(record);
+    }
+
+    @Override
+    public void write(Object value) throws IOException {
+        objectWriters.writerFor(value.getClass()).writeValue(generator, value);
+        endFrame();
+    }
+
+    @Override
+    public <T> void writeRow(T row, RowWriter<T> rowWriter) throws IOException {
+        rowWriter.write(row, generator);
+        endFrame();
+    }
+
+    @Override
+    public void writeCheckpoint(String position) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(Checkpoints.FIELD, position);
+        generator.writeEndObject();
+        generator.flush();
+        record.writeFrame(target());
+        flush();
+    }
+
+    private void endFrame() throws IOException {
+        generator.flush();
+        record.writeFrame(target());
+        endRecord();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            generator.close();
+        }
+    }
+
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        private RecordBuffer() {
+            super(256);
+        }
+
+        private void writeFrame(OutputStream target) throws IOException {
+            target.write(count >>> 24);
+            target.write(count >>> 16);
+            target.write(count >>> 8);
+            target.write(count);
+            target.write(buf, 0, count);
+            reset();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes one JSON document per line through a single generator for the whole stream.
+ */
+public class NdjsonWriter extends RecordWriter {
+
+    private final ObjectWriterCache objectWriters;
+    private final JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream, FlushPolicy flushPolicy) throws IOException {
+        this(new ObjectWriterCache(objectMapper), outputStream, flushPolicy);
+    }
+
+    public NdjsonWriter(ObjectWriterCache objectWriters, OutputStream outputStream, FlushPolicy flushPolicy) throws IOException {
+        super(outputStream, flushPolicy);
+        this.objectWriters = objectWriters;
+        // Flushing is left to the policy, the generator must not flush the target on its own
+        this.generator = objectWriters.createGenerator(target())
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                .setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(Object value) throws IOException {
+        objectWriters.writerFor(value.getClass()).writeValue(generator, value);
+        endLine();
+    }
+
+    @Override
+    public <T> void writeRow(T row, RowWriter<T> rowWriter) throws IOException {
+        rowWriter.write(row, generator);
+        endLine();
+    }
+
+    @Override
+    public void writeCheckpoint(String position) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(Checkpoints.FIELD, position);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        flush();
+    }
+
+    private void endLine() throws IOException {
+        generator.writeRaw('\n');
+        endRecord();
+    }
+
+    @Override
+    protected long bufferedBytes() {
+        return generator.getOutputBuffered();
+    }
+
+    @Override
+    protected void flushBuffered() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            generator.close();
+        }
+    }
+}
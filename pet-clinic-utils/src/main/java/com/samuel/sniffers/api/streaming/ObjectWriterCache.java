@@ -0,0 +1,34 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One prebuilt {@link ObjectWriter} per streamed type, so the root serializer is resolved once and
+ * not looked up again for every record of every stream.
+ */
+public class ObjectWriterCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public ObjectWriterCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public ObjectWriter writerFor(Class<?> type) {
+        // Flushing is left to the flush policy, a written value must not flush on its own
+        return writers.computeIfAbsent(type, key -> objectMapper.writerFor(key).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        return objectMapper.getFactory().createGenerator(outputStream);
+    }
+}
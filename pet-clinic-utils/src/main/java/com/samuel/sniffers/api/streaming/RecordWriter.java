@@ -0,0 +1,101 @@
+package com.samuel.sniffers.api.streaming;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the records of a streamed response and flushes the target stream according to a
+ * {@link FlushPolicy} instead of after every record. The time limit is checked when a record is
+ * written, a stream that goes quiet is flushed with its next record or on close.
+ */
+public abstract class RecordWriter implements Closeable {
+
+    private final CountingOutputStream target;
+    private final FlushPolicy flushPolicy;
+
+    private int pendingRecords;
+    private long flushedBytes;
+    private long lastFlush;
+
+    protected RecordWriter(OutputStream outputStream, FlushPolicy flushPolicy) {
+        this.target = new CountingOutputStream(outputStream);
+        this.flushPolicy = flushPolicy;
+        this.lastFlush = flushPolicy.isTimed() ? System.nanoTime() : 0;
+    }
+
+    public abstract void write(Object value) throws IOException;
+
+    public abstract <T> void writeRow(T row, RowWriter<T> rowWriter) throws IOException;
+
+    /**
+     * Writes a record with the single field {@code checkpoint} and flushes, so every record before the
+     * checkpoint has been handed to the client once the checkpoint arrives.
+     */
+    public abstract void writeCheckpoint(String position) throws IOException;
+
+    protected OutputStream target() {
+        return target;
+    }
+
+    protected void endRecord() throws IOException {
+        pendingRecords++;
+
+        long nanosSinceFlush = flushPolicy.isTimed() ? System.nanoTime() - lastFlush : 0;
+        if (flushPolicy.shouldFlush(pendingRecords, pendingBytes(), nanosSinceFlush)) {
+            flush();
+        }
+    }
+
+    /**
+     * Bytes written by the subclass that have not reached the target stream yet.
+     */
+    protected long bufferedBytes() {
+        return 0;
+    }
+
+    protected void flushBuffered() throws IOException {
+    }
+
+    public void flush() throws IOException {
+        flushBuffered();
+        target.flush();
+
+        pendingRecords = 0;
+        flushedBytes = target.count;
+        if (flushPolicy.isTimed()) {
+            lastFlush = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private long pendingBytes() {
+        return target.count - flushedBytes + bufferedBytes();
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Writes a row as one JSON object straight to the generator, without building a response object first.
+ */
+@FunctionalInterface
+public interface RowWriter<T> {
+
+    void write(T row, JsonGenerator generator) throws IOException;
+}
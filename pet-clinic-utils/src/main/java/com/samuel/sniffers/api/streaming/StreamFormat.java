@@ -0,0 +1,94 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Encodings of a streamed response. NDJSON writes one JSON document per line, the binary formats write
+ * length-prefixed records (see {@link LengthPrefixedWriter}).
+ */
+public enum StreamFormat {
+    NDJSON(StreamMediaTypes.NDJSON_VALUE),
+    SMILE(StreamMediaTypes.SMILE_VALUE),
+    CBOR(StreamMediaTypes.CBOR_VALUE);
+
+    private final String mediaType;
+
+    StreamFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The given JSON mapper with the same configuration on this format's factory. Smile is set up
+     * without the header and without back references to names of earlier records, so records written
+     * by one generator can be decoded one by one.
+     */
+    public ObjectMapper mapper(ObjectMapper jsonMapper) {
+        return switch (this) {
+            case NDJSON -> jsonMapper;
+            case SMILE -> jsonMapper.copyWith(SmileFactory.builder()
+                    .disable(SmileGenerator.Feature.WRITE_HEADER)
+                    .disable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                    .disable(SmileParser.Feature.REQUIRE_HEADER)
+                    .build());
+            case CBOR -> jsonMapper.copyWith(new CBORFactory());
+        };
+    }
+
+    public RecordWriter open(ObjectWriterCache objectWriters, OutputStream outputStream, FlushPolicy flushPolicy) throws IOException {
+        return this == NDJSON
+                ? new NdjsonWriter(objectWriters, outputStream, flushPolicy)
+                : new LengthPrefixedWriter(objectWriters, outputStream, flushPolicy);
+    }
+
+    /**
+     * Picks the binary format with the highest q-value in an Accept header, NDJSON for anything else
+     * (no header, wildcards, application/json or text/plain).
+     */
+    public static StreamFormat fromAccept(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return NDJSON;
+        }
+
+        StreamFormat best = NDJSON;
+        double bestQuality = 0;
+        for (String part : accept.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String type = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(tokens);
+
+            for (StreamFormat format : values()) {
+                if (format.mediaType.equals(type) && quality > bestQuality) {
+                    best = format;
+                    bestQuality = quality;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String parameter = tokens[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,14 @@
+package com.samuel.sniffers.api.streaming;
+
+/**
+ * Media types of the streaming and list endpoints, as constants for {@code produces} attributes.
+ */
+public final class StreamMediaTypes {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_VALUE = "application/cbor";
+
+    private StreamMediaTypes() {
+    }
+}
@@ -0,0 +1,698 @@
+package com.samuel.sniffers.internal;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.OptBoolean;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bean to bean mappers that copy properties through generated getter and setter lambdas instead of
+ * {@link ObjectMapper#convertValue}, which writes the source into a token buffer and parses it back.
+ * <p>
+ * A mapper is compiled once per (source, target) class pair on first use. It is only compiled when the
+ * copy gives the same result as the round trip through the mapper: properties are found the way Jackson
+ * finds them, null values are skipped as with NON_NULL, {@code @JsonIgnore} and unknown properties are
+ * honoured, {@code @JsonFormat} date patterns are applied, and nested beans and collections are mapped
+ * again. A pair using anything else, {@code @JsonProperty}, creators, maps, type coercion and so on, keeps
+ * using convertValue.
+ */
+class CompiledMappers {
+
+    private static final Set<Class<?>> VALUE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class,
+            LocalDateTime.class, LocalDate.class, LocalTime.class);
+
+    // Jackson annotations a compiled mapper reproduces, any other one leaves the pair to convertValue
+    private static final Set<Class<? extends Annotation>> SUPPORTED_ANNOTATIONS = Set.of(
+            JsonIgnore.class, JsonIgnoreProperties.class, JsonInclude.class, JsonFormat.class);
+
+    private static final Set<String> SECOND_PATTERNS = Set.of("yyyy-MM-dd HH:mm:ss", "uuuu-MM-dd HH:mm:ss", "yyyy-MM-dd'T'HH:mm:ss");
+    private static final TypeReference<Map<String, Object>> PATCH_MAP = new TypeReference<>() {
+    };
+    private static final LocalDateTime DATE_PROBE = LocalDateTime.of(2024, 2, 29, 23, 59, 58, 999_999_999);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter conversionWriter;
+    private final Map<Pair, Mapper> mappers = new ConcurrentHashMap<>();
+    private final Map<Pair, PatchPlan> patchPlans = new ConcurrentHashMap<>();
+
+    // The round trip being reproduced depends on these settings of the mapper
+    private final boolean enabled;
+    private final boolean datesAsTimestamps;
+    private final boolean failOnUnknownProperties;
+    private final boolean enumsByName;
+
+    CompiledMappers(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Conversions keep dates as timestamps whatever the mapper writes over HTTP, so a pattern that
+        // is only on the target side still reads them
+        this.conversionWriter = objectMapper.writer().with(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.enabled = objectMapper.getSerializationConfig().getDefaultPropertyInclusion().getValueInclusion() == JsonInclude.Include.NON_NULL;
+        this.datesAsTimestamps = conversionWriter.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.failOnUnknownProperties = objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.enumsByName = !objectMapper.isEnabled(SerializationFeature.WRITE_ENUMS_USING_TO_STRING)
+                && !objectMapper.isEnabled(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T convert(Object source, Class<T> targetType) {
+        return (T) mapperFor(source.getClass(), targetType).map(source);
+    }
+
+    /**
+     * Copies the non-null properties of source onto target like {@code updateValue(target, convertValue(source, Map.class))}
+     * and returns the names of the target properties whose value changed.
+     */
+    Set<String> patch(Object source, Object target) throws IOException {
+        return patchPlans.computeIfAbsent(new Pair(source.getClass(), target.getClass()), this::compilePatch).patch(source, target);
+    }
+
+    boolean isCompiled(Class<?> sourceType, Class<?> targetType) {
+        return mapperFor(sourceType, targetType) instanceof BeanMapper;
+    }
+
+    boolean isPatchCompiled(Class<?> sourceType, Class<?> targetType) {
+        return patchPlans.computeIfAbsent(new Pair(sourceType, targetType), this::compilePatch) instanceof CompiledPatch;
+    }
+
+    private Mapper mapperFor(Class<?> sourceType, Class<?> targetType) {
+        return mappers.computeIfAbsent(new Pair(sourceType, targetType), this::compile);
+    }
+
+    private Mapper compile(Pair pair) {
+        Mapper mapper = null;
+        try {
+            mapper = enabled ? compileBean(pair.source(), pair.target()) : null;
+        } catch (ReflectiveOperationException | LambdaConversionException | RuntimeException | LinkageError e) {
+            // Not something we can copy directly, convertValue decides what it makes of it
+        }
+        if (mapper != null) {
+            return mapper;
+        }
+        ObjectReader reader = objectMapper.readerFor(pair.target());
+        return source -> roundTrip(source, reader);
+    }
+
+    /**
+     * What {@link ObjectMapper#convertValue} does, with the conversion writer.
+     */
+    private <T> T roundTrip(Object source, ObjectReader reader) {
+        TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+        try {
+            conversionWriter.writeValue(buffer, source);
+            try (JsonParser parser = buffer.asParser()) {
+                return reader.readValue(parser);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private PatchPlan compilePatch(Pair pair) {
+        List<PropertyCopy> copies = null;
+        try {
+            copies = enabled ? compileCopies(pair.source(), pair.target(), true) : null;
+        } catch (ReflectiveOperationException | LambdaConversionException | RuntimeException | LinkageError e) {
+            // Left to updateValue
+        }
+        return copies != null ? new CompiledPatch(copies.toArray(PropertyCopy[]::new)) : this::patchWithUpdateValue;
+    }
+
+    private BeanMapper compileBean(Class<?> sourceType, Class<?> targetType) throws ReflectiveOperationException, LambdaConversionException {
+        if (Modifier.isAbstract(targetType.getModifiers())) {
+            return null;
+        }
+        List<PropertyCopy> copies = compileCopies(sourceType, targetType, false);
+        return copies != null ? new BeanMapper(constructor(targetType), copies.toArray(PropertyCopy[]::new)) : null;
+    }
+
+    /**
+     * The property copies from source to target, null when a copy would not give the result of the round trip.
+     * A patch reads every value it sets back first, and goes through a Map where decimals become doubles.
+     */
+    private List<PropertyCopy> compileCopies(Class<?> sourceType, Class<?> targetType, boolean patch) throws ReflectiveOperationException, LambdaConversionException {
+        if (!isPlainBean(sourceType) || !isPlainBean(targetType)) {
+            return null;
+        }
+
+        Map<String, BeanProperty> sourceProperties = beanProperties(sourceType);
+        Map<String, BeanProperty> targetProperties = beanProperties(targetType);
+        if (sourceProperties == null || targetProperties == null) {
+            return null;
+        }
+
+        JsonIgnoreProperties ignoreProperties = targetType.getAnnotation(JsonIgnoreProperties.class);
+        Set<String> ignoredNames = ignoreProperties != null ? Set.of(ignoreProperties.value()) : Set.of();
+        boolean ignoreUnknown = ignoreProperties != null && ignoreProperties.ignoreUnknown();
+        if (ignoreProperties != null && (ignoreProperties.allowGetters() || ignoreProperties.allowSetters())) {
+            return null;
+        }
+
+        List<PropertyCopy> copies = new ArrayList<>();
+        int serialized = 0;
+        for (BeanProperty source : sourceProperties.values()) {
+            if (source.ignored() || source.getter() == null) {
+                continue;
+            }
+            serialized++;
+
+            BeanProperty target = targetProperties.get(source.name());
+            if (ignoredNames.contains(source.name()) || (target != null && target.ignored())) {
+                continue;
+            }
+            if (target == null) {
+                if (!ignoreUnknown && failOnUnknownProperties) {
+                    // convertValue fails on an unknown property, leave that to it
+                    return null;
+                }
+                continue;
+            }
+            if (target.setter() == null || (patch && target.getter() == null)) {
+                // Jackson would fall back to the field or add to the getter's collection
+                return null;
+            }
+
+            Converter converter = converter(source, target);
+            if (converter == null || (patch && containsDecimal(source.getter().getGenericReturnType()))) {
+                return null;
+            }
+            copies.add(new PropertyCopy(target.name(), getter(source.getter()), setter(target.setter()),
+                    patch ? getter(target.getter()) : null, converter));
+        }
+
+        if (serialized == 0) {
+            // convertValue refuses beans without properties
+            return null;
+        }
+        return copies;
+    }
+
+    private Set<String> patchWithUpdateValue(Object source, Object target) throws IOException {
+        Map<String, Object> overrides = roundTrip(source, objectMapper.readerFor(PATCH_MAP));
+
+        // Only the patched properties are read, reading all of an entity would load its lazy associations
+        Map<String, AnnotatedMember> accessors = new LinkedHashMap<>();
+        BeanDescription description = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(target.getClass()));
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (overrides.containsKey(property.getName()) && property.getAccessor() != null) {
+                AnnotatedMember accessor = property.getAccessor();
+                accessor.fixAccess(true);
+                accessors.put(property.getName(), accessor);
+            }
+        }
+        Map<String, Object> before = new LinkedHashMap<>();
+        accessors.forEach((name, accessor) -> before.put(name, accessor.getValue(target)));
+
+        objectMapper.updateValue(target, overrides);
+
+        Set<String> changed = new LinkedHashSet<>();
+        accessors.forEach((name, accessor) -> {
+            if (!Objects.equals(before.get(name), accessor.getValue(target))) {
+                changed.add(name);
+            }
+        });
+        return changed;
+    }
+
+    private static boolean containsDecimal(Type type) {
+        if (type instanceof ParameterizedType parameterized) {
+            return Arrays.stream(parameterized.getActualTypeArguments()).anyMatch(CompiledMappers::containsDecimal);
+        }
+        return type == BigDecimal.class;
+    }
+
+    private Converter converter(BeanProperty source, BeanProperty target) {
+        Type sourceType = source.getter().getGenericReturnType();
+        Type targetType = target.setter().getGenericParameterTypes()[0];
+        Class<?> sourceClass = boxed(rawClass(sourceType));
+        Class<?> targetClass = boxed(rawClass(targetType));
+        if (sourceClass == null || targetClass == null) {
+            return null;
+        }
+
+        if (sourceClass.isEnum() && targetClass == String.class && source.format() == null) {
+            // An enum is written as its name, unless the enum or the mapper says otherwise
+            return enumsByName && !hasJacksonAnnotation(sourceClass) ? value -> ((Enum<?>) value).name() : null;
+        }
+        if (isValueType(sourceClass) || isValueType(targetClass)) {
+            if (sourceClass != targetClass) {
+                return null;
+            }
+            return dateConverter(sourceClass, source.format(), target.format());
+        }
+        if (source.format() != null || target.format() != null) {
+            return null;
+        }
+
+        if (Collection.class.isAssignableFrom(sourceClass) && Collection.class.isAssignableFrom(targetClass)) {
+            Supplier<Collection<Object>> collectionFactory = collectionFactory(targetClass);
+            Class<?> elementClass = elementClass(targetType);
+            if (collectionFactory == null || elementClass == null || Collection.class.isAssignableFrom(elementClass)) {
+                return null;
+            }
+            Converter elementConverter = isValueType(boxed(elementClass))
+                    ? valueElementConverter(boxed(elementClass))
+                    : new NestedConverter(elementClass);
+            return value -> {
+                Collection<Object> collection = collectionFactory.get();
+                for (Object element : (Collection<?>) value) {
+                    collection.add(element == null ? null : elementConverter.convert(element));
+                }
+                return collection;
+            };
+        }
+
+        if (isBeanType(sourceClass) && isBeanType(targetClass)) {
+            return new NestedConverter(targetClass);
+        }
+        return null;
+    }
+
+    private Converter dateConverter(Class<?> type, JsonFormat sourceFormat, JsonFormat targetFormat) {
+        if (!isDateType(type) || (sourceFormat == null && (datesAsTimestamps || targetFormat == null))) {
+            // Written as a timestamp array or an ISO string, which are read back unchanged
+            return value -> value;
+        }
+        if (type != LocalDateTime.class || sourceFormat == null || targetFormat == null) {
+            return null;
+        }
+
+        DateTimeFormatter writeFormat = DateTimeFormatter.ofPattern(sourceFormat.pattern());
+        DateTimeFormatter readFormat = DateTimeFormatter.ofPattern(targetFormat.pattern());
+        // Same precision loss as the round trip, yyyy-MM-dd HH:mm:ss drops the nanoseconds
+        Converter roundTrip = value -> LocalDateTime.parse(writeFormat.format((LocalDateTime) value), readFormat);
+
+        if (sourceFormat.pattern().equals(targetFormat.pattern()) && SECOND_PATTERNS.contains(sourceFormat.pattern())
+                && roundTrip.convert(DATE_PROBE).equals(DATE_PROBE.truncatedTo(ChronoUnit.SECONDS))) {
+            // Formatting and parsing again is what makes these conversions slow, for four digit years it only truncates
+            return value -> {
+                LocalDateTime date = (LocalDateTime) value;
+                return date.getYear() >= 0 && date.getYear() <= 9999 ? date.truncatedTo(ChronoUnit.SECONDS) : roundTrip.convert(date);
+            };
+        }
+        return roundTrip;
+    }
+
+    private static boolean isDateType(Class<?> type) {
+        return type == LocalDateTime.class || type == LocalDate.class || type == LocalTime.class;
+    }
+
+    private static Converter valueElementConverter(Class<?> elementClass) {
+        return element -> {
+            if (element.getClass() != elementClass && !elementClass.isEnum()) {
+                throw new IllegalArgumentException("Unexpected collection element " + element.getClass().getName());
+            }
+            return element;
+        };
+    }
+
+    private static Supplier<Collection<Object>> collectionFactory(Class<?> collectionClass) {
+        if (collectionClass == List.class || collectionClass == Collection.class || collectionClass == ArrayList.class) {
+            return ArrayList::new;
+        }
+        if (collectionClass == Set.class || collectionClass == HashSet.class) {
+            return HashSet::new;
+        }
+        if (collectionClass == LinkedHashSet.class) {
+            return LinkedHashSet::new;
+        }
+        return null;
+    }
+
+    /**
+     * Properties as Jackson sees them: getters and setters by their mangled names, with the Jackson
+     * annotations of the getter, setter and field. Null when a property uses an annotation that is not reproduced.
+     */
+    private static Map<String, BeanProperty> beanProperties(Class<?> type) {
+        if (hasUnsupportedAnnotation(type)) {
+            return null;
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (hasUnsupportedAnnotation(constructor)) {
+                // @JsonCreator
+                return null;
+            }
+        }
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isPublic(field.getModifiers()) && !Modifier.isStatic(field.getModifiers())) {
+                    // Public fields are properties too, not reproduced
+                    return null;
+                }
+            }
+        }
+
+        Map<String, Method> getters = new LinkedHashMap<>();
+        Map<String, Method> setters = new LinkedHashMap<>();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isSynthetic() || method.isBridge()
+                    || method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            String name = method.getName();
+            if (method.getParameterCount() == 0 && method.getReturnType() != void.class) {
+                if (name.startsWith("get") && name.length() > 3) {
+                    if (getters.put(propertyName(name, 3), method) != null) {
+                        return null;
+                    }
+                } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+                    if (getters.put(propertyName(name, 2), method) != null) {
+                        return null;
+                    }
+                }
+            } else if (method.getParameterCount() == 1 && name.startsWith("set") && name.length() > 3) {
+                if (setters.put(propertyName(name, 3), method) != null) {
+                    // Overloaded setters, Jackson picks one by its own rules
+                    return null;
+                }
+            }
+        }
+
+        Set<String> names = new LinkedHashSet<>(getters.keySet());
+        names.addAll(setters.keySet());
+
+        Map<String, BeanProperty> properties = new LinkedHashMap<>();
+        for (String name : names) {
+            Method getter = getters.get(name);
+            Method setter = setters.get(name);
+            Field field = findField(type, name);
+
+            List<AnnotatedElement> members = new ArrayList<>(3);
+            for (AnnotatedElement member : new AnnotatedElement[]{getter, setter, field}) {
+                if (member != null) {
+                    if (hasUnsupportedAnnotation(member)) {
+                        return null;
+                    }
+                    members.add(member);
+                }
+            }
+
+            JsonFormat format = annotation(members, JsonFormat.class);
+            if (format != null && !isPatternOnly(format)) {
+                return null;
+            }
+            JsonInclude include = annotation(members, JsonInclude.class);
+            if (include != null && include.value() != JsonInclude.Include.NON_NULL && include.value() != JsonInclude.Include.USE_DEFAULTS) {
+                return null;
+            }
+
+            JsonIgnore ignore = annotation(members, JsonIgnore.class);
+            properties.put(name, new BeanProperty(name, getter, setter, ignore != null && ignore.value(), format));
+        }
+        return properties;
+    }
+
+    private static boolean hasUnsupportedAnnotation(AnnotatedElement element) {
+        for (Annotation annotation : element.getAnnotations()) {
+            Class<? extends Annotation> annotationType = annotation.annotationType();
+            if (annotationType.getPackageName().startsWith("com.fasterxml.jackson") && !SUPPORTED_ANNOTATIONS.contains(annotationType)) {
+                return true;
+            }
+            if (annotationType == JsonInclude.class && element instanceof Class<?>
+                    && ((JsonInclude) annotation).value() != JsonInclude.Include.NON_NULL) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasJacksonAnnotation(Class<?> type) {
+        List<AnnotatedElement> members = new ArrayList<>(List.of(type));
+        members.addAll(List.of(type.getDeclaredFields()));
+        members.addAll(List.of(type.getDeclaredMethods()));
+        for (AnnotatedElement member : members) {
+            for (Annotation annotation : member.getAnnotations()) {
+                if (annotation.annotationType().getPackageName().startsWith("com.fasterxml.jackson")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPatternOnly(JsonFormat format) {
+        return !format.pattern().isEmpty()
+                && (format.shape() == JsonFormat.Shape.ANY || format.shape() == JsonFormat.Shape.STRING)
+                && format.locale().equals(JsonFormat.DEFAULT_LOCALE)
+                && format.timezone().equals(JsonFormat.DEFAULT_TIMEZONE)
+                && format.with().length == 0 && format.without().length == 0
+                && format.lenient() == OptBoolean.DEFAULT;
+    }
+
+    private static <A extends Annotation> A annotation(List<AnnotatedElement> members, Class<A> annotationType) {
+        for (AnnotatedElement member : members) {
+            A annotation = member.getAnnotation(annotationType);
+            if (annotation != null) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Jackson's default naming: getURLValue -> urlvalue, getName -> name
+    private static String propertyName(String methodName, int prefixLength) {
+        char[] chars = methodName.substring(prefixLength).toCharArray();
+        for (int i = 0; i < chars.length && Character.isUpperCase(chars[i]); i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static boolean isPlainBean(Class<?> type) {
+        return isBeanType(type) && !type.isInterface() && !type.isRecord() && !type.isAnonymousClass()
+                && !Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type)
+                && !type.getName().startsWith("java.");
+    }
+
+    private static boolean isBeanType(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !type.isEnum() && !isValueType(type)
+                && !Collection.class.isAssignableFrom(type) && !Map.class.isAssignableFrom(type)
+                && type != Object.class;
+    }
+
+    private static boolean isValueType(Class<?> type) {
+        return type.isEnum() || VALUE_TYPES.contains(type);
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class<?> rawType) {
+            return rawType;
+        }
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> rawType) {
+            return rawType;
+        }
+        return null;
+    }
+
+    private static Class<?> elementClass(Type collectionType) {
+        if (collectionType instanceof ParameterizedType parameterized && parameterized.getActualTypeArguments().length == 1
+                && parameterized.getActualTypeArguments()[0] instanceof Class<?> elementClass) {
+            return elementClass;
+        }
+        return null;
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (type == null || !type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(Method method) throws ReflectiveOperationException, LambdaConversionException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+        MethodHandle handle = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle,
+                MethodType.methodType(boxed(method.getReturnType()), method.getDeclaringClass()));
+        return (Function<Object, Object>) invoke(site);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(Method method) throws ReflectiveOperationException, LambdaConversionException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+        MethodHandle handle = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle,
+                MethodType.methodType(void.class, method.getDeclaringClass(), boxed(method.getParameterTypes()[0])));
+        return (BiConsumer<Object, Object>) invoke(site);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> constructor(Class<?> type) throws ReflectiveOperationException, LambdaConversionException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        MethodHandle handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+        CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                handle,
+                MethodType.methodType(type));
+        return (Supplier<Object>) invoke(site);
+    }
+
+    private static Object invoke(CallSite site) {
+        try {
+            return site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create accessor", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Mapper {
+        Object map(Object source);
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        Object convert(Object value);
+    }
+
+    /**
+     * Maps nested beans, remembering the mapper of the last class seen so a collection of one class does not
+     * look it up for every element.
+     */
+    private final class NestedConverter implements Converter {
+        private final Class<?> targetType;
+        private volatile ClassMapper last;
+
+        private NestedConverter(Class<?> targetType) {
+            this.targetType = targetType;
+        }
+
+        @Override
+        public Object convert(Object value) {
+            ClassMapper cached = last;
+            if (cached == null || cached.type() != value.getClass()) {
+                cached = new ClassMapper(value.getClass(), mapperFor(value.getClass(), targetType));
+                last = cached;
+            }
+            return cached.mapper().map(value);
+        }
+    }
+
+    private record ClassMapper(Class<?> type, Mapper mapper) {
+    }
+
+    private record Pair(Class<?> source, Class<?> target) {
+    }
+
+    private record BeanProperty(String name, Method getter, Method setter, boolean ignored, JsonFormat format) {
+    }
+
+    private record PropertyCopy(String name, Function<Object, Object> getter, BiConsumer<Object, Object> setter,
+                                Function<Object, Object> targetGetter, Converter converter) {
+    }
+
+    @FunctionalInterface
+    private interface PatchPlan {
+        Set<String> patch(Object source, Object target) throws IOException;
+    }
+
+    private record CompiledPatch(PropertyCopy[] copies) implements PatchPlan {
+
+        @Override
+        public Set<String> patch(Object source, Object target) {
+            Set<String> changed = null;
+            for (PropertyCopy copy : copies) {
+                Object value = copy.getter().apply(source);
+                if (value == null) {
+                    continue;
+                }
+                Object converted = copy.converter().convert(value);
+                if (!Objects.equals(copy.targetGetter().apply(target), converted)) {
+                    if (changed == null) {
+                        changed = new LinkedHashSet<>();
+                    }
+                    changed.add(copy.name());
+                }
+                // Set even when equal, updateValue does too
+                copy.setter().accept(target, converted);
+            }
+            return changed != null ? changed : Set.of();
+        }
+    }
+
+    private record BeanMapper(Supplier<Object> constructor, PropertyCopy[] copies) implements Mapper {
+
+        @Override
+        public Object map(Object source) {
+            Object target = constructor.get();
+            for (PropertyCopy copy : copies) {
+                Object value = copy.getter().apply(source);
+                // NON_NULL: a null is not written, the target keeps its default
+                if (value != null) {
+                    copy.setter().accept(target, copy.converter().convert(value));
+                }
+            }
+            return target;
+        }
+    }
+}
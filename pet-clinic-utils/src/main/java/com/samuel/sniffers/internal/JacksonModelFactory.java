@@ -2,13 +2,17 @@ package com.samuel.sniffers.internal;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.samuel.sniffers.api.exception.EntityMappingException;
 import com.samuel.sniffers.api.factory.LoggerFactory;
 import com.samuel.sniffers.api.factory.EntityFactory;
+import com.samuel.sniffers.api.factory.ObjectMapperFactory;
 import com.samuel.sniffers.api.logging.Logger;
 
 import java.text.SimpleDateFormat;
@@ -16,22 +20,38 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
 public class JacksonModelFactory implements EntityFactory {
     private final ObjectMapper objectMapper;
+    private final ObjectMapper streamingObjectMapper;
+    private final ObjectWriter objectWriter;
+    private final Map<JavaType, ObjectReader> objectReaders = new ConcurrentHashMap<>();
+    private final CompiledMappers compiledMappers;
     private final Logger logger;
 
 
     public JacksonModelFactory() {
-        this.objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule()); // Register JavaTimeModule for Java 8 date/time types
-        this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this(ObjectMapperFactory.create());
+    }
+
+    /**
+     * Built from the application's mapper, the one the HTTP message converters read and write with.
+     */
+    @Autowired
+    public JacksonModelFactory(ObjectMapper objectMapper) {
+        this.objectMapper = createObjectMapperForConversions(objectMapper);
+        this.streamingObjectMapper = createObjectMapperForStreaming(objectMapper);
+        this.objectWriter = this.objectMapper.writer();
+        this.compiledMappers = new CompiledMappers(this.objectMapper);
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -41,7 +61,7 @@ public class JacksonModelFactory implements EntityFactory {
             if (entity == null) {
                 return null;
             }
-            return objectMapper.convertValue(entity, pojoClass);
+            return compiledMappers.convert(entity, pojoClass);
         } catch (Exception e) {
             logger.error("Error converting entity to POJO: {}", e.getMessage(), e);
             throw new EntityMappingException("Failed to convert entity to POJO", e);
@@ -54,7 +74,7 @@ public class JacksonModelFactory implements EntityFactory {
             if (pojo == null) {
                 return null;
             }
-            return objectMapper.convertValue(pojo, entityClass);
+            return compiledMappers.convert(pojo, entityClass);
         } catch (Exception e) {
             logger.error("Error converting POJO to entity: {}", e.getMessage(), e);
             throw new EntityMappingException("Failed to convert POJO to entity", e);
@@ -62,13 +82,21 @@ public class JacksonModelFactory implements EntityFactory {
     }
 
     public <D, P> D patchEntity(P pojo, D entity) {
+        if (pojo == null || entity == null) {
+            return null;
+        }
+        patchEntityFields(pojo, entity);
+        return entity;
+    }
+
+    @Override
+    public <D, P> Set<String> patchEntityFields(P pojo, D entity) {
         try {
             if (pojo == null || entity == null) {
-                return null;
+                return Collections.emptySet();
             }
             // Merge only non-null fields into existing model
-            objectMapper.updateValue(entity, objectMapper.convertValue(pojo, Map.class));
-            return entity;
+            return compiledMappers.patch(pojo, entity);
         } catch (Exception e) {
             final String entityName = entity.getClass().getName();
             logger.error("Error patching {} entity: {}", entityName, e.getMessage(), e);
@@ -106,7 +134,7 @@ public class JacksonModelFactory implements EntityFactory {
             if (json == null || json.isBlank()) {
                 return Collections.emptyList();
             }
-            return objectMapper.readValue(json, objectMapper.getTypeFactory().constructCollectionType(List.class, targetClass));
+            return readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, targetClass)).readValue(json);
         } catch (Exception e) {
             logger.error("Failed to convert JSON string to List.", e);
             throw new EntityMappingException("Failed to convert JSON string to List.", e);
@@ -119,7 +147,7 @@ public class JacksonModelFactory implements EntityFactory {
             if (json == null || json.isBlank()) {
                 return null;
             }
-            return objectMapper.readValue(json, targetType);
+            return readerFor(objectMapper.constructType(targetType)).readValue(json);
         } catch (Exception e) {
             logger.error("Failed to convert JSON string to: {}", targetType.getSimpleName(), e);
             throw new EntityMappingException("Failed to convert JSON string to " + targetType.getSimpleName(), e);
@@ -132,7 +160,7 @@ public class JacksonModelFactory implements EntityFactory {
             if (object == null) {
                 return null;
             }
-            return objectMapper.writeValueAsString(object);
+            return objectWriter.writeValueAsString(object);
         } catch (Exception e) {
             logger.error("Error converting object to JSON string: {}", e.getMessage(), e);
             throw new EntityMappingException("Failed to convert object to JSON string", e);
@@ -145,7 +173,7 @@ public class JacksonModelFactory implements EntityFactory {
             if (entityList == null) {
                 return null;
             }
-            return objectMapper.writeValueAsString(entityList);
+            return objectWriter.writeValueAsString(entityList);
         } catch (Exception e) {
             logger.error("Failed to convert entity list to JSON string: {}", e.getMessage(), e);
             throw new EntityMappingException("Failed to convert entity list to JSON string", e);
@@ -154,21 +182,38 @@ public class JacksonModelFactory implements EntityFactory {
 
     @Override
     public ObjectMapper getObjectMapperForStreaming() {
+        return streamingObjectMapper;
+    }
+
+    private ObjectReader readerFor(JavaType type) {
+        return objectReaders.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    // Conversions and patches skip null properties, responses written by the shared mapper keep them
+    private static ObjectMapper createObjectMapperForConversions(ObjectMapper objectMapper) {
+        ObjectMapper mapper = objectMapper.copy();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
+    }
+
+    // Built once, a new mapper per stream would start with empty serializer caches every time
+    private static ObjectMapper createObjectMapperForStreaming(ObjectMapper objectMapper) {
 
-        ObjectMapper mapper = new ObjectMapper();
+        ObjectMapper mapper = objectMapper.copy();
         mapper.configure(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM, false);
         mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
         mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
-        JavaTimeModule javaTimeModule = new JavaTimeModule();
-        javaTimeModule.addDeserializer(LocalDateTime.class,
+        // A module of its own, the copy already has a JavaTimeModule and would ignore a second one
+        SimpleModule streamingDates = new SimpleModule("streaming-dates");
+        streamingDates.addDeserializer(LocalDateTime.class,
                 new LocalDateTimeDeserializer(
                         DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")
                 )
         );
 
-        mapper.registerModule(javaTimeModule);
+        mapper.registerModule(streamingDates);
         mapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
 
         return mapper;
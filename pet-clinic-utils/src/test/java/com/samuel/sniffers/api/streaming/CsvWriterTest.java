@@ -0,0 +1,49 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvWriterTest {
+
+    private final ObjectWriterCache objectWriters = new ObjectWriterCache(new ObjectMapper(new CsvFactory()));
+
+    private static final RowWriter<String[]> ROW = (row, generator) -> {
+        generator.writeStartObject();
+        generator.writeStringField("id", row[0]);
+        generator.writeStringField("name", row[1]);
+        generator.writeNumberField("amount", Integer.parseInt(row[2]));
+        generator.writeEndObject();
+    };
+
+    @Test
+    void writeRow_ShouldWriteSelectedColumnsInSchemaOrder() throws IOException {
+        CsvSchema schema = CsvSchema.builder().addColumn("amount").addColumn("name").build().withHeader();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (CsvWriter writer = new CsvWriter(objectWriters, schema, output, FlushPolicy.everyRecords(100))) {
+            writer.writeRow(new String[]{"1", "Rex", "3"}, ROW);
+            writer.writeRow(new String[]{"2", "Bones, \"the\" dog", "5"}, ROW);
+        }
+
+        assertThat(output.toString(StandardCharsets.UTF_8).lines())
+                .containsExactly("amount,name", "3,Rex", "5,\"Bones, \"\"the\"\" dog\"");
+    }
+
+    @Test
+    void close_ShouldWriteHeaderWithoutRows() throws IOException {
+        CsvSchema schema = CsvSchema.builder().addColumn("id").addColumn("name").build().withHeader();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new CsvWriter(objectWriters, schema, output, FlushPolicy.PER_RECORD).close();
+
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).containsExactly("id,name");
+    }
+}
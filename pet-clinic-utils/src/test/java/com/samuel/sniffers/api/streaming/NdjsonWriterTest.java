@@ -0,0 +1,105 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    @Test
+    void perRecordPolicy_ShouldFlushEveryRecord() throws IOException {
+        FlushCountingOutputStream output = new FlushCountingOutputStream();
+
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, output, FlushPolicy.PER_RECORD)) {
+            for (int i = 0; i < 10; i++) {
+                writer.write(Map.of("id", i));
+            }
+            assertThat(output.flushes).isEqualTo(10);
+        }
+
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).hasSize(10).startsWith("{\"id\":0}");
+    }
+
+    @Test
+    void recordPolicy_ShouldFlushEveryNRecordsAndOnClose() throws IOException {
+        FlushCountingOutputStream output = new FlushCountingOutputStream();
+
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, output, FlushPolicy.everyRecords(4))) {
+            for (int i = 0; i < 10; i++) {
+                writer.write(Map.of("id", i));
+            }
+            assertThat(output.flushes).isEqualTo(2);
+        }
+
+        assertThat(output.flushes).isEqualTo(3);
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).hasSize(10);
+    }
+
+    @Test
+    void bytePolicy_ShouldFlushOncePendingBytesReachTheLimit() throws IOException {
+        FlushCountingOutputStream output = new FlushCountingOutputStream();
+
+        // Every record is 9 bytes including the newline
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, output, FlushPolicy.everyBytes(20))) {
+            for (int i = 0; i < 9; i++) {
+                writer.write(Map.of("id", i));
+            }
+            assertThat(output.flushes).isEqualTo(3);
+            assertThat(output.size()).isEqualTo(81);
+        }
+    }
+
+    @Test
+    void intervalPolicy_ShouldFlushWhenTheIntervalPassed() throws IOException, InterruptedException {
+        FlushCountingOutputStream output = new FlushCountingOutputStream();
+
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, output, FlushPolicy.every(Duration.ofMillis(50)))) {
+            writer.write(Map.of("id", 1));
+            assertThat(output.flushes).isZero();
+
+            Thread.sleep(60);
+            writer.write(Map.of("id", 2));
+            assertThat(output.flushes).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void checkpoints_ShouldFollowEveryNRecordsWithAFlushedCheckpointLine() throws IOException {
+        FlushCountingOutputStream output = new FlushCountingOutputStream();
+
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, output, FlushPolicy.everyRecords(100))) {
+            Checkpoints checkpoints = new Checkpoints(writer, 2);
+            for (int i = 0; i < 5; i++) {
+                writer.write(Map.of("id", i));
+                checkpoints.written(String.valueOf(i));
+            }
+            assertThat(output.flushes).isEqualTo(2);
+        }
+
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).containsExactly(
+                "{\"id\":0}", "{\"id\":1}", "{\"checkpoint\":\"1\"}",
+                "{\"id\":2}", "{\"id\":3}", "{\"checkpoint\":\"3\"}",
+                "{\"id\":4}");
+    }
+
+    private static final class FlushCountingOutputStream extends ByteArrayOutputStream {
+
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.samuel.sniffers.api.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamFormatTest {
+
+    private static final RowWriter<Integer> ROW = (id, generator) -> {
+        generator.writeStartObject();
+        generator.writeNumberField("id", id);
+        generator.writeStringField("name", "row " + id);
+        generator.writeEndObject();
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    @Test
+    void fromAccept_ShouldPickTheBinaryFormatWithTheHighestQuality() {
+        assertThat(StreamFormat.fromAccept(null)).isEqualTo(StreamFormat.NDJSON);
+        assertThat(StreamFormat.fromAccept("*/*")).isEqualTo(StreamFormat.NDJSON);
+        assertThat(StreamFormat.fromAccept("application/json")).isEqualTo(StreamFormat.NDJSON);
+        assertThat(StreamFormat.fromAccept("application/x-jackson-smile")).isEqualTo(StreamFormat.SMILE);
+        assertThat(StreamFormat.fromAccept("application/x-jackson-smile;q=0.5, application/cbor")).isEqualTo(StreamFormat.CBOR);
+        assertThat(StreamFormat.fromAccept("application/cbor;q=0, application/x-ndjson")).isEqualTo(StreamFormat.NDJSON);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = StreamFormat.class, names = {"SMILE", "CBOR"})
+    void binaryFormats_ShouldWriteSelfContainedLengthPrefixedRecords(StreamFormat format) throws IOException {
+        ObjectMapper binaryMapper = format.mapper(objectMapper);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (RecordWriter writer = format.open(new ObjectWriterCache(binaryMapper), output, FlushPolicy.everyRecords(100))) {
+            assertThat(writer).isInstanceOf(LengthPrefixedWriter.class);
+            writer.write(Map.of("id", 1, "name", "row 1"));
+            writer.writeRow(2, ROW);
+            writer.writeCheckpoint("2");
+            writer.writeRow(3, ROW);
+        }
+
+        List<Map<?, ?>> records = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException end) {
+                    break;
+                }
+                // Each record is decoded with a fresh parser, without the records before it
+                records.add(binaryMapper.readValue(input.readNBytes(length), Map.class));
+            }
+        }
+
+        assertThat(records).containsExactly(
+                Map.of("id", 1, "name", "row 1"),
+                Map.of("id", 2, "name", "row 2"),
+                Map.of("checkpoint", "2"),
+                Map.of("id", 3, "name", "row 3"));
+    }
+
+    @Test
+    void ndjson_ShouldStillWriteOneDocumentPerLine() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (RecordWriter writer = StreamFormat.NDJSON.open(new ObjectWriterCache(objectMapper), output, FlushPolicy.PER_RECORD)) {
+            writer.writeRow(1, ROW);
+            writer.writeRow(2, ROW);
+        }
+
+        assertThat(output.toString()).isEqualTo("{\"id\":1,\"name\":\"row 1\"}\n{\"id\":2,\"name\":\"row 2\"}\n");
+    }
+}
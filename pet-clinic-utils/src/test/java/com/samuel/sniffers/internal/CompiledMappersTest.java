@@ -0,0 +1,233 @@
+package com.samuel.sniffers.internal;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.samuel.sniffers.api.factory.ObjectMapperFactory;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledMappersTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 678_000_000);
+
+    private ObjectMapper objectMapper;
+    private CompiledMappers compiledMappers;
+
+    @BeforeEach
+    void setUp() {
+        // Configured like the mapper of JacksonModelFactory
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        compiledMappers = new CompiledMappers(objectMapper);
+    }
+
+    @Test
+    void convert_ShouldMatchConvertValueForNestedBeans() {
+        TestBasket source = basket("Basket 1", "Item 1", "Item 2");
+        source.setNote(null);
+
+        assertThat(compiledMappers.isCompiled(TestBasket.class, TestBasketDTO.class)).isTrue();
+        assertThat(compiledMappers.isCompiled(TestItem.class, TestItemDTO.class)).isTrue();
+
+        TestBasketDTO compiled = compiledMappers.convert(source, TestBasketDTO.class);
+        TestBasketDTO converted = objectMapper.convertValue(source, TestBasketDTO.class);
+
+        assertThat(compiled).usingRecursiveComparison().isEqualTo(converted);
+        // The patterns round trip drops the nanoseconds, a null keeps the target default
+        assertThat(compiled.getCreated()).isEqualTo(CREATED.withNano(0));
+        assertThat(compiled.getNote()).isEqualTo("none");
+        assertThat(compiled.getOwnerToken()).isNull();
+        assertThat(compiled.getItems()).isInstanceOf(ArrayList.class)
+                .extracting(TestItemDTO::getDescription)
+                .containsExactlyInAnyOrder("Item 1", "Item 2");
+    }
+
+    @Test
+    void convert_ShouldCopyACollectionInsteadOfSharingIt() {
+        TestBasket source = basket("Basket 1", "Item 1");
+
+        TestBasket copy = compiledMappers.convert(source, TestBasket.class);
+
+        assertThat(copy.getItems()).isNotSameAs(source.getItems());
+        assertThat(copy.getItems().iterator().next()).isNotSameAs(source.getItems().iterator().next());
+        assertThat(copy).usingRecursiveComparison().isEqualTo(objectMapper.convertValue(source, TestBasket.class));
+    }
+
+    @Test
+    void convert_ShouldFallBackToConvertValueForUnsupportedPairs() {
+        assertThat(compiledMappers.isCompiled(TestItem.class, RenamedItemDTO.class)).isFalse();
+        assertThat(compiledMappers.isCompiled(TestBasket.class, TestItem.class)).isFalse();
+
+        TestItem item = new TestItem();
+        item.setDescription("Item 1");
+        item.setAmount(3);
+        assertThat(compiledMappers.convert(item, RenamedItemDTO.class).getText()).isEqualTo("Item 1");
+
+        // Unknown properties still fail the way convertValue fails
+        assertThatThrownBy(() -> compiledMappers.convert(basket("Basket 1"), TestItem.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void convert_ShouldKeepDatesAsTimestampsWhenTheMapperWritesThemAsText() {
+        CompiledMappers sharedMappers = new CompiledMappers(ObjectMapperFactory.create());
+        TestEvent source = new TestEvent();
+        source.setName("Basket 1");
+        source.setCreated(CREATED);
+
+        // The renamed property leaves this pair to the round trip, the date has a pattern on the target side only
+        assertThat(sharedMappers.isCompiled(TestEvent.class, PatternedBasketDTO.class)).isFalse();
+
+        PatternedBasketDTO converted = sharedMappers.convert(source, PatternedBasketDTO.class);
+        assertThat(converted.getLabel()).isEqualTo("Basket 1");
+        assertThat(converted.getCreated()).isEqualTo(CREATED);
+    }
+
+    @Test
+    void patch_ShouldMatchUpdateValueAndReportChangedFields() throws Exception {
+        TestItemPatch patch = new TestItemPatch();
+        patch.setDescription("Item 2");
+        patch.setAmount(6);
+
+        assertThat(compiledMappers.isPatchCompiled(TestItemPatch.class, TestItem.class)).isTrue();
+
+        TestItem compiled = item("Item 1", 6);
+        TestItem updated = objectMapper.updateValue(item("Item 1", 6), objectMapper.convertValue(patch, Map.class));
+
+        assertThat(compiledMappers.patch(patch, compiled)).containsExactly("description");
+        assertThat(compiled).usingRecursiveComparison().isEqualTo(updated);
+
+        // Null properties are skipped, equal values are not reported
+        patch.setDescription(null);
+        assertThat(compiledMappers.patch(patch, compiled)).isEmpty();
+        assertThat(compiled.getDescription()).isEqualTo("Item 2");
+    }
+
+    @Test
+    void patch_ShouldFallBackToUpdateValueForUnsupportedPairs() throws Exception {
+        RenamedItemDTO renamed = new RenamedItemDTO();
+        renamed.setText("Item 2");
+        TestItem item = item("Item 1", 3);
+
+        assertThat(compiledMappers.isPatchCompiled(RenamedItemDTO.class, TestItem.class)).isFalse();
+        assertThat(compiledMappers.patch(renamed, item)).containsExactly("description");
+        assertThat(item.getDescription()).isEqualTo("Item 2");
+        assertThat(compiledMappers.patch(renamed, item)).isEmpty();
+
+        // Unknown properties still fail the way updateValue fails
+        assertThatThrownBy(() -> compiledMappers.patch(basket("Basket 1"), item("Item 1", 3)))
+                .isInstanceOf(JsonMappingException.class);
+    }
+
+    private static TestItem item(String description, int amount) {
+        TestItem item = new TestItem();
+        item.setDescription(description);
+        item.setAmount(amount);
+        return item;
+    }
+
+    private static TestBasket basket(String name, String... descriptions) {
+        TestBasket basket = new TestBasket();
+        basket.setName(name);
+        basket.setCreated(CREATED);
+        basket.setOwnerToken("token");
+        for (String description : descriptions) {
+            TestItem item = new TestItem();
+            item.setDescription(description);
+            item.setAmount(description.length());
+            basket.getItems().add(item);
+        }
+        return basket;
+    }
+
+    @Getter
+    @Setter
+    static class TestBasket {
+        private String name;
+        private String note = "none";
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime created;
+        private String ownerToken;
+        private Set<TestItem> items = new HashSet<>();
+    }
+
+    @Getter
+    @Setter
+    static class TestItem {
+        private String description;
+        private int amount;
+        @JsonIgnore
+        private TestBasket basket;
+    }
+
+    @Getter
+    @Setter
+    static class TestBasketDTO {
+        private String name;
+        private String note = "none";
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime created;
+        @JsonIgnore
+        private String ownerToken;
+        private List<TestItemDTO> items;
+    }
+
+    @Getter
+    @Setter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class TestItemDTO {
+        private String description;
+        private Integer amount;
+    }
+
+    @Getter
+    @Setter
+    static class TestItemPatch {
+        private String description;
+        private Integer amount;
+    }
+
+    @Getter
+    @Setter
+    static class TestEvent {
+        private String name;
+        private LocalDateTime created;
+    }
+
+    @Getter
+    @Setter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class PatternedBasketDTO {
+        @JsonProperty("name")
+        private String label;
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime created;
+    }
+
+    @Getter
+    @Setter
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class RenamedItemDTO {
+        @JsonProperty("description")
+        private String text;
+    }
+}
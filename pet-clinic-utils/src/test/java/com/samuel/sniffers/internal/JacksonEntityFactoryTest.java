@@ -1,11 +1,14 @@
 package com.samuel.sniffers.internal;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.samuel.sniffers.api.exception.EntityMappingException;
+import com.samuel.sniffers.api.factory.ObjectMapperFactory;
 import org.junit.jupiter.api.BeforeEach;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -29,6 +32,17 @@ class JacksonEntityFactoryTest {
         modelFactory = new JacksonModelFactory();
     }
 
+    @Test
+    void shouldOnlySkipNullsInConversionsNotWithTheSharedMapper() throws Exception {
+        ObjectMapper sharedMapper = ObjectMapperFactory.create();
+        JacksonModelFactory sharedFactory = new JacksonModelFactory(sharedMapper);
+
+        assertThat(sharedMapper.writeValueAsString(new TestDTO("Test", null))).contains("\"value\":null");
+        assertThat(sharedFactory.convertToString(new TestDTO("Test", null))).doesNotContain("value");
+        assertThat(sharedFactory.patchEntity(new TestDTO(null, 2), new TestEntity("Test", 1)))
+                .isEqualTo(new TestEntity("Test", 2));
+    }
+
     @ParameterizedTest
     @MethodSource("entityToDtoDataProvider")
     void shouldConvertToDTO(TestEntity entity, String expectedName, Integer expectedValue) {